@@ -0,0 +1,175 @@
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+
+public class AsyncSocialNetwork {
+
+/**
+	OVERVIEW:
+	Facciata asincrona di una ReportSocialNetwork thread-safe: ogni operazione restituisce subito un
+	CompletableFuture completato con il risultato dell'operazione omonima della rete sociale oppure
+	eccezionalmente con l'eccezione da essa sollevata, il chiamante non si blocca mai.
+	Le operazioni sono associate ad una chiave (l'autore o utente per le operazioni su un utente, il post
+	per le operazioni su un post): operazioni con la stessa chiave sono eseguite una alla volta nell'ordine
+	di invio (casella di posta della chiave), operazioni con chiavi diverse in parallelo sul pool.
+	Le interrogazioni globali (containing, influencers, getMentionedUsers) non hanno chiave.
+	
+	ELEMENTO TIPICO:
+	<	rete, pool, { <chiave, ultima operazione inviata con chiave> , ...}	>
+	
+	AF =	<	this.rete, this.pool, this.code	>
+		  - una chiave è "u:" + username oppure "p:" + id
+	
+	RI =  this.rete ≠ null && this.pool ≠ null && this.code ≠ null
+		  &&  ∀ k ∈ this.code.keySet() . this.code.get(k) è la coda della catena di operazioni con chiave k
+			  (ogni operazione inizia dopo la terminazione della precedente con la stessa chiave)
+		  &&  ogni future in this.code.values() si completa sempre normalmente
+	NOTE: la casella di una chiave viene rimossa da this.code quando la sua ultima operazione termina.
+**/
+	
+	// operazione della rete sociale
+	private interface Operazione<T> {
+		T esegui() throws Exception;
+	}
+	
+	// rete sociale servita (thread-safe)
+	private final ReportSocialNetwork rete;
+	// pool su cui sono eseguite le operazioni
+	private final Executor pool;
+	// ultima operazione inviata per ogni chiave con operazioni in corso
+	private final Map<String, CompletableFuture<Void>> code;
+	
+	
+	// COSTRUTTORE: facciata su una ShardedSocialNetwork vuota eseguita sul pool comune
+	public AsyncSocialNetwork() {
+		this(new ShardedSocialNetwork(4 * Runtime.getRuntime().availableProcessors()), ForkJoinPool.commonPool());
+	}
+	// EFFECTS:		inizializza la facciata su una rete sociale vuota con 4 shard per processore
+	
+	// COSTRUTTORE
+	public AsyncSocialNetwork(ReportSocialNetwork rete, Executor pool) throws NullPointerException {
+		if(rete == null || pool == null) throw new NullPointerException();
+		this.rete = rete;
+		this.pool = pool;
+		this.code = new ConcurrentHashMap<String, CompletableFuture<Void>>();
+	}
+	// REQUIRES:	rete thread-safe (es. ShardedSocialNetwork, LeaderSocialNetwork)
+	// THROWS:		se rete = null o pool = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza la facciata sulla rete sociale specificata
+	
+	
+	// restituisce la rete sociale servita
+	public ReportSocialNetwork getNetwork() {
+		return this.rete;
+	}
+	// EFFECTS:		restituisce this.rete
+	
+	
+	/** [OPERAZIONI SU UN UTENTE] **********************************************************************************/
+	
+	public CompletableFuture<Void> createUserAsync(String username) {
+		return this.submit(AsyncSocialNetwork.userKey(username), () -> {this.rete.createUser(username); return null;});
+	}
+	
+	public CompletableFuture<Set<Post>> deleteUserAsync(String username) {
+		return this.submit(AsyncSocialNetwork.userKey(username), () -> this.rete.deleteUser(username));
+	}
+	
+	public CompletableFuture<Long> createPostAsync(String autore, String text) {
+		return this.submit(AsyncSocialNetwork.userKey(autore), () -> this.rete.createPost(autore, text));
+	}
+	
+	public CompletableFuture<Set<Post>> deleteAllPostAsync(String username) {
+		return this.submit(AsyncSocialNetwork.userKey(username), () -> this.rete.deleteAllPost(username));
+	}
+	
+	public CompletableFuture<List<Post>> writtenByAsync(String username) {
+		return this.submit(AsyncSocialNetwork.userKey(username), () -> this.rete.writtenBy(username));
+	}
+	// EFFECTS:		esegue l'operazione omonima della rete sociale nella casella dell'utente (o dell'autore)
+	
+	
+	/** [OPERAZIONI SU UN POST] ************************************************************************************/
+	
+	public CompletableFuture<Post> deletePostAsync(long id) {
+		return this.submit(AsyncSocialNetwork.postKey(id), () -> this.rete.deletePost(id));
+	}
+	
+	public CompletableFuture<Post> getPostAsync(long id) {
+		return this.submit(AsyncSocialNetwork.postKey(id), () -> this.rete.getPost(id));
+	}
+	
+	public CompletableFuture<Void> addLikeAsync(String username, long id) {
+		return this.submit(AsyncSocialNetwork.postKey(id), () -> {this.rete.addLike(username, id); return null;});
+	}
+	
+	public CompletableFuture<Void> removeLikeAsync(String username, long id) {
+		return this.submit(AsyncSocialNetwork.postKey(id), () -> {this.rete.removeLike(username, id); return null;});
+	}
+	
+	public CompletableFuture<Void> addReportAsync(String username, long id, ReportType type) {
+		return this.submit(AsyncSocialNetwork.postKey(id), () -> {this.rete.addReport(username, id, type); return null;});
+	}
+	// EFFECTS:		esegue l'operazione omonima della rete sociale nella casella del post
+	
+	
+	/** [INTERROGAZIONI GLOBALI] ***********************************************************************************/
+	
+	public CompletableFuture<List<Post>> containingAsync(List<String> words) {
+		return this.submit(null, () -> this.rete.containing(words));
+	}
+	
+	public CompletableFuture<List<String>> influencersAsync() {
+		return this.submit(null, () -> this.rete.influencers());
+	}
+	
+	public CompletableFuture<Set<String>> getMentionedUsersAsync() {
+		return this.submit(null, () -> this.rete.getMentionedUsers());
+	}
+	// EFFECTS:		esegue l'operazione omonima della rete sociale sul pool, senza casella
+	
+	
+	/** [CASELLE DI POSTA] *****************************************************************************************/
+	
+	// chiave della casella di un utente
+	private static String userKey(String username) {
+		return "u:" + username;
+	}
+	
+	// chiave della casella di un post
+	private static String postKey(long id) {
+		return "p:" + id;
+	}
+	
+	
+	// accoda l'operazione nella casella della chiave specificata
+	private <T> CompletableFuture<T> submit(String key, Operazione<T> op) {
+		CompletableFuture<T> risultato = new CompletableFuture<T>();
+		Runnable task = () -> {
+			try {risultato.complete(op.esegui());}
+			catch(Throwable e) {risultato.completeExceptionally(e);}
+		};
+		
+		if(key == null) {
+			this.pool.execute(task);
+			return risultato;
+		}
+		
+		// la nuova operazione diventa la coda della casella e parte quando termina la precedente
+		CompletableFuture<Void> turno = this.code.compute(key, (k, coda) ->
+			coda == null ? CompletableFuture.runAsync(task, this.pool) : coda.thenRunAsync(task, this.pool));
+		// casella vuota: viene rimossa se nel frattempo non sono state accodate altre operazioni
+		turno.whenComplete((x, e) -> this.code.remove(key, turno));
+		return risultato;
+	}
+	// MODIFIES:	this.code
+	// EFFECTS:		se key = null esegue op sul pool, altrimenti la esegue sul pool dopo la terminazione
+	//				dell'ultima operazione accodata con la stessa chiave;
+	//				restituisce un future completato con il risultato di op o con l'eccezione da essa sollevata
+
+}
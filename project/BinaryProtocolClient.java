@@ -0,0 +1,304 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.BufferOverflowException;
+import java.nio.channels.SocketChannel;
+
+
+public class BinaryProtocolClient {
+
+/**
+	OVERVIEW:
+	Client del protocollo binario di BinaryProtocolServer. Ogni operazione codifica la richiesta in un buffer
+	condiviso e restituisce subito un CompletableFuture, completato quando arriva la risposta con lo stesso
+	identificativo (pipelining). Un thread di scrittura invia in un'unica write tutte le richieste accodate
+	nel frattempo, un thread di lettura decodifica le risposte. Un esito diverso da OK completa il future
+	eccezionalmente con l'eccezione corrispondente (StatusCode.toException()).
+	Al più maxInFlight richieste possono essere in attesa di risposta: oltre tale limite le operazioni
+	si bloccano finché non arrivano risposte.
+	
+	RI =  this.canale ≠ null && this.attese ≠ null && this.finestra ≠ null && this.uscita ≠ null
+		  &&  ∀ id ∈ this.attese.keySet() . la richiesta id è stata accodata o inviata e la sua risposta non è ancora arrivata
+		  &&  this.uscita contiene solo frame di richiesta completi
+**/
+	
+	// richiesta in attesa di risposta
+	private static class Attesa<T> {
+		final CompletableFuture<T> futuro;
+		final Decoder<T> decoder;
+		
+		Attesa(Decoder<T> decoder) {
+			this.futuro = new CompletableFuture<T>();
+			this.decoder = decoder;
+		}
+		
+		void completa(ByteBuffer b) {
+			try {this.futuro.complete(this.decoder.decode(b));}
+			catch(Exception e) {this.futuro.completeExceptionally(e);}
+		}
+	}
+	
+	// decodifica del risultato di una risposta con esito OK
+	private interface Decoder<T> {
+		T decode(ByteBuffer b) throws Exception;
+	}
+	
+	// canale verso il server (bloccante)
+	private final SocketChannel canale;
+	// richieste in attesa di risposta per identificativo
+	private final Map<Integer, Attesa<?>> attese;
+	// permessi per le richieste in attesa di risposta
+	private final Semaphore finestra;
+	// richieste codificate non ancora inviate (in scrittura, accesso in synchronized(this))
+	private ByteBuffer uscita;
+	// prossimo identificativo di richiesta
+	private int prossima;
+	// true se il client è stato chiuso
+	private boolean chiuso;
+	
+	
+	// COSTRUTTORE: si connette al server
+	public BinaryProtocolClient(String host, int port, int maxInFlight) throws NullPointerException, IllegalArgumentException, IOException {
+		if(host == null) throw new NullPointerException();
+		if(maxInFlight <= 0) throw new IllegalArgumentException();
+		
+		this.canale = SocketChannel.open(new InetSocketAddress(host, port));
+		this.canale.socket().setTcpNoDelay(true);
+		this.attese = new ConcurrentHashMap<Integer, Attesa<?>>();
+		this.finestra = new Semaphore(maxInFlight);
+		this.uscita = ByteBuffer.allocate(64 * 1024);
+		this.prossima = 0;
+		this.chiuso = false;
+		
+		Thread writer = new Thread(this::write, "binary-protocol-writer");
+		writer.setDaemon(true);
+		writer.start();
+		Thread reader = new Thread(this::read, "binary-protocol-reader");
+		reader.setDaemon(true);
+		reader.start();
+	}
+	// THROWS:		se host = null lancia NullPointerException (unchecked)
+	//				se maxInFlight ≤ 0 lancia IllegalArgumentException (unchecked)
+	//				se la connessione fallisce lancia IOException (checked)
+	// EFFECTS:		connette il client al server e avvia i thread di scrittura e di lettura
+	
+	
+	// chiude la connessione, le richieste in attesa sono completate con IOException
+	public void close() {
+		synchronized(this) {
+			this.chiuso = true;
+			this.notifyAll();
+		}
+		try {this.canale.close();}
+		catch(IOException e) {}		// canale già chiuso
+		this.fail();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		chiude il canale e completa eccezionalmente le richieste in attesa di risposta
+	
+	
+	/** [OPERAZIONI] ***********************************************************************************************/
+	
+	public CompletableFuture<Void> createUser(String username) throws NullPointerException {
+		if(username == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_CREATE_USER, b -> BinaryProtocolServer.putString(b, username), b -> null);
+	}
+	
+	public CompletableFuture<Integer> deleteUser(String username) throws NullPointerException {
+		if(username == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_DELETE_USER, b -> BinaryProtocolServer.putString(b, username), b -> b.getInt());
+	}
+	
+	public CompletableFuture<Long> createPost(String autore, String text) throws NullPointerException {
+		if(autore == null || text == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_CREATE_POST, b -> {
+			BinaryProtocolServer.putString(b, autore);
+			BinaryProtocolServer.putString(b, text);
+		}, b -> b.getLong());
+	}
+	
+	public CompletableFuture<Void> deletePost(long id) {
+		return this.send(BinaryProtocolServer.OP_DELETE_POST, b -> b.putLong(id), b -> null);
+	}
+	
+	public CompletableFuture<Integer> deleteAllPost(String username) throws NullPointerException {
+		if(username == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_DELETE_ALL_POST, b -> BinaryProtocolServer.putString(b, username), b -> b.getInt());
+	}
+	
+	public CompletableFuture<Void> addLike(String username, long id) throws NullPointerException {
+		if(username == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_ADD_LIKE, b -> {
+			BinaryProtocolServer.putString(b, username);
+			b.putLong(id);
+		}, b -> null);
+	}
+	
+	public CompletableFuture<Void> removeLike(String username, long id) throws NullPointerException {
+		if(username == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_REMOVE_LIKE, b -> {
+			BinaryProtocolServer.putString(b, username);
+			b.putLong(id);
+		}, b -> null);
+	}
+	
+	public CompletableFuture<Void> addReport(String username, long id, ReportType type) throws NullPointerException {
+		if(username == null || type == null) throw new NullPointerException();
+		return this.send(BinaryProtocolServer.OP_ADD_REPORT, b -> {
+			BinaryProtocolServer.putString(b, username);
+			b.putLong(id);
+			b.put((byte)type.ordinal());
+		}, b -> null);
+	}
+	
+	public CompletableFuture<Post> getPost(long id) {
+		return this.send(BinaryProtocolServer.OP_GET_POST, b -> b.putLong(id), BinaryProtocolServer::getPost);
+	}
+	// THROWS:		se un argomento è null lancia NullPointerException (unchecked)
+	// EFFECTS:		accoda la richiesta dell'operazione omonima di ReportSocialNetwork e restituisce un future
+	//				completato con il risultato (deleteUser e deleteAllPost: numero di post eliminati,
+	//				getPost: copia del post) o eccezionalmente con l'eccezione sollevata dal server
+	
+	
+	/** [PIPELINING] ***********************************************************************************************/
+	
+	// codifica e accoda una richiesta
+	private <T> CompletableFuture<T> send(byte op, Consumer<ByteBuffer> args, Decoder<T> decoder) {
+		Attesa<T> attesa = new Attesa<T>(decoder);
+		this.finestra.acquireUninterruptibly();
+		
+		synchronized(this) {
+			if(this.chiuso) {
+				this.finestra.release();
+				attesa.futuro.completeExceptionally(new IOException("connessione chiusa"));
+				return attesa.futuro;
+			}
+			
+			int id = this.prossima++;
+			int inizio = this.uscita.position();
+			while(true) {
+				try {
+					this.uscita.putInt(0);
+					this.uscita.putInt(id);
+					this.uscita.put(op);
+					args.accept(this.uscita);
+					break;
+				}
+				catch(BufferOverflowException e) {
+					this.uscita.position(inizio);
+					this.uscita = BinaryProtocolServer.grow(this.uscita, this.uscita.capacity());
+				}
+				catch(IllegalArgumentException e) {
+					this.uscita.position(inizio);		// stringa troppo lunga: la richiesta non viene inviata
+					this.finestra.release();
+					attesa.futuro.completeExceptionally(e);
+					return attesa.futuro;
+				}
+			}
+			int len = this.uscita.position() - inizio - 4;
+			if(len > BinaryProtocolServer.MAX_FRAME) {
+				this.uscita.position(inizio);
+				this.finestra.release();
+				attesa.futuro.completeExceptionally(new IllegalArgumentException());
+				return attesa.futuro;
+			}
+			this.uscita.putInt(inizio, len);
+			this.attese.put(id, attesa);
+			if(inizio == 0) this.notifyAll();		// sveglia il thread di scrittura
+		}
+		return attesa.futuro;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		attende un permesso di this.finestra, accoda in this.uscita il frame della richiesta
+	//				e restituisce il future che sarà completato dalla risposta
+	
+	
+	// invia le richieste accodate finché il client non viene chiuso
+	private void write() {
+		ByteBuffer inviando = ByteBuffer.allocate(64 * 1024);
+		try {
+			while(true) {
+				synchronized(this) {
+					while(this.uscita.position() == 0 && !this.chiuso) this.wait();
+					if(this.chiuso) return;
+					// scambio dei buffer: le nuove richieste sono accodate mentre si invia il lotto corrente
+					ByteBuffer lotto = this.uscita;
+					this.uscita = inviando;
+					inviando = lotto;
+				}
+				inviando.flip();
+				while(inviando.hasRemaining()) this.canale.write(inviando);
+				inviando.clear();
+			}
+		}
+		catch(IOException e) {
+			this.close();		// connessione interrotta
+		}
+		catch(InterruptedException e) {
+			this.close();
+		}
+	}
+	
+	
+	// decodifica le risposte e completa i future corrispondenti finché la connessione non viene chiusa
+	private void read() {
+		ByteBuffer in = ByteBuffer.allocateDirect(BinaryProtocolServer.MAX_FRAME + 4);
+		try {
+			while(this.canale.read(in) >= 0) {
+				in.flip();
+				while(in.remaining() >= 4) {
+					int len = in.getInt(in.position());
+					if(len < 5 || len > BinaryProtocolServer.MAX_RESPONSE_FRAME) throw new IOException("frame non valido");
+					if(in.remaining() < 4 + len) {
+						// frame più lungo del buffer: il buffer cresce fino a contenerlo (al più MAX_RESPONSE_FRAME + 4 byte)
+						if(4 + len > in.capacity()) {
+							ByteBuffer nuovo = ByteBuffer.allocateDirect(Math.min(Math.max(2 * in.capacity(), 4 + len),
+								BinaryProtocolServer.MAX_RESPONSE_FRAME + 4));
+							nuovo.put(in);
+							nuovo.flip();
+							in = nuovo;
+						}
+						break;
+					}
+					
+					in.getInt();
+					int fine = in.position() + len;
+					int limite = in.limit();
+					in.limit(fine);
+					Attesa<?> attesa = this.attese.remove(in.getInt());
+					StatusCode esito = StatusCode.values()[in.get()];
+					if(attesa != null) {
+						this.finestra.release();
+						if(esito == StatusCode.OK) attesa.completa(in);
+						else attesa.futuro.completeExceptionally(esito.toException());
+					}
+					in.limit(limite);
+					in.position(fine);
+				}
+				in.compact();
+			}
+		}
+		catch(IOException e) {}		// connessione chiusa
+		finally {
+			this.close();
+		}
+	}
+	
+	
+	// completa eccezionalmente tutte le richieste in attesa di risposta
+	private void fail() {
+		for(Integer id : this.attese.keySet()) {
+			Attesa<?> attesa = this.attese.remove(id);
+			if(attesa != null) {
+				this.finestra.release();
+				attesa.futuro.completeExceptionally(new IOException("connessione chiusa"));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,476 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.BufferOverflowException;
+import java.nio.channels.Selector;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+
+public class BinaryProtocolServer {
+
+/**
+	OVERVIEW:
+	Front-end binario di una ReportSocialNetwork per client ad alto throughput. Un solo thread gestisce
+	tutte le connessioni tramite un Selector NIO non bloccante; i client possono inviare più richieste
+	senza attendere le risposte (pipelining), ogni risposta riporta l'identificativo della richiesta.
+	Le richieste lette in un giro del selettore sono eseguite come un unico lotto con una sola acquisizione
+	del monitor della rete sociale, le risposte sono accodate nei buffer delle connessioni e inviate insieme.
+	
+	FRAME:		[len:int][corpo: len byte]		(tutti gli interi big-endian)
+				len ≤ MAX_FRAME per le richieste, len ≤ MAX_RESPONSE_FRAME per le risposte: una risposta più lunga
+				(es. un post con moltissimi like) è sostituita dall'esito INTERNAL_ERROR senza risultato
+	RICHIESTA:	[id:int][op:byte][argomenti]
+	RISPOSTA:	[id:int][esito:byte][risultato se esito = OK]	con esito = StatusCode.ordinal()
+	STRINGA:	[n:unsigned short][n byte UTF-8]
+	POST:		[id:long][autore][text][data_pub:long][data_mod:long][n:int][n like]
+	
+	OPERAZIONI:	OP_CREATE_USER		user				->	-
+				OP_DELETE_USER		user				->	numero di post eliminati:int
+				OP_CREATE_POST		user, text			->	id del post:long
+				OP_DELETE_POST		id:long				->	-
+				OP_DELETE_ALL_POST	user				->	numero di post eliminati:int
+				OP_ADD_LIKE			user, id:long		->	-
+				OP_REMOVE_LIKE		user, id:long		->	-
+				OP_ADD_REPORT		user, id:long, type:byte (ReportType.ordinal())	->	-
+				OP_GET_POST			id:long				->	post
+	
+	RI =  this.rete ≠ null
+		  &&  (this.selector ≠ null) ⇔ (this.thread ≠ null)	// server avviato
+		  &&  this.rete è acceduta dal thread del server solo all'interno di synchronized(this.rete)
+**/
+	
+	// codici delle operazioni
+	public static final byte OP_CREATE_USER = 1;
+	public static final byte OP_DELETE_USER = 2;
+	public static final byte OP_CREATE_POST = 3;
+	public static final byte OP_DELETE_POST = 4;
+	public static final byte OP_DELETE_ALL_POST = 5;
+	public static final byte OP_ADD_LIKE = 6;
+	public static final byte OP_REMOVE_LIKE = 7;
+	public static final byte OP_ADD_REPORT = 8;
+	public static final byte OP_GET_POST = 9;
+	
+	// dimensione massima del corpo di un frame di richiesta
+	public static final int MAX_FRAME = 64 * 1024 - 4;
+	// dimensione massima del corpo di un frame di risposta (il client accresce il buffer di lettura fino a questo limite)
+	public static final int MAX_RESPONSE_FRAME = 16 * 1024 * 1024 - 4;
+	// byte di risposte in attesa di invio oltre i quali si smette di leggere richieste dalla connessione
+	private static final int MAX_PENDING = 1024 * 1024;
+	
+	// rete sociale servita
+	private final ReportSocialNetwork rete;
+	// selettore delle connessioni (null se non avviato), letto dal thread del selettore senza lock
+	private volatile Selector selector;
+	// thread del selettore (null se non avviato)
+	private Thread thread;
+	
+	
+	// COSTRUTTORE
+	public BinaryProtocolServer(ReportSocialNetwork rete) throws NullPointerException {
+		if(rete == null) throw new NullPointerException();
+		this.rete = rete;
+		this.selector = null;
+		this.thread = null;
+	}
+	// REQUIRES:	rete ≠ null, ogni altro accesso concorrente a rete avviene in synchronized(rete)
+	// THROWS:		se rete = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza un server non avviato per la rete sociale specificata
+	
+	
+	// avvia il server sulla porta specificata (0 = porta libera qualsiasi)
+	public synchronized int start(int port) throws IOException, IllegalStateException {
+		if(this.selector != null) throw new IllegalStateException();
+		
+		ServerSocketChannel server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port), 1024);
+		server.configureBlocking(false);
+		Selector selector = Selector.open();
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		
+		this.selector = selector;
+		this.thread = new Thread(() -> this.loop(selector), "binary-protocol-server");
+		this.thread.setDaemon(true);
+		this.thread.start();
+		return server.socket().getLocalPort();
+	}
+	// THROWS:		se il socket non può essere aperto lancia IOException (checked)
+	//				se il server è già avviato lancia IllegalStateException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		avvia il thread del selettore e restituisce la porta effettiva su cui è in ascolto
+	
+	
+	// arresta il server chiudendo tutte le connessioni
+	public synchronized void stop() {
+		if(this.selector == null) return;
+		Selector selector = this.selector;
+		this.selector = null;
+		selector.wakeup();
+		try {this.thread.join();}
+		catch(InterruptedException e) {Thread.currentThread().interrupt();}
+		this.thread = null;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		arresta il server (se avviato) ed attende la terminazione del thread del selettore
+	
+	
+	/** [CICLO DEL SELETTORE] **************************************************************************************/
+	
+	// connessione di un client
+	private static class Connessione {
+		final SocketChannel canale;
+		// byte ricevuti non ancora elaborati (in scrittura)
+		final ByteBuffer in;
+		// risposte non ancora inviate (in scrittura)
+		ByteBuffer out;
+		
+		Connessione(SocketChannel canale) {
+			this.canale = canale;
+			this.in = ByteBuffer.allocateDirect(MAX_FRAME + 4);
+			this.out = ByteBuffer.allocate(16 * 1024);
+		}
+	}
+	
+	// richiesta decodificata in attesa di esecuzione
+	private static class Richiesta {
+		final Connessione connessione;
+		final int id;
+		final byte op;
+		String user;
+		String text;
+		long post;
+		byte type;
+		// esito (null se la richiesta deve ancora essere eseguita) e risultato dell'esecuzione
+		StatusCode esito;
+		Object risultato;
+		
+		Richiesta(Connessione connessione, int id, byte op) {
+			this.connessione = connessione;
+			this.id = id;
+			this.op = op;
+		}
+	}
+	
+	
+	// esegue il ciclo del selettore fino all'arresto del server
+	private void loop(Selector selector) {
+		List<Richiesta> lotto = new ArrayList<Richiesta>();
+		Set<Connessione> pronte = new HashSet<Connessione>();
+		
+		try {
+			while(this.isRunning(selector)) {
+				selector.select();
+				
+				for(SelectionKey key : selector.selectedKeys()) {
+					try {
+						if(!key.isValid()) continue;
+						if(key.isAcceptable()) {
+							SocketChannel canale = ((ServerSocketChannel)key.channel()).accept();
+							if(canale == null) continue;
+							canale.configureBlocking(false);
+							canale.socket().setTcpNoDelay(true);
+							canale.register(selector, SelectionKey.OP_READ, new Connessione(canale));
+							continue;
+						}
+						Connessione c = (Connessione)key.attachment();
+						if(key.isReadable()) {
+							if(c.canale.read(c.in) < 0 || !BinaryProtocolServer.decode(c, lotto)) {
+								BinaryProtocolServer.close(key);
+								continue;
+							}
+						}
+						pronte.add(c);
+					}
+					catch(IOException e) {
+						BinaryProtocolServer.close(key);		// connessione interrotta dal client
+					}
+				}
+				selector.selectedKeys().clear();
+				
+				// esecuzione del lotto con una sola acquisizione del monitor della rete sociale
+				if(!lotto.isEmpty()) {
+					synchronized(this.rete) {
+						for(Richiesta r : lotto)
+							if(r.esito == null) this.execute(r);
+					}
+					for(Richiesta r : lotto)
+						BinaryProtocolServer.encode(r);
+					lotto.clear();
+				}
+				
+				for(Connessione c : pronte) {
+					SelectionKey key = c.canale.keyFor(selector);
+					try {
+						if(key != null && key.isValid()) BinaryProtocolServer.flush(c, key);
+					}
+					catch(IOException e) {
+						BinaryProtocolServer.close(key);
+					}
+				}
+				pronte.clear();
+			}
+		}
+		catch(IOException e) {}		// selettore non più utilizzabile: il server termina
+		finally {
+			for(SelectionKey key : selector.keys()) BinaryProtocolServer.close(key);
+			try {selector.close();}
+			catch(IOException e) {}
+		}
+	}
+	// MODIFIES:	this.rete
+	// EFFECTS:		accetta le connessioni, decodifica le richieste complete ricevute, le esegue in lotti
+	//				e invia le risposte, finché selector è il selettore del server avviato
+	
+	
+	// restituisce true se selector è il selettore del server avviato
+	private boolean isRunning(Selector selector) {
+		return this.selector == selector;
+	}
+	
+	
+	// chiude la connessione (o il socket di ascolto) associata alla chiave
+	private static void close(SelectionKey key) {
+		key.cancel();
+		try {key.channel().close();}
+		catch(IOException e) {}		// connessione già chiusa
+	}
+	
+	
+	// decodifica i frame completi ricevuti dalla connessione e li aggiunge al lotto
+	private static boolean decode(Connessione c, List<Richiesta> lotto) {
+		c.in.flip();
+		try {
+			while(c.in.remaining() >= 4) {
+				int len = c.in.getInt(c.in.position());
+				if(len < 5 || len > MAX_FRAME) return false;		// frame non valido: la connessione viene chiusa
+				if(c.in.remaining() < 4 + len) break;
+				
+				c.in.getInt();
+				int fine = c.in.position() + len;
+				int limite = c.in.limit();
+				c.in.limit(fine);
+				Richiesta r = new Richiesta(c, c.in.getInt(), c.in.get());
+				try {
+					switch(r.op) {
+						case OP_CREATE_USER:
+						case OP_DELETE_USER:
+						case OP_DELETE_ALL_POST:
+							r.user = BinaryProtocolServer.getString(c.in);
+							break;
+						case OP_CREATE_POST:
+							r.user = BinaryProtocolServer.getString(c.in);
+							r.text = BinaryProtocolServer.getString(c.in);
+							break;
+						case OP_DELETE_POST:
+						case OP_GET_POST:
+							r.post = c.in.getLong();
+							break;
+						case OP_ADD_LIKE:
+						case OP_REMOVE_LIKE:
+							r.user = BinaryProtocolServer.getString(c.in);
+							r.post = c.in.getLong();
+							break;
+						case OP_ADD_REPORT:
+							r.user = BinaryProtocolServer.getString(c.in);
+							r.post = c.in.getLong();
+							r.type = c.in.get();
+							break;
+						default:
+							r.esito = StatusCode.UNSUPPORTED_OPERATION;
+					}
+				}
+				catch(BufferUnderflowException e) {
+					r.esito = StatusCode.ILLEGAL_ARGUMENT;		// argomenti troncati
+				}
+				c.in.limit(limite);
+				c.in.position(fine);
+				lotto.add(r);
+			}
+		}
+		finally {
+			c.in.compact();
+		}
+		return true;
+	}
+	// MODIFIES:	c.in, lotto
+	// EFFECTS:		rimuove da c.in i frame completi aggiungendo a lotto le richieste corrispondenti,
+	//				restituisce false se c.in contiene un frame di lunghezza non valida
+	
+	
+	// esegue la richiesta sulla rete sociale
+	private void execute(Richiesta r) {
+		try {
+			switch(r.op) {
+				case OP_CREATE_USER:
+					r.esito = this.rete.tryCreateUser(r.user);
+					return;
+				case OP_DELETE_USER:
+					r.risultato = this.rete.deleteUser(r.user).size();
+					break;
+				case OP_CREATE_POST:
+					r.risultato = this.rete.createPost(r.user, r.text);
+					break;
+				case OP_DELETE_POST:
+					this.rete.deletePost(r.post);
+					break;
+				case OP_DELETE_ALL_POST:
+					r.risultato = this.rete.deleteAllPost(r.user).size();
+					break;
+				case OP_ADD_LIKE:
+					r.esito = this.rete.tryAddLike(r.user, r.post);
+					return;
+				case OP_REMOVE_LIKE:
+					r.esito = this.rete.tryRemoveLike(r.user, r.post);
+					return;
+				case OP_ADD_REPORT:
+					if(r.type < 0 || r.type >= ReportType.values().length) throw new IllegalArgumentException();
+					this.rete.addReport(r.user, r.post, ReportType.values()[r.type]);
+					break;
+				case OP_GET_POST:
+					r.risultato = this.rete.getPost(r.post);
+					break;
+			}
+			r.esito = StatusCode.OK;
+		}
+		catch(Exception e) {
+			r.esito = StatusCode.fromException(e);
+		}
+	}
+	// REQUIRES:	thread corrente nel monitor di this.rete
+	// MODIFIES:	this.rete, r
+	// EFFECTS:		esegue l'operazione r.op con gli argomenti di r, imposta r.esito e r.risultato
+	//				(createUser, addLike e removeLike con le varianti con esito, senza costruire eccezioni)
+	
+	
+	// accoda la risposta alla richiesta nel buffer di uscita della connessione
+	private static void encode(Richiesta r) {
+		Connessione c = r.connessione;
+		int inizio = c.out.position();
+		int len;
+		while(true) {
+			try {
+				c.out.putInt(0);
+				c.out.putInt(r.id);
+				c.out.put((byte)r.esito.ordinal());
+				if(r.esito == StatusCode.OK) {
+					if(r.risultato instanceof Integer) c.out.putInt((Integer)r.risultato);
+					else if(r.risultato instanceof Long) c.out.putLong((Long)r.risultato);
+					else if(r.risultato instanceof Post) BinaryProtocolServer.putPost(c.out, (Post)r.risultato);
+				}
+				len = c.out.position() - inizio - 4;
+				break;
+			}
+			catch(BufferOverflowException e) {
+				// buffer insufficiente: raddoppia e riscrive la risposta
+				c.out.position(inizio);
+				c.out = BinaryProtocolServer.grow(c.out, c.out.capacity());
+			}
+		}
+		if(len > MAX_RESPONSE_FRAME) {
+			// risposta oltre il limite del client: solo l'esito di errore
+			c.out.position(inizio);
+			c.out.putInt(5);
+			c.out.putInt(r.id);
+			c.out.put((byte)StatusCode.INTERNAL_ERROR.ordinal());
+			return;
+		}
+		c.out.putInt(inizio, len);
+	}
+	// MODIFIES:	r.connessione.out
+	// EFFECTS:		aggiunge a r.connessione.out il frame di risposta a r (con esito INTERNAL_ERROR e nessun
+	//				risultato se il corpo supererebbe MAX_RESPONSE_FRAME byte)
+	
+	
+	// invia le risposte accodate e aggiorna gli eventi di interesse della connessione
+	private static void flush(Connessione c, SelectionKey key) throws IOException {
+		c.out.flip();
+		c.canale.write(c.out);
+		boolean pendenti = c.out.hasRemaining();
+		c.out.compact();
+		
+		// con troppe risposte non inviate si smette di leggere richieste (il client rallenta)
+		if(c.out.position() > MAX_PENDING) key.interestOps(SelectionKey.OP_WRITE);
+		else key.interestOps(SelectionKey.OP_READ | (pendenti ? SelectionKey.OP_WRITE : 0));
+	}
+	// THROWS:		se la connessione è interrotta lancia IOException (checked)
+	// MODIFIES:	c.out, key
+	// EFFECTS:		scrive sul canale quanto possibile di c.out, registra OP_WRITE se restano byte da inviare
+	//				e OP_READ se i byte rimasti non superano MAX_PENDING
+	
+	
+	/** [CODIFICA] *************************************************************************************************/
+	
+	// restituisce un buffer di capacità almeno b.capacity() + n con il contenuto di b
+	protected static ByteBuffer grow(ByteBuffer b, int n) {
+		ByteBuffer nuovo = ByteBuffer.allocate(Math.max(2 * b.capacity(), b.capacity() + n));
+		b.flip();
+		nuovo.put(b);
+		return nuovo;
+	}
+	// REQUIRES:	b in scrittura
+	// EFFECTS:		restituisce un nuovo buffer in scrittura contenente i byte di b[0, b.position())
+	
+	
+	// scrive una stringa nel buffer
+	protected static void putString(ByteBuffer b, String s) throws IllegalArgumentException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		if(bytes.length > 0xFFFF) throw new IllegalArgumentException();
+		b.putShort((short)bytes.length);
+		b.put(bytes);
+	}
+	// THROWS:		se la codifica UTF-8 di s supera 65535 byte lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	b
+	// EFFECTS:		scrive in b la lunghezza e i byte UTF-8 di s
+	
+	
+	// legge una stringa dal buffer
+	protected static String getString(ByteBuffer b) throws BufferUnderflowException {
+		int n = b.getShort() & 0xFFFF;
+		if(b.remaining() < n) throw new BufferUnderflowException();
+		byte[] bytes = new byte[n];
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	// THROWS:		se b non contiene una stringa completa lancia BufferUnderflowException (unchecked)
+	// MODIFIES:	b
+	// EFFECTS:		legge da b una stringa scritta da putString e la restituisce
+	
+	
+	// scrive un post nel buffer
+	protected static void putPost(ByteBuffer b, Post p) {
+		b.putLong(p.getId());
+		BinaryProtocolServer.putString(b, p.getAutore());
+		BinaryProtocolServer.putString(b, p.getText());
+		b.putLong(p.getDataPub());
+		b.putLong(p.getDataMod());
+		Set<String> likes = p.getLikes();
+		b.putInt(likes.size());
+		for(String user : likes) BinaryProtocolServer.putString(b, user);
+	}
+	// MODIFIES:	b
+	// EFFECTS:		scrive in b il post p nel formato POST
+	
+	
+	// legge un post dal buffer
+	protected static Post getPost(ByteBuffer b) throws Exception {
+		long id = b.getLong();
+		String autore = BinaryProtocolServer.getString(b);
+		String text = BinaryProtocolServer.getString(b);
+		long data_pub = b.getLong();
+		long data_mod = b.getLong();
+		Post p = new Post(id, autore, text, data_pub, data_mod);
+		for(int n = b.getInt(); n > 0; n--) p.addLike(BinaryProtocolServer.getString(b));
+		return p;
+	}
+	// THROWS:		se b non contiene un post valido lancia l'eccezione corrispondente
+	// MODIFIES:	b
+	// EFFECTS:		legge da b un post scritto da putPost e ne restituisce una copia
+
+}
@@ -0,0 +1,243 @@
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.EnumSet;
+import java.util.Arrays;
+
+
+public class Blocklist {
+
+/**
+	OVERVIEW:
+	Tipo di dato immutabile che rappresenta una lista di termini vietati, ognuno associato al tipo di segnalazione
+	(ReportType) da applicare ai testi che lo contengono. I termini sono compilati in un automa di Aho-Corasick:
+	un trie dei termini con i collegamenti di fallimento (il più lungo suffisso proprio dello stato che è anche
+	prefisso di un termine) e di dizionario (il più lungo suffisso proprio che è un termine), così che scan(text)
+	esamina ogni carattere del testo una sola volta in tempo O(|text| + occorrenze) indipendentemente dal numero
+	di termini, invece di una espressione regolare per termine (o dell'alternativa di tutti i termini, come in
+	SocialNetwork.wordsPattern, che prova ogni termine ad ogni posizione del testo).
+	Come in containing, il confronto ignora maiuscole e minuscole (carattere per carattere) e un termine compare
+	nel testo solo come parola intera: i caratteri adiacenti all'occorrenza non sono lettere, cifre o '_'
+	(o il termine inizia/finisce con un carattere che non lo è). Essendo immutabile, una Blocklist può essere
+	letta da più thread senza sincronizzazione e sostituita con un solo assegnamento di riferimento.
+	
+	ELEMENTO TIPICO:	{ <termine_1, tipo_1>, ..., <termine_n, tipo_n> }   (termini in minuscolo, distinti)
+	
+	AF =	{ <this.termini[t], ReportType.values()[this.tipi[t]]> | 0 ≤ t < this.termini.length }
+	
+	RI =  this.termini, this.tipi ≠ null && this.termini.length = this.tipi.length
+		  &&  lo stato 0 è la radice del trie, gli stati sono numerati in ordine di ampiezza
+		  &&  (∀ s . i figli di s sono this.figli[this.inizio[s] .. this.inizio[s+1]), con etichette
+			  this.etichette[...] strettamente crescenti) && this.radice[c] = figlio della radice con etichetta c (o 0)
+		  &&  this.fallimento[s] = stato del più lungo suffisso proprio di s che è prefisso di un termine (0 per la radice)
+		  &&  this.uscita[s] = t se s è lo stato di this.termini[t], -1 altrimenti
+		  &&  this.dizionario[s] = stato del più lungo suffisso proprio di s con uscita ≥ 0, -1 se non esiste
+**/
+	
+	// termini (in minuscolo) e ordinale del tipo di segnalazione di ogni termine
+	private final String[] termini;
+	private final byte[] tipi;
+	// trie in forma compressa: figli dello stato s con etichette crescenti in [inizio[s], inizio[s+1])
+	private final int[] inizio;
+	private final char[] etichette;
+	private final int[] figli;
+	// transizioni della radice indicizzate per carattere (0 = nessun figlio)
+	private final int[] radice;
+	// collegamenti di fallimento e di dizionario, termine che termina in ogni stato
+	private final int[] fallimento;
+	private final int[] dizionario;
+	private final int[] uscita;
+	
+	
+	// COSTRUTTORE: compila l'automa dei termini specificati
+	public Blocklist(Map<String, ReportType> terms) throws NullPointerException, IllegalArgumentException {
+		// termini in minuscolo (a parità di termine vale il tipo con ordinale minore)
+		HashMap<String, ReportType> minuscoli = new HashMap<String, ReportType>();
+		for(Map.Entry<String, ReportType> e : terms.entrySet()) {
+			if(e.getKey() == null || e.getValue() == null) throw new NullPointerException();
+			if(e.getKey().length() == 0) throw new IllegalArgumentException();
+			minuscoli.merge(Blocklist.minuscolo(e.getKey()), e.getValue(), (a, b) -> (a.ordinal() <= b.ordinal()) ? a : b);
+		}
+		this.termini = minuscoli.keySet().toArray(new String[0]);
+		Arrays.sort(this.termini);
+		this.tipi = new byte[this.termini.length];
+		for(int t=0; t<this.termini.length; t++)
+			this.tipi[t] = (byte)minuscoli.get(this.termini[t]).ordinal();
+		
+		// trie provvisorio: <stato, carattere> --> figlio (stati numerati in ordine di creazione)
+		HashMap<Long, Integer> archi = new HashMap<Long, Integer>();
+		int stati = 1;
+		int[] stato_termine = new int[this.termini.length];
+		for(int t=0; t<this.termini.length; t++) {
+			int s = 0;
+			for(int i=0; i<this.termini[t].length(); i++) {
+				long chiave = ((long)s << 16) | this.termini[t].charAt(i);
+				Integer figlio = archi.get(chiave);
+				if(figlio == null) {
+					figlio = stati++;
+					archi.put(chiave, figlio);
+				}
+				s = figlio;
+			}
+			stato_termine[t] = s;
+		}
+		int[] termine = new int[stati];
+		Arrays.fill(termine, -1);
+		for(int t=0; t<this.termini.length; t++)
+			termine[stato_termine[t]] = t;
+		
+		// archi provvisori ordinati per <stato, carattere>
+		long[] ordinati = new long[archi.size()];
+		int k = 0;
+		for(long chiave : archi.keySet())
+			ordinati[k++] = chiave;
+		Arrays.sort(ordinati);
+		
+		// rinumerazione in ordine di ampiezza: i figli di ogni stato diventano contigui
+		this.inizio = new int[stati + 1];
+		this.etichette = new char[ordinati.length];
+		this.figli = new int[ordinati.length];
+		this.uscita = new int[stati];
+		int[] coda = new int[stati];
+		int testa = 0, fine = 1, archi_scritti = 0;
+		coda[0] = 0;
+		while(testa < fine) {
+			int vecchio = coda[testa];
+			this.uscita[testa] = termine[vecchio];
+			this.inizio[testa] = archi_scritti;
+			// archi del vecchio stato: intervallo di ordinati con (chiave >> 16) = vecchio
+			int a = Blocklist.primoArco(ordinati, vecchio);
+			for(; a < ordinati.length && (ordinati[a] >>> 16) == vecchio; a++) {
+				this.etichette[archi_scritti] = (char)ordinati[a];
+				this.figli[archi_scritti++] = fine;
+				coda[fine++] = archi.get(ordinati[a]);
+			}
+			testa++;
+		}
+		this.inizio[stati] = archi_scritti;
+		
+		this.radice = new int[Character.MAX_VALUE + 1];
+		for(int a=this.inizio[0]; a<this.inizio[1]; a++)
+			this.radice[this.etichette[a]] = this.figli[a];
+		
+		// collegamenti di fallimento e di dizionario in ordine di ampiezza (il fallimento di s precede s)
+		this.fallimento = new int[stati];
+		this.dizionario = new int[stati];
+		this.dizionario[0] = -1;
+		for(int s=0; s<stati; s++) {
+			for(int a=this.inizio[s]; a<this.inizio[s+1]; a++) {
+				int figlio = this.figli[a];
+				int f = (s == 0) ? 0 : this.passo(this.fallimento[s], this.etichette[a]);
+				this.fallimento[figlio] = f;
+				this.dizionario[figlio] = (this.uscita[f] >= 0) ? f : this.dizionario[f];
+			}
+		}
+	}
+	// THROWS:		se terms = null o contiene un termine o un tipo nullo lancia NullPointerException (unchecked)
+	//				se terms contiene un termine vuoto lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this con i termini di terms convertiti in minuscolo, ognuno con il proprio tipo
+	//				(se più termini coincidono in minuscolo vale il tipo con ordinale minore),
+	//				in tempo O(Σ |termine| log) e spazio O(Σ |termine|)
+	
+	
+	// [OSSERVATORE] restituisce il numero di termini
+	public int size() {
+		return this.termini.length;
+	}
+	// EFFECTS:		restituisce #AF(this)
+	
+	
+	// [OSSERVATORE] restituisce il numero di stati dell'automa
+	public int getStates() {
+		return this.fallimento.length;
+	}
+	// EFFECTS:		restituisce il numero di prefissi distinti dei termini (radice compresa)
+	
+	
+	// [OSSERVATORE] restituisce il tipo di segnalazione di un termine
+	public ReportType getType(String term) throws NullPointerException {
+		int t = Arrays.binarySearch(this.termini, Blocklist.minuscolo(term));
+		return (t < 0) ? null : ReportType.values()[this.tipi[t]];
+	}
+	// THROWS:		se term = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce il tipo associato a term (in minuscolo) se term ∈ AF(this), null altrimenti
+	
+	
+	// [OSSERVATORE] restituisce i tipi di segnalazione dei termini contenuti in un testo
+	public Set<ReportType> scan(String text) throws NullPointerException {
+		int maschera = 0;
+		int s = 0;
+		int n = text.length();
+		for(int i=0; i<n; i++) {
+			s = this.passo(s, Character.toLowerCase(text.charAt(i)));
+			// termini che terminano in i: lo stato stesso e i suoi collegamenti di dizionario
+			for(int o = (this.uscita[s] >= 0) ? s : this.dizionario[s]; o >= 0; o = this.dizionario[o]) {
+				int t = this.uscita[o];
+				if(Blocklist.confine(text, i + 1 - this.termini[t].length()) && Blocklist.confine(text, i + 1))
+					maschera |= 1 << this.tipi[t];
+			}
+		}
+		EnumSet<ReportType> tipi = EnumSet.noneOf(ReportType.class);
+		for(ReportType tipo : ReportType.values())
+			if((maschera & (1 << tipo.ordinal())) != 0) tipi.add(tipo);
+		return tipi;
+	}
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce in tempo O(|text| + occorrenze) l'insieme (modificabile, nuovo) dei tipi dei termini
+	//				di AF(this) che compaiono in text come parole intere, ignorando maiuscole e minuscole
+	
+	
+	// restituisce lo stato raggiunto leggendo un carattere dallo stato specificato
+	private int passo(int s, char c) {
+		while(s != 0) {
+			// ricerca binaria tra le etichette dei figli di s
+			int basso = this.inizio[s], alto = this.inizio[s+1] - 1;
+			while(basso <= alto) {
+				int medio = (basso + alto) >>> 1;
+				if(this.etichette[medio] < c) basso = medio + 1;
+				else if(this.etichette[medio] > c) alto = medio - 1;
+				else return this.figli[medio];
+			}
+			s = this.fallimento[s];
+		}
+		return this.radice[c];
+	}
+	// REQUIRES:	0 ≤ s < this.getStates()
+	// EFFECTS:		restituisce lo stato del più lungo suffisso di (stringa di s) + c che è prefisso di un termine
+	
+	
+	// restituisce la prima posizione in ordinati di un arco uscente dallo stato specificato
+	private static int primoArco(long[] ordinati, int s) {
+		int i = Arrays.binarySearch(ordinati, (long)s << 16);
+		return (i < 0) ? -i - 1 : i;
+	}
+	// REQUIRES:	ordinati ≠ null ordinato in modo crescente
+	// EFFECTS:		restituisce il minimo i tale che ordinati[i] ≥ s << 16 (ordinati.length se non esiste)
+	
+	
+	// restituisce true SSE tra il carattere in posizione i-1 e quello in posizione i di text c'è un confine di parola
+	private static boolean confine(String text, int i) {
+		return i <= 0 || i >= text.length() || !Blocklist.parola(text.charAt(i - 1)) || !Blocklist.parola(text.charAt(i));
+	}
+	// REQUIRES:	text ≠ null
+	// EFFECTS:		restituisce true SSE i ≤ 0 || i ≥ |text| || uno dei caratteri text[i-1], text[i] non è di parola
+	
+	
+	// restituisce true SSE il carattere può far parte di una parola
+	private static boolean parola(char c) {
+		return Character.isLetterOrDigit(c) || c == '_';
+	}
+	// EFFECTS:		restituisce true SSE c è una lettera, una cifra o '_'
+	
+	
+	// converte una stringa in minuscolo carattere per carattere (stessa conversione applicata ai testi)
+	private static String minuscolo(String s) {
+		char[] c = s.toCharArray();
+		for(int i=0; i<c.length; i++)
+			c[i] = Character.toLowerCase(c[i]);
+		return new String(c);
+	}
+	// THROWS:		se s = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce s con ogni carattere convertito con Character.toLowerCase (stessa lunghezza)
+
+}
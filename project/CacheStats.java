@@ -0,0 +1,78 @@
+
+
+public class CacheStats {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta le statistiche di una cache in un certo istante:
+	richieste soddisfatte (hit) e non soddisfatte (miss), elementi espulsi o invalidati, occupazione e capacità.
+	
+	ELEMENTO TIPICO:	<hit, miss, espulsioni, invalidazioni, elementi, capacità>
+	
+	AF =	<this.hits, this.misses, this.evictions, this.invalidations, this.size, this.capacity>
+	
+	RI =  this.hits ≥ 0 && this.misses ≥ 0 && this.evictions ≥ 0 && this.invalidations ≥ 0
+		  &&  0 ≤ this.size ≤ this.capacity
+**/
+	
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long invalidations;
+	private final int size;
+	private final int capacity;
+	
+	
+	// COSTRUTTORE
+	protected CacheStats(long hits, long misses, long evictions, long invalidations, int size, int capacity) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.invalidations = invalidations;
+		this.size = size;
+		this.capacity = capacity;
+	}
+	// REQUIRES:	valori che rispettano RI
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	public long getHits() {
+		return this.hits;
+	}
+	
+	public long getMisses() {
+		return this.misses;
+	}
+	
+	public long getEvictions() {
+		return this.evictions;
+	}
+	
+	public long getInvalidations() {
+		return this.invalidations;
+	}
+	
+	public int getSize() {
+		return this.size;
+	}
+	
+	public int getCapacity() {
+		return this.capacity;
+	}
+	// EFFECTS:		restituisce il campo omonimo di this
+	
+	// restituisce la frazione di richieste soddisfatte dalla cache
+	public double getHitRate() {
+		long richieste = this.hits + this.misses;
+		return richieste == 0 ? 0 : (double)this.hits / richieste;
+	}
+	// EFFECTS:		restituisce this.hits / (this.hits + this.misses), 0 se non ci sono state richieste
+	
+	
+	public String toString() {
+		return String.format("hit %d, miss %d (hit rate %.1f%%), espulsioni %d, invalidazioni %d, elementi %d/%d",
+			this.hits, this.misses, 100 * this.getHitRate(), this.evictions, this.invalidations, this.size, this.capacity);
+	}
+	// EFFECTS:		restituisce una stringa che rappresenta this
+
+}
@@ -0,0 +1,141 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+
+public class CachingSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork che memorizza i risultati delle
+	interrogazioni containing(words) in una ContainingCache limitata: una stessa interrogazione (a meno di
+	ordine, ripetizioni e maiuscole delle parole) ripetuta senza modifiche rilevanti non riesamina i testi
+	dei post. In cache restano solo gli id dei post: like e date sono sempre letti dai post attuali.
+	La cache è aggiornata dagli hook: la creazione, la modifica del testo (testo precedente e nuovo) e la
+	rimozione di un post invalidano solo le interrogazioni con una parola contenuta nel testo del post;
+	l'aggiunta o la rimozione di like non invalida nulla.
+	
+	ELEMENTO TIPICO:	come in ReportSocialNetwork
+	
+	AF =	AF(ReportSocialNetwork)
+	
+	RI =  RI(ReportSocialNetwork) && this.cache ≠ null
+		  &&  (∀ <k, ids> ∈ this.cache ==> ids = id ordinati dei post p ∈ this.index.values()
+				  con SocialNetwork.wordsPattern(parole di k) che trova p.getText().toLowerCase())
+**/
+	
+	// capacità predefinita della cache (numero di interrogazioni)
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	// risultati delle interrogazioni containing
+	private final ContainingCache cache;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con cache di capacità predefinita
+	public CachingSocialNetwork() {
+		this(CachingSocialNetwork.DEFAULT_CAPACITY);
+	}
+	// EFFECTS:		inizializza this come ReportSocialNetwork() con cache vuota di DEFAULT_CAPACITY interrogazioni
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con cache della capacità specificata
+	public CachingSocialNetwork(int capacita) throws IllegalArgumentException {
+		super();
+		this.cache = new ContainingCache(capacita);
+	}
+	// THROWS:		se capacita ≤ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this come ReportSocialNetwork() con cache vuota di capacita interrogazioni
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale derivata da una lista di post con cache della capacità specificata
+	public CachingSocialNetwork(List<Post> ps, int capacita)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, DuplicatePostException {
+		super(ps);
+		this.cache = new ContainingCache(capacita);
+	}
+	// THROWS:		come ReportSocialNetwork(ps)
+	//				se capacita ≤ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this come ReportSocialNetwork(ps) con cache vuota di capacita interrogazioni
+	
+	
+	// [OSSERVATORE] restituisce la lista dei post che includono almeno una delle parole presenti nella lista
+	public List<Post> containing(List<String> words) throws NullPointerException {
+		long[] ids = this.lookup(words); // propaga eventuali eccezioni
+		
+		ArrayList<Post> lista = new ArrayList<Post>(ids.length);
+		for(long id : ids)
+			lista.add((Post)this.index.get(id).clone());
+		return lista;
+	}
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	// MODIFIES:	this.cache
+	// EFFECTS:		come SocialNetwork.containing(words), con i post in ordine crescente di id
+	
+	
+	// [OSSERVATORE] restituisce una pagina dei post che includono almeno una delle parole in ordine crescente di id
+	public Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		long after = Page.afterId(cursor);
+		long[] ids = this.lookup(words);
+		
+		// primo id successivo al cursore
+		int i = Arrays.binarySearch(ids, after);
+		i = (i >= 0) ? i + 1 : -i - 1;
+		
+		ArrayList<Post> trovati = new ArrayList<Post>();
+		for(; i < ids.length && trovati.size() <= limit; i++)
+			trovati.add(this.index.get(ids[i]));
+		return Page.ofPosts(trovati, limit);
+	}
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	//				se limit ≤ 0 o cursor non valido lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this.cache
+	// EFFECTS:		come SocialNetwork.containing(words, cursor, limit)
+	
+	
+	// restituisce le statistiche della cache delle interrogazioni
+	public CacheStats getCacheStats() {
+		return this.cache.getStats();
+	}
+	// EFFECTS:		restituisce hit, miss, espulsioni, invalidazioni e occupazione della cache di containing
+	
+	
+	// restituisce gli id ordinati dei post che contengono almeno una parola, dalla cache o dalla scansione dei post
+	private long[] lookup(List<String> words) throws NullPointerException {
+		String key = ContainingCache.key(words); // propaga eventuali eccezioni
+		long[] ids = this.cache.get(key);
+		if(ids != null) return ids;
+		
+		Pattern pattern = SocialNetwork.wordsPattern(words);
+		long[] trovati = new long[16];
+		int n = 0;
+		for(Post p : this.index.values()) {
+			if(pattern.matcher(p.getText().toLowerCase()).find()) {
+				if(n == trovati.length) trovati = Arrays.copyOf(trovati, 2 * n);
+				trovati[n++] = p.getId();
+			}
+		}
+		ids = Arrays.copyOf(trovati, n);
+		this.cache.put(key, ids);
+		return ids;
+	}
+	
+	
+	/** [HOOK] ******************************************************************************************************************/
+	
+	protected void onPostAdded(Post p) {
+		this.cache.invalidate(p.getText());
+	}
+	
+	protected void onPostRemoved(Post p) {
+		this.cache.invalidate(p.getText());
+	}
+	
+	protected void onTextChanged(Post p, String testo_precedente) {
+		this.cache.invalidate(testo_precedente);
+		this.cache.invalidate(p.getText());
+	}
+
+}
@@ -0,0 +1,361 @@
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+public class CdcSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork thread-safe che pubblica ogni modifica
+	andata a buon fine (change data capture) in un ChangeRing: i servizi a valle (ricerca, notifiche, statistiche)
+	vi registrano un lettore e consumano le modifiche al proprio ritmo invece di interrogare la rete sociale.
+	Le modifiche sono serializzate dal turno di scrittura, che fa di chi lo detiene l'unico produttore del ChangeRing:
+	ogni modificatore esegue la modifica sotto il lock di this e, dopo averlo rilasciato, la scrive direttamente nella
+	cella preallocata successiva del ChangeRing (senza allocare eventi né accodarli), quindi le modifiche sono
+	pubblicate nell'ordine di esecuzione e quelle in attesa di pubblicazione sono al più quella del turno corrente.
+	La pubblicazione attende solo se un lettore è indietro di un intero buffer, e in quel caso attendono i
+	modificatori (fermi sul turno) ma non le letture: un lettore può interrogare la rete sociale durante la lettura
+	delle modifiche, e può modificarla solo se non è indietro di un intero buffer (attenderebbe se stesso).
+	L'eliminazione di un utente o di tutti i suoi post è pubblicata come un'unica modifica (DELETE_USER,
+	DELETE_ALL_POST) che implica la rimozione dei post, dei like e dei follower coinvolti.
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork,
+		buffer delle modifiche	>
+	
+	AF =	<	AF(ReportSocialNetwork), AF(this.modifiche)	>
+	
+	RI =  RI(ReportSocialNetwork) && this.modifiche ≠ null && this.produttore ≠ null
+		  &&  le modifiche di this andate a buon fine, nell'ordine di esecuzione, sono quelle pubblicate in
+			  this.modifiche seguite al più da quella del thread che detiene this.produttore
+**/
+	
+	// buffer in cui sono pubblicate le modifiche
+	private final ChangeRing modifiche;
+	// turno di scrittura: il solo thread che lo detiene modifica la rete sociale ed è il produttore di this.modifiche
+	private final ReentrantLock produttore;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con buffer delle modifiche di capacità predefinita
+	public CdcSocialNetwork() {
+		this(ChangeRing.DEFAULT_CAPACITY);
+	}
+	// EFFECTS:		inizializza this come CdcSocialNetwork(ChangeRing.DEFAULT_CAPACITY)
+	
+	// COSTRUTTORE
+	public CdcSocialNetwork(int capacity) throws IllegalArgumentException {
+		super();
+		this.modifiche = new ChangeRing(capacity);
+		this.produttore = new ReentrantLock();
+	}
+	// THROWS:		se capacity non è una potenza di 2 positiva lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza la rete sociale vuota con un ChangeRing di capacity celle
+	
+	
+	/** [LETTORI DELLE MODIFICHE] **********************************************************************************/
+	
+	// registra un lettore delle modifiche eseguite da ora in poi
+	public ChangeRing.Reader subscribe() {
+		return this.modifiche.subscribe();
+	}
+	// MODIFIES:	this.modifiche
+	// EFFECTS:		restituisce this.modifiche.subscribe()
+	
+	// restituisce la sequenza dell'ultima modifica pubblicata
+	public long getSequence() {
+		return this.modifiche.getSequence();
+	}
+	// EFFECTS:		restituisce this.modifiche.getSequence()
+	
+	
+	/** [MODIFICATORI PUBBLICATI] **********************************************************************************/
+	// Ogni modificatore ottiene il turno di scrittura, esegue la modifica sotto il lock di this e, dopo averlo rilasciato,
+	// la pubblica direttamente nella cella preallocata successiva di this.modifiche: nessun evento viene allocato né
+	// accodato, l'attesa di un lettore lento blocca solo i modificatori (fermi sul turno) e un lettore può interrogare
+	// la rete sociale durante la lettura delle modifiche senza stallo.
+	
+	public void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		this.produttore.lock();
+		try {
+			synchronized(this) {
+				super.createUser(username);
+			}
+			this.modifiche.publish(ChangeType.CREATE_USER, System.currentTimeMillis(), username, null, -1, null, null);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		this.produttore.lock();
+		try {
+			Set<Post> post;
+			synchronized(this) {
+				post = super.deleteUser(username);
+			}
+			this.modifiche.publish(ChangeType.DELETE_USER, System.currentTimeMillis(), username, null, -1, null, null);
+			return post;
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		this.produttore.lock();
+		try {
+			long id, data_pub;
+			synchronized(this) {
+				id = super.createPost(autore, text);
+				data_pub = this.index.get(id).getDataPub();
+			}
+			this.modifiche.publish(ChangeType.CREATE_POST, data_pub, autore, autore, id, text, null);
+			return id;
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	protected void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		this.produttore.lock();
+		try {
+			Set<String> likes;
+			synchronized(this) {
+				super.insertPost(p);
+				likes = (p.getLikesCount() > 0) ? p.getLikes() : null;
+			}
+			this.modifiche.publish(ChangeType.CREATE_POST, p.getDataPub(), p.getAutore(), p.getAutore(), p.getId(), p.getText(), null);
+			if(likes != null) {
+				long ora = System.currentTimeMillis();
+				for(String like : likes)
+					this.modifiche.publish(ChangeType.ADD_LIKE, ora, like, p.getAutore(), p.getId(), null, null);
+			}
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		this.produttore.lock();
+		try {
+			Post p;
+			synchronized(this) {
+				p = super.deletePost(id);
+			}
+			this.modifiche.publish(ChangeType.DELETE_POST, System.currentTimeMillis(), p.getAutore(), p.getAutore(), id, null, null);
+			return p;
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	protected void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		this.produttore.lock();
+		try {
+			String autore;
+			long modificato;
+			synchronized(this) {
+				super.modificaPost(id, text, data_mod);
+				Post p = this.index.get(id);
+				autore = p.getAutore();
+				modificato = p.getDataMod();
+			}
+			this.modifiche.publish(ChangeType.MODIFY_POST, modificato, autore, autore, id, text, null);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		this.produttore.lock();
+		try {
+			Set<Post> post;
+			synchronized(this) {
+				post = super.deleteAllPost(username);
+			}
+			this.modifiche.publish(ChangeType.DELETE_ALL_POST, System.currentTimeMillis(), username, null, -1, null, null);
+			return post;
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		this.produttore.lock();
+		try {
+			String autore;
+			synchronized(this) {
+				super.addLike(username, id);
+				autore = this.index.get(id).getAutore();
+			}
+			this.modifiche.publish(ChangeType.ADD_LIKE, System.currentTimeMillis(), username, autore, id, null, null);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		this.produttore.lock();
+		try {
+			String autore;
+			synchronized(this) {
+				super.removeLike(username, id);
+				autore = this.index.get(id).getAutore();
+			}
+			this.modifiche.publish(ChangeType.REMOVE_LIKE, System.currentTimeMillis(), username, autore, id, null, null);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		this.produttore.lock();
+		try {
+			String autore;
+			synchronized(this) {
+				super.addReport(username, id, type);
+				autore = this.index.get(id).getAutore();
+			}
+			this.modifiche.publish(ChangeType.ADD_REPORT, System.currentTimeMillis(), username, autore, id, null, type);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this, in caso di successo pubblica
+	//				in this.modifiche la modifica corrispondente dopo aver rilasciato il lock (insertPost pubblica anche
+	//				un ADD_LIKE per ogni like del post inserito, createPost e modificaPost la data di pubblicazione e di
+	//				modifica effettive del post come timestamp); se un lettore è indietro di un intero buffer attende
+	//				che avanzi con il turno di scrittura, quindi senza bloccare le letture della rete sociale
+	
+	public StatusCode tryCreateUser(String username) {
+		this.produttore.lock();
+		try {
+			return super.tryCreateUser(username);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public StatusCode tryAddLike(String username, long id) {
+		this.produttore.lock();
+		try {
+			return super.tryAddLike(username, id);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	
+	public StatusCode tryRemoveLike(String username, long id) {
+		this.produttore.lock();
+		try {
+			return super.tryRemoveLike(username, id);
+		}
+		finally {
+			this.produttore.unlock();
+		}
+	}
+	// EFFECTS:		come l'operazione omonima di SocialNetwork, con verifica e modifica nello stesso turno di scrittura
+	//				(nessun'altra modifica può intercalarsi; la modifica è delegata al modificatore omonimo di this,
+	//				che la esegue sotto il lock di this e la pubblica)
+	
+	
+	/** [OSSERVATORI SINCRONIZZATI CON LE MODIFICHE] ***************************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		return super.followerGraph();
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.whoToFollow(username, k);
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username);
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return super.containing(words);
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username, cursor, limit);
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return super.containing(words, cursor, limit);
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		return super.getMentionedUsers(cursor, limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.getPost(id);
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return super.postsBetween(from, to);
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.postsBetween(username, from, to);
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return super.modifiedSince(t);
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.modifiedSince(username, t);
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		super.visitPosts(visitor);
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		super.visitPosts(username, visitor);
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitUsers(part, parts, visitor);
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitReports(part, parts, visitor);
+	}
+
+}
@@ -0,0 +1,103 @@
+
+
+public class ChangeEvent {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una cella di un ChangeRing: contiene l'ultima modifica della rete
+	sociale pubblicata nella cella. Le celle sono preallocate e riusate dal produttore, quindi un lettore deve
+	copiare i campi che gli servono prima di restituire la cella al ChangeRing (fine di poll/take).
+	
+	ELEMENTO TIPICO:	<sequenza, timestamp, tipo, username, autore, id, testo, segnalazione>
+	
+	AF =	<this.sequence, this.timestamp, this.type, this.username, this.author, this.id, this.text, this.report>
+		  - username:		utente creato/eliminato, autore del post creato/eliminato/modificato,
+							utente che mette/toglie il like o segnala
+		  - autore:			autore del post coinvolto, null per le modifiche sugli utenti
+		  - id:				id del post coinvolto, -1 per le modifiche sugli utenti
+		  - testo:			testo del post creato o modificato, null altrimenti
+		  - segnalazione:	tipo della segnalazione per ADD_REPORT, null altrimenti
+	
+	RI =  this.sequence ≥ 0 && (this.sequence = 0 <==> this.type = null)
+**/
+	
+	private long sequence;
+	private long timestamp;
+	private ChangeType type;
+	private String username;
+	private String author;
+	private long id;
+	private String text;
+	private ReportType report;
+	
+	
+	// COSTRUTTORE: istanzia una cella vuota
+	protected ChangeEvent() {
+		this.sequence = 0;
+		this.type = null;
+		this.id = -1;
+	}
+	// EFFECTS:		inizializza this come cella che non contiene ancora alcuna modifica
+	
+	
+	// sovrascrive la modifica contenuta nella cella
+	protected void set(long sequence, long timestamp, ChangeType type, String username, String author, long id, String text, ReportType report) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.type = type;
+		this.username = username;
+		this.author = author;
+		this.id = id;
+		this.text = text;
+		this.report = report;
+	}
+	// REQUIRES:	sequence > 0, type ≠ null
+	// MODIFIES:	this
+	// EFFECTS:		assegna ai campi di this i valori specificati
+	
+	
+	public long getSequence() {
+		return this.sequence;
+	}
+	
+	public long getTimestamp() {
+		return this.timestamp;
+	}
+	
+	public ChangeType getType() {
+		return this.type;
+	}
+	
+	public String getUsername() {
+		return this.username;
+	}
+	
+	public String getAuthor() {
+		return this.author;
+	}
+	
+	public long getId() {
+		return this.id;
+	}
+	
+	public String getText() {
+		return this.text;
+	}
+	
+	public ReportType getReportType() {
+		return this.report;
+	}
+	// EFFECTS:		restituisce il campo omonimo di this
+	
+	
+	public String toString() {
+		StringBuilder s = new StringBuilder(64);
+		s.append('#').append(this.sequence).append(' ').append(this.type).append(' ').append(this.username);
+		if(this.id >= 0) s.append(" post ").append(this.id);
+		if(this.report != null) s.append(' ').append(this.report);
+		if(this.text != null) s.append(" \"").append(this.text).append('"');
+		return s.toString();
+	}
+	// EFFECTS:		restituisce una stringa che rappresenta this
+
+}
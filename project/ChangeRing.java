@@ -0,0 +1,242 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+public class ChangeRing {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta un buffer circolare di modifiche della rete sociale con un solo
+	produttore e più lettori indipendenti (sullo stile del Disruptor). Le celle (ChangeEvent) sono preallocate:
+	pubblicare una modifica sovrascrive i campi della cella successiva e avanza il cursore, senza allocare
+	oggetti né prendere lock. Ogni lettore avanza la propria sequenza al proprio ritmo, consumando a lotti
+	tutte le modifiche disponibili; il produttore non sovrascrive mai una cella non ancora letta da tutti i
+	lettori e, se il lettore più lento è indietro di un intero buffer, attende che avanzi.
+	
+	ELEMENTO TIPICO:
+	<	[modifica_{c-n+1}, ..., modifica_c],
+		{ <lettore_1, sequenza_1>, ..., <lettore_k, sequenza_k> }	>
+		dove c è l'ultima sequenza pubblicata e n la capacità del buffer
+	
+	AF =	<	[this.celle[s & this.mask] | max(1, this.cursore - this.celle.length + 1) ≤ s ≤ this.cursore],
+				{ <r, r.sequenza> | r ∈ this.lettori }	>
+	
+	RI =  this.celle ≠ null && this.celle.length è una potenza di 2 && this.mask = this.celle.length - 1
+		  &&  null ∉ this.celle && this.cursore ≥ 0 && this.lettori ≠ null && null ∉ this.lettori
+		  &&  (∀ s . max(1, this.cursore - this.celle.length + 1) ≤ s ≤ this.cursore
+				==> this.celle[s & this.mask].getSequence() = s)
+		  &&  (∀ r ∈ this.lettori . this.cursore - this.celle.length ≤ r.sequenza ≤ this.cursore)
+		  &&  this.limite ≤ min({this.cursore} U {r.sequenza | r ∈ this.lettori}) + this.celle.length
+**/
+	
+	// capacità predefinita del buffer (numero di celle)
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	
+	// cicli di attesa attiva e di cessione del processore prima di sospendere il thread
+	private static final int SPIN = 100;
+	private static final int YIELD = 100;
+	// durata della sospensione di un thread in attesa (nanosecondi)
+	private static final long PARK_NANOS = 50000;
+	
+	// celle preallocate del buffer
+	private final ChangeEvent[] celle;
+	private final int mask;
+	// ultima sequenza pubblicata (0 se nessuna)
+	private final AtomicLong cursore;
+	// massima sequenza pubblicabile senza rileggere le sequenze dei lettori (letto e scritto dal solo produttore)
+	private long limite;
+	// lettori registrati (array sostituito ad ogni registrazione o chiusura)
+	private volatile Reader[] lettori;
+	
+	
+	// COSTRUTTORE: istanzia un buffer con capacità predefinita
+	public ChangeRing() {
+		this(DEFAULT_CAPACITY);
+	}
+	// EFFECTS:		inizializza this come ChangeRing(DEFAULT_CAPACITY)
+	
+	// COSTRUTTORE
+	public ChangeRing(int capacity) throws IllegalArgumentException {
+		if(capacity <= 0 || Integer.bitCount(capacity) != 1) throw new IllegalArgumentException();
+		this.celle = new ChangeEvent[capacity];
+		for(int i=0; i<capacity; i++)
+			this.celle[i] = new ChangeEvent();
+		this.mask = capacity - 1;
+		this.cursore = new AtomicLong(0);
+		this.limite = capacity;
+		this.lettori = new Reader[0];
+	}
+	// THROWS:		se capacity non è una potenza di 2 positiva lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this con capacity celle vuote, cursore 0 e nessun lettore
+	
+	
+	// restituisce il numero di celle del buffer
+	public int getCapacity() {
+		return this.celle.length;
+	}
+	// EFFECTS:		restituisce this.celle.length
+	
+	// restituisce l'ultima sequenza pubblicata
+	public long getSequence() {
+		return this.cursore.get();
+	}
+	// EFFECTS:		restituisce this.cursore
+	
+	
+	/** [PRODUTTORE] ***********************************************************************************************/
+	
+	// pubblica una modifica nella cella successiva e ne restituisce la sequenza
+	public long publish(ChangeType type, long timestamp, String username, String author, long id, String text, ReportType report)
+	throws NullPointerException {
+		if(type == null) throw new NullPointerException();
+		long seq = this.cursore.get() + 1;
+		if(seq > this.limite)
+			this.limite = this.attendiLettori(seq);
+		
+		this.celle[(int)seq & this.mask].set(seq, timestamp, type, username, author, id, text, report);
+		this.cursore.lazySet(seq);		// i lettori vedono la cella dopo averne letto la sequenza
+		return seq;
+	}
+	// REQUIRES:	publish non è mai eseguito da due thread contemporaneamente
+	// THROWS:		se type = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		attende che ogni lettore abbia letto la sequenza this.cursore + 1 - this.celle.length,
+	//				poi scrive la modifica <this.cursore + 1, timestamp, type, username, author, id, text, report>
+	//				nella cella (this.cursore + 1) & this.mask, incrementa this.cursore e lo restituisce
+	
+	
+	// attende che il lettore più lento liberi la cella della sequenza e restituisce il nuovo limite
+	private long attendiLettori(long seq) {
+		int tentativi = 0;
+		while(true) {
+			long minima = this.cursore.get();
+			for(Reader r : this.lettori)
+				minima = Math.min(minima, r.sequenza.get());
+			if(seq <= minima + this.celle.length)
+				return minima + this.celle.length;
+			ChangeRing.attendi(tentativi++);
+		}
+	}
+	// EFFECTS:		attende finché seq ≤ min({this.cursore} U {r.sequenza | r ∈ this.lettori}) + this.celle.length
+	//				e restituisce il secondo membro della disuguaglianza
+	
+	
+	// attesa con ritiro progressivo: prima attiva, poi cedendo il processore, infine sospendendo il thread
+	private static void attendi(int tentativi) {
+		if(tentativi < SPIN) Thread.onSpinWait();
+		else if(tentativi < SPIN + YIELD) Thread.yield();
+		else LockSupport.parkNanos(PARK_NANOS);
+	}
+	// EFFECTS:		sospende brevemente il thread corrente, tanto più a lungo quanto più tentativi
+	
+	
+	/** [LETTORI] **************************************************************************************************/
+	
+	// registra un nuovo lettore che riceverà le modifiche pubblicate da ora in poi
+	public synchronized Reader subscribe() {
+		Reader r = new Reader(this.cursore.get());
+		Reader[] nuovi = Arrays.copyOf(this.lettori, this.lettori.length + 1);
+		nuovi[nuovi.length - 1] = r;
+		this.lettori = nuovi;
+		return r;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge a this.lettori un lettore r con r.sequenza = this.cursore e lo restituisce
+	
+	
+	// rimuove un lettore dai lettori registrati
+	private synchronized void unsubscribe(Reader r) {
+		Reader[] nuovi = new Reader[this.lettori.length];
+		int n = 0;
+		for(Reader l : this.lettori)
+			if(l != r) nuovi[n++] = l;
+		this.lettori = Arrays.copyOf(nuovi, n);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		post(this.lettori) = pre(this.lettori) \ {r}
+	
+	
+	// lettore indipendente del buffer: consuma in ordine le modifiche pubblicate dopo la sua registrazione,
+	// a lotti, rendendo le celle lette riutilizzabili dal produttore alla fine di ogni lotto (un thread alla volta)
+	public class Reader implements AutoCloseable {
+		
+		// ultima sequenza letta
+		private final AtomicLong sequenza;
+		// true se il lettore è stato chiuso
+		private volatile boolean chiuso;
+		
+		private Reader(long sequenza) {
+			this.sequenza = new AtomicLong(sequenza);
+			this.chiuso = false;
+		}
+		
+		// restituisce l'ultima sequenza letta
+		public long getSequence() {
+			return this.sequenza.get();
+		}
+		// EFFECTS:		restituisce this.sequenza
+		
+		// restituisce il numero di modifiche pubblicate e non ancora lette
+		public long getLag() {
+			return ChangeRing.this.cursore.get() - this.sequenza.get();
+		}
+		// EFFECTS:		restituisce ChangeRing.this.cursore - this.sequenza
+		
+		// consuma le modifiche disponibili (al più max) senza attendere e ne restituisce il numero
+		public int poll(Consumer<ChangeEvent> handler, int max) throws NullPointerException, IllegalArgumentException, IllegalStateException {
+			if(handler == null) throw new NullPointerException();
+			if(max <= 0) throw new IllegalArgumentException();
+			if(this.chiuso) throw new IllegalStateException();
+			
+			long letta = this.sequenza.get();
+			long ultima = Math.min(ChangeRing.this.cursore.get(), letta + max);
+			long s = letta;
+			try {
+				while(s < ultima)
+					handler.accept(ChangeRing.this.celle[(int)++s & ChangeRing.this.mask]);
+			}
+			finally {
+				this.sequenza.lazySet(s);		// la modifica che ha sollevato un'eccezione risulta letta
+			}
+			return (int)(ultima - letta);
+		}
+		// THROWS:		se handler = null lancia NullPointerException (unchecked)
+		//				se max ≤ 0 lancia IllegalArgumentException (unchecked)
+		//				se il lettore è chiuso lancia IllegalStateException (unchecked)
+		//				propaga le eccezioni sollevate da handler
+		// MODIFIES:	this
+		// EFFECTS:		esegue handler sulle celle delle sequenze this.sequenza+1, ..., u
+		//				con u = min(ChangeRing.this.cursore, this.sequenza + max), poi post(this.sequenza) = u
+		//				e restituisce u - pre(this.sequenza)
+		// NOTE:		handler non deve conservare la cella: dopo poll il produttore può sovrascriverla
+		
+		// consuma le modifiche disponibili (al più max) attendendone almeno una per al più timeout millisecondi
+		public int take(Consumer<ChangeEvent> handler, int max, long timeout)
+		throws NullPointerException, IllegalArgumentException, IllegalStateException {
+			if(timeout < 0) throw new IllegalArgumentException();
+			long scadenza = System.nanoTime() + timeout * 1000000;
+			int tentativi = 0;
+			while(!this.chiuso && ChangeRing.this.cursore.get() == this.sequenza.get() && System.nanoTime() - scadenza < 0)
+				ChangeRing.attendi(tentativi++);
+			return this.poll(handler, max);
+		}
+		// THROWS:		come poll(handler, max), se timeout < 0 lancia IllegalArgumentException (unchecked)
+		// MODIFIES:	this
+		// EFFECTS:		attende finché ChangeRing.this.cursore > this.sequenza o sono trascorsi timeout millisecondi,
+		//				poi esegue poll(handler, max) (restituisce 0 se non è stata pubblicata alcuna modifica)
+		
+		// chiude il lettore liberando il produttore dall'attesa delle sue letture
+		public void close() {
+			if(this.chiuso) return;
+			this.chiuso = true;
+			ChangeRing.this.unsubscribe(this);
+		}
+		// MODIFIES:	this, ChangeRing.this.lettori
+		// EFFECTS:		chiude il lettore (nessun effetto se già chiuso), le successive poll e take
+		//				lanciano IllegalStateException
+		
+	}
+
+}
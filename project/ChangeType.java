@@ -0,0 +1,13 @@
+
+
+public enum ChangeType {
+	CREATE_USER,
+	DELETE_USER,
+	CREATE_POST,
+	DELETE_POST,
+	DELETE_ALL_POST,
+	ADD_LIKE,
+	REMOVE_LIKE,
+	ADD_REPORT,
+	MODIFY_POST;
+}
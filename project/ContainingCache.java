@@ -0,0 +1,181 @@
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+public class ContainingCache {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una cache limitata dei risultati di containing(words): ad ogni
+	insieme di parole normalizzato (minuscole, senza ripetizioni) associa gli id ordinati dei post che
+	contengono almeno una delle parole. Oltre capacity interrogazioni viene espulsa la meno recentemente usata.
+	L'invalidazione è precisa: la creazione, la modifica o l'eliminazione di un post invalida solo le
+	interrogazioni con almeno una parola presente nel testo del post. Le parole formate solo da [a-z0-9_]
+	sono cercate tra i token del testo tramite un indice parola -> interrogazioni, le altre (poche) con
+	il pattern di SocialNetwork.wordsPattern.
+	
+	ELEMENTO TIPICO:	{ <{parole_0}, [id ordinati]> , ..., <{parole_n-1}, [id ordinati]> }
+	
+	AF =	{ <k, this.risultati.get(k)> | k ∈ this.risultati.keySet() }
+	
+	RI =  this.risultati ≠ null && this.parole ≠ null && this.complesse ≠ null && #this.risultati ≤ this.capacity
+		  &&  (∀ k ∈ this.risultati.keySet(), ∀ w ∈ parole(k) ==> (w semplice && k ∈ this.parole.get(w))
+				  || (w non semplice && k ∈ this.complesse.get(w)))
+		  &&  ogni insieme in this.parole.values() e this.complesse.values() è non vuoto
+				  e contiene solo chiavi di this.risultati
+		  &&  ogni array in this.risultati.values() è ordinato in modo crescente
+**/
+	
+	// separatore delle parole nella chiave (non compare in parole normalizzate con caratteri stampabili)
+	private static final String SEPARATORE = "\u0000";
+	// parola cercabile tra i token del testo
+	private static final Pattern SEMPLICE = Pattern.compile("[a-z0-9_]+");
+	// token del testo
+	private static final Pattern TOKEN = Pattern.compile("[a-z0-9_]+");
+	
+	// numero massimo di interrogazioni in cache
+	private final int capacity;
+	// id dei post per chiave, in ordine di uso (dal meno recente)
+	private final LinkedHashMap<String, long[]> risultati;
+	// chiavi in cache che contengono ogni parola semplice
+	private final Map<String, Set<String>> parole;
+	// chiavi in cache che contengono ogni parola non semplice
+	private final Map<String, Set<String>> complesse;
+	// statistiche
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+	
+	
+	// COSTRUTTORE
+	public ContainingCache(int capacity) throws IllegalArgumentException {
+		if(capacity <= 0) throw new IllegalArgumentException();
+		this.capacity = capacity;
+		this.risultati = new LinkedHashMap<String, long[]>(16, 0.75f, true);
+		this.parole = new HashMap<String, Set<String>>();
+		this.complesse = new HashMap<String, Set<String>>();
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+		this.invalidations = 0;
+	}
+	// THROWS:		se capacity ≤ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza la cache vuota con al più capacity interrogazioni
+	
+	
+	// restituisce la chiave normalizzata dell'insieme di parole
+	public static String key(List<String> words) throws NullPointerException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		TreeSet<String> normalizzate = new TreeSet<String>();
+		for(String w : words)
+			normalizzate.add(w.toLowerCase());
+		return String.join(SEPARATORE, normalizzate);
+	}
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce la stessa chiave per liste con le stesse parole a meno di ordine, ripetizioni e maiuscole
+	
+	
+	// restituisce gli id in cache per la chiave
+	public long[] get(String key) {
+		long[] ids = this.risultati.get(key);
+		if(ids == null) this.misses++;
+		else this.hits++;
+		return ids;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		restituisce gli id ordinati associati a key (null se assente) e la rende la più recente
+	
+	// inserisce in cache gli id per la chiave
+	public void put(String key, long[] ids) {
+		if(this.risultati.put(key, ids) == null) {
+			for(String w : ContainingCache.words(key))
+				ContainingCache.link(this.index(w), w, key);
+		}
+		while(this.risultati.size() > this.capacity) {
+			String eldest = this.risultati.keySet().iterator().next();
+			this.remove(eldest);
+			this.evictions++;
+		}
+	}
+	// REQUIRES:	key = ContainingCache.key(words), ids ordinati = id dei post che contengono almeno una parola di words
+	// MODIFIES:	this
+	// EFFECTS:		associa ids a key ed espelle le interrogazioni meno recenti oltre la capacità
+	
+	
+	// invalida le interrogazioni con almeno una parola contenuta nel testo
+	public void invalidate(String text) {
+		if(this.risultati.isEmpty()) return;
+		String t = text.toLowerCase();
+		HashSet<String> invalide = new HashSet<String>();
+		
+		Matcher token = TOKEN.matcher(t);
+		while(token.find()) {
+			Set<String> chiavi = this.parole.get(token.group());
+			if(chiavi != null) invalide.addAll(chiavi);
+		}
+		for(Map.Entry<String, Set<String>> e : this.complesse.entrySet()) {
+			if(!invalide.containsAll(e.getValue()) && Pattern.compile("\\b" + Pattern.quote(e.getKey()) + "\\b").matcher(t).find())
+				invalide.addAll(e.getValue());
+		}
+		
+		for(String key : invalide) {
+			this.remove(key);
+			this.invalidations++;
+		}
+	}
+	// REQUIRES:	text ≠ null
+	// MODIFIES:	this
+	// EFFECTS:		rimuove le chiavi con almeno una parola w tale che SocialNetwork.wordsPattern([w]) trova text
+	//				(per le parole semplici possono essere rimosse anche chiavi di parole adiacenti a lettere non ASCII)
+	
+	// svuota la cache
+	public void clear() {
+		this.invalidations += this.risultati.size();
+		this.risultati.clear();
+		this.parole.clear();
+		this.complesse.clear();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		this = {}
+	
+	
+	// restituisce le statistiche della cache
+	public CacheStats getStats() {
+		return new CacheStats(this.hits, this.misses, this.evictions, this.invalidations, this.risultati.size(), this.capacity);
+	}
+	// EFFECTS:		restituisce hit, miss, interrogazioni espulse e invalidate, interrogazioni in cache e capacità
+	
+	
+	// rimuove una chiave dalla cache e dagli indici delle sue parole
+	private void remove(String key) {
+		if(this.risultati.remove(key) == null) return;
+		for(String w : ContainingCache.words(key)) {
+			Map<String, Set<String>> indice = this.index(w);
+			Set<String> chiavi = indice.get(w);
+			if(chiavi != null && chiavi.remove(key) && chiavi.isEmpty()) indice.remove(w);
+		}
+	}
+	
+	// indice delle chiavi per la parola
+	private Map<String, Set<String>> index(String w) {
+		return SEMPLICE.matcher(w).matches() ? this.parole : this.complesse;
+	}
+	
+	private static void link(Map<String, Set<String>> indice, String w, String key) {
+		indice.computeIfAbsent(w, x -> new HashSet<String>()).add(key);
+	}
+	
+	// parole di una chiave
+	private static String[] words(String key) {
+		return key.split(SEPARATORE, -1);
+	}
+
+}
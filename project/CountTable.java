@@ -0,0 +1,127 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.PriorityQueue;
+
+
+public class CountTable {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che associa a stringhe (es. username) contatori int senza oggetti per associazione:
+	due array paralleli di chiavi e contatori con indirizzamento aperto e scansione lineare, come IdTable.
+	Un incremento non alloca (nessun Integer come in HashMap<String, Integer>.merge), le chiavi sono
+	confrontate prima per riferimento (gli username della rete sociale sono le stesse istanze).
+	
+	ELEMENTO TIPICO:	{ <s_0, c_0>, ..., <s_n-1, c_n-1> }
+	
+	AF =	{ <this.chiavi[i], this.conteggi[i]> | 0 ≤ i < this.chiavi.length && this.chiavi[i] ≠ null }
+	
+	RI =  this.chiavi.length = this.conteggi.length = potenza di 2 && 3 * this.n ≤ 2 * this.chiavi.length
+		  &&  this.n = #{ i | this.chiavi[i] ≠ null } && chiavi distinte
+		  &&  ogni chiave è raggiungibile dalla sua posizione iniziale hash(chiave) senza attraversare posizioni libere
+**/
+	
+	private String[] chiavi;
+	private int[] conteggi;
+	private int n;
+	
+	
+	// COSTRUTTORE: istanzia una tabella vuota
+	public CountTable() {
+		this.chiavi = new String[16];
+		this.conteggi = new int[16];
+		this.n = 0;
+	}
+	// EFFECTS:		inizializza this = {}
+	
+	
+	// incrementa il contatore della stringa
+	public int add(String key, int delta) throws NullPointerException {
+		if(key == null) throw new NullPointerException();
+		if(3 * (this.n + 1) > 2 * this.chiavi.length) this.resize();
+		int m = this.chiavi.length - 1;
+		int i = CountTable.hash(key, m);
+		while(this.chiavi[i] != null) {
+			if(this.chiavi[i] == key || this.chiavi[i].equals(key)) return this.conteggi[i] += delta;
+			i = (i + 1) & m;
+		}
+		this.chiavi[i] = key;
+		this.n++;
+		return this.conteggi[i] = delta;
+	}
+	// THROWS:		se key = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this) = pre(this) \ {<key, c>} U {<key, c + delta>} (c = 0 se key non presente)
+	//				e restituisce c + delta
+	
+	// restituisce il contatore della stringa
+	public int get(String key) throws NullPointerException {
+		if(key == null) throw new NullPointerException();
+		int m = this.chiavi.length - 1;
+		for(int i = CountTable.hash(key, m); this.chiavi[i] != null; i = (i + 1) & m)
+			if(this.chiavi[i] == key || this.chiavi[i].equals(key)) return this.conteggi[i];
+		return 0;
+	}
+	// THROWS:		se key = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce c se <key, c> ∈ this, altrimenti 0
+	
+	// restituisce il numero di stringhe con contatore
+	public int size() {
+		return this.n;
+	}
+	// EFFECTS:		restituisce #this
+	
+	
+	// restituisce le k stringhe con contatore più alto
+	public List<String> top(int k) throws IllegalArgumentException {
+		if(k < 0) throw new IllegalArgumentException();
+		
+		// min-heap delle migliori k posizioni (a parità di contatore è preferita la stringa minore)
+		PriorityQueue<Integer> migliori = new PriorityQueue<Integer>(Math.max(1, k), (a, b) -> {
+			int c = Integer.compare(this.conteggi[a], this.conteggi[b]);
+			return (c != 0) ? c : this.chiavi[b].compareTo(this.chiavi[a]);
+		});
+		for(int i = 0; i < this.chiavi.length && k > 0; i++) {
+			if(this.chiavi[i] == null) continue;
+			if(migliori.size() < k) migliori.add(i);
+			else if(migliori.comparator().compare(i, migliori.peek()) > 0) {
+				migliori.poll();
+				migliori.add(i);
+			}
+		}
+		
+		ArrayList<String> lista = new ArrayList<String>(migliori.size());
+		while(!migliori.isEmpty())
+			lista.add(this.chiavi[migliori.poll()]);
+		Collections.reverse(lista);
+		return lista;
+	}
+	// THROWS:		se k < 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce le min(k, #this) stringhe con contatore più alto in ordine decrescente di contatore
+	//				(a parità di contatore in ordine lessicografico)
+	
+	
+	// raddoppia le posizioni reinserendo le associazioni
+	private void resize() {
+		String[] chiavi = this.chiavi;
+		int[] conteggi = this.conteggi;
+		this.chiavi = new String[2 * chiavi.length];
+		this.conteggi = new int[2 * chiavi.length];
+		int m = this.chiavi.length - 1;
+		for(int j = 0; j < chiavi.length; j++) {
+			if(chiavi[j] == null) continue;
+			int i = CountTable.hash(chiavi[j], m);
+			while(this.chiavi[i] != null) i = (i + 1) & m;
+			this.chiavi[i] = chiavi[j];
+			this.conteggi[i] = conteggi[j];
+		}
+	}
+	
+	// posizione iniziale della stringa (hash della stringa rimescolato: username simili hanno hash consecutivi)
+	private static int hash(String key, int m) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & m;
+	}
+
+}
@@ -11,4 +11,8 @@ public class AbsentLikeException extends Exception {
 	public AbsentLikeException(String s) {
 		super(s);
 	}
+	
+	public AbsentLikeException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class AbsentPostException extends Exception {
 	public AbsentPostException(String s) {
 		super(s);
 	}
+	
+	public AbsentPostException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class AbsentUsernameException extends Exception {
 	public AbsentUsernameException(String s) {
 		super(s);
 	}
+	
+	public AbsentUsernameException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
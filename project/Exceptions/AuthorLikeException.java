@@ -11,4 +11,8 @@ public class AuthorLikeException extends Exception {
 	public AuthorLikeException(String s) {
 		super(s);
 	}
+	
+	public AuthorLikeException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class AuthorReportException extends Exception {
 	public AuthorReportException(String s) {
 		super(s);
 	}
+	
+	public AuthorReportException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class DuplicateLikeException extends Exception {
 	public DuplicateLikeException(String s) {
 		super(s);
 	}
+	
+	public DuplicateLikeException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class DuplicatePostException extends Exception {
 	public DuplicatePostException(String s) {
 		super(s);
 	}
+	
+	public DuplicatePostException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class DuplicateReportException extends Exception {
 	public DuplicateReportException(String s) {
 		super(s);
 	}
+	
+	public DuplicateReportException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
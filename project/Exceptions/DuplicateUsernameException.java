@@ -11,4 +11,8 @@ public class DuplicateUsernameException extends Exception {
 	public DuplicateUsernameException(String s) {
 		super(s);
 	}
+	
+	public DuplicateUsernameException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
@@ -11,4 +11,8 @@ public class IllegalTextException extends Exception {
 	public IllegalTextException(String s) {
 		super(s);
 	}
+	
+	public IllegalTextException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
\ No newline at end of file
@@ -11,4 +11,8 @@ public class IllegalUsernameException extends Exception {
 	public IllegalUsernameException(String s) {
 		super(s);
 	}
+	
+	public IllegalUsernameException(String s, boolean stackTrace) {
+		super(s, null, false, stackTrace);
+	}
 }
\ No newline at end of file
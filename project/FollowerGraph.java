@@ -0,0 +1,247 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+public class FollowerGraph {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta un'istantanea del grafo delle relazioni utente-seguiti di una
+	rete sociale in formato compressed sparse row: gli utenti sono numerati 0..n-1 in ordine lessicografico e
+	gli archi sono memorizzati in due array di int, uno per gli utenti seguiti e uno per i follower di ogni
+	utente, con i rispettivi array di inizio. Occupa 8 byte per arco e permette visite in O(U + E) senza
+	oggetti per arco; su di esso sono calcolati punteggi iterativi di influenza (PageRank) in parallelo.
+	
+	ELEMENTO TIPICO:	<	[user_0, ..., user_n-1],	{ <i, j> | user_i segue user_j }	>
+	
+	AF =	<	this.nomi,	{ <i, this.seguiti[k]> | 0 ≤ i < n, this.inizio_seguiti[i] ≤ k < this.inizio_seguiti[i+1] }	>
+	
+	RI =  n = this.nomi.length && this.nodi.get(this.nomi[i]) = i (∀ 0 ≤ i < n) && #this.nodi = n
+		  &&  this.nomi ordinato in modo strettamente crescente
+		  &&  this.inizio_seguiti.length = this.inizio_follower.length = n + 1
+		  &&  this.inizio_seguiti[0] = this.inizio_follower[0] = 0 && entrambi non decrescenti
+		  &&  this.inizio_seguiti[n] = this.inizio_follower[n] = this.seguiti.length = this.follower.length = E
+		  &&  <i, j> arco ⇔ i compare tra this.follower[this.inizio_follower[j] .. this.inizio_follower[j+1]-1]
+		  &&  nessun arco <i, i> e nessun arco ripetuto
+**/
+	
+	// numero di utenti per blocco delle visite parallele
+	private static final int BLOCCO = 1 << 12;
+	
+	// nomi degli utenti per indice
+	private final String[] nomi;
+	// indice di ogni utente
+	private final Map<String, Integer> nodi;
+	// archi uscenti (utenti seguiti) in formato CSR
+	private final int[] inizio_seguiti;
+	private final int[] seguiti;
+	// archi entranti (follower) in formato CSR
+	private final int[] inizio_follower;
+	private final int[] follower;
+	
+	
+	// COSTRUTTORE: istanzia il grafo delle relazioni utente-seguiti specificate
+	public FollowerGraph(Map<String, Set<String>> followers) throws NullPointerException, IllegalArgumentException {
+		if(followers == null) throw new NullPointerException();
+		
+		this.nomi = followers.keySet().toArray(new String[0]);		// NullPointerException se null ∈ keySet()
+		Arrays.sort(this.nomi);
+		int n = this.nomi.length;
+		this.nodi = new HashMap<String, Integer>(2 * n);
+		for(int i = 0; i < n; i++)
+			this.nodi.put(this.nomi[i], i);
+		
+		// archi uscenti: conteggio, somme prefisse e riempimento
+		this.inizio_seguiti = new int[n + 1];
+		for(int i = 0; i < n; i++) {
+			Set<String> s = followers.get(this.nomi[i]);
+			if(s == null) throw new NullPointerException();
+			this.inizio_seguiti[i + 1] = this.inizio_seguiti[i] + s.size();
+		}
+		this.seguiti = new int[this.inizio_seguiti[n]];
+		for(int i = 0; i < n; i++) {
+			int k = this.inizio_seguiti[i];
+			for(String f : followers.get(this.nomi[i])) {
+				Integer j = this.nodi.get(f);
+				if(j == null || j == i) throw new IllegalArgumentException();
+				this.seguiti[k++] = j;
+			}
+			Arrays.sort(this.seguiti, this.inizio_seguiti[i], k);
+		}
+		
+		// archi entranti: trasposta degli archi uscenti
+		this.inizio_follower = new int[n + 1];
+		this.follower = new int[this.seguiti.length];
+		FollowerGraph.trasponi(this.inizio_seguiti, this.seguiti, this.inizio_follower, this.follower);
+	}
+	// REQUIRES:	followers ≠ null, null ∉ followers.keySet(), (∀ u ∈ followers.keySet() ==> followers.get(u) ≠ null
+	//				&& (∀ f ∈ followers.get(u) ==> f ∈ followers.keySet() && f ≠ u)), followers non modificata durante la costruzione
+	// THROWS:		se followers = null || null ∈ followers.keySet() || (∃ u : followers.get(u) = null)
+	//				lancia NullPointerException (unchecked)
+	//				se (∃ u, f ∈ followers.get(u) : f ∉ followers.keySet() || f = u) lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this con gli utenti followers.keySet() e gli archi { <u, f> | f ∈ followers.get(u) }
+	
+	// COSTRUTTORE: istanzia il grafo a partire dagli utenti ordinati e dagli archi uscenti già in formato CSR
+	protected FollowerGraph(String[] nomi, int[] inizio_seguiti, int[] seguiti) {
+		int n = nomi.length;
+		this.nomi = nomi;
+		this.nodi = new HashMap<String, Integer>(2 * n);
+		for(int i = 0; i < n; i++)
+			this.nodi.put(nomi[i], i);
+		this.inizio_seguiti = inizio_seguiti;
+		this.seguiti = seguiti;
+		this.inizio_follower = new int[n + 1];
+		this.follower = new int[seguiti.length];
+		FollowerGraph.trasponi(inizio_seguiti, seguiti, this.inizio_follower, this.follower);
+	}
+	// REQUIRES:	nomi, inizio_seguiti, seguiti ≠ null e rispettano RI per this.nomi, this.inizio_seguiti e this.seguiti
+	//				(archi di ogni utente in ordine crescente), array non modificati dopo la costruzione
+	// EFFECTS:		inizializza this con gli utenti nomi e gli archi in formato CSR specificati (array usati senza copia)
+	
+	
+	// calcola gli archi entranti come trasposta degli archi uscenti
+	private static void trasponi(int[] inizio_seguiti, int[] seguiti, int[] inizio_follower, int[] follower) {
+		int n = inizio_seguiti.length - 1;
+		for(int k = 0; k < seguiti.length; k++)
+			inizio_follower[seguiti[k] + 1]++;
+		for(int j = 0; j < n; j++)
+			inizio_follower[j + 1] += inizio_follower[j];
+		int[] prossimo = Arrays.copyOf(inizio_follower, n);
+		for(int i = 0; i < n; i++) {
+			for(int k = inizio_seguiti[i]; k < inizio_seguiti[i + 1]; k++)
+				follower[prossimo[seguiti[k]]++] = i;
+		}
+	}
+	// REQUIRES:	archi uscenti in formato CSR, inizio_follower = new int[n + 1], follower = new int[seguiti.length]
+	// MODIFIES:	inizio_follower, follower
+	// EFFECTS:		riempie inizio_follower e follower con gli archi entranti in formato CSR
+	//				(follower di ogni utente in ordine crescente)
+	
+	
+	// restituisce il numero di utenti
+	public int size() {
+		return this.nomi.length;
+	}
+	// EFFECTS:		restituisce n
+	
+	// restituisce il numero di archi
+	public int edges() {
+		return this.seguiti.length;
+	}
+	// EFFECTS:		restituisce E
+	
+	// restituisce l'indice dell'utente
+	public int node(String username) throws NullPointerException {
+		Integer i = this.nodi.get(username);
+		return (i == null) ? -1 : i;
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce i tale che this.nomi[i] = username, -1 se username non è nel grafo
+	
+	// restituisce il nome dell'utente con l'indice specificato
+	public String name(int i) throws IndexOutOfBoundsException {
+		return this.nomi[i];
+	}
+	// THROWS:		se i < 0 || i ≥ n lancia IndexOutOfBoundsException (unchecked)
+	// EFFECTS:		restituisce user_i
+	
+	// restituisce il numero di utenti seguiti dall'utente con indice i
+	public int followingCount(int i) throws IndexOutOfBoundsException {
+		return this.inizio_seguiti[i + 1] - this.inizio_seguiti[i];
+	}
+	// THROWS:		se i < 0 || i ≥ n lancia IndexOutOfBoundsException (unchecked)
+	// EFFECTS:		restituisce #{ j | <i, j> arco }
+	
+	// restituisce il numero di follower dell'utente con indice i
+	public int followersCount(int i) throws IndexOutOfBoundsException {
+		return this.inizio_follower[i + 1] - this.inizio_follower[i];
+	}
+	// THROWS:		se i < 0 || i ≥ n lancia IndexOutOfBoundsException (unchecked)
+	// EFFECTS:		restituisce #{ j | <j, i> arco }
+	
+	// restituisce gli indici degli utenti seguiti dall'utente con indice i
+	public int[] following(int i) throws IndexOutOfBoundsException {
+		return Arrays.copyOfRange(this.seguiti, this.inizio_seguiti[i], this.inizio_seguiti[i + 1]);
+	}
+	// THROWS:		se i < 0 || i ≥ n lancia IndexOutOfBoundsException (unchecked)
+	// EFFECTS:		restituisce gli indici { j | <i, j> arco } in ordine crescente (copia)
+	
+	
+	// restituisce la lista degli utenti che hanno più follower che utenti seguiti
+	public List<String> influencers() {
+		ArrayList<String> lista = new ArrayList<String>();
+		for(int i = 0; i < this.nomi.length; i++) {
+			if(this.followersCount(i) > this.followingCount(i))
+				lista.add(this.nomi[i]);
+		}
+		return lista;
+	}
+	// EFFECTS:		restituisce in ordine lessicografico gli utenti user_i con followersCount(i) > followingCount(i)
+	//				(come SocialNetwork.influencers(followers) con costo O(U + E))
+	
+	
+	// calcola il punteggio di influenza PageRank di ogni utente
+	public InfluenceRank pageRank(double damping, double tolerance, int maxIterations) throws IllegalArgumentException {
+		if(!(damping >= 0 && damping < 1) || !(tolerance > 0) || maxIterations <= 0) throw new IllegalArgumentException();
+		int n = this.nomi.length;
+		if(n == 0) return new InfluenceRank(this, new double[0], 0, true);
+		
+		double[] rank = new double[n];
+		double[] nuovo = new double[n];
+		double[] contributo = new double[n];
+		Arrays.fill(rank, 1.0 / n);
+		int blocchi = (n + BLOCCO - 1) / BLOCCO;
+		
+		int iterazioni = 0;
+		boolean converge = false;
+		while(!converge && iterazioni < maxIterations) {
+			final double[] r = rank, r_nuovo = nuovo;
+			
+			// contributo di ogni utente ai seguiti e rango degli utenti senza seguiti (distribuito su tutti)
+			double pendente = IntStream.range(0, blocchi).parallel().mapToDouble(b -> {
+				double somma = 0;
+				for(int i = b * BLOCCO, fine = Math.min(n, i + BLOCCO); i < fine; i++) {
+					int grado = this.followingCount(i);
+					if(grado == 0) {
+						contributo[i] = 0;
+						somma += r[i];
+					}
+					else contributo[i] = r[i] / grado;
+				}
+				return somma;
+			}).sum();
+			
+			// ogni utente raccoglie i contributi dei propri follower (nessuna scrittura condivisa tra blocchi)
+			double base = (1 - damping) / n + damping * pendente / n;
+			double delta = IntStream.range(0, blocchi).parallel().mapToDouble(b -> {
+				double somma = 0;
+				for(int j = b * BLOCCO, fine = Math.min(n, j + BLOCCO); j < fine; j++) {
+					double entrante = 0;
+					for(int k = this.inizio_follower[j]; k < this.inizio_follower[j + 1]; k++)
+						entrante += contributo[this.follower[k]];
+					r_nuovo[j] = base + damping * entrante;
+					somma += Math.abs(r_nuovo[j] - r[j]);
+				}
+				return somma;
+			}).sum();
+			
+			rank = r_nuovo;
+			nuovo = r;
+			iterazioni++;
+			converge = delta < tolerance;
+		}
+		return new InfluenceRank(this, rank, iterazioni, converge);
+	}
+	// REQUIRES:	0 ≤ damping < 1, tolerance > 0, maxIterations > 0
+	// THROWS:		se i parametri non rispettano REQUIRES lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce i punteggi PageRank r (Σ r = 1) ottenuti iterando a partire da r_i = 1/n
+	//				r'_j = (1 - damping)/n + damping * (Σ_{<i, j> arco} r_i / followingCount(i) + Σ_{followingCount(i) = 0} r_i / n)
+	//				fino a Σ |r' - r| < tolerance o per al più maxIterations iterazioni; ogni iterazione visita
+	//				gli archi una volta, in parallelo a blocchi di utenti sul pool fork-join comune
+
+}
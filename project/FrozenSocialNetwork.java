@@ -0,0 +1,341 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.IntStream;
+import java.util.stream.Collectors;
+
+
+public class FrozenSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta un'istantanea compatta di una rete sociale per le letture
+	analitiche: gli utenti sono numerati 0..n-1 in ordine lessicografico (gli indici del FollowerGraph della
+	relazione utente-seguiti), i post sono ordinati per autore e per id in array paralleli, ed i like e le menzioni
+	sono array di indici di utente in formato CSR (un int per like o menzione, nessun oggetto per elemento).
+	L'istantanea è copiata dalla rete sociale in un'unica visita sotto il suo lock e costruita poi in parallelo
+	senza lock, quindi le scritture sulla rete sociale proseguono durante la costruzione e non la modificano.
+	Le letture non acquisiscono lock e non copiano strutture condivise: influencers e le query sul grafo sono
+	risposte dal FollowerGraph, writtenBy e mentioning materializzano solo i post restituiti.
+	
+	ELEMENTO TIPICO:
+	<	[user_0, ..., user_n-1],	{ <i, j> | user_i segue user_j },
+		[post_0, ..., post_m-1] ordinati per (autore, id),	{ utenti menzionati nei post }	>
+	
+	AF =	<	this.grafo,
+				{ <this.ids[k], user_this.autori[k], this.testi[k], this.date_pub[k], this.date_mod[k],
+				   { user_this.like[h] | this.inizio_like[k] ≤ h < this.inizio_like[k+1] }> | 0 ≤ k < m },
+				this.menzionati	>
+	
+	RI =  this.grafo ≠ null && n = this.grafo.size() && this.inizio_post.length = n + 1
+		  &&  this.ids, this.autori, this.testi, this.date_pub, this.date_mod hanno lunghezza m = this.inizio_post[n]
+		  &&  (∀ i, ∀ this.inizio_post[i] ≤ k < this.inizio_post[i+1] . this.autori[k] = i) && ids crescenti per autore
+		  &&  this.per_id è la permutazione di 0..m-1 che ordina this.ids in modo strettamente crescente
+		  &&  this.inizio_like.length = m + 1, like di ogni post in ordine crescente senza ripetizioni (indici < n)
+		  &&  this.inizio_menzioni.length = n + 1, this.menzioni[h] posizioni crescenti dei post che menzionano
+			  user_i per this.inizio_menzioni[i] ≤ h < this.inizio_menzioni[i+1]
+		  &&  this.menzionati = UNIONE { SocialNetwork.mentionedIn(this.testi[k]) | 0 ≤ k < m } (non modificabile)
+**/
+	
+	// utenti e relazione utente-seguiti (interning dei nomi: indice del grafo)
+	private final FollowerGraph grafo;
+	// post di ogni utente: posizioni this.inizio_post[i] .. this.inizio_post[i+1]-1
+	private final int[] inizio_post;
+	// campi dei post in array paralleli ordinati per (autore, id)
+	private final long[] ids;
+	private final int[] autori;
+	private final String[] testi;
+	private final long[] date_pub;
+	private final long[] date_mod;
+	// posizioni dei post in ordine di id
+	private final int[] per_id;
+	// like dei post in formato CSR (indici degli utenti)
+	private final int[] inizio_like;
+	private final int[] like;
+	// post che menzionano ogni utente in formato CSR (posizioni dei post)
+	private final int[] inizio_menzioni;
+	private final int[] menzioni;
+	// utenti menzionati nei post (anche non presenti nella rete sociale)
+	private final Set<String> menzionati;
+	
+	
+	// COSTRUTTORE: istanzia l'istantanea della rete sociale specificata
+	protected FrozenSocialNetwork(SocialNetwork rete) throws NullPointerException {
+		if(rete == null) throw new NullPointerException();
+		
+		// 1. copia sotto il lock della rete sociale: nomi, seguiti e campi dei post (i like sono copiati in array)
+		ArrayList<String> utenti = new ArrayList<String>();
+		ArrayList<String[]> seguiti_di = new ArrayList<String[]>();
+		ArrayList<Riga> righe = new ArrayList<Riga>();
+		synchronized(rete) {
+			rete.visitUsers(0, 1, (u, s) -> {
+				utenti.add(u);
+				seguiti_di.add(s.toArray(new String[0]));
+			});
+			rete.visitPosts(p -> righe.add(new Riga(p)));
+		}
+		
+		// 2. utenti in ordine lessicografico e archi uscenti in formato CSR (una riga per utente, in parallelo)
+		int n = utenti.size();
+		Integer[] ordine = new Integer[n];
+		for(int i = 0; i < n; i++)
+			ordine[i] = i;
+		Arrays.parallelSort(ordine, (a, b) -> utenti.get(a).compareTo(utenti.get(b)));
+		String[] nomi = new String[n];
+		for(int i = 0; i < n; i++)
+			nomi[i] = utenti.get(ordine[i]);
+		
+		int[][] righe_seguiti = IntStream.range(0, n).parallel()
+			.mapToObj(i -> FrozenSocialNetwork.indici(nomi, seguiti_di.get(ordine[i]), i))
+			.toArray(int[][]::new);
+		int[] inizio_seguiti = FrozenSocialNetwork.inizi(righe_seguiti);
+		this.grafo = new FollowerGraph(nomi, inizio_seguiti, FrozenSocialNetwork.appiattisci(righe_seguiti, inizio_seguiti));
+		
+		// 3. post ordinati per (autore, id), scartando quelli di autori non copiati (reti con più lock, es. shard)
+		IntStream.range(0, righe.size()).parallel().forEach(k -> {
+			Riga r = righe.get(k);
+			r.autore = Arrays.binarySearch(nomi, r.nome);
+		});
+		Riga[] post = righe.stream().filter(r -> r.autore >= 0).toArray(Riga[]::new);
+		Arrays.parallelSort(post, (a, b) -> (a.autore != b.autore) ? Integer.compare(a.autore, b.autore) : Long.compare(a.id, b.id));
+		int m = post.length;
+		this.ids = new long[m];
+		this.autori = new int[m];
+		this.testi = new String[m];
+		this.date_pub = new long[m];
+		this.date_mod = new long[m];
+		this.inizio_post = new int[n + 1];
+		IntStream.range(0, m).parallel().forEach(k -> {
+			this.ids[k] = post[k].id;
+			this.autori[k] = post[k].autore;
+			this.testi[k] = post[k].testo;
+			this.date_pub[k] = post[k].data_pub;
+			this.date_mod[k] = post[k].data_mod;
+		});
+		for(int k = 0; k < m; k++)
+			this.inizio_post[this.autori[k] + 1]++;
+		for(int i = 0; i < n; i++)
+			this.inizio_post[i + 1] += this.inizio_post[i];
+		
+		Integer[] per_id = new Integer[m];
+		for(int k = 0; k < m; k++)
+			per_id[k] = k;
+		Arrays.parallelSort(per_id, (a, b) -> Long.compare(this.ids[a], this.ids[b]));
+		this.per_id = new int[m];
+		for(int k = 0; k < m; k++)
+			this.per_id[k] = per_id[k];
+		
+		// 4. like dei post in formato CSR (in parallelo)
+		int[][] righe_like = IntStream.range(0, m).parallel()
+			.mapToObj(k -> FrozenSocialNetwork.indici(nomi, post[k].likes, -1))
+			.toArray(int[][]::new);
+		this.inizio_like = FrozenSocialNetwork.inizi(righe_like);
+		this.like = FrozenSocialNetwork.appiattisci(righe_like, this.inizio_like);
+		
+		// 5. menzioni: utenti menzionati da ogni post (in parallelo) e trasposta per utente menzionato
+		List<Set<String>> menzionati_da = IntStream.range(0, m).parallel()
+			.mapToObj(k -> SocialNetwork.mentionedIn(this.testi[k]))
+			.collect(Collectors.toList());
+		HashSet<String> menzionati = new HashSet<String>();
+		for(Set<String> s : menzionati_da)
+			menzionati.addAll(s);
+		this.menzionati = Collections.unmodifiableSet(menzionati);
+		
+		int[][] righe_menzioni = IntStream.range(0, m).parallel()
+			.mapToObj(k -> FrozenSocialNetwork.indici(nomi, menzionati_da.get(k).toArray(new String[0]), -1))
+			.toArray(int[][]::new);
+		this.inizio_menzioni = new int[n + 1];
+		for(int[] r : righe_menzioni)
+			for(int i : r)
+				this.inizio_menzioni[i + 1]++;
+		for(int i = 0; i < n; i++)
+			this.inizio_menzioni[i + 1] += this.inizio_menzioni[i];
+		this.menzioni = new int[this.inizio_menzioni[n]];
+		int[] prossimo = Arrays.copyOf(this.inizio_menzioni, n);
+		for(int k = 0; k < m; k++)
+			for(int i : righe_menzioni[k])
+				this.menzioni[prossimo[i]++] = k;
+	}
+	// REQUIRES:	i visitatori di rete non modificano rete (visitUsers e visitPosts di SocialNetwork o delle sottoclassi)
+	// THROWS:		se rete = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza this con l'istantanea degli utenti, delle relazioni utente-seguiti e dei post di rete
+	//				visitati sotto il lock di rete (this non dipende dalle modifiche successive di rete)
+	
+	
+	/** [OSSERVATORI] **********************************************************************************************/
+	
+	// restituisce il numero di utenti
+	public int size() {
+		return this.grafo.size();
+	}
+	// EFFECTS:		restituisce n
+	
+	// restituisce il numero di post
+	public int postCount() {
+		return this.ids.length;
+	}
+	// EFFECTS:		restituisce m
+	
+	
+	// restituisce il grafo delle relazioni utente-seguiti
+	public FollowerGraph followerGraph() {
+		return this.grafo;
+	}
+	// EFFECTS:		restituisce this.grafo (non modificabile, condiviso senza copia)
+	
+	
+	// restituisce la lista degli utenti che hanno più follower che utenti seguiti
+	public List<String> influencers() {
+		return this.grafo.influencers();
+	}
+	// EFFECTS:		restituisce this.grafo.influencers() in tempo O(U) (gli utenti sono già indicizzati)
+	
+	
+	// restituisce l'insieme degli utenti menzionati nei post
+	public Set<String> getMentionedUsers() {
+		return this.menzionati;
+	}
+	// EFFECTS:		restituisce in tempo O(1) l'insieme non modificabile this.menzionati (come getMentionedUsers() di
+	//				SocialNetwork all'istante della copia)
+	
+	
+	// restituisce i post di un utente
+	public List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		int i = this.utente(username);
+		ArrayList<Post> lista = new ArrayList<Post>(this.inizio_post[i + 1] - this.inizio_post[i]);
+		for(int k = this.inizio_post[i]; k < this.inizio_post[i + 1]; k++)
+			lista.add(this.materializza(k));
+		return lista;
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se !SocialNetwork.checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se username non è un utente di this lancia AbsentUsernameException (checked)
+	// EFFECTS:		restituisce nuovi post con i valori dei post di username in ordine di id
+	
+	
+	// restituisce il numero di post di un utente
+	public int postCount(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		int i = this.utente(username);
+		return this.inizio_post[i + 1] - this.inizio_post[i];
+	}
+	// THROWS:		come writtenBy(username)
+	// EFFECTS:		restituisce in tempo O(1) il numero di post di username
+	
+	
+	// restituisce i post che menzionano un utente
+	public List<Post> mentioning(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		int i = this.utente(username);
+		ArrayList<Post> lista = new ArrayList<Post>(this.inizio_menzioni[i + 1] - this.inizio_menzioni[i]);
+		for(int h = this.inizio_menzioni[i]; h < this.inizio_menzioni[i + 1]; h++)
+			lista.add(this.materializza(this.menzioni[h]));
+		return lista;
+	}
+	// THROWS:		come writtenBy(username)
+	// EFFECTS:		restituisce nuovi post con i valori dei post p con username ∈ SocialNetwork.getMentionedUsers(p),
+	//				ordinati per autore e per id
+	
+	
+	// restituisce il post con l'id specificato
+	public Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		int basso = 0, alto = this.per_id.length - 1;
+		while(basso <= alto) {
+			int medio = (basso + alto) >>> 1;
+			long m = this.ids[this.per_id[medio]];
+			if(m < id) basso = medio + 1;
+			else if(m > id) alto = medio - 1;
+			else return this.materializza(this.per_id[medio]);
+		}
+		throw new AbsentPostException();
+	}
+	// THROWS:		se id < 0 lancia IllegalArgumentException (unchecked)
+	//				se nessun post ha l'id specificato lancia AbsentPostException (checked)
+	// EFFECTS:		restituisce un nuovo post con i valori del post con l'id specificato (ricerca binaria O(log m))
+	
+	
+	/** [INDICI] **************************************************************************************************/
+	
+	// restituisce l'indice di un utente
+	private int utente(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		int i = this.grafo.node(username);
+		if(i < 0) throw new AbsentUsernameException();
+		return i;
+	}
+	// THROWS:		come writtenBy(username)
+	// EFFECTS:		restituisce i tale che user_i = username
+	
+	
+	// costruisce il post nella posizione specificata
+	private Post materializza(int k) {
+		ArrayList<String> likes = new ArrayList<String>(this.inizio_like[k + 1] - this.inizio_like[k]);
+		for(int h = this.inizio_like[k]; h < this.inizio_like[k + 1]; h++)
+			likes.add(this.grafo.name(this.like[h]));
+		return new Post(this.ids[k], this.grafo.name(this.autori[k]), this.testi[k], this.date_pub[k], this.date_mod[k], likes);
+	}
+	// REQUIRES:	0 ≤ k < m
+	// EFFECTS:		restituisce un nuovo post con i valori del post in posizione k
+	
+	
+	// restituisce gli indici ordinati degli utenti con i nomi specificati presenti in nomi (escluso l'indice escluso)
+	private static int[] indici(String[] nomi, String[] utenti, int escluso) {
+		int[] r = new int[utenti.length];
+		int c = 0;
+		for(String u : utenti) {
+			int j = Arrays.binarySearch(nomi, u);
+			if(j >= 0 && j != escluso) r[c++] = j;
+		}
+		r = Arrays.copyOf(r, c);
+		Arrays.sort(r);
+		return r;
+	}
+	// REQUIRES:	nomi ordinato in modo strettamente crescente, utenti senza ripetizioni
+	// EFFECTS:		restituisce in ordine crescente { j | nomi[j] ∈ utenti, j ≠ escluso }
+	//				(gli utenti non copiati, possibili solo in reti con più lock, sono ignorati)
+	
+	// restituisce gli inizi in formato CSR delle righe specificate
+	private static int[] inizi(int[][] righe) {
+		int[] inizio = new int[righe.length + 1];
+		for(int i = 0; i < righe.length; i++)
+			inizio[i + 1] = inizio[i] + righe[i].length;
+		return inizio;
+	}
+	// EFFECTS:		restituisce inizio con inizio[0] = 0 e inizio[i+1] = inizio[i] + righe[i].length
+	
+	// concatena le righe specificate in un unico array (in parallelo)
+	private static int[] appiattisci(int[][] righe, int[] inizio) {
+		int[] tutti = new int[inizio[righe.length]];
+		IntStream.range(0, righe.length).parallel()
+			.forEach(i -> System.arraycopy(righe[i], 0, tutti, inizio[i], righe[i].length));
+		return tutti;
+	}
+	// REQUIRES:	inizio = inizi(righe)
+	// EFFECTS:		restituisce la concatenazione di righe[0], ..., righe[righe.length-1]
+	
+	
+	// campi di un post copiati sotto il lock della rete sociale
+	private static final class Riga {
+		private final long id;
+		private final String nome;
+		private final String testo;
+		private final long data_pub;
+		private final long data_mod;
+		private final String[] likes;
+		private int autore;
+		
+		private Riga(Post p) {
+			this.id = p.getId();
+			this.nome = p.getAutore();
+			this.testo = p.getText();
+			this.data_pub = p.getDataPub();
+			this.data_mod = p.getDataMod();
+			this.likes = p.getLikes().toArray(new String[0]);
+			this.autore = -1;
+		}
+	}
+
+}
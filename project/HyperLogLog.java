@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+
+public class HyperLogLog {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta uno sketch HyperLogLog: una stima della cardinalità di un insieme
+	di stringhe che occupa un numero fisso di byte (2^precisione registri di un byte) indipendentemente dal numero
+	di elementi. Ogni elemento è ridotto ad un hash di 64 bit: i primi precisione bit scelgono il registro, che
+	conserva il massimo numero di zeri iniziali (+1) osservato nei bit restanti. Due sketch con la stessa precisione
+	si uniscono prendendo il massimo registro per registro (lo sketch dell'unione degli insiemi); gli elementi non
+	possono essere rimossi. La stima è mantenuta ad ogni modifica di un registro, quindi estimate() costa O(1).
+	L'errore relativo standard è 1.04 / sqrt(2^precisione) (circa 3.25% con precisione 10, 1.6% con precisione 12);
+	le cardinalità piccole rispetto al numero di registri sono stimate con il conteggio lineare dei registri nulli.
+	
+	ELEMENTO TIPICO:	<precisione, { elemento_1, ..., elemento_n }>   (solo la cardinalità n è osservabile, stimata)
+	
+	AF =	<	this.precisione, stima = this.estimate()	>
+	
+	RI =  MIN_PRECISION ≤ this.precisione ≤ MAX_PRECISION && this.registri.length = 2^this.precisione
+		  &&  (∀ i . 0 ≤ this.registri[i] ≤ 64 - this.precisione + 1)
+		  &&  this.somma = Σ 2^-this.registri[i] && this.nulli = #{ i | this.registri[i] = 0 }
+**/
+	
+	// precisione minima, massima e predefinita (bit dell'indice del registro)
+	public static final int MIN_PRECISION = 4;
+	public static final int MAX_PRECISION = 16;
+	public static final int DEFAULT_PRECISION = 10;
+	
+	// bit dell'hash usati per scegliere il registro
+	private final int precisione;
+	// massimo numero di zeri iniziali (+1) dei bit restanti degli hash di ogni registro
+	private final byte[] registri;
+	// somma armonica dei registri (mantenuta ad ogni modifica)
+	private double somma;
+	// numero di registri nulli
+	private int nulli;
+	
+	
+	// COSTRUTTORE: istanzia uno sketch vuoto con precisione DEFAULT_PRECISION
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+	// EFFECTS:		inizializza this come HyperLogLog(DEFAULT_PRECISION)
+	
+	// COSTRUTTORE
+	public HyperLogLog(int precisione) throws IllegalArgumentException {
+		if(precisione < MIN_PRECISION || precisione > MAX_PRECISION) throw new IllegalArgumentException();
+		this.precisione = precisione;
+		this.registri = new byte[1 << precisione];
+		this.somma = this.registri.length;
+		this.nulli = this.registri.length;
+	}
+	// THROWS:		se precisione ∉ [MIN_PRECISION, MAX_PRECISION] lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this vuoto con 2^precisione registri
+	
+	// COSTRUTTORE: istanzia una copia di uno sketch
+	public HyperLogLog(HyperLogLog h) throws NullPointerException {
+		this.precisione = h.precisione;
+		this.registri = h.registri.clone();
+		this.somma = h.somma;
+		this.nulli = h.nulli;
+	}
+	// THROWS:		se h = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza this con la stessa precisione e gli stessi registri di h
+	
+	
+	// restituisce la precisione
+	public int getPrecision() {
+		return this.precisione;
+	}
+	// EFFECTS:		restituisce this.precisione
+	
+	// restituisce la dimensione dello sketch in byte
+	public int size() {
+		return this.registri.length;
+	}
+	// EFFECTS:		restituisce 2^this.precisione (un byte per registro)
+	
+	// restituisce l'errore relativo standard della stima
+	public double standardError() {
+		return 1.04 / Math.sqrt(this.registri.length);
+	}
+	// EFFECTS:		restituisce 1.04 / sqrt(2^this.precisione)
+	
+	
+	// aggiunge un elemento
+	public boolean add(String s) throws NullPointerException {
+		return this.addHash(HyperLogLog.hash(s));
+	}
+	// THROWS:		se s = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge s all'insieme stimato in tempo O(|s|) e restituisce true SSE un registro è cambiato
+	
+	
+	// aggiunge l'hash di un elemento
+	public boolean addHash(long h) {
+		int i = (int)(h >>> (64 - this.precisione));
+		// zeri iniziali dei bit restanti (+1), limitati alla loro lunghezza
+		int r = Math.min(Long.numberOfLeadingZeros(h << this.precisione), 64 - this.precisione) + 1;
+		return this.aggiorna(i, r);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge l'elemento con hash h all'insieme stimato in tempo O(1)
+	//				e restituisce true SSE un registro è cambiato
+	
+	
+	// unisce uno sketch a this
+	public void merge(HyperLogLog h) throws NullPointerException, IllegalArgumentException {
+		if(h.precisione != this.precisione) throw new IllegalArgumentException();
+		for(int i=0; i<this.registri.length; i++)
+			this.aggiorna(i, h.registri[i]);
+	}
+	// THROWS:		se h = null lancia NullPointerException (unchecked)
+	//				se h.precisione ≠ this.precisione lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		this diventa lo sketch dell'unione degli insiemi stimati da pre(this) e h (tempo O(2^precisione))
+	
+	
+	// svuota lo sketch
+	public void clear() {
+		Arrays.fill(this.registri, (byte)0);
+		this.somma = this.registri.length;
+		this.nulli = this.registri.length;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		this diventa lo sketch dell'insieme vuoto
+	
+	
+	// restituisce la stima della cardinalità
+	public long estimate() {
+		int m = this.registri.length;
+		double alfa = (m == 16) ? 0.673 : (m == 32) ? 0.697 : (m == 64) ? 0.709 : 0.7213 / (1 + 1.079 / m);
+		double stima = alfa * m * m / this.somma;
+		// correzione per le cardinalità piccole: conteggio lineare dei registri nulli
+		if(stima <= 2.5 * m && this.nulli > 0)
+			stima = m * Math.log((double)m / this.nulli);
+		return Math.round(stima);
+	}
+	// EFFECTS:		restituisce in tempo O(1) la stima della cardinalità dell'insieme (errore relativo standard
+	//				this.standardError(); 0 per l'insieme vuoto)
+	
+	
+	// aggiorna un registro con il massimo tra il valore attuale e quello specificato
+	private boolean aggiorna(int i, int r) {
+		int attuale = this.registri[i];
+		if(r <= attuale) return false;
+		if(attuale == 0) this.nulli--;
+		this.somma += Math.scalb(1.0, -r) - Math.scalb(1.0, -attuale);
+		this.registri[i] = (byte)r;
+		return true;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		post(this.registri[i]) = max(pre(this.registri[i]), r) aggiornando this.somma e this.nulli,
+	//				restituisce true SSE il registro è cambiato
+	
+	
+	// restituisce l'hash di 64 bit di una stringa
+	public static long hash(String s) throws NullPointerException {
+		// FNV-1a sui caratteri seguito dal finalizzatore di MurmurHash3 (distribuisce tutti i 64 bit)
+		long h = 0xcbf29ce484222325L;
+		for(int i=0; i<s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	// THROWS:		se s = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce un hash di 64 bit di s uniformemente distribuito
+
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+
+public class IdTable {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che associa ad id di post (long ≥ 0) valori long ≥ 0 (es. slot, posizioni su file)
+	senza oggetti per associazione: due array paralleli con indirizzamento aperto e scansione lineare.
+	Occupa 16 byte per posizione (al più 2/3 delle posizioni occupate) contro le decine di byte di una
+	HashMap<Long, Long>.
+	
+	ELEMENTO TIPICO:	{ <id_0, v_0>, ..., <id_n-1, v_n-1> }
+	
+	AF =	{ <this.chiavi[i], this.valori[i]> | 0 ≤ i < this.chiavi.length && this.chiavi[i] ≠ LIBERA }
+	
+	RI =  this.chiavi.length = this.valori.length = potenza di 2 && 3 * this.n ≤ 2 * this.chiavi.length
+		  &&  this.n = #{ i | this.chiavi[i] ≠ LIBERA } && chiavi distinte
+		  &&  ogni chiave è raggiungibile dalla sua posizione iniziale hash(chiave) senza attraversare posizioni libere
+**/
+	
+	// visitatore delle associazioni
+	public interface Visitor {
+		void visit(long id, long valore);
+	}
+	
+	// chiave delle posizioni libere (gli id sono ≥ 0)
+	private static final long LIBERA = -1;
+	
+	private long[] chiavi;
+	private long[] valori;
+	private int n;
+	
+	
+	// COSTRUTTORE: istanzia una tabella vuota
+	public IdTable() {
+		this.chiavi = new long[16];
+		this.valori = new long[16];
+		Arrays.fill(this.chiavi, LIBERA);
+		this.n = 0;
+	}
+	// EFFECTS:		inizializza this = {}
+	
+	
+	// restituisce il valore associato all'id
+	public long get(long id) {
+		int m = this.chiavi.length - 1;
+		for(int i = IdTable.hash(id, m); this.chiavi[i] != LIBERA; i = (i + 1) & m)
+			if(this.chiavi[i] == id) return this.valori[i];
+		return -1;
+	}
+	// EFFECTS:		restituisce v se <id, v> ∈ this, altrimenti -1
+	
+	// associa il valore all'id
+	public void put(long id, long valore) throws IllegalArgumentException {
+		if(id < 0 || valore < 0) throw new IllegalArgumentException();
+		if(3 * (this.n + 1) > 2 * this.chiavi.length) this.resize();
+		int m = this.chiavi.length - 1;
+		int i = IdTable.hash(id, m);
+		while(this.chiavi[i] != LIBERA && this.chiavi[i] != id) i = (i + 1) & m;
+		if(this.chiavi[i] == LIBERA) this.n++;
+		this.chiavi[i] = id;
+		this.valori[i] = valore;
+	}
+	// THROWS:		se id < 0 || valore < 0 lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this) = pre(this) \ {<id, v>} U {<id, valore>}
+	
+	// rimuove l'associazione dell'id
+	public boolean remove(long id) {
+		int m = this.chiavi.length - 1;
+		int i = IdTable.hash(id, m);
+		while(this.chiavi[i] != id) {
+			if(this.chiavi[i] == LIBERA) return false;
+			i = (i + 1) & m;
+		}
+		// cancellazione con spostamento all'indietro: nessuna chiave resta irraggiungibile
+		for(int j = (i + 1) & m; this.chiavi[j] != LIBERA; j = (j + 1) & m) {
+			int h = IdTable.hash(this.chiavi[j], m);
+			if(((j - h) & m) >= ((j - i) & m)) {
+				this.chiavi[i] = this.chiavi[j];
+				this.valori[i] = this.valori[j];
+				i = j;
+			}
+		}
+		this.chiavi[i] = LIBERA;
+		this.n--;
+		return true;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		rimuove <id, v> da this e restituisce true, restituisce false se id non è associato
+	
+	// restituisce il numero di associazioni
+	public int size() {
+		return this.n;
+	}
+	// EFFECTS:		restituisce #this
+	
+	// visita le associazioni
+	public void forEach(Visitor visitor) {
+		for(int i = 0; i < this.chiavi.length; i++)
+			if(this.chiavi[i] != LIBERA) visitor.visit(this.chiavi[i], this.valori[i]);
+	}
+	// REQUIRES:	visitor ≠ null, visitor non modifica this
+	// EFFECTS:		esegue visitor.visit(id, v) per ogni <id, v> ∈ this in ordine non specificato
+	
+	
+	// raddoppia le posizioni reinserendo le associazioni
+	private void resize() {
+		long[] chiavi = this.chiavi;
+		long[] valori = this.valori;
+		this.chiavi = new long[2 * chiavi.length];
+		this.valori = new long[2 * chiavi.length];
+		Arrays.fill(this.chiavi, LIBERA);
+		this.n = 0;
+		for(int i = 0; i < chiavi.length; i++)
+			if(chiavi[i] != LIBERA) this.put(chiavi[i], valori[i]);
+	}
+	
+	// posizione iniziale dell'id (hash moltiplicativo di Fibonacci)
+	private static int hash(long id, int m) {
+		return (int)((id * 0x9E3779B97F4A7C15L) >>> 32) & m;
+	}
+
+}
@@ -0,0 +1,64 @@
+
+
+public class ImportStats {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta l'avanzamento di un'importazione di post in un certo istante:
+	record letti, importati e scartati e tempo trascorso dall'inizio dell'importazione.
+	
+	ELEMENTO TIPICO:	<record, importati, scartati, nanosecondi>
+	
+	AF =	<this.records, this.imported, this.rejected, this.nanos>
+	
+	RI =  this.imported ≥ 0 && this.rejected ≥ 0 && this.records = this.imported + this.rejected && this.nanos ≥ 0
+**/
+	
+	private final long records;
+	private final long imported;
+	private final long rejected;
+	private final long nanos;
+	
+	
+	// COSTRUTTORE
+	protected ImportStats(long imported, long rejected, long nanos) {
+		this.records = imported + rejected;
+		this.imported = imported;
+		this.rejected = rejected;
+		this.nanos = nanos;
+	}
+	// REQUIRES:	valori che rispettano RI
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	public long getRecords() {
+		return this.records;
+	}
+	
+	public long getImported() {
+		return this.imported;
+	}
+	
+	public long getRejected() {
+		return this.rejected;
+	}
+	
+	public long getNanos() {
+		return this.nanos;
+	}
+	// EFFECTS:		restituisce il campo omonimo di this
+	
+	// restituisce il numero di record elaborati al secondo
+	public double getRate() {
+		return this.nanos == 0 ? 0 : this.records / (this.nanos / 1e9);
+	}
+	// EFFECTS:		restituisce this.records / (this.nanos / 10^9), 0 se this.nanos = 0
+	
+	
+	public String toString() {
+		return String.format("record %d (importati %d, scartati %d) in %.1f s, %.0f record/s",
+			this.records, this.imported, this.rejected, this.nanos / 1e9, this.getRate());
+	}
+	// EFFECTS:		restituisce una stringa che rappresenta this
+
+}
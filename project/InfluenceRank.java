@@ -0,0 +1,94 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Collections;
+
+
+public class InfluenceRank {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta i punteggi di influenza degli utenti di un FollowerGraph
+	calcolati da FollowerGraph.pageRank: il punteggio di un utente si ottiene in tempo costante dopo la
+	ricerca del suo indice, i k utenti più influenti in O(n log k).
+	
+	ELEMENTO TIPICO:	{ <user_0, r_0>, ..., <user_n-1, r_n-1> }
+	
+	AF =	{ <this.grafo.name(i), this.punteggi[i]> | 0 ≤ i < this.grafo.size() }
+	
+	RI =  this.grafo ≠ null && this.punteggi.length = this.grafo.size() && this.iterazioni ≥ 0
+**/
+	
+	// grafo su cui sono stati calcolati i punteggi
+	private final FollowerGraph grafo;
+	// punteggio di ogni utente per indice
+	private final double[] punteggi;
+	// iterazioni eseguite
+	private final int iterazioni;
+	// true se le iterazioni hanno raggiunto la tolleranza richiesta
+	private final boolean converge;
+	
+	
+	// COSTRUTTORE
+	protected InfluenceRank(FollowerGraph grafo, double[] punteggi, int iterazioni, boolean converge) {
+		this.grafo = grafo;
+		this.punteggi = punteggi;
+		this.iterazioni = iterazioni;
+		this.converge = converge;
+	}
+	// REQUIRES:	valori che rispettano RI, punteggi non modificato dopo la costruzione
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	// restituisce il punteggio di influenza dell'utente
+	public double getScore(String username) throws NullPointerException, AbsentUsernameException {
+		int i = this.grafo.node(username);		// propaga eventuali eccezioni
+		if(i < 0) throw new AbsentUsernameException();
+		return this.punteggi[i];
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se username non è un utente del grafo lancia AbsentUsernameException (checked)
+	// EFFECTS:		restituisce il punteggio di username
+	
+	// restituisce i k utenti con punteggio più alto
+	public List<String> top(int k) throws IllegalArgumentException {
+		if(k < 0) throw new IllegalArgumentException();
+		
+		// min-heap dei migliori k indici (a parità di punteggio è preferito l'indice minore)
+		PriorityQueue<Integer> migliori = new PriorityQueue<Integer>(Math.max(1, k), (a, b) -> {
+			int c = Double.compare(this.punteggi[a], this.punteggi[b]);
+			return (c != 0) ? c : Integer.compare(b, a);
+		});
+		for(int i = 0; i < this.punteggi.length && k > 0; i++) {
+			if(migliori.size() < k) migliori.add(i);
+			else if(migliori.comparator().compare(i, migliori.peek()) > 0) {
+				migliori.poll();
+				migliori.add(i);
+			}
+		}
+		
+		ArrayList<String> lista = new ArrayList<String>(migliori.size());
+		while(!migliori.isEmpty())
+			lista.add(this.grafo.name(migliori.poll()));
+		Collections.reverse(lista);
+		return lista;
+	}
+	// THROWS:		se k < 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce i min(k, n) utenti con punteggio più alto in ordine decrescente di punteggio
+	//				(a parità di punteggio in ordine lessicografico)
+	
+	
+	public int getIterations() {
+		return this.iterazioni;
+	}
+	
+	public boolean isConverged() {
+		return this.converge;
+	}
+	
+	public FollowerGraph getGraph() {
+		return this.grafo;
+	}
+	// EFFECTS:		restituisce il campo omonimo di this
+
+}
@@ -0,0 +1,531 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Date;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.DataInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
+import java.nio.ByteBuffer;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+
+public class LeaderSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork (leader) che registra ogni modifica
+	andata a buon fine in un log ordinato e lo trasmette via socket alle repliche (ReplicaSocialNetwork) connesse.
+	Ogni modifica riceve un numero di sequenza crescente (1, 2, ...) che funge da token read-your-writes:
+	una replica che ha applicato la sequenza s riflette tutte le modifiche con sequenza ≤ s.
+	Il log conserva solo le modifiche non ancora confermate da tutte le repliche connesse (le precedenti sono
+	scartate): una replica che richiede una modifica già scartata riceve lo stato attuale del leader (snapshot).
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork,
+		[modifica_b+1, ..., modifica_n]	>	con b = sequenza dell'ultima modifica scartata
+	
+	
+	AF =	<	AF(ReportSocialNetwork),
+				[this.log.get(0), ..., this.log.get(this.log.size()-1)]	>
+	
+	RI =  RI(ReportSocialNetwork) && this.log ≠ null && null ∉ this.log && this.base ≥ 0
+		  &&  (∀ i . 0 ≤ i < this.log.size() ==> this.log.get(i) codifica una modifica con sequenza this.base+i+1)
+		  &&  this.confermate ≠ null && (∀ s ∈ this.confermate.values() ==> s ≤ this.base + this.log.size())
+		  &&  (this.confermate ≠ {} ==> this.base ≤ min(this.confermate.values()))
+	
+	FORMATO DI UNA MODIFICA:	<seq:long, timestamp:long, op:byte, argomenti...>
+								(OP_CREATE_POST: <id, autore, text, data_pub, data_mod, n:int, like_1, ..., like_n>)
+								(OP_SNAPSHOT: <n:int, utente_1, ..., utente_n, m:int, post_1, ..., post_m,
+								 k:int, segnalazione_1, ..., segnalazione_k> con post come OP_CREATE_POST e
+								 segnalazione come OP_ADD_REPORT, seq = ultima modifica riflessa dallo stato)
+	FORMATO SUL SOCKET:			la replica invia la prima sequenza che le manca (long), il leader risponde con
+								una sequenza di frame <head:long, lunghezza:int, modifica:byte[lunghezza]>
+								dove head è l'ultima sequenza del leader al momento dell'invio;
+								la replica conferma via via l'ultima sequenza applicata (long)
+**/
+	
+	// codici delle operazioni registrate nel log
+	protected static final byte OP_CREATE_USER = 1;
+	protected static final byte OP_DELETE_USER = 2;
+	protected static final byte OP_CREATE_POST = 3;
+	protected static final byte OP_DELETE_POST = 4;
+	protected static final byte OP_DELETE_ALL_POST = 5;
+	protected static final byte OP_ADD_LIKE = 6;
+	protected static final byte OP_REMOVE_LIKE = 7;
+	protected static final byte OP_ADD_REPORT = 8;
+	protected static final byte OP_MODIFY_POST = 9;
+	protected static final byte OP_SNAPSHOT = 10;
+	
+	// log ordinato delle modifiche non ancora scartate (la modifica con sequenza s è in posizione s-this.base-1)
+	private final ArrayList<byte[]> log;
+	// sequenza dell'ultima modifica scartata dal log (accesso in synchronized(this.log))
+	private long base;
+	// ultima sequenza confermata da ogni replica connessa (accesso in synchronized(this.log))
+	private final Map<Socket, Long> confermate;
+	// sequenza dell'ultima modifica eseguita da ogni thread (token read-your-writes)
+	private final ThreadLocal<Long> token;
+	// socket su cui il leader accetta le repliche (null se non in ascolto)
+	private ServerSocket server;
+	// connessioni attive verso le repliche
+	private final List<Socket> repliche;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale leader vuota con log vuoto
+	public LeaderSocialNetwork() {
+		super();
+		this.log = new ArrayList<byte[]>();
+		this.base = 0;
+		this.confermate = new HashMap<Socket, Long>();
+		this.token = ThreadLocal.withInitial(() -> 0L);
+		this.server = null;
+		this.repliche = new ArrayList<Socket>();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		inizializza la rete sociale vuota, this.log = [] e this.base = 0
+	
+	
+	/** [LOG DELLE MODIFICHE] **************************************************************************************/
+	
+	// aggiunge una modifica al log e sveglia i thread che la trasmettono alle repliche
+	private void append(byte op, Object... args) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		long seq;
+		try {
+			synchronized(this.log) {
+				seq = this.base + this.log.size() + 1;
+				out.writeLong(seq);
+				out.writeLong(new Date().getTime());
+				out.writeByte(op);
+				LeaderSocialNetwork.scrivi(out, args);
+				this.log.add(bytes.toByteArray());
+				this.compatta();
+				this.log.notifyAll();
+			}
+		}
+		catch(IOException e) {throw new IllegalStateException(e);}		// mai lanciata su ByteArrayOutputStream
+		this.token.set(seq);
+	}
+	// REQUIRES:	args contiene solo String, Long, Integer o ReportType nell'ordine previsto da op
+	// MODIFIES:	this.log, this.token
+	// EFFECTS:		aggiunge a this.log la modifica <this.base+this.log.size()+1, timestamp attuale, op, args>,
+	//				la registra come ultima modifica del thread corrente e scarta le modifiche confermate
+	
+	
+	// scrive gli argomenti di una modifica
+	private static void scrivi(DataOutputStream out, Object... args) throws IOException {
+		for(Object arg : args) {
+			if(arg instanceof String) out.writeUTF((String)arg);
+			else if(arg instanceof Long) out.writeLong((Long)arg);
+			else if(arg instanceof Integer) out.writeInt((Integer)arg);
+			else if(arg instanceof ReportType) out.writeByte(((ReportType)arg).ordinal());
+		}
+	}
+	// REQUIRES:	args contiene solo String, Long, Integer o ReportType
+	// THROWS:		se la scrittura fallisce lancia IOException (checked)
+	// EFFECTS:		scrive su out gli argomenti nell'ordine dato
+	
+	
+	// scarta dal log le modifiche confermate da tutte le repliche connesse
+	private void compatta() {
+		long minima = this.base + this.log.size();
+		for(long s : this.confermate.values())
+			minima = Math.min(minima, s);
+		int scartate = (int)(minima - this.base);
+		// scarta solo quando la parte confermata è almeno metà del log (costo ammortizzato O(1) per modifica)
+		if(scartate > 0 && 2 * scartate >= this.log.size()) {
+			this.log.subList(0, scartate).clear();
+			this.base = minima;
+		}
+	}
+	// REQUIRES:	il thread corrente possiede il lock di this.log
+	// MODIFIES:	this.log, this.base
+	// EFFECTS:		sia m = min(this.confermate.values()) (this.base+this.log.size() se nessuna replica è connessa):
+	//				se m-this.base ≥ this.log.size()/2 scarta da this.log le modifiche con sequenza ≤ m e this.base = m
+	
+	
+	// codifica lo stato attuale della rete sociale come un'unica modifica OP_SNAPSHOT
+	private synchronized byte[] snapshot() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeLong(this.getSequence());
+			out.writeLong(new Date().getTime());
+			out.writeByte(OP_SNAPSHOT);
+			out.writeInt(this.followers.size());
+			for(String u : this.followers.keySet())
+				out.writeUTF(u);
+			out.writeInt(this.index.size());
+			for(Post p : this.index.values())
+				LeaderSocialNetwork.scrivi(out, LeaderSocialNetwork.argomentiPost(p));
+			
+			// solo le segnalazioni di post e utenti ancora presenti sono applicabili dalla replica
+			List<Object[]> segnalazioni = new ArrayList<Object[]>();
+			for(Map.Entry<Post, Set<Report>> e : this.reports.entrySet()) {
+				Post p = e.getKey();
+				if(this.index.get(p.getId()) != p) continue;
+				for(Report r : e.getValue())
+					if(this.followers.containsKey(r.getUsername()))
+						segnalazioni.add(new Object[] {r.getUsername(), p.getId(), r.getType()});
+			}
+			out.writeInt(segnalazioni.size());
+			for(Object[] args : segnalazioni)
+				LeaderSocialNetwork.scrivi(out, args);
+		}
+		catch(IOException e) {throw new IllegalStateException(e);}		// mai lanciata su ByteArrayOutputStream
+		return bytes.toByteArray();
+	}
+	// EFFECTS:		restituisce la modifica <this.getSequence(), timestamp attuale, OP_SNAPSHOT, utenti, post, segnalazioni>
+	//				che applicata ad una replica la rende uguale a this (i modificatori sono sospesi durante la codifica)
+	
+	
+	// restituisce gli argomenti della modifica OP_CREATE_POST che ricrea il post p
+	private static Object[] argomentiPost(Post p) {
+		Set<String> likes = p.getLikes();
+		Object[] args = new Object[6 + likes.size()];
+		args[0] = p.getId();
+		args[1] = p.getAutore();
+		args[2] = p.getText();
+		args[3] = p.getDataPub();
+		args[4] = p.getDataMod();
+		args[5] = likes.size();
+		int i = 6;
+		for(String like : likes)
+			args[i++] = like;
+		return args;
+	}
+	// REQUIRES:	p ≠ null
+	// EFFECTS:		restituisce [id, autore, text, data_pub, data_mod, numero di like, like_1, ..., like_n] di p
+	
+	
+	// restituisce la sequenza dell'ultima modifica registrata nel log
+	public long getSequence() {
+		synchronized(this.log) {
+			return this.base + this.log.size();
+		}
+	}
+	// EFFECTS:		restituisce this.base + this.log.size()
+	
+	
+	// restituisce il token read-your-writes dell'ultima modifica eseguita dal thread corrente
+	public long getWriteToken() {
+		return this.token.get();
+	}
+	// EFFECTS:		restituisce la sequenza dell'ultima modifica eseguita dal thread corrente (0 se nessuna)
+	
+	
+	/** [REPLICAZIONE] *********************************************************************************************/
+	
+	// mette il leader in ascolto delle repliche sulla porta specificata (0 = porta libera qualsiasi)
+	public synchronized int listen(int port) throws IOException, IllegalStateException {
+		if(this.server != null) throw new IllegalStateException();
+		this.server = new ServerSocket(port);
+		ServerSocket server = this.server;
+		
+		Thread acceptor = new Thread(() -> {
+			while(!server.isClosed()) {
+				try {
+					Socket socket = server.accept();
+					synchronized(this.repliche) { this.repliche.add(socket); }
+					Thread sender = new Thread(() -> this.ship(socket), "leader-sender");
+					sender.setDaemon(true);
+					sender.start();
+				}
+				catch(IOException e) {}		// socket chiuso: termina
+			}
+		}, "leader-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return this.server.getLocalPort();
+	}
+	// THROWS:		se il socket non può essere aperto lancia IOException (checked)
+	//				se il leader è già in ascolto lancia IllegalStateException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		avvia un thread che accetta repliche e per ognuna un thread che trasmette il log,
+	//				restituisce la porta effettiva su cui il leader è in ascolto
+	
+	
+	// trasmette il log alla replica connessa al socket a partire dalla sequenza richiesta
+	private void ship(Socket socket) {
+		// finché la replica non conferma, il log non scarta le modifiche che potrebbe richiedere
+		synchronized(this.log) { this.confermate.put(socket, this.base); }
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			long next = in.readLong();
+			if(next < 1) next = 1;
+			synchronized(this.log) {
+				if(next > this.base) this.confermate.put(socket, Math.min(next - 1, this.base + this.log.size()));
+			}
+			Thread ack = new Thread(() -> this.conferme(socket, in), "leader-ack");
+			ack.setDaemon(true);
+			ack.start();
+			
+			while(!socket.isClosed()) {
+				byte[] modifica = null;
+				boolean scartata;
+				long head;
+				synchronized(this.log) {
+					head = this.base + this.log.size();
+					scartata = next <= this.base;
+					if(!scartata && next <= head) modifica = this.log.get((int)(next - this.base - 1));
+				}
+				if(scartata) {
+					// modifica già scartata dal log: la replica riceve lo stato attuale e riparte dalla sequenza successiva
+					modifica = this.snapshot();
+					head = ByteBuffer.wrap(modifica).getLong();
+					next = head;
+				}
+				else if(modifica == null) {
+					// replica allineata: invia quanto accumulato (senza lock sul log) e attende nuove modifiche
+					out.flush();
+					synchronized(this.log) {
+						while(next > this.base + this.log.size() && !socket.isClosed())
+							this.log.wait();
+					}
+					continue;
+				}
+				out.writeLong(head);
+				out.writeInt(modifica.length);
+				out.write(modifica);
+				next++;
+			}
+		}
+		catch(IOException | InterruptedException e) {}		// replica disconnessa: termina
+		finally {
+			synchronized(this.log) {
+				this.confermate.remove(socket);
+				this.compatta();
+			}
+			synchronized(this.repliche) { this.repliche.remove(socket); }
+			try {socket.close();}
+			catch(IOException e) {}
+		}
+	}
+	// MODIFIES:	this.log, this.base, this.confermate, socket
+	// EFFECTS:		invia alla replica i frame delle modifiche dalla sequenza richiesta in poi, attendendo le nuove
+	//				(se la sequenza richiesta è già stata scartata invia prima lo snapshot dello stato attuale),
+	//				alla disconnessione della replica scarta le modifiche che solo lei non aveva confermato
+	
+	
+	// registra le sequenze confermate dalla replica connessa al socket e scarta dal log le modifiche confermate
+	private void conferme(Socket socket, DataInputStream in) {
+		try {
+			while(true) {
+				long s = in.readLong();
+				synchronized(this.log) {
+					Long prima = this.confermate.get(socket);
+					if(prima == null) return;		// replica già disconnessa
+					this.confermate.put(socket, Math.min(Math.max(prima, s), this.base + this.log.size()));
+					this.compatta();
+				}
+			}
+		}
+		catch(IOException e) {}		// replica disconnessa: termina
+		finally {
+			try {socket.close();}
+			catch(IOException e) {}
+			synchronized(this.log) { this.log.notifyAll(); }		// sveglia il thread che trasmette alla replica
+		}
+	}
+	// MODIFIES:	this.log, this.base, this.confermate, socket
+	// EFFECTS:		aggiorna this.confermate.get(socket) con le sequenze ricevute dalla replica e scarta le modifiche
+	//				confermate da tutte le repliche, alla disconnessione chiude il socket
+	
+	
+	// chiude il socket di ascolto e tutte le connessioni verso le repliche
+	public synchronized void close() {
+		try {
+			if(this.server != null) this.server.close();
+			synchronized(this.repliche) {
+				for(Socket s : this.repliche)
+					s.close();
+			}
+		}
+		catch(IOException e) {}
+		synchronized(this.log) { this.log.notifyAll(); }
+		this.server = null;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		termina l'ascolto e la trasmissione del log (le modifiche non scartate restano disponibili
+	//				per un nuovo listen, le repliche che richiedono modifiche scartate ricevono uno snapshot)
+	
+	
+	/** [MODIFICATORI REGISTRATI NEL LOG] **************************************************************************/
+	
+	public synchronized void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		super.createUser(username);
+		this.append(OP_CREATE_USER, username);
+	}
+	// EFFECTS:		come SocialNetwork.createUser(username), in caso di successo registra la modifica nel log
+	
+	public synchronized Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		Set<Post> post = super.deleteUser(username);
+		this.append(OP_DELETE_USER, username);
+		return post;
+	}
+	// EFFECTS:		come SocialNetwork.deleteUser(username), in caso di successo registra la modifica nel log
+	
+	public synchronized long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		long id = super.createPost(autore, text);
+		this.append(OP_CREATE_POST, LeaderSocialNetwork.argomentiPost(this.index.get(id)));
+		return id;
+	}
+	// EFFECTS:		come SocialNetwork.createPost(autore, text), in caso di successo registra nel log
+	//				id e data di pubblicazione del post così che le repliche creino lo stesso post
+	
+	protected synchronized void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		super.insertPost(p);
+		this.append(OP_CREATE_POST, LeaderSocialNetwork.argomentiPost(p));
+	}
+	// EFFECTS:		come SocialNetwork.insertPost(p), in caso di successo registra nel log id, date e like del post
+	//				così che le repliche inseriscano lo stesso post (es. importato da PostImporter)
+	
+	public synchronized Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		Post p = super.deletePost(id);
+		this.append(OP_DELETE_POST, id);
+		return p;
+	}
+	// EFFECTS:		come SocialNetwork.deletePost(id), in caso di successo registra la modifica nel log
+	
+	protected synchronized void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		super.modificaPost(id, text, data_mod);
+		this.append(OP_MODIFY_POST, id, text, this.index.get(id).getDataMod());
+	}
+	// EFFECTS:		come SocialNetwork.modificaPost(id, text, data_mod), in caso di successo registra nel log
+	//				la data di modifica effettiva del post così che le repliche la riproducano
+	
+	public synchronized Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		Set<Post> post = super.deleteAllPost(username);
+		this.append(OP_DELETE_ALL_POST, username);
+		return post;
+	}
+	// EFFECTS:		come SocialNetwork.deleteAllPost(username), in caso di successo registra la modifica nel log
+	
+	public synchronized void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		super.addLike(username, id);
+		this.append(OP_ADD_LIKE, username, id);
+	}
+	// EFFECTS:		come SocialNetwork.addLike(username, id), in caso di successo registra la modifica nel log
+	
+	public synchronized void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		super.removeLike(username, id);
+		this.append(OP_REMOVE_LIKE, username, id);
+	}
+	// EFFECTS:		come SocialNetwork.removeLike(username, id), in caso di successo registra la modifica nel log
+	
+	public synchronized void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		super.addReport(username, id, type);
+		this.append(OP_ADD_REPORT, username, id, type);
+	}
+	// EFFECTS:		come ReportSocialNetwork.addReport(username, id, type), in caso di successo registra la modifica nel log
+	
+	public synchronized StatusCode tryCreateUser(String username) {
+		return super.tryCreateUser(username);
+	}
+	
+	public synchronized StatusCode tryAddLike(String username, long id) {
+		return super.tryAddLike(username, id);
+	}
+	
+	public synchronized StatusCode tryRemoveLike(String username, long id) {
+		return super.tryRemoveLike(username, id);
+	}
+	// EFFECTS:		come l'operazione omonima di SocialNetwork, con verifica e modifica sotto il lock di this
+	//				(la modifica è delegata al modificatore omonimo di this, che la registra nel log)
+	
+	
+	/** [OSSERVATORI SINCRONIZZATI CON LE MODIFICHE] ***************************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		return super.followerGraph();
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.whoToFollow(username, k);
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username);
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return super.containing(words);
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username, cursor, limit);
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return super.containing(words, cursor, limit);
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		return super.getMentionedUsers(cursor, limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.getPost(id);
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return super.postsBetween(from, to);
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.postsBetween(username, from, to);
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return super.modifiedSince(t);
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.modifiedSince(username, t);
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		super.visitPosts(visitor);
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		super.visitPosts(username, visitor);
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitUsers(part, parts, visitor);
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitReports(part, parts, visitor);
+	}
+
+}
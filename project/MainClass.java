@@ -1,4 +1,15 @@
 import java.util.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.lang.management.ManagementFactory;
+import java.lang.management.GarbageCollectorMXBean;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
 
 
 public class MainClass {
@@ -23,6 +34,106 @@ public class MainClass {
 		 */
 		//controllaErrori();
 		
+		/** 
+		 * test di carico del front-end HTTP: connessioni concorrenti, throughput e latenza
+		 */
+		//caricoHttpServer();
+		
+		/** 
+		 * throughput del protocollo binario con pipelining al variare delle richieste in volo
+		 */
+		//throughputBinaryProtocol();
+		
+		/** 
+		 * throughput della facciata asincrona al variare del numero di thread del pool
+		 */
+		//throughputAsyncSocialNetwork();
+		
+		/** 
+		 * occupazione dello heap e tempo di GC dei post come oggetti e fuori dallo heap (PostArena)
+		 */
+		//memoriaOffHeapSocialNetwork();
+		
+		/** 
+		 * hit rate e throughput della cache dei post caldi al variare della capacita' (post freddi su disco)
+		 */
+		//cacheTieredSocialNetwork();
+		
+		/** 
+		 * test di carico della cache dei risultati di containing
+		 */
+		//cacheContaining();
+		
+		/** 
+		 * costruzione del grafo CSR delle relazioni utente-seguiti e PageRank parallelo
+		 */
+		//pageRankFollowerGraph();
+		
+		/** 
+		 * latenza dei consigli di utenti da seguire per un utente che segue migliaia di utenti
+		 */
+		//latenzaWhoToFollow();
+		
+		/** 
+		 * latenza del completamento degli username per prefisso ordinato per numero di follower
+		 */
+		//latenzaAutocomplete();
+		
+		/** 
+		 * latenza della ricerca testuale booleana con punteggio BM25 (primi 10 risultati) rispetto a containing
+		 */
+		//latenzaRicerca();
+		
+		/** 
+		 * importazione in streaming di post da file NDJSON con scarti e avanzamento in record/s
+		 */
+		//importazioneNdjson();
+		
+		/** 
+		 * esportazione in streaming dell'intera rete (NDJSON e binario)
+		 */
+		//esportazioneRete();
+		
+		/** 
+		 * latenza delle scritture con pubblicazione delle modifiche su ChangeRing e lettori a lotti
+		 */
+		//latenzaCdc();
+		
+		/** 
+		 * recapito asincrono delle notifiche di menzioni e like e lettura paginata delle caselle
+		 */
+		//notifiche();
+		
+		/** 
+		 * throughput di addLike/removeLike con eccezioni e con le varianti con esito su mix ricchi di fallimenti
+		 */
+		//esitiSenzaEccezioni();
+		
+		/** 
+		 * latenza delle altre operazioni durante l'eliminazione di un account con molti post, a cascata e differita
+		 */
+		//eliminazioneDifferita();
+		
+		/** 
+		 * scadenza dei post con scansione periodica o con timing wheel
+		 */
+		//scadenzaPost();
+		
+		/** 
+		 * liker distinti e reach esatti e stimati con HyperLogLog
+		 */
+		//stimaLiker();
+		
+		/** 
+		 * costruzione di un'istantanea compatta e letture analitiche sulla rete sociale e sull'istantanea
+		 */
+		//istantaneaAnalitica();
+		
+		/** 
+		 * moderazione dei testi con una Blocklist di Aho-Corasick sostituita durante le scritture
+		 */
+		//moderazione();
+		
 	}
 	
 	public static void controllaSocialNetwork() {
@@ -444,4 +555,1037 @@ public class MainClass {
 		for(int i=0; i<80; i++) {System.out.print("=");} System.out.println();
 	}
 	
+	/** [TEST DI CARICO: SocialNetworkHttpServer] ***********************************************************/
+	public static void caricoHttpServer() {
+		SocialNetworkHttpServer server = new SocialNetworkHttpServer(new ShardedSocialNetwork(8));
+		try {
+			int port = server.start(0);
+			String base = "http://localhost:" + port;
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+			
+			// popolamento: 1000 utenti con 10 post ciascuno
+			for(int u=0; u<1000; u++) {
+				client.send(HttpRequest.newBuilder(URI.create(base + "/users/user" + u))
+					.POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.discarding());
+				for(int i=0; i<10; i++)
+					client.send(HttpRequest.newBuilder(URI.create(base + "/users/user" + u + "/posts"))
+						.POST(HttpRequest.BodyPublishers.ofString("post " + i + " di @user" + (u+1)%1000)).build(),
+						HttpResponse.BodyHandlers.discarding());
+			}
+			
+			// per ogni livello di concorrenza: client concorrenti che eseguono un mix di letture e like
+			for(int concorrenti : new int[] {16, 64, 256, 1024}) {
+				int richieste = 20;		// richieste per client
+				ExecutorService pool = Executors.newFixedThreadPool(concorrenti);
+				long[] latenze = new long[concorrenti * richieste];
+				CountDownLatch fine = new CountDownLatch(concorrenti);
+				long inizio = System.nanoTime();
+				for(int c=0; c<concorrenti; c++) {
+					final int id = c;
+					pool.execute(() -> {
+						Random r = new Random(id);
+						for(int i=0; i<richieste; i++) {
+							String user = "user" + r.nextInt(1000);
+							HttpRequest req;
+							switch(i % 4) {
+								case 0:	req = HttpRequest.newBuilder(URI.create(base + "/users/" + user + "/posts")).GET().build(); break;
+								case 1:	req = HttpRequest.newBuilder(URI.create(base + "/search?words=" + user + ",ciao")).GET().build(); break;
+								case 2:	req = HttpRequest.newBuilder(URI.create(base + "/posts/" + r.nextInt(10000) + "/likes/" + user))
+											.POST(HttpRequest.BodyPublishers.noBody()).build(); break;
+								default: req = HttpRequest.newBuilder(URI.create(base + "/posts/" + r.nextInt(10000))).GET().build();
+							}
+							long t = System.nanoTime();
+							try {client.send(req, HttpResponse.BodyHandlers.discarding());}
+							catch(Exception e) {}
+							latenze[id * richieste + i] = System.nanoTime() - t;
+						}
+						fine.countDown();
+					});
+				}
+				fine.await();
+				long durata = System.nanoTime() - inizio;
+				pool.shutdown();
+				Arrays.sort(latenze);
+				System.out.printf("[%4d connessioni] %8.0f richieste/s  p50 %6.2f ms  p99 %6.2f ms  max %7.2f ms%n",
+					concorrenti, latenze.length / (durata / 1e9),
+					latenze[latenze.length / 2] / 1e6, latenze[latenze.length * 99 / 100] / 1e6, latenze[latenze.length - 1] / 1e6);
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+		finally {server.stop(0);}
+	}
+	
+	/** [TEST DI CARICO: BinaryProtocolServer] **************************************************************/
+	public static void throughputBinaryProtocol() {
+		BinaryProtocolServer server = new BinaryProtocolServer(new ReportSocialNetwork());
+		try {
+			int port = server.start(0);
+			
+			// popolamento con richieste in pipeline: 1000 utenti con 10 post ciascuno
+			BinaryProtocolClient client = new BinaryProtocolClient("localhost", port, 4096);
+			List<CompletableFuture<Long>> creati = new ArrayList<CompletableFuture<Long>>();
+			for(int u=0; u<1000; u++) {
+				client.createUser("user" + u);
+				for(int i=0; i<10; i++) creati.add(client.createPost("user" + u, "post " + i + " di @user" + (u+1)%1000));
+			}
+			long[] ids = new long[creati.size()];
+			for(int i=0; i<ids.length; i++) ids[i] = creati.get(i).get();
+			client.close();
+			
+			// per ogni finestra di pipelining: mix di like, rimozioni di like e letture di post
+			for(int finestra : new int[] {1, 16, 256, 4096}) {
+				client = new BinaryProtocolClient("localhost", port, finestra);
+				int richieste = 100000;
+				CountDownLatch fine = new CountDownLatch(richieste);
+				Random r = new Random(finestra);
+				long inizio = System.nanoTime();
+				for(int i=0; i<richieste; i++) {
+					String user = "user" + r.nextInt(1000);
+					long id = ids[r.nextInt(ids.length)];
+					CompletableFuture<?> f;
+					switch(i % 3) {
+						case 0:	f = client.addLike(user, id); break;
+						case 1:	f = client.removeLike(user, id); break;
+						default: f = client.getPost(id);
+					}
+					f.whenComplete((x, e) -> fine.countDown());		// anche le eccezioni (like duplicati o assenti) sono risposte
+				}
+				fine.await();
+				long durata = System.nanoTime() - inizio;
+				client.close();
+				System.out.printf("[%4d in volo] %9.0f richieste/s  %6.2f us/richiesta%n",
+					finestra, richieste / (durata / 1e9), durata / 1e3 / richieste);
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+		finally {server.stop();}
+	}
+	
+	/** [TEST DI CARICO: AsyncSocialNetwork] ****************************************************************/
+	public static void throughputAsyncSocialNetwork() {
+		int processori = Runtime.getRuntime().availableProcessors();
+		for(int thread : new int[] {1, 2, processori, 2 * processori}) {
+			ForkJoinPool pool = new ForkJoinPool(thread);
+			AsyncSocialNetwork rete = new AsyncSocialNetwork(new ShardedSocialNetwork(64), pool);
+			try {
+				// popolamento: 1000 utenti con 10 post ciascuno
+				List<CompletableFuture<Long>> creati = new ArrayList<CompletableFuture<Long>>();
+				for(int u=0; u<1000; u++) {
+					rete.createUserAsync("user" + u);
+					for(int i=0; i<10; i++) creati.add(rete.createPostAsync("user" + u, "post " + i + " di @user" + (u+1)%1000));
+				}
+				long[] ids = new long[creati.size()];
+				for(int i=0; i<ids.length; i++) ids[i] = creati.get(i).get();
+				
+				// mix di like, rimozioni di like e letture di post distribuiti su tutti i post
+				int richieste = 200000;
+				CountDownLatch fine = new CountDownLatch(richieste);
+				Random r = new Random(thread);
+				long inizio = System.nanoTime();
+				for(int i=0; i<richieste; i++) {
+					String user = "user" + r.nextInt(1000);
+					long id = ids[r.nextInt(ids.length)];
+					CompletableFuture<?> f;
+					switch(i % 3) {
+						case 0:	f = rete.addLikeAsync(user, id); break;
+						case 1:	f = rete.removeLikeAsync(user, id); break;
+						default: f = rete.getPostAsync(id);
+					}
+					f.whenComplete((x, e) -> fine.countDown());
+				}
+				fine.await();
+				long durata = System.nanoTime() - inizio;
+				System.out.printf("[%3d thread] %9.0f operazioni/s%n", thread, richieste / (durata / 1e9));
+			}
+			catch(Exception e) {e.printStackTrace();}
+			finally {pool.shutdown();}
+		}
+	}
+	
+	/** [TEST DI CARICO: OffHeapSocialNetwork] **************************************************************/
+	public static void memoriaOffHeapSocialNetwork() {
+		int utenti = 1000, post = 500000;
+		for(boolean off_heap : new boolean[] {false, true}) {
+			MainClass.fullGc();
+			long heap_iniziale = MainClass.usedHeap();
+			long gc_iniziale = MainClass.gcTime();
+			long inizio = System.nanoTime();
+			
+			SocialNetwork rete = off_heap ? new OffHeapSocialNetwork() : new ReportSocialNetwork();
+			try {
+				for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+				Random r = new Random(0);
+				for(int i=0; i<post; i++) {
+					int u = r.nextInt(utenti);
+					long id = rete.createPost("user" + u, "post numero " + i + " di @user" + u + " con un testo di lunghezza media per il test");
+					if(i % 4 == 0) rete.addLike("user" + (u+1)%utenti, id);
+				}
+			}
+			catch(Exception e) {e.printStackTrace();}
+			long durata = System.nanoTime() - inizio;
+			
+			// pausa di una GC completa con tutti i post raggiungibili
+			long gc_popolamento = MainClass.gcTime() - gc_iniziale;
+			long inizio_gc = System.nanoTime();
+			MainClass.fullGc();
+			long pausa = System.nanoTime() - inizio_gc;
+			long heap = MainClass.usedHeap() - heap_iniziale;
+			long fuori_heap = off_heap ? ((OffHeapSocialNetwork)rete).getArena().offHeapBytes() : 0;
+			
+			System.out.printf("[%-8s] heap %5d MB, fuori heap %4d MB, popolamento %5d ms (GC %5d ms), GC completa %4d ms%n",
+				off_heap ? "off-heap" : "oggetti", heap >> 20, fuori_heap >> 20, durata / 1000000, gc_popolamento, pausa / 1000000);
+			rete.influencers();		// la rete resta raggiungibile fino alla misura
+			rete = null;
+		}
+	}
+	
+	// esegue due GC complete
+	private static void fullGc() {
+		System.gc();
+		System.gc();
+	}
+	
+	// restituisce i byte occupati nello heap
+	private static long usedHeap() {
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+	
+	// restituisce il tempo totale (ms) speso dai garbage collector
+	private static long gcTime() {
+		long totale = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			totale += Math.max(0, gc.getCollectionTime());
+		return totale;
+	}
+	
+	/** [TEST DI CARICO: TieredSocialNetwork] ***************************************************************/
+	public static void cacheTieredSocialNetwork() {
+		int utenti = 1000, post = 200000, accessi = 200000;
+		for(int capacita : new int[] {post / 100, post / 20, post / 5}) {
+			Path file = null;
+			TieredSocialNetwork rete = null;
+			try {
+				file = Files.createTempFile("segmento", ".bin");
+				rete = new TieredSocialNetwork(file, capacita);
+				for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+				long[] ids = new long[post];
+				for(int i=0; i<post; i++) ids[i] = rete.createPost("user" + i % utenti, "post numero " + i + " di @user" + i % utenti);
+				CacheStats popolamento = rete.getCacheStats();
+				
+				// accessi concentrati sui post recenti: distanza dall'ultimo post con distribuzione esponenziale
+				Random r = new Random(0);
+				long inizio = System.nanoTime();
+				for(int i=0; i<accessi; i++) {
+					int distanza = (int)Math.min(post - 1, -Math.log(1 - r.nextDouble()) * post / 50);
+					long id = ids[post - 1 - distanza];
+					if(i % 10 == 0) {
+						try {rete.addLike("user" + r.nextInt(utenti), id);}
+						catch(AuthorLikeException | DuplicateLikeException e) {}		// like non valido: ignorato
+					}
+					else rete.getPost(id);
+				}
+				long durata = System.nanoTime() - inizio;
+				
+				CacheStats stats = rete.getCacheStats();
+				System.out.printf("[capacita' %6d] %8.0f accessi/s, hit rate %5.1f%%, espulsioni %d, scritture su disco %d, segmento %d MB%n",
+					capacita, accessi / (durata / 1e9),
+					100.0 * (stats.getHits() - popolamento.getHits()) / (stats.getHits() + stats.getMisses() - popolamento.getHits() - popolamento.getMisses()),
+					stats.getEvictions(), rete.getDiskWrites(), rete.getDiskBytes() >> 20);
+			}
+			catch(Exception e) {e.printStackTrace();}
+			finally {
+				try {
+					if(rete != null) rete.close();
+					if(file != null) Files.deleteIfExists(file);
+				}
+				catch(IOException e) {}		// file temporaneo non eliminato
+			}
+		}
+	}
+
+	/** [TEST DI CARICO: CachingSocialNetwork] ***************************************************************/
+	public static void cacheContaining() {
+		int utenti = 500, post = 5000, interrogazioni = 2000;
+		String[] parole = new String[200];
+		for(int i=0; i<parole.length; i++) parole[i] = "tema" + i;
+		
+		SocialNetwork[] reti = {new ReportSocialNetwork(), new CachingSocialNetwork(256)};
+		for(SocialNetwork rete : reti) {
+			try {
+				for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+				for(int i=0; i<post; i++) rete.createPost("user" + i % utenti, "post " + i + " su " + parole[i % parole.length]);
+				
+				// interrogazioni su poche parole frequenti, una modifica ogni 20 interrogazioni
+				Random r = new Random(0);
+				long inizio = System.nanoTime();
+				for(int i=0; i<interrogazioni; i++) {
+					int k = (int)Math.min(parole.length - 1, -Math.log(1 - r.nextDouble()) * 10);
+					if(i % 20 == 0) rete.createPost("user" + r.nextInt(utenti), "nuovo post su " + parole[r.nextInt(parole.length)]);
+					else rete.containing(Arrays.asList(parole[k], "TEMA" + (k + 1)));
+				}
+				long durata = System.nanoTime() - inizio;
+				
+				System.out.printf("[%s] %8.0f interrogazioni/s%n", rete.getClass().getName(), interrogazioni / (durata / 1e9));
+				if(rete instanceof CachingSocialNetwork)
+					System.out.println("\t" + ((CachingSocialNetwork)rete).getCacheStats());
+			}
+			catch(Exception e) {e.printStackTrace();}
+		}
+	}
+
+	/** [TEST DI CARICO: FollowerGraph] ***************************************************************/
+	public static void pageRankFollowerGraph() {
+		int utenti = 200000, seguiti = 10;
+		
+		// relazioni utente-seguiti con popolarita' concentrata su pochi utenti
+		Random r = new Random(0);
+		Map<String, Set<String>> followers = new HashMap<String, Set<String>>();
+		for(int u=0; u<utenti; u++) followers.put("user" + u, new HashSet<String>());
+		for(int u=0; u<utenti; u++) {
+			Set<String> s = followers.get("user" + u);
+			for(int k=0; k<seguiti; k++) {
+				int v = (int)(Math.pow(r.nextDouble(), 3) * utenti);
+				if(v != u) s.add("user" + v);
+			}
+		}
+		
+		long inizio = System.nanoTime();
+		List<String> influencers;
+		try {influencers = SocialNetwork.influencers(followers);}
+		catch(IllegalUsernameException e) {e.printStackTrace(); return;}
+		long durata_influencers = System.nanoTime() - inizio;
+		
+		inizio = System.nanoTime();
+		FollowerGraph grafo = new FollowerGraph(followers);
+		long durata_grafo = System.nanoTime() - inizio;
+		
+		inizio = System.nanoTime();
+		InfluenceRank rank = grafo.pageRank(0.85, 1e-9, 100);
+		long durata_rank = System.nanoTime() - inizio;
+		
+		inizio = System.nanoTime();
+		List<String> top = rank.top(10);
+		long durata_top = System.nanoTime() - inizio;
+		
+		System.out.printf("%d utenti, %d archi, %d thread%n", grafo.size(), grafo.edges(), Runtime.getRuntime().availableProcessors());
+		System.out.printf("influencers (O(U+E)): %d utenti in %d ms%n", influencers.size(), durata_influencers / 1000000);
+		System.out.printf("costruzione CSR: %d ms%n", durata_grafo / 1000000);
+		System.out.printf("PageRank: %d iterazioni (convergenza %b) in %d ms, %.1f milioni di archi/s%n", rank.getIterations(),
+			rank.isConverged(), durata_rank / 1000000, (double)grafo.edges() * rank.getIterations() / (durata_rank / 1e3));
+		System.out.printf("top 10 in %d us: %s%n", durata_top / 1000, top);
+	}
+
+	/** [TEST DI CARICO: whoToFollow] ***************************************************************/
+	public static void latenzaWhoToFollow() {
+		int utenti = 20000, like = 600000, seguiti = 4000, interrogazioni = 200;
+		SocialNetwork rete = new SocialNetwork();
+		Random r = new Random(0);
+		try {
+			long[] ids = new long[utenti];
+			for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+			for(int u=0; u<utenti; u++) ids[u] = rete.createPost("user" + u, "post di @user" + u);
+			
+			// like concentrati su pochi autori, user0 segue migliaia di utenti
+			for(int i=0; i<like; i++) {
+				int u = r.nextInt(utenti), v = (int)(Math.pow(r.nextDouble(), 2) * utenti);
+				try {rete.addLike("user" + u, ids[v]);}
+				catch(AuthorLikeException | DuplicateLikeException e) {}		// like non valido: ignorato
+			}
+			for(int v=1; v<=seguiti; v++) {
+				try {rete.addLike("user0", ids[v]);}
+				catch(DuplicateLikeException e) {}		// like gia' presente
+			}
+			
+			for(int i=0; i<interrogazioni; i++) rete.whoToFollow("user" + r.nextInt(utenti), 10);	// riscaldamento
+			long inizio = System.nanoTime();
+			List<String> consigli = null;
+			for(int i=0; i<interrogazioni; i++) consigli = rete.whoToFollow("user0", 10);
+			long durata = System.nanoTime() - inizio;
+			
+			System.out.printf("user0 segue almeno %d utenti: top 10 in %.2f ms %s%n", seguiti, durata / 1e6 / interrogazioni, consigli);
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+
+	/** [TEST DI CARICO: autocomplete] ***************************************************************/
+	public static void latenzaAutocomplete() {
+		int utenti = 100000, like = 300000, interrogazioni = 100000;
+		String alfabeto = "abcdefghijklmnopqrstuvwxyz0123456789_";
+		SocialNetwork rete = new SocialNetwork();
+		Random r = new Random(0);
+		try {
+			// username casuali di 4-12 caratteri, un post per utente, like concentrati su pochi autori
+			String[] nomi = new String[utenti];
+			long[] ids = new long[utenti];
+			for(int u=0; u<utenti; u++) {
+				StringBuilder nome = new StringBuilder().append((char)('a' + r.nextInt(26)));
+				for(int i = 3 + r.nextInt(9); i > 0; i--) nome.append(alfabeto.charAt(r.nextInt(alfabeto.length())));
+				nomi[u] = nome.toString();
+				try {rete.createUser(nomi[u]);}
+				catch(DuplicateUsernameException e) {nomi[u] = nomi[u - 1];}		// nome ripetuto: riuso il precedente
+			}
+			for(int u=0; u<utenti; u++) ids[u] = rete.createPost(nomi[u], "post di @" + nomi[u]);
+			for(int i=0; i<like; i++) {
+				int v = (int)(Math.pow(r.nextDouble(), 3) * utenti);
+				try {rete.addLike(nomi[r.nextInt(utenti)], ids[v]);}
+				catch(AuthorLikeException | DuplicateLikeException e) {}		// like non valido: ignorato
+			}
+			
+			// prefissi di 1-3 caratteri di username esistenti
+			String[] prefissi = new String[1000];
+			for(int i=0; i<prefissi.length; i++) {
+				String nome = nomi[r.nextInt(utenti)];
+				prefissi[i] = nome.substring(0, 1 + r.nextInt(3));
+			}
+			for(int i=0; i<interrogazioni; i++) rete.autocomplete(prefissi[i % prefissi.length], 10);	// riscaldamento
+			long inizio = System.nanoTime();
+			for(int i=0; i<interrogazioni; i++) rete.autocomplete(prefissi[i % prefissi.length], 10);
+			long durata = System.nanoTime() - inizio;
+			
+			System.out.printf("%d utenti: top 10 per prefisso in %.1f us (\"%s\" -> %s)%n", utenti, durata / 1e3 / interrogazioni,
+				prefissi[0], rete.autocomplete(prefissi[0], 10));
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+
+	/** [TEST DI CARICO: SearchSocialNetwork] ***************************************************************/
+	public static void latenzaRicerca() {
+		int utenti = 1000, post = 100000, vocabolario = 5000, interrogazioni = 3000;
+		SearchSocialNetwork rete = new SearchSocialNetwork();
+		Random r = new Random(0);
+		try {
+			// testi di 6-14 parole con frequenze di Zipf (poche parole molto frequenti, molte rare)
+			double[] cumulata = new double[vocabolario];
+			for(int i=0; i<vocabolario; i++) cumulata[i] = ((i > 0) ? cumulata[i - 1] : 0) + 1.0 / (i + 1);
+			String[] parole = new String[vocabolario];
+			for(int i=0; i<vocabolario; i++) parole[i] = "w" + i;
+			for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+			for(int i=0; i<post; i++) {
+				StringBuilder testo = new StringBuilder();
+				for(int j = 6 + r.nextInt(9); j > 0; j--) {
+					int w = Arrays.binarySearch(cumulata, r.nextDouble() * cumulata[vocabolario - 1]);
+					testo.append(parole[Math.min(vocabolario - 1, (w >= 0) ? w : -w - 1)]).append(' ');
+				}
+				rete.createPost("user" + r.nextInt(utenti), testo.toString().trim());
+			}
+			
+			// disgiunzioni, congiunzioni e frasi su parole di frequenza varia
+			String[] tipi = {"%s %s", "+%s +%s", "\"%s %s\"", "+%s %s -%s"};
+			String[] query = new String[1000];
+			for(int i=0; i<query.length; i++) {
+				String a = parole[r.nextInt(50)], b = parole[r.nextInt(500)], c = parole[r.nextInt(50)];
+				query[i] = String.format(tipi[i % tipi.length], a, b, c);
+			}
+			for(int i=0; i<interrogazioni; i++) rete.search(query[i % query.length], 10);	// riscaldamento
+			
+			// solo BM25 (peso 0) e con fattori di recenza e like (peso 1)
+			for(int peso=0; peso<=1; peso++) {
+				for(int t=0; t<tipi.length; t++) {
+					long[] durate = new long[interrogazioni / tipi.length];
+					for(int i=0; i<durate.length; i++) {
+						long inizio = System.nanoTime();
+						rete.search(query[(i * tipi.length + t) % query.length], 10, peso, peso);
+						durate[i] = System.nanoTime() - inizio;
+					}
+					Arrays.sort(durate);
+					System.out.printf("search \"%s\" top 10 (pesi %d): mediana %d us, p99 %d us%n", tipi[t], peso,
+						durate[durate.length / 2] / 1000, durate[durate.length * 99 / 100] / 1000);
+				}
+			}
+			
+			// confronto con la scansione di containing (stesse parole della disgiunzione)
+			int scansioni = 20;
+			long inizio = System.nanoTime();
+			int trovati = 0;
+			for(int i=0; i<scansioni; i++) trovati += rete.containing(Arrays.asList(query[i * tipi.length].split(" "))).size();
+			long durata = System.nanoTime() - inizio;
+			System.out.printf("containing (tutti i %d risultati medi): %d us per interrogazione%n", trovati / scansioni, durata / 1000 / scansioni);
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+
+	/** [TEST DI CARICO: PostImporter] ***************************************************************/
+	public static void importazioneNdjson() {
+		int utenti = 10000, post = 300000;
+		Random r = new Random(0);
+		try {
+			// file NDJSON con un record non valido ogni 100 (username con maiuscole)
+			Path input = Files.createTempFile("post", ".ndjson");
+			Path scarti = Files.createTempFile("scarti", ".ndjson");
+			try(java.io.BufferedWriter w = Files.newBufferedWriter(input)) {
+				for(int i=0; i<post; i++) {
+					String autore = (i % 100 == 99) ? "User" + i : "user" + r.nextInt(utenti);
+					w.write("{\"autore\":\"" + autore + "\",\"text\":\"post numero " + i + " di " + autore + "\",\"data_pub\":"
+						+ (1600000000000L + i) + ",\"likes\":[\"user" + r.nextInt(utenti) + "\"]}\n");
+				}
+			}
+			
+			fullGc();
+			long heap = usedHeap();
+			SocialNetwork rete = new SocialNetwork();
+			ImportStats stats = new PostImporter(rete, PostImporter.Format.NDJSON).importFile(input, scarti, s -> {
+				if(s.getRecords() % 100000 < PostImporter.DEFAULT_BATCH_SIZE) System.out.println("\t" + s);
+			});
+			fullGc();
+			System.out.println(stats);
+			System.out.printf("heap della rete importata: %d MB (file di %d MB)%n", (usedHeap() - heap) >> 20, Files.size(input) >> 20);
+			rete.influencers();		// la rete resta raggiungibile fino alla misura
+			Files.delete(input);
+			Files.delete(scarti);
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: NetworkExporter] ***************************************************************/
+	public static void esportazioneRete() {
+		int utenti = 10000, post = 500000;
+		Random r = new Random(0);
+		try {
+			ShardedSocialNetwork rete = new ShardedSocialNetwork(4);
+			for(int i=0; i<utenti; i++)
+				rete.createUser("user" + i);
+			for(int i=0; i<post; i++) {
+				int autore = r.nextInt(utenti);
+				long id = rete.createPost("user" + autore, "post numero " + i + " con \"virgolette\" e accenti: perche'");
+				if(i % 4 == 0) rete.addLike("user" + ((autore + 1 + r.nextInt(utenti - 1)) % utenti), id);
+			}
+			Path dir = Files.createTempDirectory("export");
+			
+			for(NetworkExporter.Format formato : NetworkExporter.Format.values()) {
+				NetworkExporter exporter = new NetworkExporter(rete, formato);
+				Path file = dir.resolve("rete." + formato.name().toLowerCase());
+				
+				long inizio = System.nanoTime();
+				long record = exporter.export(file);
+				double secondi = (System.nanoTime() - inizio) / 1e9;
+				System.out.printf("%s sequenziale: %d record, %d MB in %.2f s (%.0f MB/s, %.0f post/s)%n", formato, record,
+					Files.size(file) >> 20, secondi, Files.size(file) / 1e6 / secondi, post / secondi);
+				Files.delete(file);
+				
+				inizio = System.nanoTime();
+				record = exporter.exportParallel(dir, 4);
+				secondi = (System.nanoTime() - inizio) / 1e9;
+				long byte_scritti = 0;
+				for(int i=0; i<4; i++) {
+					byte_scritti += Files.size(exporter.part(dir, i));
+					Files.delete(exporter.part(dir, i));
+				}
+				System.out.printf("%s parallelo (4 shard): %d record, %d MB in %.2f s (%.0f MB/s, %.0f post/s)%n", formato, record,
+					byte_scritti >> 20, secondi, byte_scritti / 1e6 / secondi, post / secondi);
+			}
+			Files.delete(dir);
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: CdcSocialNetwork] ***************************************************************/
+	public static void latenzaCdc() {
+		int utenti = 1000, post = 10000, operazioni = 400000;
+		try {
+			// stessa sequenza di addLike/removeLike senza pubblicazione, con pubblicazione e con 0 o 2 lettori
+			for(int lettori = -1; lettori <= 2; lettori += (lettori < 0) ? 1 : 2) {
+				ReportSocialNetwork rete = (lettori < 0) ? new LeaderSocialNetwork() : new CdcSocialNetwork();
+				Random r = new Random(0);
+				for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+				long[] id = new long[post];
+				for(int i=0; i<post; i++) id[i] = rete.createPost("user" + (i % utenti), "post numero " + i);
+				
+				// lettori che consumano a lotti di al pi 256 modifiche contandole per tipo
+				long[][] conteggi = new long[Math.max(lettori, 0)][ChangeType.values().length];
+				Thread[] thread = new Thread[conteggi.length];
+				java.util.concurrent.atomic.AtomicBoolean fine = new java.util.concurrent.atomic.AtomicBoolean(false);
+				for(int l=0; l<thread.length; l++) {
+					ChangeRing.Reader reader = ((CdcSocialNetwork)rete).subscribe();
+					long[] conteggio = conteggi[l];
+					thread[l] = new Thread(() -> {
+						try(reader) {
+							while(!fine.get() || reader.getLag() > 0)
+								reader.take(e -> conteggio[e.getType().ordinal()]++, 256, 10);
+						}
+					});
+					thread[l].start();
+				}
+				
+				long[] durate = new long[operazioni];
+				for(int i=0; i<operazioni; i++) {
+					String utente = "user" + r.nextInt(utenti);
+					long p = id[r.nextInt(post)];
+					long inizio = System.nanoTime();
+					try {
+						rete.addLike(utente, p);
+					}
+					catch(AuthorLikeException | DuplicateLikeException e) {
+						try {rete.removeLike(utente, p);}
+						catch(AuthorLikeException | AbsentLikeException x) {}		// like dell'autore: nessuna modifica
+					}
+					durate[i] = System.nanoTime() - inizio;
+				}
+				fine.set(true);
+				for(Thread t : thread) t.join();
+				
+				Arrays.sort(durate);
+				System.out.printf("%s: media %d ns, mediana %d ns, p99 %d ns, p99.9 %d ns",
+					(lettori < 0) ? "LeaderSocialNetwork (log)" : "CdcSocialNetwork, " + lettori + " lettori",
+					Arrays.stream(durate).sum() / operazioni, durate[operazioni / 2], durate[operazioni * 99 / 100], durate[operazioni * 999 / 1000]);
+				if(lettori > 0)
+					System.out.printf(", modifiche lette %d like + %d unlike", conteggi[0][ChangeType.ADD_LIKE.ordinal()],
+						conteggi[0][ChangeType.REMOVE_LIKE.ordinal()]);
+				System.out.println();
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: NotificationService] ***************************************************************/
+	public static void notifiche() {
+		int utenti = 20000, post = 100000;
+		Random r = new Random(0);
+		try {
+			CdcSocialNetwork rete = new CdcSocialNetwork();
+			for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+			NotificationService servizio = new NotificationService(rete);
+			
+			// post con 0-3 menzioni e un like ciascuno: latenza delle scritture e ritardo del recapito
+			long[] durate = new long[post];
+			long inizio = System.nanoTime();
+			for(int i=0; i<post; i++) {
+				int autore = r.nextInt(utenti);
+				StringBuilder testo = new StringBuilder("post " + i);
+				for(int m = r.nextInt(4); m > 0; m--) testo.append(" @user").append(r.nextInt(utenti));
+				long t = System.nanoTime();
+				long id = rete.createPost("user" + autore, testo.toString());
+				rete.addLike("user" + ((autore + 1 + r.nextInt(utenti - 1)) % utenti), id);
+				durate[i] = System.nanoTime() - t;
+			}
+			long scritture = System.nanoTime() - inizio;
+			servizio.awaitSequence(rete.getSequence(), 60000);
+			long recapito = System.nanoTime() - inizio;
+			Arrays.sort(durate);
+			System.out.printf("createPost + addLike: mediana %d ns, p99 %d ns; scritture in %d ms, notifiche recapitate dopo %d ms%n",
+				durate[post / 2], durate[post * 99 / 100], scritture / 1000000, recapito / 1000000);
+			
+			// menzione di massa: recapitata in lettura, non blocca le notifiche successive
+			StringBuilder massa = new StringBuilder();
+			for(int u=0; massa.length() + 6 + Integer.toString(u).length() <= Post.MAX_LENGTH; u++) massa.append("@user").append(u).append(' ');
+			inizio = System.nanoTime();
+			rete.createPost("user" + (utenti - 1), massa.toString().trim());
+			long id = rete.createPost("user" + (utenti - 1), "ciao @user1");
+			servizio.awaitSequence(rete.getSequence(), 60000);
+			System.out.printf("post con menzioni di massa + post successivo recapitati in %d us%n", (System.nanoTime() - inizio) / 1000);
+			
+			// lettura paginata delle caselle
+			long[] letture = new long[10000];
+			for(int i=0; i<letture.length; i++) {
+				long t = System.nanoTime();
+				Page<Notification> pagina = servizio.getNotifications("user" + r.nextInt(utenti), null, 20);
+				if(pagina.hasNext()) servizio.getNotifications("user" + r.nextInt(utenti), pagina.getNext(), 20);
+				letture[i] = System.nanoTime() - t;
+			}
+			Arrays.sort(letture);
+			System.out.printf("getNotifications (2 pagine da 20): mediana %d ns, p99 %d ns%n",
+				letture[letture.length / 2], letture[letture.length * 99 / 100]);
+			servizio.close();
+			rete.deletePost(id);
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: varianti con esito] ***************************************************************/
+	public static void esitiSenzaEccezioni() {
+		int utenti = 2000, post = 20000, operazioni = 1000000;
+		try {
+			for(double fallimenti : new double[] {0.2, 0.8}) {
+				// sequenza di like: con probabilit fallimenti un like duplicato, altrimenti un like o la sua rimozione
+				Random r = new Random(0);
+				String[] utente = new String[operazioni];
+				int[] indice = new int[operazioni];
+				boolean[] aggiungi = new boolean[operazioni];
+				HashSet<Long> messi = new HashSet<Long>();
+				ArrayList<Long> elenco = new ArrayList<Long>();
+				for(int i=0; i<operazioni; i++) {
+					if(!elenco.isEmpty() && r.nextDouble() < fallimenti) {
+						long chiave = elenco.get(r.nextInt(elenco.size()));
+						if(!messi.contains(chiave)) {i--; continue;}
+						utente[i] = "user" + (chiave / post);
+						indice[i] = (int)(chiave % post);
+						aggiungi[i] = true;
+						continue;
+					}
+					int u = r.nextInt(utenti), p = r.nextInt(post);
+					if(p % utenti == u) p = (p + 1) % post;		// mai like dell'autore
+					long chiave = (long)u * post + p;
+					utente[i] = "user" + u;
+					indice[i] = p;
+					aggiungi[i] = messi.add(chiave);
+					if(aggiungi[i]) elenco.add(chiave);
+					else messi.remove(chiave);
+				}
+				
+				for(int variante = 0; variante < 8; variante++) {		// prime 4 varianti di riscaldamento
+					SocialNetwork rete = (variante % 4 < 2) ? new SocialNetwork() : new ShardedSocialNetwork(4);
+					for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+					long[] id = new long[post];
+					for(int p=0; p<post; p++) id[p] = rete.createPost("user" + (p % utenti), "post numero " + p);
+					boolean esito = (variante % 2 == 1);
+					
+					int falliti = 0;
+					long inizio = System.nanoTime();
+					for(int i=0; i<operazioni; i++) {
+						if(esito) {
+							StatusCode s = aggiungi[i] ? rete.tryAddLike(utente[i], id[indice[i]]) : rete.tryRemoveLike(utente[i], id[indice[i]]);
+							if(s != StatusCode.OK) falliti++;
+						}
+						else {
+							try {
+								if(aggiungi[i]) rete.addLike(utente[i], id[indice[i]]);
+								else rete.removeLike(utente[i], id[indice[i]]);
+							}
+							catch(DuplicateLikeException | AbsentLikeException e) {falliti++;}
+						}
+					}
+					double secondi = (System.nanoTime() - inizio) / 1e9;
+					if(variante >= 4) System.out.printf("%.0f%% fallimenti, %s, %s: %.0f operazioni/s (%d fallite)%n", fallimenti * 100,
+						rete.getClass().getName(), esito ? "tryAddLike/tryRemoveLike" : "addLike/removeLike  ", operazioni / secondi, falliti);
+				}
+			}
+			
+			// costo della sola costruzione di un'eccezione con e senza stack trace
+			for(boolean traccia : new boolean[] {true, false}) {
+				long inizio = System.nanoTime();
+				int n = 0;
+				for(int i=0; i<operazioni; i++)
+					n += new DuplicateLikeException(null, traccia).getStackTrace().length > 0 ? 1 : 0;
+				System.out.printf("new DuplicateLikeException(null, %b): %d ns (%d con stack trace)%n", traccia,
+					(System.nanoTime() - inizio) / operazioni, n);
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: TombstoneSocialNetwork] ***************************************************************/
+	public static void eliminazioneDifferita() {
+		int utenti = 20000, post_vip = 200000, like_vip = 5, campioni = 2000000;
+		try {
+			// stessa rete con eliminazione a cascata (CdcSocialNetwork, sincronizzata come TombstoneSocialNetwork) e differita
+			for(int variante = 0; variante < 2; variante++) {
+				ReportSocialNetwork rete = (variante == 0) ? new CdcSocialNetwork() : new TombstoneSocialNetwork();
+				Random r = new Random(0);
+				for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+				rete.createUser("vip");
+				long[] id = new long[utenti];
+				for(int u=0; u<utenti; u++) id[u] = rete.createPost("user" + u, "post numero " + u);
+				long[] vip = new long[post_vip];
+				for(int i=0; i<post_vip; i++) vip[i] = rete.createPost("vip", "annuncio numero " + i);
+				for(int u=0; u<utenti; u++) {
+					for(int k=0; k<like_vip; k++) rete.tryAddLike("user" + u, vip[r.nextInt(post_vip)]);
+					if(u % 10 == 0) rete.addLike("vip", id[u]);
+				}
+				
+				// un thread misura la latenza di getPost + like/unlike sui post degli altri utenti durante l'eliminazione
+				java.util.concurrent.atomic.AtomicBoolean fine = new java.util.concurrent.atomic.AtomicBoolean(false);
+				long[] durate = new long[campioni];
+				int[] misurate = {0};
+				Thread misura = new Thread(() -> {
+					Random q = new Random(1);
+					while(!fine.get() && misurate[0] < campioni) {
+						int u = q.nextInt(utenti), p = q.nextInt(utenti);
+						if(u == p) continue;
+						long t = System.nanoTime();
+						try {
+							rete.getPost(id[p]);
+							if(rete.tryAddLike("user" + u, id[p]) != StatusCode.OK) rete.tryRemoveLike("user" + u, id[p]);
+						}
+						catch(AbsentPostException e) {}		// non viene lanciata mai: i post degli utenti non sono eliminati
+						durate[misurate[0]++] = System.nanoTime() - t;
+					}
+				});
+				misura.start();
+				Thread.sleep(200);
+				
+				long inizio = System.nanoTime();
+				rete.deleteUser("vip");
+				long chiamata = System.nanoTime() - inizio;
+				if(rete instanceof TombstoneSocialNetwork) ((TombstoneSocialNetwork)rete).awaitCompaction(60000);
+				long pulizia = System.nanoTime() - inizio;
+				Thread.sleep(200);
+				fine.set(true);
+				misura.join();
+				
+				int n = misurate[0];
+				Arrays.sort(durate, 0, n);
+				System.out.printf("%s: deleteUser %d us, pulizia completa in %d ms; altre operazioni (%d): mediana %d ns, p99 %d ns, "
+					+ "p99.9 %d ns, max %d us%n", rete.getClass().getName(), chiamata / 1000, pulizia / 1000000, n,
+					durate[n / 2], durate[(int)(n * 0.99)], durate[(int)(n * 0.999)], durate[n - 1] / 1000);
+				if(rete instanceof TombstoneSocialNetwork) ((TombstoneSocialNetwork)rete).close();
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: RetentionSocialNetwork] **************************************************************/
+	public static void scadenzaPost() {
+		int utenti = 1000, post_utente = 100, like_utente = 50, campioni = 2000000;
+		long retention = 10000;
+		try {
+			// stessi post in scadenza rimossi da una scansione periodica sotto il lock (CdcSocialNetwork) o dallo scadenzario
+			for(int variante = 0; variante < 2; variante++) {
+				ReportSocialNetwork rete = (variante == 0) ? new CdcSocialNetwork() : new RetentionSocialNetwork(retention, 50);
+				Random r = new Random(0);
+				for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+				// un post permanente per utente e post_utente post in scadenza
+				long[] id = new long[utenti];
+				for(int u=0; u<utenti; u++) {
+					String text = "post permanente " + u;
+					id[u] = (variante == 0) ? rete.createPost("user" + u, text) : ((RetentionSocialNetwork)rete).createPost("user" + u, text, Long.MAX_VALUE);
+				}
+				long[] temporanei = new long[utenti * post_utente];
+				for(int i=0; i<temporanei.length; i++) temporanei[i] = rete.createPost("user" + (i % utenti), "post temporaneo " + i);
+				for(int u=0; u<utenti; u++)
+					for(int k=0; k<like_utente; k++) rete.tryAddLike("user" + u, temporanei[r.nextInt(temporanei.length)]);
+				long pubblicazione = System.currentTimeMillis();
+				
+				// un thread misura la latenza di getPost + like/unlike sui post permanenti durante le scadenze
+				java.util.concurrent.atomic.AtomicBoolean fine = new java.util.concurrent.atomic.AtomicBoolean(false);
+				long[] durate = new long[campioni];
+				int[] misurate = {0};
+				Thread misura = new Thread(() -> {
+					Random q = new Random(1);
+					while(!fine.get() && misurate[0] < campioni) {
+						int u = q.nextInt(utenti), p = q.nextInt(utenti);
+						if(u == p) continue;
+						long t = System.nanoTime();
+						try {
+							rete.getPost(id[p]);
+							if(rete.tryAddLike("user" + u, id[p]) != StatusCode.OK) rete.tryRemoveLike("user" + u, id[p]);
+						}
+						catch(AbsentPostException e) {}		// non viene lanciata mai: i post permanenti non scadono
+						durate[misurate[0]++] = System.nanoTime() - t;
+					}
+				});
+				misura.start();
+				
+				// attesa della scadenza: la scansione visita i post pubblicati prima del limite e li elimina uno per uno
+				Thread.sleep(Math.max(0, pubblicazione + retention + 100 - System.currentTimeMillis()));
+				long inizio = System.nanoTime();
+				if(variante == 0) {
+					synchronized(rete) {
+						long limite = System.currentTimeMillis() - retention;
+						for(Post p : rete.postsBetween(0, limite))
+							if(p.getText().startsWith("post temporaneo")) rete.deletePost(p.getId());
+					}
+				}
+				else {
+					while(rete.postsBetween(0, Long.MAX_VALUE).size() > utenti) Thread.sleep(10);
+				}
+				long pulizia = System.nanoTime() - inizio;
+				Thread.sleep(200);
+				fine.set(true);
+				misura.join();
+				
+				int n = misurate[0];
+				Arrays.sort(durate, 0, n);
+				System.out.printf("%s: %d post scaduti rimossi in %d ms; altre operazioni (%d): mediana %d ns, p99 %d ns, "
+					+ "p99.9 %d ns, max %d us%n", rete.getClass().getName(), temporanei.length, pulizia / 1000000, n,
+					durate[n / 2], durate[(int)(n * 0.99)], durate[(int)(n * 0.999)], durate[n - 1] / 1000);
+				if(rete instanceof RetentionSocialNetwork) ((RetentionSocialNetwork)rete).close();
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: ReachSocialNetwork] ******************************************************************/
+	public static void stimaLiker() {
+		int utenti = 50000, autori = 20, post_autore = 500, like = 1000000, query = 200;
+		try {
+			ReachSocialNetwork rete = new ReachSocialNetwork(12);
+			Random r = new Random(0);
+			for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+			long[] id = new long[autori * post_autore];
+			for(int i=0; i<id.length; i++) id[i] = rete.createPost("user" + (i % autori), "post numero " + i);
+			// like concentrati sui primi autori (distribuzione sbilanciata come per gli account molto seguiti)
+			for(int i=0; i<like; i++) {
+				int a = Math.min(autori - 1, (int)(-Math.log(1 - r.nextDouble()) * 4));
+				rete.tryAddLike("user" + r.nextInt(utenti), id[a + autori * r.nextInt(post_autore)]);
+			}
+			
+			// esatto: unione delle copie dei like di tutti i post dell'autore
+			long inizio = System.nanoTime();
+			long[] esatti = new long[autori];
+			for(int q=0; q<query; q++) {
+				HashSet<String> liker = new HashSet<String>();
+				for(Post p : rete.writtenBy("user" + (q % autori)))
+					liker.addAll(p.getLikes());
+				esatti[q % autori] = liker.size();
+			}
+			long esatto = System.nanoTime() - inizio;
+			
+			String[] nomi = new String[autori];
+			for(int a=0; a<autori; a++) nomi[a] = "user" + a;
+			inizio = System.nanoTime();
+			long[] stime = new long[autori];
+			for(int q=0; q<query * 1000; q++)
+				stime[q % autori] = rete.estimateLikers(nomi[q % autori]);
+			long stimato = System.nanoTime() - inizio;
+			
+			double errore = 0;
+			for(int a=0; a<autori; a++)
+				errore = Math.max(errore, Math.abs(stime[a] - esatti[a]) / (double)esatti[a]);
+			System.out.printf("liker distinti di un autore: esatto %d us/query, HyperLogLog %d ns/query; errore massimo %.2f%% "
+				+ "(standard %.2f%%), %d byte per autore%n", esatto / query / 1000, stimato / query / 1000, errore * 100,
+				rete.standardError() * 100, rete.likersSketch("user0").size());
+			
+			// reach di tutti gli autori e ricostruzione dopo la rimozione di 2000 like dell'autore pi seguito
+			ArrayList<String> tutti = new ArrayList<String>();
+			for(int a=0; a<autori; a++) tutti.add("user" + a);
+			inizio = System.nanoTime();
+			long reach = rete.estimateReach(tutti);
+			System.out.printf("reach di %d autori: stima %d in %d us%n", autori, reach, (System.nanoTime() - inizio) / 1000);
+			
+			int rimossi = 0;
+			for(Post p : rete.writtenBy("user0")) {
+				for(String l : p.getLikes()) {
+					if(rimossi == 2000) break;
+					rete.removeLike(l, p.getId());
+					rimossi++;
+				}
+			}
+			inizio = System.nanoTime();
+			rete.awaitRebuild(60000);
+			HashSet<String> liker = new HashSet<String>();
+			for(Post p : rete.writtenBy("user0"))
+				liker.addAll(p.getLikes());
+			System.out.printf("dopo gli unlike: ricostruzione in %d ms, stima %d, esatto %d%n",
+				(System.nanoTime() - inizio) / 1000000, rete.estimateLikers("user0"), liker.size());
+			rete.close();
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: FrozenSocialNetwork] *****************************************************************/
+	public static void istantaneaAnalitica() {
+		int utenti = 20000, post = 100000, like = 500000, query = 200;
+		try {
+			ReportSocialNetwork rete = new ReportSocialNetwork();
+			Random r = new Random(0);
+			for(int u=0; u<utenti; u++) rete.createUser("user" + u);
+			long[] id = new long[post];
+			for(int i=0; i<post; i++) id[i] = rete.createPost("user" + r.nextInt(utenti), "post numero " + i + " per @user" + r.nextInt(utenti));
+			for(int i=0; i<like; i++) rete.tryAddLike("user" + r.nextInt(utenti), id[r.nextInt(post)]);
+			
+			Runtime rt = Runtime.getRuntime();
+			System.gc();
+			long prima = rt.totalMemory() - rt.freeMemory();
+			long inizio = System.nanoTime();
+			FrozenSocialNetwork istantanea = rete.freeze();
+			long costruzione = System.nanoTime() - inizio;
+			System.gc();
+			long occupata = rt.totalMemory() - rt.freeMemory() - prima;
+			System.out.printf("freeze: %d ms con %d processori, circa %d MB (testi condivisi con la rete sociale)%n",
+				costruzione / 1000000, rt.availableProcessors(), occupata >> 20);
+			
+			// stesse letture sulla rete sociale e sull'istantanea
+			for(int variante = 0; variante < 2; variante++) {
+				inizio = System.nanoTime();
+				int n = 0;
+				for(int q=0; q<query / 20; q++) n += (variante == 0) ? rete.influencers().size() : istantanea.influencers().size();
+				long influencers = System.nanoTime() - inizio;
+				
+				inizio = System.nanoTime();
+				for(int q=0; q<query / 20; q++) n += (variante == 0) ? rete.getMentionedUsers().size() : istantanea.getMentionedUsers().size();
+				long menzioni = System.nanoTime() - inizio;
+				
+				inizio = System.nanoTime();
+				for(int q=0; q<query * 100; q++) {
+					String u = "user" + r.nextInt(utenti);
+					n += (variante == 0) ? rete.writtenBy(u).size() : istantanea.writtenBy(u).size();
+				}
+				long scritti = System.nanoTime() - inizio;
+				
+				System.out.printf("%s: influencers %d us, getMentionedUsers %d us, writtenBy %d ns (%d)%n",
+					(variante == 0) ? "ReportSocialNetwork" : "FrozenSocialNetwork", influencers / (query / 20) / 1000,
+					menzioni / (query / 20) / 1000, scritti / (query * 100), n);
+			}
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	/** [TEST DI CARICO: ModeratedSocialNetwork] **************************************************************/
+	public static void moderazione() {
+		int termini = 20000, testi = 2000, post = 200000, regex = 20;
+		try {
+			Random r = new Random(0);
+			HashMap<String, ReportType> lista = new HashMap<String, ReportType>();
+			ArrayList<String> parole = new ArrayList<String>();
+			while(lista.size() < termini) {
+				StringBuilder sb = new StringBuilder();
+				for(int i = 5 + r.nextInt(6); i > 0; i--) sb.append((char)('a' + r.nextInt(26)));
+				lista.put(sb.toString(), ReportType.values()[r.nextInt(ReportType.values().length)]);
+			}
+			parole.addAll(lista.keySet());
+			// testi di parole casuali, circa uno su cento con un termine della lista
+			String[] t = new String[testi];
+			for(int i=0; i<testi; i++) {
+				StringBuilder sb = new StringBuilder();
+				while(sb.length() < 120) {
+					if(r.nextInt(2000) == 0) sb.append(parole.get(r.nextInt(termini)));
+					else for(int k = 2 + r.nextInt(8); k > 0; k--) sb.append((char)('a' + r.nextInt(26)));
+					sb.append(' ');
+				}
+				t[i] = sb.toString().trim();
+			}
+			
+			long inizio = System.nanoTime();
+			Blocklist blocklist = new Blocklist(lista);
+			System.out.printf("Blocklist di %d termini (%d stati) compilata in %d ms%n", blocklist.size(), blocklist.getStates(),
+				(System.nanoTime() - inizio) / 1000000);
+			
+			// un'espressione regolare per termine (come wordsPattern con una parola) su pochi testi
+			ArrayList<Pattern> pattern = new ArrayList<Pattern>();
+			for(String p : parole) pattern.add(SocialNetwork.wordsPattern(Arrays.asList(p)));
+			inizio = System.nanoTime();
+			int trovati = 0;
+			for(int i=0; i<regex; i++)
+				for(Pattern p : pattern)
+					if(p.matcher(t[i]).find()) trovati++;
+			System.out.printf("una regex per termine: %d us/testo (%d)%n", (System.nanoTime() - inizio) / regex / 1000, trovati);
+			
+			// alternativa di tutti i termini (wordsPattern)
+			Pattern tutti = SocialNetwork.wordsPattern(parole);
+			inizio = System.nanoTime();
+			trovati = 0;
+			for(int i=0; i<testi; i++)
+				if(tutti.matcher(t[i]).find()) trovati++;
+			System.out.printf("alternativa dei termini: %d us/testo (%d)%n", (System.nanoTime() - inizio) / testi / 1000, trovati);
+			
+			inizio = System.nanoTime();
+			trovati = 0;
+			for(int i=0; i<testi; i++)
+				if(!blocklist.scan(t[i]).isEmpty()) trovati++;
+			System.out.printf("Aho-Corasick: %d ns/testo (%d)%n", (System.nanoTime() - inizio) / testi, trovati);
+			
+			// scritture con e senza moderazione, sostituendo la Blocklist durante le scritture
+			ReportSocialNetwork libera = new ReportSocialNetwork();
+			ModeratedSocialNetwork moderata = new ModeratedSocialNetwork("moderatore", blocklist, EnumSet.of(ReportType.TERRORISMO));
+			libera.createUser("autore");
+			moderata.createUser("autore");
+			inizio = System.nanoTime();
+			for(int i=0; i<post; i++) libera.createPost("autore", t[i % testi]);
+			System.out.printf("ReportSocialNetwork: %d ns/createPost%n", (System.nanoTime() - inizio) / post);
+			
+			Thread sostituzioni = new Thread(() -> {
+				for(int k=0; k<5; k++) {
+					HashMap<String, ReportType> nuova = new HashMap<String, ReportType>(lista);
+					nuova.put("parola" + k, ReportType.SPAM_O_INGANNEVOLE);
+					moderata.setBlocklist(new Blocklist(nuova));
+				}
+			});
+			long massimo = 0;
+			int rifiutati = 0;
+			inizio = System.nanoTime();
+			sostituzioni.start();
+			for(int i=0; i<post; i++) {
+				long prima = System.nanoTime();
+				try {moderata.createPost("autore", t[i % testi]);}
+				catch(IllegalTextException e) {rifiutati++;}
+				massimo = Math.max(massimo, System.nanoTime() - prima);
+			}
+			long totale = System.nanoTime() - inizio;
+			sostituzioni.join();
+			System.out.printf("ModeratedSocialNetwork: %d ns/createPost (massimo %d us, %d rifiutati, %d segnalati) "
+				+ "con 5 sostituzioni della Blocklist%n", totale / post, massimo / 1000, rifiutati, moderata.reports.size());
+		}
+		catch(Exception e) {e.printStackTrace();}
+	}
+	
 }
@@ -0,0 +1,174 @@
+import java.util.List;
+import java.util.Set;
+import java.util.EnumSet;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+public class ModeratedSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork con moderazione automatica dei testi: ogni
+	testo di un nuovo post (createPost) o di una modifica (modificaPost) viene esaminato con la Blocklist attuale
+	prima di modificare la rete sociale. Se il testo contiene un termine di un tipo bloccante il post è rifiutato
+	con IllegalTextException e la rete sociale non cambia; se contiene solo termini di altri tipi il post viene
+	accettato e segnalato dall'utente moderatore con il primo di quei tipi (al più una segnalazione automatica
+	per post, come per ogni altro utente). La Blocklist è immutabile e conservata in un AtomicReference:
+	setBlocklist la sostituisce con un solo assegnamento, senza bloccare né attendere le scritture in corso, che
+	usano la Blocklist letta all'inizio dell'esame del proprio testo. I post già presenti (costruttore con lista
+	di post, insertPost) non vengono esaminati.
+	
+	ELEMENTO TIPICO:	come in ReportSocialNetwork, con <moderatore, blocklist, {tipi bloccanti}>
+	
+	AF =	AF(ReportSocialNetwork)
+	
+	RI =  RI(ReportSocialNetwork) && this.moderatore ≠ null && this.blocklist.get() ≠ null && this.bloccanti ≠ null
+		  &&  (∀ p ∈ this.index.values() creato o modificato da this ==> this.blocklist.get() al momento dell'esame
+			  non trovava in p.getText() termini di tipo ∈ this.bloccanti)
+**/
+	
+	// utente che firma le segnalazioni automatiche
+	private final String moderatore;
+	// lista di termini vietati attuale (sostituibile senza sincronizzazione)
+	private final AtomicReference<Blocklist> blocklist;
+	// tipi di segnalazione per cui il post viene rifiutato anziché segnalato
+	private final Set<ReportType> bloccanti;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con il solo utente moderatore
+	public ModeratedSocialNetwork(String moderator, Blocklist blocklist, Set<ReportType> rejected)
+	throws NullPointerException, IllegalUsernameException {
+		super();
+		if(blocklist == null) throw new NullPointerException();
+		this.moderatore = moderator;
+		this.blocklist = new AtomicReference<Blocklist>(blocklist);
+		EnumSet<ReportType> bloccanti = EnumSet.noneOf(ReportType.class);
+		bloccanti.addAll(rejected);
+		this.bloccanti = Collections.unmodifiableSet(bloccanti);
+		try {this.createUser(moderator);}			// propaga NullPointerException e IllegalUsernameException
+		catch(DuplicateUsernameException e) {}		// non lanciata: rete sociale vuota
+	}
+	// THROWS:		se moderator = null || blocklist = null || rejected = null || null ∈ rejected
+	//				lancia NullPointerException (unchecked)
+	//				se !checkValidUsername(moderator) lancia IllegalUsernameException (checked)
+	// EFFECTS:		inizializza this come ReportSocialNetwork() con il solo utente moderator,
+	//				la Blocklist blocklist e i tipi bloccanti rejected
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale derivata da una lista di post (post non esaminati)
+	public ModeratedSocialNetwork(List<Post> ps, String moderator, Blocklist blocklist, Set<ReportType> rejected)
+	throws NullPointerException, IllegalUsernameException, DuplicatePostException {
+		super(ps);
+		if(moderator == null || blocklist == null) throw new NullPointerException();
+		this.moderatore = moderator;
+		this.blocklist = new AtomicReference<Blocklist>(blocklist);
+		EnumSet<ReportType> bloccanti = EnumSet.noneOf(ReportType.class);
+		bloccanti.addAll(rejected);
+		this.bloccanti = Collections.unmodifiableSet(bloccanti);
+		if(!this.followers.containsKey(moderator)) {
+			try {this.createUser(moderator);}		// propaga IllegalUsernameException
+			catch(DuplicateUsernameException e) {}	// non lanciata: moderator non presente
+		}
+	}
+	// THROWS:		come ReportSocialNetwork(ps)
+	//				se moderator = null || blocklist = null || rejected = null || null ∈ rejected
+	//				lancia NullPointerException (unchecked)
+	//				se !checkValidUsername(moderator) lancia IllegalUsernameException (checked)
+	// EFFECTS:		inizializza this come ReportSocialNetwork(ps) aggiungendo l'utente moderator se assente,
+	//				con la Blocklist blocklist e i tipi bloccanti rejected
+	
+	
+	// [OSSERVATORE] restituisce l'utente moderatore
+	public String getModerator() {
+		return this.moderatore;
+	}
+	// EFFECTS:		restituisce this.moderatore
+	
+	
+	// [OSSERVATORE] restituisce i tipi bloccanti
+	public Set<ReportType> getRejectedTypes() {
+		return this.bloccanti;
+	}
+	// EFFECTS:		restituisce this.bloccanti (non modificabile)
+	
+	
+	// [OSSERVATORE] restituisce la Blocklist attuale
+	public Blocklist getBlocklist() {
+		return this.blocklist.get();
+	}
+	// EFFECTS:		restituisce this.blocklist.get()
+	
+	
+	// [MODIFICATORE] sostituisce la Blocklist e restituisce la precedente
+	public Blocklist setBlocklist(Blocklist blocklist) throws NullPointerException {
+		if(blocklist == null) throw new NullPointerException();
+		return this.blocklist.getAndSet(blocklist);
+	}
+	// THROWS:		se blocklist = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this.blocklist
+	// EFFECTS:		sostituisce atomicamente la Blocklist (senza sincronizzazione con le scritture: i testi esaminati
+	//				dopo la sostituzione usano blocklist) e restituisce la precedente
+	
+	
+	// [MODIFICATORE] crea un nuovo post nella rete sociale se il testo supera la moderazione e ne restituisce l'id
+	public long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		Set<ReportType> tipi = this.modera(text);		// lancia IllegalTextException senza modificare this
+		long id = super.createPost(autore, text);
+		this.segnala(id, tipi);
+		return id;
+	}
+	// REQUIRES:	come SocialNetwork.createPost(autore, text), text senza termini bloccanti
+	// THROWS:		come SocialNetwork.createPost(autore, text)
+	//				se text contiene termini di this.blocklist.get() di tipo ∈ this.bloccanti lancia IllegalTextException (checked)
+	// MODIFIES:	this
+	// EFFECTS:		come SocialNetwork.createPost(autore, text); se text contiene termini di altri tipi
+	//				il nuovo post viene segnalato da this.moderatore (vedi segnala)
+	
+	
+	// [MODIFICATORE] sostituisce il testo del post con l'id specificato se il testo supera la moderazione
+	protected void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		Set<ReportType> tipi = this.modera(text);		// lancia IllegalTextException senza modificare this
+		super.modificaPost(id, text, data_mod);
+		this.segnala(id, tipi);
+	}
+	// REQUIRES:	come SocialNetwork.modificaPost(id, text, data_mod), text senza termini bloccanti
+	// THROWS:		come SocialNetwork.modificaPost(id, text, data_mod)
+	//				se text contiene termini di this.blocklist.get() di tipo ∈ this.bloccanti lancia IllegalTextException (checked)
+	// MODIFIES:	this
+	// EFFECTS:		come SocialNetwork.modificaPost(id, text, data_mod); se text contiene termini di altri tipi
+	//				il post viene segnalato da this.moderatore (vedi segnala)
+	
+	
+	// esamina un testo con la Blocklist attuale
+	private Set<ReportType> modera(String text) throws NullPointerException, IllegalTextException {
+		if(text == null) throw new NullPointerException();
+		Set<ReportType> tipi = this.blocklist.get().scan(text);		// una sola lettura del riferimento
+		for(ReportType tipo : tipi)
+			if(this.bloccanti.contains(tipo)) throw new IllegalTextException("testo rifiutato dalla moderazione: " + tipo);
+		return tipi;
+	}
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	//				se this.blocklist.get().scan(text) ∩ this.bloccanti ≠ ∅ lancia IllegalTextException (checked)
+	// EFFECTS:		restituisce this.blocklist.get().scan(text)
+	
+	
+	// segnala automaticamente un post con il primo dei tipi trovati
+	private void segnala(long id, Set<ReportType> tipi) {
+		if(tipi.isEmpty()) return;
+		try {
+			this.addReport(this.moderatore, id, tipi.iterator().next());
+		}
+		catch(AuthorReportException | DuplicateReportException | AbsentUsernameException e) {
+			// post del moderatore, post già segnalato dal moderatore o moderatore rimosso: nessuna nuova segnalazione
+		}
+		catch(AbsentPostException | IllegalUsernameException e) {}		// non lanciate: post appena scritto, moderatore valido
+	}
+	// MODIFIES:	this.reports
+	// EFFECTS:		se tipi ≠ ∅ esegue addReport(this.moderatore, id, tipo con ordinale minore in tipi); se il post è
+	//				del moderatore, è già segnalato dal moderatore o il moderatore è stato rimosso la segnalazione
+	//				non viene aggiunta, le eccezioni non controllate sono propagate
+
+}
@@ -0,0 +1,518 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class MvccSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork multi-versione (MVCC): ogni modifica
+	andata a buon fine produce una nuova versione della rete sociale (0, 1, 2, ...) e per ogni post viene
+	mantenuta una catena di versioni <testo, data di modifica, likes> dalla più recente alla più vecchia.
+	Uno snapshot fissa la versione corrente e legge i post come erano in quella versione senza acquisire
+	lock: i modificatori (serializzati tra loro) non attendono mai i lettori e i lettori non attendono mai
+	i modificatori. Le versioni che nessuno snapshot aperto può più leggere vengono scartate ad ogni modifica
+	(solo per i post modificati) e alla chiusura degli snapshot (per tutti i post con versioni storiche).
+	La catena dei testi di ogni post non viene scartata e fornisce la cronologia delle modifiche.
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork, versione corrente v,
+		{ <id, [<da_0, testo_0, likes_0>, ..., <da_k, testo_k, likes_k>]> , ...},
+		{ <s, numero di snapshot aperti sulla versione s> , ...}	>
+	
+	AF =	<	AF(ReportSocialNetwork), this.corrente,
+				{ <id, catena da this.versioni.get(id).testa> , ...}, this.attivi	>
+		  - una versione con testo = null indica che il post è stato eliminato (tombstone)
+	
+	RI =  RI(ReportSocialNetwork) && this.versioni ≠ null && this.storiche ≠ null && this.attivi ≠ null
+		  &&  (∀ id ∈ this.index.keySet() ==> la versione v ≤ this.corrente più recente di this.versioni.get(id)
+				  ha testo = this.index.get(id).getText() e likes = this.index.get(id).getLikes())
+		  &&  (∀ id ∈ this.versioni.keySet() \ this.index.keySet() ==> la versione più recente è una tombstone)
+		  &&  ogni catena è ordinata per da strettamente decrescente
+		  &&  (∀ s ∈ this.attivi.keySet() ==> s ≤ this.corrente && this.attivi.get(s) > 0)
+		  &&  (∀ id ∈ this.versioni.keySet() con più di una versione o con tombstone ==> id ∈ this.storiche)
+**/
+	
+	// versione del testo di un post (catena persistente: cronologia delle modifiche)
+	private static class Testo {
+		final String text;
+		final long data_mod;
+		final Testo precedente;
+		
+		Testo(String text, long data_mod, Testo precedente) {
+			this.text = text;
+			this.data_mod = data_mod;
+			this.precedente = precedente;
+		}
+	}
+	
+	// versione di un post valida a partire dalla versione da della rete sociale
+	private static class Versione {
+		final long da;
+		final Testo testo;					// null se il post è stato eliminato nella versione da
+		final List<String> likes;			// non modificabile
+		volatile Versione precedente;		// azzerato dalla raccolta delle versioni non più leggibili
+		
+		Versione(long da, Testo testo, List<String> likes, Versione precedente) {
+			this.da = da;
+			this.testo = testo;
+			this.likes = likes;
+			this.precedente = precedente;
+		}
+	}
+	
+	// catena delle versioni di un post
+	private static class Voce {
+		final long id;
+		final String autore;
+		final long data_pub;
+		volatile Versione testa;
+		
+		Voce(Post p) {
+			this.id = p.getId();
+			this.autore = p.getAutore();
+			this.data_pub = p.getDataPub();
+		}
+	}
+	
+	// catene delle versioni per id del post
+	private final Map<Long, Voce> versioni;
+	// id dei post con versioni storiche o tombstone (candidati alla raccolta)
+	private final Set<Long> storiche;
+	// numero di snapshot aperti per versione (accesso in synchronized(this.attivi))
+	private final ConcurrentSkipListMap<Long, Integer> attivi;
+	// id dei post modificati dalla modifica in corso (accesso in synchronized(this))
+	private final Set<Long> toccati;
+	// versione corrente (l'ultima completata)
+	private volatile long corrente;
+	// true se uno snapshot è stato chiuso dall'ultima raccolta completa
+	private volatile boolean raccogli;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota
+	public MvccSocialNetwork() {
+		super();
+		this.versioni = new ConcurrentHashMap<Long, Voce>();
+		this.storiche = ConcurrentHashMap.newKeySet();
+		this.attivi = new ConcurrentSkipListMap<Long, Integer>();
+		this.toccati = new HashSet<Long>();
+		this.corrente = 0;
+		this.raccogli = false;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this come ReportSocialNetwork() alla versione 0
+	
+	// COSTRUTTORE: istanzia una rete sociale derivata da una lista di post
+	public MvccSocialNetwork(List<Post> ps) throws NullPointerException, IllegalUsernameException, DuplicatePostException {
+		super(ps);
+		this.versioni = new ConcurrentHashMap<Long, Voce>();
+		this.storiche = ConcurrentHashMap.newKeySet();
+		this.attivi = new ConcurrentSkipListMap<Long, Integer>();
+		this.toccati = new HashSet<Long>();
+		this.corrente = 0;
+		this.raccogli = false;
+		for(Post p : this.index.values()) {
+			Voce voce = new Voce(p);
+			voce.testa = new Versione(0, new Testo(p.getText(), p.getDataMod(), null), MvccSocialNetwork.likes(p), null);
+			this.versioni.put(voce.id, voce);
+		}
+	}
+	// REQUIRES:	come ReportSocialNetwork(ps)
+	// THROWS:		come ReportSocialNetwork(ps)
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this come ReportSocialNetwork(ps) alla versione 0
+	
+	
+	/** [SNAPSHOT] *************************************************************************************************/
+	
+	// vista in sola lettura della rete sociale ad una versione fissata
+	public class Snapshot implements AutoCloseable {
+		
+		// versione letta dallo snapshot
+		private final long versione;
+		// true se lo snapshot è stato chiuso
+		private volatile boolean chiuso;
+		
+		private Snapshot(long versione) {
+			this.versione = versione;
+			this.chiuso = false;
+		}
+		
+		// restituisce la versione della rete sociale letta dallo snapshot
+		public long getVersion() {
+			return this.versione;
+		}
+		// EFFECTS:		restituisce this.versione
+		
+		// restituisce il post con l'id specificato come era nella versione dello snapshot
+		public Post getPost(long id) throws IllegalArgumentException, IllegalStateException, AbsentPostException {
+			if(id < 0) throw new IllegalArgumentException();
+			this.check();
+			Post p = MvccSocialNetwork.this.read(MvccSocialNetwork.this.versioni.get(id), this.versione);
+			if(p == null) throw new AbsentPostException();
+			return p;
+		}
+		// THROWS:		se id < 0 lancia IllegalArgumentException (unchecked)
+		//				se lo snapshot è chiuso lancia IllegalStateException (unchecked)
+		//				se il post non esisteva nella versione dello snapshot lancia AbsentPostException (checked)
+		// EFFECTS:		restituisce una copia del post con l'id specificato nella versione this.versione
+		
+		// restituisce i post di username come erano nella versione dello snapshot ordinati per id
+		public List<Post> writtenBy(String username) throws NullPointerException, IllegalStateException {
+			if(username == null) throw new NullPointerException();
+			return this.posts().filter(p -> p.getAutore().equals(username)).sorted(Comparator.comparingLong(Post::getId))
+				.collect(Collectors.toList());
+		}
+		// THROWS:		se username = null lancia NullPointerException (unchecked)
+		//				se lo snapshot è chiuso lancia IllegalStateException (unchecked)
+		// EFFECTS:		restituisce le copie dei post con autore username nella versione this.versione (lista vuota se nessuno)
+		
+		// restituisce i post della rete sociale come erano nella versione dello snapshot
+		public Stream<Post> posts() throws IllegalStateException {
+			this.check();
+			return MvccSocialNetwork.this.versioni.values().stream()
+				.map(voce -> MvccSocialNetwork.this.read(voce, this.versione))
+				.filter(p -> p != null);
+		}
+		// THROWS:		se lo snapshot è chiuso lancia IllegalStateException (unchecked)
+		// EFFECTS:		restituisce uno stream (in ordine non specificato) delle copie dei post esistenti
+		//				nella versione this.versione, valutato pigramente senza acquisire lock
+		
+		// chiude lo snapshot rendendo scartabili le versioni che solo esso poteva leggere
+		public void close() {
+			if(this.chiuso) return;
+			this.chiuso = true;
+			MvccSocialNetwork.this.release(this.versione);
+		}
+		// MODIFIES:	this, MvccSocialNetwork.this.attivi
+		// EFFECTS:		chiude lo snapshot (nessun effetto se già chiuso)
+		
+		// verifica che lo snapshot sia aperto
+		private void check() throws IllegalStateException {
+			if(this.chiuso) throw new IllegalStateException();
+		}
+	}
+	
+	
+	// apre uno snapshot sulla versione corrente della rete sociale
+	public Snapshot snapshot() {
+		synchronized(this.attivi) {
+			long v = this.corrente;
+			this.attivi.merge(v, 1, Integer::sum);
+			return new Snapshot(v);
+		}
+	}
+	// MODIFIES:	this.attivi
+	// EFFECTS:		restituisce uno snapshot della versione this.corrente, da chiudere con close()
+	//				(le versioni che può leggere non vengono scartate finché resta aperto)
+	
+	// restituisce la versione corrente della rete sociale
+	public long getVersion() {
+		return this.corrente;
+	}
+	// EFFECTS:		restituisce this.corrente
+	
+	
+	// restituisce la cronologia dei testi del post con l'id specificato dal meno recente
+	public List<Post> getEditHistory(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		Voce voce = this.versioni.get(id);
+		Versione v = voce == null ? null : voce.testa;
+		if(v == null || v.testo == null) throw new AbsentPostException();
+		
+		ArrayList<Post> storia = new ArrayList<Post>();
+		for(Testo t = v.testo; t != null; t = t.precedente)
+			storia.add(new Post(voce.id, voce.autore, t.text, voce.data_pub, t.data_mod, Collections.<String>emptyList()));
+		Collections.reverse(storia);
+		return storia;
+	}
+	// THROWS:		se id < 0 lancia IllegalArgumentException (unchecked)
+	//				se il post non esiste nella versione corrente lancia AbsentPostException (checked)
+	// EFFECTS:		restituisce un post per ogni testo assunto dal post (quello di pubblicazione per primo),
+	//				con la relativa data di modifica e senza likes
+	
+	
+	// scarta le versioni che nessuno snapshot aperto può più leggere
+	public synchronized void gc() {
+		this.raccogli = false;
+		long min = this.horizon();
+		for(Long id : this.storiche)
+			this.trim(id, min);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		per ogni post con versioni storiche mantiene solo le versioni leggibili dagli snapshot aperti
+	//				ed elimina le catene dei post eliminati che nessuno snapshot aperto può leggere
+	
+	
+	// restituisce la copia del post nella versione specificata (null se non esisteva)
+	private Post read(Voce voce, long versione) {
+		if(voce == null) return null;
+		Versione v = voce.testa;
+		while(v != null && v.da > versione)
+			v = v.precedente;
+		if(v == null || v.testo == null) return null;
+		return new Post(voce.id, voce.autore, v.testo.text, voce.data_pub, v.testo.data_mod, v.likes);
+	}
+	
+	// chiude uno snapshot sulla versione specificata
+	private void release(long versione) {
+		synchronized(this.attivi) {
+			this.attivi.computeIfPresent(versione, (v, n) -> n == 1 ? null : n - 1);
+		}
+		this.raccogli = true;
+	}
+	
+	// restituisce la versione più vecchia che può essere letta da uno snapshot aperto
+	private long horizon() {
+		synchronized(this.attivi) {
+			return this.attivi.isEmpty() ? this.corrente : this.attivi.firstKey();
+		}
+	}
+	// EFFECTS:		restituisce la minima versione degli snapshot aperti (this.corrente se nessuno è aperto)
+	
+	
+	// scarta le versioni del post non più leggibili dagli snapshot con versione ≥ min
+	private void trim(long id, long min) {
+		Voce voce = this.versioni.get(id);
+		if(voce == null) {
+			this.storiche.remove(id);
+			return;
+		}
+		Versione testa = voce.testa;
+		Versione v = testa;
+		while(v != null && v.da > min)
+			v = v.precedente;
+		if(v != null) v.precedente = null;		// le versioni più vecchie di v non sono più leggibili
+		
+		if(v == testa && testa.testo == null) {
+			this.versioni.remove(id, voce);		// post eliminato per tutti gli snapshot
+			this.storiche.remove(id);
+		}
+		else if(testa.precedente == null && testa.testo != null) this.storiche.remove(id);
+		else this.storiche.add(id);
+	}
+	// REQUIRES:	chiamato in synchronized(this), min ≤ versione di ogni snapshot aperto
+	// MODIFIES:	this.versioni, this.storiche
+	
+	
+	/** [VERSIONI] *************************************************************************************************/
+	
+	// aggiunge una versione del post valida dalla prossima versione della rete sociale
+	private void push(Voce voce, Testo testo, List<String> likes) {
+		long prossima = this.corrente + 1;
+		Versione testa = voce.testa;
+		// più modifiche dello stesso post nella stessa versione producono una sola versione
+		Versione precedente = testa != null && testa.da == prossima ? testa.precedente : testa;
+		voce.testa = new Versione(prossima, testo, likes, precedente);
+		this.toccati.add(voce.id);
+	}
+	// REQUIRES:	chiamato in synchronized(this)
+	// MODIFIES:	voce, this.toccati
+	
+	// completa la modifica in corso rendendo visibili le nuove versioni
+	private void commit() {
+		if(this.toccati.isEmpty()) return;
+		this.corrente = this.corrente + 1;
+		long min = this.horizon();
+		for(Long id : this.toccati)
+			this.trim(id, min);
+		this.toccati.clear();
+		if(this.raccogli) this.gc();
+	}
+	// REQUIRES:	chiamato in synchronized(this) al termine di ogni modificatore
+	// MODIFIES:	this
+	// EFFECTS:		se la modifica ha prodotto nuove versioni incrementa this.corrente e scarta le versioni
+	//				dei post modificati non più leggibili (tutte se uno snapshot è stato chiuso nel frattempo)
+	
+	// restituisce la lista non modificabile dei likes del post
+	private static List<String> likes(Post p) {
+		return Collections.unmodifiableList(new ArrayList<String>(p.getLikes()));
+	}
+	
+	
+	protected void onPostAdded(Post p) {
+		Voce voce = this.versioni.computeIfAbsent(p.getId(), id -> new Voce(p));
+		this.push(voce, new Testo(p.getText(), p.getDataMod(), null), MvccSocialNetwork.likes(p));
+	}
+	
+	protected void onPostRemoved(Post p) {
+		Voce voce = this.versioni.get(p.getId());
+		if(voce != null) this.push(voce, null, Collections.<String>emptyList());
+	}
+	
+	protected void onLikesChanged(Post p) {
+		Voce voce = this.versioni.get(p.getId());
+		if(voce != null) this.push(voce, voce.testa.testo, MvccSocialNetwork.likes(p));
+	}
+	
+	protected void onTextChanged(Post p, String testo_precedente) {
+		Voce voce = this.versioni.get(p.getId());
+		if(voce != null) this.push(voce, new Testo(p.getText(), p.getDataMod(), voce.testa.testo), voce.testa.likes);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge alla catena del post la versione prodotta dalla modifica in corso
+	
+	
+	/** [MODIFICATORI VERSIONATI] **********************************************************************************/
+	
+	public synchronized void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		super.createUser(username);
+	}
+	
+	public synchronized Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		try {return super.deleteUser(username);}
+		finally {this.commit();}
+	}
+	
+	public synchronized long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		try {return super.createPost(autore, text);}
+		finally {this.commit();}
+	}
+	
+	protected synchronized void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		try {super.insertPost(p);}
+		finally {this.commit();}
+	}
+	
+	public synchronized Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		try {return super.deletePost(id);}
+		finally {this.commit();}
+	}
+	
+	protected synchronized void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		try {super.modificaPost(id, text, data_mod);}
+		finally {this.commit();}
+	}
+	
+	public synchronized Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		try {return super.deleteAllPost(username);}
+		finally {this.commit();}
+	}
+	
+	public synchronized void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		try {super.addLike(username, id);}
+		finally {this.commit();}
+	}
+	
+	public synchronized void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		try {super.removeLike(username, id);}
+		finally {this.commit();}
+	}
+	
+	public synchronized void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		super.addReport(username, id, type);
+	}
+	// EFFECTS:		come il metodo omonimo della superclasse, le modifiche ai post producono una nuova versione
+	
+	public synchronized StatusCode tryCreateUser(String username) {
+		return super.tryCreateUser(username);
+	}
+	
+	public synchronized StatusCode tryAddLike(String username, long id) {
+		return super.tryAddLike(username, id);
+	}
+	
+	public synchronized StatusCode tryRemoveLike(String username, long id) {
+		return super.tryRemoveLike(username, id);
+	}
+	// EFFECTS:		come l'operazione omonima di SocialNetwork, con verifica e modifica sotto il lock di this
+	//				(la modifica è delegata al modificatore omonimo di this, che la rende visibile in una nuova versione)
+	
+	
+	/** [OSSERVATORI SINCRONIZZATI CON LE MODIFICHE] ***************************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		return super.followerGraph();
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.whoToFollow(username, k);
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username);
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return super.containing(words);
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username, cursor, limit);
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return super.containing(words, cursor, limit);
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		return super.getMentionedUsers(cursor, limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.getPost(id);
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return super.postsBetween(from, to);
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.postsBetween(username, from, to);
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return super.modifiedSince(t);
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.modifiedSince(username, t);
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		super.visitPosts(visitor);
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		super.visitPosts(username, visitor);
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitUsers(part, parts, visitor);
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitReports(part, parts, visitor);
+	}
+
+}
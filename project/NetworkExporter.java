@@ -0,0 +1,328 @@
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+public class NetworkExporter {
+
+/**
+	OVERVIEW:
+	Esportatore in streaming dell'intera rete sociale (utenti, relazioni utente-seguiti, post, like e
+	segnalazioni) su un canale in un solo passaggio: ogni record è codificato direttamente in un ByteBuffer
+	riutilizzato (numeri, escape JSON e UTF-8 scritti byte per byte), senza stringhe intermedie per post né
+	collezioni di DEEP-COPY. L'esportazione può essere divisa in partizioni di utenti (hash dello username,
+	come gli shard di ShardedSocialNetwork) scritte in parallelo su file distinti.
+	Per ogni utente della partizione sono scritti l'utente con i seguiti e poi i suoi post, al termine le
+	segnalazioni dei post della partizione. Formati:
+		NDJSON	{"kind":"user","username":"..","follows":[..]}
+				{"kind":"post","id":..,"autore":"..","text":"..","data_pub":..,"data_mod":..,"likes":[..]}
+				{"kind":"report","id":..,"username":"..","type":"ReportType"}
+				(le righe dei post sono importabili con PostImporter, che ignora gli altri record)
+		BINARY	intestazione MAGIC, poi record con tag di un byte:
+				'U' username, n, n seguiti		'P' post nel formato BinaryProtocolServer.putPost
+				'R' id, username, ordinale del ReportType (byte)
+				(stringhe: lunghezza su 2 byte e byte UTF-8, interi big-endian)
+	
+	ELEMENTO TIPICO:	<rete, formato>
+	
+	AF =	<this.rete, this.formato>
+	
+	RI =  this.rete ≠ null && this.formato ≠ null
+**/
+	
+	// formato dei record in uscita
+	public enum Format { NDJSON, BINARY }
+	
+	// intestazione del formato binario
+	public static final byte[] MAGIC = {'M', 'B', 'X', '1'};
+	// dimensione del buffer di scrittura
+	public static final int BUFFER_SIZE = 1 << 16;
+	
+	private final SocialNetwork rete;
+	private final Format formato;
+	
+	
+	// COSTRUTTORE
+	public NetworkExporter(SocialNetwork rete, Format formato) throws NullPointerException {
+		if(rete == null || formato == null) throw new NullPointerException();
+		this.rete = rete;
+		this.formato = formato;
+	}
+	// THROWS:		se rete = null || formato = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	// esporta la rete sociale sul canale
+	public long export(WritableByteChannel out) throws NullPointerException, IOException {
+		return this.export(out, 0, 1);
+	}
+	// THROWS:		se out = null lancia NullPointerException (unchecked)
+	//				se la scrittura su out fallisce lancia IOException (checked)
+	// MODIFIES:	out
+	// EFFECTS:		scrive su out tutti i record della rete sociale nel formato this.formato e ne restituisce il numero
+	
+	
+	// esporta la rete sociale nel file
+	public long export(Path file) throws NullPointerException, IOException {
+		try(FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE)) {
+			return this.export(out);
+		}
+	}
+	// THROWS:		se file = null lancia NullPointerException (unchecked)
+	//				se la scrittura del file fallisce lancia IOException (checked)
+	// MODIFIES:	il file specificato
+	// EFFECTS:		come export(out) sul file (sostituito se esiste)
+	
+	
+	// esporta la rete sociale in parallelo, una partizione di utenti per file
+	public long exportParallel(Path dir, int parts) throws NullPointerException, IllegalArgumentException, IOException {
+		if(dir == null) throw new NullPointerException();
+		if(parts <= 0) throw new IllegalArgumentException();
+		try {
+			return IntStream.range(0, parts).parallel().mapToLong(i -> {
+				try(FileChannel out = FileChannel.open(this.part(dir, i), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+					return this.export(out, i, parts);
+				}
+				catch(IOException e) {throw new UncheckedIOException(e);}
+			}).sum();
+		}
+		catch(UncheckedIOException e) {throw e.getCause();}
+	}
+	// THROWS:		se dir = null lancia NullPointerException (unchecked)
+	//				se parts ≤ 0 lancia IllegalArgumentException (unchecked)
+	//				se la scrittura di un file fallisce lancia IOException (checked)
+	// MODIFIES:	i file part(dir, i) per 0 ≤ i < parts
+	// EFFECTS:		scrive nel file part(dir, i) i record della partizione i (utenti con hash mod parts = i,
+	//				i loro post e le segnalazioni dei loro post) sul pool fork-join comune e restituisce il
+	//				numero totale di record; con una ShardedSocialNetwork di parts shard ogni file è uno shard
+	
+	
+	// restituisce il file della partizione i
+	public Path part(Path dir, int i) throws NullPointerException {
+		return dir.resolve(String.format("part-%05d.%s", i, (this.formato == Format.NDJSON) ? "ndjson" : "bin"));
+	}
+	// THROWS:		se dir = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce dir/part-i.ndjson o dir/part-i.bin (i su 5 cifre) secondo this.formato
+	
+	
+	// scrive i record della partizione sul canale
+	private long export(WritableByteChannel out, int part, int parts) throws NullPointerException, IOException {
+		if(out == null) throw new NullPointerException();
+		Uscita u = new Uscita(out);
+		long[] n = {0};
+		try {
+			if(this.formato == Format.BINARY) u.bytes(MAGIC);
+			this.rete.visitUsers(part, parts, (utente, seguiti) -> {
+				this.user(u, utente, seguiti);
+				n[0]++;
+				try {
+					this.rete.visitPosts(utente, p -> {
+						this.post(u, p);
+						n[0]++;
+					});
+				}
+				catch(AbsentUsernameException e) {}		// utente appena visitato: non accade
+			});
+			if(this.rete instanceof ReportSocialNetwork) {
+				((ReportSocialNetwork)this.rete).visitReports(part, parts, (p, segnalazioni) -> {
+					for(Report r : segnalazioni) {
+						this.report(u, p.getId(), r);
+						n[0]++;
+					}
+				});
+			}
+			u.flush();
+		}
+		catch(UncheckedIOException e) {throw e.getCause();}
+		return n[0];
+	}
+	
+	
+	/** [CODIFICA DEI RECORD] ***************************************************************************************/
+	
+	private void user(Uscita u, String username, Set<String> seguiti) {
+		if(this.formato == Format.BINARY) {
+			u.ensure(1 + 2 + 3 * username.length() + 4);
+			u.b.put((byte)'U');
+			u.string(username);
+			u.b.putInt(seguiti.size());
+			for(String s : seguiti) {
+				u.ensure(2 + 3 * s.length());
+				u.string(s);
+			}
+			return;
+		}
+		u.ascii("{\"kind\":\"user\",\"username\":");
+		u.json(username);
+		u.ascii(",\"follows\":[");
+		this.list(u, seguiti);
+		u.ascii("]}\n");
+	}
+	
+	private void post(Uscita u, Post p) {
+		Set<String> likes = p.getLikes();
+		if(this.formato == Format.BINARY) {
+			u.ensure(1 + 8 + 2 + 3 * p.getAutore().length() + 2 + 3 * p.getText().length() + 8 + 8 + 4);
+			u.b.put((byte)'P');
+			u.b.putLong(p.getId());
+			u.string(p.getAutore());
+			u.string(p.getText());
+			u.b.putLong(p.getDataPub());
+			u.b.putLong(p.getDataMod());
+			u.b.putInt(likes.size());
+			for(String l : likes) {
+				u.ensure(2 + 3 * l.length());
+				u.string(l);
+			}
+			return;
+		}
+		u.ascii("{\"kind\":\"post\",\"id\":");
+		u.decimal(p.getId());
+		u.ascii(",\"autore\":");
+		u.json(p.getAutore());
+		u.ascii(",\"text\":");
+		u.json(p.getText());
+		u.ascii(",\"data_pub\":");
+		u.decimal(p.getDataPub());
+		u.ascii(",\"data_mod\":");
+		u.decimal(p.getDataMod());
+		u.ascii(",\"likes\":[");
+		this.list(u, likes);
+		u.ascii("]}\n");
+	}
+	
+	private void report(Uscita u, long id, Report r) {
+		if(this.formato == Format.BINARY) {
+			u.ensure(1 + 8 + 2 + 3 * r.getUsername().length() + 1);
+			u.b.put((byte)'R');
+			u.b.putLong(id);
+			u.string(r.getUsername());
+			u.b.put((byte)r.getType().ordinal());
+			return;
+		}
+		u.ascii("{\"kind\":\"report\",\"id\":");
+		u.decimal(id);
+		u.ascii(",\"username\":");
+		u.json(r.getUsername());
+		u.ascii(",\"type\":\"");
+		u.ascii(r.getType().name());
+		u.ascii("\"}\n");
+	}
+	
+	private void list(Uscita u, Set<String> s) {
+		boolean primo = true;
+		for(String x : s) {
+			if(!primo) u.ascii(",");
+			primo = false;
+			u.json(x);
+		}
+	}
+	
+	
+	// buffer di scrittura sul canale: i metodi di scrittura riportano gli errori come UncheckedIOException
+	private static final class Uscita {
+		private final WritableByteChannel out;
+		private final ByteBuffer b;
+		
+		private Uscita(WritableByteChannel out) {
+			this.out = out;
+			this.b = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+		
+		// svuota il buffer sul canale
+		private void flush() {
+			this.b.flip();
+			try {
+				while(this.b.hasRemaining()) this.out.write(this.b);
+			}
+			catch(IOException e) {throw new UncheckedIOException(e);}
+			this.b.clear();
+		}
+		
+		// garantisce almeno n byte liberi (n ≤ BUFFER_SIZE)
+		private void ensure(int n) {
+			if(this.b.remaining() < n) this.flush();
+		}
+		
+		private void bytes(byte[] a) {
+			this.ensure(a.length);
+			this.b.put(a);
+		}
+		
+		// stringa di soli caratteri ASCII
+		private void ascii(String s) {
+			this.ensure(s.length());
+			for(int i = 0; i < s.length(); i++)
+				this.b.put((byte)s.charAt(i));
+		}
+		
+		// intero in base 10 senza stringhe intermedie
+		private void decimal(long x) {
+			this.ensure(20);
+			if(x < 0) {
+				this.b.put((byte)'-');
+				x = -x;
+			}
+			long p = 1;
+			while(p <= x / 10) p *= 10;
+			for(; p > 0; p /= 10)
+				this.b.put((byte)('0' + (x / p) % 10));
+		}
+		
+		// stringa JSON tra virgolette con escape (RFC 8259) in UTF-8
+		private void json(String s) {
+			this.ensure(2 + 6 * s.length());
+			this.b.put((byte)'"');
+			for(int i = 0; i < s.length(); i++) {
+				char c = s.charAt(i);
+				switch(c) {
+					case '"':	this.b.put((byte)'\\').put((byte)'"'); break;
+					case '\\':	this.b.put((byte)'\\').put((byte)'\\'); break;
+					case '\n':	this.b.put((byte)'\\').put((byte)'n'); break;
+					case '\r':	this.b.put((byte)'\\').put((byte)'r'); break;
+					case '\t':	this.b.put((byte)'\\').put((byte)'t'); break;
+					default:
+						if(c < 0x20) {
+							this.b.put((byte)'\\').put((byte)'u').put((byte)'0').put((byte)'0');
+							this.b.put((byte)Character.forDigit(c >> 4, 16)).put((byte)Character.forDigit(c & 0xF, 16));
+						}
+						else i = this.utf8(s, i);
+				}
+			}
+			this.b.put((byte)'"');
+		}
+		
+		// stringa con lunghezza su 2 byte e byte UTF-8 (come BinaryProtocolServer.putString)
+		private void string(String s) {
+			int inizio = this.b.position();
+			this.b.putShort((short)0);
+			for(int i = 0; i < s.length(); i++)
+				i = this.utf8(s, i);
+			this.b.putShort(inizio, (short)(this.b.position() - inizio - 2));
+		}
+		
+		// scrive in UTF-8 il carattere (o la coppia di surrogati) in posizione i e restituisce l'ultima posizione letta
+		private int utf8(String s, int i) {
+			char c = s.charAt(i);
+			if(c < 0x80) this.b.put((byte)c);
+			else if(c < 0x800) this.b.put((byte)(0xC0 | c >> 6)).put((byte)(0x80 | c & 0x3F));
+			else if(Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, s.charAt(++i));
+				this.b.put((byte)(0xF0 | cp >> 18)).put((byte)(0x80 | cp >> 12 & 0x3F));
+				this.b.put((byte)(0x80 | cp >> 6 & 0x3F)).put((byte)(0x80 | cp & 0x3F));
+			}
+			else if(Character.isSurrogate(c)) this.b.put((byte)'?');		// surrogato isolato: come String.getBytes
+			else this.b.put((byte)(0xE0 | c >> 12)).put((byte)(0x80 | c >> 6 & 0x3F)).put((byte)(0x80 | c & 0x3F));
+			return i;
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+
+
+public class Notification {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta una notifica per un utente: una menzione in un post
+	o un like ad un suo post, identificata dalla sequenza della modifica della rete sociale che l'ha prodotta.
+	
+	ELEMENTO TIPICO:	<sequenza, timestamp, tipo, username, id>
+	
+	AF =	<this.sequence, this.timestamp, this.type, this.username, this.id>
+		  - username:	utente che ha menzionato (autore del post) o che ha messo il like
+		  - id:			id del post che contiene la menzione o che ha ricevuto il like
+	
+	RI =  this.sequence > 0 && this.type ≠ null && this.username ≠ null && this.id ≥ 0
+**/
+	
+	private final long sequence;
+	private final long timestamp;
+	private final NotificationType type;
+	private final String username;
+	private final long id;
+	
+	
+	// COSTRUTTORE
+	protected Notification(long sequence, long timestamp, NotificationType type, String username, long id) {
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+		this.type = type;
+		this.username = username;
+		this.id = id;
+	}
+	// REQUIRES:	valori che rispettano RI
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	public long getSequence() {
+		return this.sequence;
+	}
+	
+	public long getTimestamp() {
+		return this.timestamp;
+	}
+	
+	public NotificationType getType() {
+		return this.type;
+	}
+	
+	public String getUsername() {
+		return this.username;
+	}
+	
+	public long getId() {
+		return this.id;
+	}
+	// EFFECTS:		restituisce il campo omonimo di this
+	
+	
+	public String toString() {
+		return "#" + this.sequence + " " + this.type + " da " + this.username + " sul post " + this.id;
+	}
+	// EFFECTS:		restituisce una stringa che rappresenta this
+
+}
@@ -0,0 +1,317 @@
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+public class NotificationService implements AutoCloseable {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta il servizio di notifiche di una CdcSocialNetwork: un thread
+	dedicato legge le modifiche pubblicate dalla rete sociale e recapita una notifica nella casella di ogni
+	utente menzionato in un nuovo post (tranne l'autore) e dell'autore di un post che riceve un like.
+	Le notifiche sono prodotte fuori dal percorso di scrittura: i modificatori della rete sociale si limitano
+	a pubblicare la modifica, il costo del recapito è a carico del thread del servizio.
+	Ogni casella contiene al più capacity notifiche (le più vecchie vengono scartate) e si legge a pagine
+	dalla più recente, in tempo proporzionale alla pagina.
+	Politica ibrida per le menzioni di massa: un post che menziona al più fanoutLimit utenti viene recapitato
+	subito in ogni casella (fan-out in scrittura); un post che ne menziona di più viene registrato una sola volta
+	tra gli annunci e ogni casella lo preleva quando viene letta o riceve una nuova notifica (fan-out in lettura),
+	così un post con molte menzioni non rallenta il recapito delle altre notifiche.
+	Gli annunci conservati sono al più BROADCAST_CAPACITY: una casella che non viene usata mentre se ne
+	accumulano di più perde quelli più vecchi.
+	
+	ELEMENTO TIPICO:
+	<	rete, { <utente_1, [notifica_1_1, ..., notifica_1_k1]>, ..., <utente_n, [notifica_n_1, ..., notifica_n_kn]> },
+		sequenza elaborata	>
+	
+	AF =	<	this.rete,
+				{ <u, [notifiche di this.caselle.get(u) e degli annunci non ancora prelevati che menzionano u,
+					in ordine di sequenza]> | u ∈ this.caselle.keySet() },
+				this.elaborata	>
+	
+	RI =  this.rete ≠ null && this.lettore ≠ null && this.caselle ≠ null && this.annunci ≠ null
+		  &&  this.capacita > 0 && this.soglia ≥ 0 && this.elaborata ≤ this.rete.getSequence()
+		  &&  this.caselle.keySet() = utenti della rete sociale dopo le modifiche fino a this.elaborata
+		  &&  ∀ c ∈ this.caselle.values() . le notifiche in c sono al più this.capacita in ordine di sequenza crescente
+		  &&  ∀ a ∈ annunci . a.menzionati.size() > this.soglia
+**/
+	
+	// capacità predefinita di una casella (numero di notifiche)
+	public static final int DEFAULT_INBOX_CAPACITY = 256;
+	// numero predefinito di menzioni oltre il quale un post viene recapitato in lettura
+	// (un testo di Post.MAX_LENGTH caratteri contiene al più qualche decina di menzioni)
+	public static final int DEFAULT_FANOUT_LIMIT = 8;
+	// numero massimo di annunci (menzioni di massa) conservati
+	public static final int BROADCAST_CAPACITY = 1024;
+	
+	// numero massimo di modifiche lette in un lotto e attesa massima di un lotto (millisecondi)
+	private static final int BATCH_SIZE = 256;
+	private static final long POLL_TIMEOUT = 100;
+	
+	// rete sociale di cui si notificano le modifiche
+	private final CdcSocialNetwork rete;
+	// lettore delle modifiche della rete sociale
+	private final ChangeRing.Reader lettore;
+	// capacità delle caselle
+	private final int capacita;
+	// numero massimo di menzioni recapitate in scrittura
+	private final int soglia;
+	// casella di ogni utente
+	private final Map<String, Casella> caselle;
+	// annunci delle menzioni di massa: l'annuncio numero i (da 0) è in posizione i % BROADCAST_CAPACITY
+	private final Annuncio[] annunci;
+	// numero di annunci registrati dalla creazione del servizio
+	private long totale_annunci;
+	// ultima sequenza della rete sociale elaborata
+	private long elaborata;
+	// thread che recapita le notifiche
+	private final Thread recapito;
+	// true dopo close()
+	private volatile boolean chiuso;
+	
+	
+	// COSTRUTTORE: servizio con capacità delle caselle e soglia delle menzioni predefinite
+	public NotificationService(CdcSocialNetwork rete) throws NullPointerException {
+		this(rete, DEFAULT_INBOX_CAPACITY, DEFAULT_FANOUT_LIMIT);
+	}
+	// THROWS:		se rete = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza this come NotificationService(rete, DEFAULT_INBOX_CAPACITY, DEFAULT_FANOUT_LIMIT)
+	
+	// COSTRUTTORE
+	public NotificationService(CdcSocialNetwork rete, int capacity, int fanoutLimit) throws NullPointerException, IllegalArgumentException {
+		if(rete == null) throw new NullPointerException();
+		if(capacity <= 0 || fanoutLimit < 0) throw new IllegalArgumentException();
+		this.rete = rete;
+		this.capacita = capacity;
+		this.soglia = fanoutLimit;
+		this.caselle = new ConcurrentHashMap<String, Casella>();
+		this.annunci = new Annuncio[BROADCAST_CAPACITY];
+		this.totale_annunci = 0;
+		this.chiuso = false;
+		
+		// registrazione del lettore e caselle degli utenti esistenti senza modifiche intermedie
+		synchronized(rete) {
+			this.lettore = rete.subscribe();
+			this.elaborata = this.lettore.getSequence();
+			rete.visitUsers(0, 1, (u, seguiti) -> this.caselle.put(u, new Casella(u)));
+		}
+		
+		this.recapito = new Thread(this::recapita, "notification-fanout");
+		this.recapito.setDaemon(true);
+		this.recapito.start();
+	}
+	// THROWS:		se rete = null lancia NullPointerException (unchecked)
+	//				se capacity ≤ 0 o fanoutLimit < 0 lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	rete (registra un lettore delle modifiche)
+	// EFFECTS:		inizializza this con una casella vuota per ogni utente della rete sociale
+	//				e avvia il thread che recapita le notifiche delle modifiche successive
+	
+	
+	/** [LETTURA DELLE CASELLE] ************************************************************************************/
+	
+	// restituisce la pagina delle notifiche di username dalla più recente
+	public Page<Notification> getNotifications(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		long prima = (cursor == null) ? Long.MAX_VALUE : Page.afterId(cursor);
+		Casella c = this.caselle.get(username);
+		if(c == null) throw new AbsentUsernameException();
+		return c.pagina(prima, limit);
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se limit ≤ 0 o cursor non è un cursore valido lancia IllegalArgumentException (unchecked)
+	//				se username non ha una casella lancia AbsentUsernameException (checked)
+	// EFFECTS:		restituisce la pagina delle al più limit notifiche più recenti di username con sequenza
+	//				minore di quella codificata in cursor (tutte se cursor = null), dalla più recente,
+	//				ed un cursore all'ultima di esse se ne esistono di più vecchie
+	
+	
+	// restituisce l'ultima sequenza della rete sociale le cui notifiche sono state recapitate
+	public synchronized long getSequence() {
+		return this.elaborata;
+	}
+	// EFFECTS:		restituisce this.elaborata
+	
+	
+	// attende che le notifiche delle modifiche fino alla sequenza specificata siano recapitate
+	public synchronized boolean awaitSequence(long seq, long timeout) throws IllegalArgumentException, InterruptedException {
+		if(timeout < 0) throw new IllegalArgumentException();
+		long scadenza = System.currentTimeMillis() + timeout;
+		while(this.elaborata < seq && !this.chiuso) {
+			long attesa = scadenza - System.currentTimeMillis();
+			if(attesa <= 0) break;
+			this.wait(attesa);
+		}
+		return this.elaborata >= seq;
+	}
+	// THROWS:		se timeout < 0 lancia IllegalArgumentException (unchecked)
+	//				se il thread viene interrotto durante l'attesa lancia InterruptedException (checked)
+	// EFFECTS:		attende al più timeout millisecondi che this.elaborata ≥ seq e restituisce this.elaborata ≥ seq
+	//				(es. seq = rete.getSequence() dopo una modifica per leggerne le notifiche)
+	
+	
+	// termina il recapito delle notifiche (le caselle restano leggibili)
+	public void close() {
+		this.chiuso = true;
+		try {
+			this.recapito.join();
+		}
+		catch(InterruptedException e) {
+			Thread.currentThread().interrupt();		// il thread di recapito termina comunque entro POLL_TIMEOUT
+		}
+		synchronized(this) { this.notifyAll(); }
+	}
+	// MODIFIES:	this, this.rete (rimuove il lettore delle modifiche)
+	// EFFECTS:		ferma il thread di recapito e chiude il lettore delle modifiche
+	
+	
+	/** [RECAPITO] *************************************************************************************************/
+	
+	// corpo del thread di recapito: legge le modifiche a lotti finché il servizio non viene chiuso
+	private void recapita() {
+		try(ChangeRing.Reader lettore = this.lettore) {
+			while(!this.chiuso) {
+				if(lettore.take(this::applica, BATCH_SIZE, POLL_TIMEOUT) > 0) {
+					synchronized(this) {
+						this.elaborata = lettore.getSequence();
+						this.notifyAll();
+					}
+				}
+			}
+		}
+	}
+	// MODIFIES:	this
+	// EFFECTS:		recapita le notifiche di ogni modifica letta e aggiorna this.elaborata dopo ogni lotto
+	
+	
+	// recapita le notifiche prodotte da una modifica della rete sociale
+	private void applica(ChangeEvent e) {
+		switch(e.getType()) {
+			case CREATE_USER:
+				this.caselle.put(e.getUsername(), new Casella(e.getUsername()));
+				break;
+			case DELETE_USER:
+				this.caselle.remove(e.getUsername());
+				break;
+			case ADD_LIKE:
+				Casella autore = this.caselle.get(e.getAuthor());
+				if(autore != null)
+					autore.aggiungi(new Notification(e.getSequence(), e.getTimestamp(), NotificationType.LIKE, e.getUsername(), e.getId()));
+				break;
+			case CREATE_POST:
+				Set<String> menzionati = SocialNetwork.mentionedIn(e.getText());
+				menzionati.remove(e.getUsername());
+				menzionati.retainAll(this.caselle.keySet());
+				if(menzionati.isEmpty()) break;
+				Notification n = new Notification(e.getSequence(), e.getTimestamp(), NotificationType.MENTION, e.getUsername(), e.getId());
+				if(menzionati.size() <= this.soglia) {
+					for(String u : menzionati) {
+						Casella c = this.caselle.get(u);
+						if(c != null) c.aggiungi(n);
+					}
+				}
+				else {
+					synchronized(this.annunci) {
+						this.annunci[(int)(this.totale_annunci++ % BROADCAST_CAPACITY)] = new Annuncio(n, menzionati);
+					}
+				}
+				break;
+			default:
+				break;		// nessuna notifica
+		}
+	}
+	// REQUIRES:	eseguito dal solo thread di recapito, sulle modifiche in ordine di sequenza
+	// MODIFIES:	this.caselle, this.annunci
+	// EFFECTS:		crea o elimina la casella dell'utente creato o eliminato,
+	//				recapita una notifica LIKE all'autore del post che ha ricevuto un like,
+	//				recapita una notifica MENTION agli utenti menzionati nel nuovo post (tranne l'autore)
+	//				nelle loro caselle se sono al più this.soglia, altrimenti registra un annuncio
+	
+	
+	// menzione di massa recapitata in lettura
+	private static final class Annuncio {
+		private final Notification notifica;
+		private final Set<String> menzionati;
+		
+		private Annuncio(Notification notifica, Set<String> menzionati) {
+			this.notifica = notifica;
+			this.menzionati = menzionati;
+		}
+	}
+	
+	
+	// casella delle notifiche di un utente: buffer circolare delle notifiche più recenti in ordine di sequenza
+	private final class Casella {
+		private final String utente;
+		private final Notification[] voci;
+		// posizione della notifica più vecchia e numero di notifiche
+		private int inizio;
+		private int n;
+		// numero di annunci già prelevati
+		private long annunci_letti;
+		
+		private Casella(String utente) {
+			this.utente = utente;
+			this.voci = new Notification[NotificationService.this.capacita];
+			this.inizio = 0;
+			this.n = 0;
+			synchronized(NotificationService.this.annunci) {
+				this.annunci_letti = NotificationService.this.totale_annunci;
+			}
+		}
+		
+		// aggiunge una notifica più recente di tutte quelle presenti
+		private synchronized void aggiungi(Notification x) {
+			this.preleva();
+			this.inserisci(x);
+		}
+		
+		// restituisce le al più limit notifiche più recenti con sequenza minore di prima
+		private synchronized Page<Notification> pagina(long prima, int limit) {
+			this.preleva();
+			// ultima posizione (logica) con sequenza minore di prima
+			int basso = 0, alto = this.n;
+			while(basso < alto) {
+				int medio = (basso + alto) >>> 1;
+				if(this.voce(medio).getSequence() < prima) basso = medio + 1;
+				else alto = medio;
+			}
+			ArrayList<Notification> items = new ArrayList<Notification>(Math.min(limit, basso));
+			for(int i = basso - 1; i >= 0 && items.size() < limit; i--)
+				items.add(this.voce(i));
+			String next = (basso > limit) ? Page.encode(Long.toString(items.get(limit - 1).getSequence())) : null;
+			return new Page<Notification>(items, next);
+		}
+		
+		// preleva gli annunci registrati dopo l'ultimo prelievo che menzionano l'utente
+		private void preleva() {
+			Annuncio[] annunci = NotificationService.this.annunci;
+			synchronized(annunci) {
+				long totale = NotificationService.this.totale_annunci;
+				this.annunci_letti = Math.max(this.annunci_letti, totale - BROADCAST_CAPACITY);
+				for(; this.annunci_letti < totale; this.annunci_letti++) {
+					Annuncio a = annunci[(int)(this.annunci_letti % BROADCAST_CAPACITY)];
+					if(a.menzionati.contains(this.utente)) this.inserisci(a.notifica);
+				}
+			}
+		}
+		
+		// inserisce una notifica in coda scartando la più vecchia se la casella è piena
+		private void inserisci(Notification x) {
+			if(this.n == this.voci.length) {
+				this.voci[this.inizio] = x;
+				this.inizio = (this.inizio + 1) % this.voci.length;
+			}
+			else this.voci[(this.inizio + this.n++) % this.voci.length] = x;
+		}
+		
+		// notifica in posizione logica i (0 = la più vecchia)
+		private Notification voce(int i) {
+			return this.voci[(this.inizio + i) % this.voci.length];
+		}
+	}
+
+}
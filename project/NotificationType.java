@@ -0,0 +1,6 @@
+
+
+public enum NotificationType {
+	MENTION,
+	LIKE;
+}
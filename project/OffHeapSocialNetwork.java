@@ -0,0 +1,526 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+
+public class OffHeapSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork i cui post sono memorizzati fuori dallo
+	heap in una PostArena invece che come oggetti Post: sullo heap restano gli utenti, i follower, l'indice
+	id -> slot (IdTable) e gli slot dei post di ogni autore (array primitivi). I post restituiti
+	dall'API pubblica (invariata) sono materializzati dall'arena ad ogni chiamata, gli hook ricevono post
+	materializzati. Gli indici per data (TimeIndex) non sono mantenuti: postsBetween e modifiedSince
+	visitano tutti i post (o tutti i post dell'autore).
+	
+	ELEMENTO TIPICO:	come in ReportSocialNetwork
+	
+	AF =	<	{ <user, this.followers.get(user), { post materializzato dallo slot s | s ∈ this.slot_autore.get(user) }> , ...},
+				AF(this.reports)	>
+	
+	RI =  this.followers, this.reports come in ReportSocialNetwork
+		  &&  this.arena ≠ null && this.slots ≠ null && this.codici ≠ null && this.nomi ≠ null && this.slot_autore ≠ null
+		  &&  this.post.keySet() = this.followers.keySet() = this.slot_autore.keySet() && ∀ u . this.post.get(u) = ∅
+		  &&  this.index = ∅ && this.tempi vuoto
+		  &&  (∀ u ∈ this.codici.keySet() ==> this.nomi.get(this.codici.get(u)) = u)
+		  &&  lo slot s è occupato nell'arena SSE ∃! u : s ∈ this.slot_autore.get(u) SSE this.slots contiene <id di s, s>
+		  &&  (∀ s ∈ this.slot_autore.get(u) ==> autore del record s = this.codici.get(u))
+		  &&  RI(SocialNetwork) sui post materializzati
+**/
+	
+	// slot dei post di un autore (rimozione per scambio con l'ultimo)
+	private static class Lista {
+		private int[] a = new int[4];
+		private int n = 0;
+		
+		void add(int slot) {
+			if(this.n == this.a.length) this.a = Arrays.copyOf(this.a, 2 * this.n);
+			this.a[this.n++] = slot;
+		}
+		
+		void remove(int slot) {
+			for(int i = 0; i < this.n; i++) {
+				if(this.a[i] == slot) {
+					this.a[i] = this.a[--this.n];
+					return;
+				}
+			}
+		}
+	}
+	
+	// post memorizzati fuori dallo heap
+	private final PostArena arena;
+	// slot dei post per id
+	private final IdTable slots;
+	// codice di ogni utente (i codici non sono riassegnati ad altri utenti)
+	private final Map<String, Integer> codici;
+	// username per codice
+	private final ArrayList<String> nomi;
+	// slot dei post di ogni utente
+	private final Map<String, Lista> slot_autore;
+	// vista usata dalle operazioni (la rete sociale non è thread-safe come SocialNetwork)
+	private final PostArena.Vista vista;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota
+	public OffHeapSocialNetwork() {
+		super();
+		this.arena = new PostArena();
+		this.slots = new IdTable();
+		this.codici = new HashMap<String, Integer>();
+		this.nomi = new ArrayList<String>();
+		this.slot_autore = new HashMap<String, Lista>();
+		this.vista = this.arena.view();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this con nessun utente e un'arena vuota
+	
+	
+	// restituisce l'arena dei post
+	public PostArena getArena() {
+		return this.arena;
+	}
+	// EFFECTS:		restituisce this.arena
+	
+	
+	/** [MATERIALIZZAZIONE] ****************************************************************************************/
+	
+	// restituisce il post memorizzato nello slot specificato
+	private Post materialize(int slot) {
+		PostArena.Vista v = this.vista.at(slot);
+		ArrayList<String> likes = new ArrayList<String>(v.getLikeCount());
+		v.forEachLike(u -> likes.add(this.nomi.get(u)));
+		return new Post(v.getId(), this.nomi.get(v.getAutore()), v.getText(), v.getDataPub(), v.getDataMod(), likes);
+	}
+	// REQUIRES:	slot occupato
+	// EFFECTS:		restituisce un nuovo post con i valori del record dello slot
+	
+	// restituisce il post memorizzato nello slot specificato senza i likes (sufficiente per testo e date)
+	private Post materializeText(int slot) {
+		PostArena.Vista v = this.vista.at(slot);
+		return new Post(v.getId(), this.nomi.get(v.getAutore()), v.getText(), v.getDataPub(), v.getDataMod(), new ArrayList<String>());
+	}
+	
+	// restituisce lo slot del post con l'id specificato
+	private int slotOf(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		long slot = this.slots.get(id);
+		if(slot < 0) throw new AbsentPostException();
+		return (int)slot;
+	}
+	// THROWS:		se id < 0 lancia IllegalArgumentException (unchecked)
+	//				se nessun post ha l'id specificato lancia AbsentPostException (checked)
+	
+	// memorizza un post nell'arena
+	private void store(Post p) {
+		int slot = this.arena.allocate(p.getId(), this.codici.get(p.getAutore()), p.getText(), p.getDataPub(), p.getDataMod());
+		for(String like : p.getLikes())
+			this.arena.addLike(slot, this.codici.get(like));
+		this.slots.put(p.getId(), slot);
+		this.slot_autore.get(p.getAutore()).add(slot);
+	}
+	// REQUIRES:	p ≠ null, autore e likes di p utenti della rete sociale, p.getId() non memorizzato
+	
+	// elimina dall'arena il post nello slot specificato e lo restituisce
+	private Post release(int slot) {
+		Post p = this.materialize(slot);
+		this.slots.remove(p.getId());
+		this.slot_autore.get(p.getAutore()).remove(slot);
+		this.arena.free(slot);
+		return p;
+	}
+	// REQUIRES:	slot occupato
+	
+	
+	/** [MODIFICATORI] *********************************************************************************************/
+	
+	public void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		super.createUser(username);
+		this.slot_autore.put(username, new Lista());
+		if(!this.codici.containsKey(username)) {
+			this.codici.put(username, this.nomi.size());
+			this.nomi.add(username);
+		}
+	}
+	// EFFECTS:		come SocialNetwork.createUser(username), assegna un codice a username se non ne ha già uno
+	
+	public Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		int codice = this.codici.get(username);
+		
+		// rimozione dei like messi dall'utente (solo ai post degli utenti che segue, RI)
+		for(String seguito : this.followers.get(username)) {
+			Lista lista = this.slot_autore.get(seguito);
+			for(int i = 0; i < lista.n; i++) {
+				if(this.arena.removeLike(lista.a[i], codice))
+					this.onLikesChanged(this.materialize(lista.a[i]));
+			}
+		}
+		
+		for(String seguito : this.followers.remove(username))
+			this.utenti.addScore(seguito, -1);
+		this.utenti.remove(username);
+		for(String u : this.followers.keySet())
+			this.followers.get(u).remove(username);
+		this.post.remove(username);
+		
+		HashSet<Post> post = new HashSet<Post>();
+		Lista lista = this.slot_autore.get(username);
+		while(lista.n > 0) {
+			Post p = this.release(lista.a[lista.n - 1]);
+			post.add(p);
+			this.onPostRemoved(p);
+		}
+		this.slot_autore.remove(username);
+		return post;
+	}
+	// EFFECTS:		come SocialNetwork.deleteUser(username), restituisce i post materializzati
+	
+	public long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		Post p = new Post(autore, text);
+		if(!SocialNetwork.checkValidUsername(autore)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(autore)) throw new AbsentUsernameException();
+		
+		this.store(p);
+		this.onPostAdded(p);
+		return p.getId();
+	}
+	// EFFECTS:		come SocialNetwork.createPost(autore, text), il post è memorizzato nell'arena
+	
+	protected void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		if(p == null) throw new NullPointerException();
+		String autore = p.getAutore();
+		if(!this.post.containsKey(autore)) throw new AbsentUsernameException();
+		if(this.slots.get(p.getId()) >= 0) throw new DuplicatePostException();
+		Set<String> likes = p.getLikes();
+		for(String like : likes)
+			if(!this.followers.containsKey(like)) throw new AbsentUsernameException();
+		
+		for(String like : likes) {
+			if(this.followers.get(like).add(autore))
+				this.utenti.addScore(autore, 1);
+		}
+		this.store(p);
+		this.onPostAdded(p);
+	}
+	// EFFECTS:		come SocialNetwork.insertPost(p), il post è copiato nell'arena
+	
+	public Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		Post found = this.release(this.slotOf(id));
+		String autore = found.getAutore();
+		
+		// autore non più seguito da chi non ha messo like ad altri suoi post
+		Lista lista = this.slot_autore.get(autore);
+		for(String u : found.getLikes()) {
+			int codice = this.codici.get(u);
+			boolean altri = false;
+			for(int i = 0; i < lista.n && !altri; i++)
+				altri = this.vista.at(lista.a[i]).hasLike(codice);
+			if(!altri && this.followers.get(u).remove(autore))
+				this.utenti.addScore(autore, -1);
+		}
+		
+		this.onPostRemoved(found);
+		return found;
+	}
+	// EFFECTS:		come SocialNetwork.deletePost(id), restituisce il post materializzato
+	
+	public Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		
+		HashSet<Post> post = new HashSet<Post>();
+		HashSet<String> likes = new HashSet<String>();
+		Lista lista = this.slot_autore.get(username);
+		while(lista.n > 0) {
+			Post p = this.release(lista.a[lista.n - 1]);
+			post.add(p);
+			likes.addAll(p.getLikes());
+			this.onPostRemoved(p);
+		}
+		for(String l : likes) {
+			if(this.followers.get(l).remove(username))
+				this.utenti.addScore(username, -1);
+		}
+		return post;
+	}
+	// EFFECTS:		come SocialNetwork.deleteAllPost(username), restituisce i post materializzati
+	
+	protected void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		if(text == null) throw new NullPointerException();
+		int slot = this.slotOf(id);
+		if(text.length() == 0 || text.length() > Post.MAX_LENGTH) throw new IllegalTextException();
+		
+		String testo_precedente = this.vista.at(slot).getText();
+		this.arena.setText(slot, text, data_mod);
+		this.onTextChanged(this.materialize(slot), testo_precedente);
+	}
+	// EFFECTS:		come SocialNetwork.modificaPost(id, text, data_mod) sul record del post nell'arena
+	
+	public void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		if(username == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
+		
+		int slot = this.slotOf(id);
+		String autore = this.nomi.get(this.vista.at(slot).getAutore());
+		if(autore.equals(username)) throw new AuthorLikeException();
+		if(!this.arena.addLike(slot, this.codici.get(username))) throw new DuplicateLikeException();
+		if(this.followers.get(username).add(autore))
+			this.utenti.addScore(autore, 1);
+		this.onLikesChanged(this.materialize(slot));
+	}
+	// EFFECTS:		come SocialNetwork.addLike(username, id) sul record del post nell'arena
+	
+	public void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		if(username == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
+		
+		int slot = this.slotOf(id);
+		String autore = this.nomi.get(this.vista.at(slot).getAutore());
+		if(autore.equals(username)) throw new AuthorLikeException();
+		int codice = this.codici.get(username);
+		if(!this.arena.removeLike(slot, codice)) throw new AbsentLikeException();
+		this.onLikesChanged(this.materialize(slot));
+		
+		// termina se c'è un altro post dell'autore a cui username ha messo like
+		Lista lista = this.slot_autore.get(autore);
+		for(int i = 0; i < lista.n; i++)
+			if(this.vista.at(lista.a[i]).hasLike(codice)) return;
+		if(this.followers.get(username).remove(autore))
+			this.utenti.addScore(autore, -1);
+	}
+	// EFFECTS:		come SocialNetwork.removeLike(username, id) sul record del post nell'arena
+	
+	public StatusCode tryAddLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!SocialNetwork.checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		long slot = this.slots.get(id);
+		if(slot < 0) return StatusCode.ABSENT_POST;
+		PostArena.Vista v = this.vista.at((int)slot);
+		if(this.nomi.get(v.getAutore()).equals(username)) return StatusCode.AUTHOR_LIKE;
+		if(v.hasLike(this.codici.get(username))) return StatusCode.DUPLICATE_LIKE;
+		
+		try {
+			this.addLike(username, id);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		return StatusCode.OK;
+	}
+	
+	public StatusCode tryRemoveLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!SocialNetwork.checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		long slot = this.slots.get(id);
+		if(slot < 0) return StatusCode.ABSENT_POST;
+		PostArena.Vista v = this.vista.at((int)slot);
+		if(this.nomi.get(v.getAutore()).equals(username)) return StatusCode.AUTHOR_LIKE;
+		if(!v.hasLike(this.codici.get(username))) return StatusCode.ABSENT_LIKE;
+		
+		try {
+			this.removeLike(username, id);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		return StatusCode.OK;
+	}
+	// EFFECTS:		come l'operazione omonima di SocialNetwork, con le verifiche sul record del post nell'arena
+	//				(nessuna eccezione costruita quando l'operazione fallisce)
+	
+	protected Post getOriginalPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return this.materialize(this.slotOf(id));
+	}
+	// EFFECTS:		restituisce il post materializzato (uguale per equals al post della rete sociale con l'id specificato)
+	
+	
+	/** [OSSERVATORI] **********************************************************************************************/
+	
+	public Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return this.materialize(this.slotOf(id));
+	}
+	
+	public Set<String> getMentionedUsers() {
+		HashSet<String> menzionati = new HashSet<String>();
+		this.arena.forEachSlot(slot -> menzionati.addAll(SocialNetwork.getMentionedUsers(this.materializeText(slot))));
+		return menzionati;
+	}
+	
+	public List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		Lista lista = this.slot_autore.get(username);
+		ArrayList<Post> post = new ArrayList<Post>(lista.n);
+		for(int i = 0; i < lista.n; i++)
+			post.add(this.materialize(lista.a[i]));
+		return post;
+	}
+	
+	public List<Post> containing(List<String> words) throws NullPointerException {
+		Pattern pattern = SocialNetwork.wordsPattern(words);
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.arena.forEachSlot(slot -> {
+			if(pattern.matcher(this.vista.at(slot).getText().toLowerCase()).find())
+				lista.add(this.materialize(slot));
+		});
+		return lista;
+	}
+	// EFFECTS:		come i metodi omonimi di SocialNetwork, con i post materializzati dall'arena
+	
+	
+	public Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		long after = Page.afterId(cursor);
+		Lista lista = this.slot_autore.get(username);
+		if(lista == null) throw new AbsentUsernameException();
+		
+		// i primi limit+1 slot successivi al cursore per id
+		TreeMap<Long, Integer> primi = new TreeMap<Long, Integer>();
+		for(int i = 0; i < lista.n; i++) {
+			long id = this.vista.at(lista.a[i]).getId();
+			if(id > after) {
+				primi.put(id, lista.a[i]);
+				if(primi.size() > limit + 1) primi.pollLastEntry();
+			}
+		}
+		return this.page(primi, limit);
+	}
+	
+	public Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		long after = Page.afterId(cursor);
+		Pattern pattern = SocialNetwork.wordsPattern(words);
+		
+		// gli slot non sono ordinati per id: i primi limit+1 post successivi al cursore che contengono le parole
+		TreeMap<Long, Integer> primi = new TreeMap<Long, Integer>();
+		this.arena.forEachSlot(slot -> {
+			PostArena.Vista v = this.vista.at(slot);
+			long id = v.getId();
+			if(id > after && (primi.size() <= limit || id < primi.lastKey()) && pattern.matcher(v.getText().toLowerCase()).find()) {
+				primi.put(id, slot);
+				if(primi.size() > limit + 1) primi.pollLastEntry();
+			}
+		});
+		return this.page(primi, limit);
+	}
+	
+	public Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		if(limit <= 0) throw new IllegalArgumentException();
+		String after = Page.afterKey(cursor);
+		
+		TreeSet<String> primi = new TreeSet<String>();
+		this.arena.forEachSlot(slot -> {
+			for(String m : SocialNetwork.getMentionedUsers(this.materializeText(slot))) {
+				if(m.compareTo(after) > 0 && primi.add(m) && primi.size() > limit + 1)
+					primi.pollLast();
+			}
+		});
+		return Page.ofUsers(new ArrayList<String>(primi), limit);
+	}
+	// EFFECTS:		come i metodi omonimi di SocialNetwork, con i post materializzati dall'arena
+	
+	// restituisce la pagina dei post negli slot specificati in ordine di id
+	private Page<Post> page(TreeMap<Long, Integer> primi, int limit) {
+		ArrayList<Post> post = new ArrayList<Post>(primi.size());
+		for(int slot : primi.values())
+			post.add(this.materialize(slot));
+		return Page.ofPosts(post, limit);
+	}
+	
+	
+	public List<Post> postsBetween(long from, long to) {
+		return this.between(null, true, from, to);
+	}
+	
+	public List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		return this.between(username, true, from, to);
+	}
+	
+	public List<Post> modifiedSince(long t) {
+		return this.between(null, false, t, Long.MAX_VALUE);
+	}
+	
+	public List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		return this.between(username, false, t, Long.MAX_VALUE);
+	}
+	// EFFECTS:		come i metodi omonimi di SocialNetwork, con costo O(n log n) (nessun indice per data fuori dallo heap)
+	
+	// restituisce i post (di username se ≠ null) con data di pubblicazione (o di modifica) in [from, to) ordinati per data e id
+	private List<Post> between(String username, boolean pubblicazione, long from, long to) {
+		ToLongFunction<Post> data = pubblicazione ? Post::getDataPub : Post::getDataMod;
+		ArrayList<Post> lista = new ArrayList<Post>();
+		IntConsumer visitor = slot -> {
+			PostArena.Vista v = this.vista.at(slot);
+			long t = pubblicazione ? v.getDataPub() : v.getDataMod();
+			if(from <= t && t < to) lista.add(this.materialize(slot));
+		};
+		if(username == null) this.arena.forEachSlot(visitor);
+		else {
+			Lista slot_utente = this.slot_autore.get(username);
+			for(int i = 0; i < slot_utente.n; i++)
+				visitor.accept(slot_utente.a[i]);
+		}
+		lista.sort(Comparator.comparingLong(data).thenComparingLong(Post::getId));
+		return lista;
+	}
+	
+	
+	protected void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		if(visitor == null) throw new NullPointerException();
+		this.arena.forEachSlot(slot -> visitor.accept(this.materialize(slot)));
+	}
+	
+	protected void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		if(username == null || visitor == null) throw new NullPointerException();
+		Lista lista = this.slot_autore.get(username);
+		if(lista == null) throw new AbsentUsernameException();
+		for(int i = 0; i < lista.n; i++)
+			visitor.accept(this.materialize(lista.a[i]));
+	}
+	// EFFECTS:		come i metodi omonimi di SocialNetwork, visitando i post materializzati
+	
+	
+	// mostra lo stato attuale della rete sociale
+	public void stampa() {
+		System.out.printf("================================================\n");
+		System.out.printf("UTENTE-SEGUITI:\n");
+		for(String utente : this.followers.keySet())
+			System.out.printf("[%s] --> {%s }\n", utente, String.join(" ", this.followers.get(utente)));
+		System.out.printf("\nPOST-LIKES:\n");
+		this.arena.forEachSlot(slot -> System.out.printf("[%s] --> %s\n", this.vista.at(slot).getId(), this.materialize(slot).getLikes()));
+		System.out.printf("\nARENA: %d post, %d byte fuori dallo heap\n", this.arena.size(), this.arena.offHeapBytes());
+		System.out.printf("================================================\n");
+	}
+
+}
@@ -0,0 +1,124 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Base64;
+import java.nio.charset.StandardCharsets;
+
+
+public class Page<T> {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta una pagina dei risultati di un'interrogazione
+	in ordine stabile, con il cursore opaco da passare all'interrogazione per ottenere la pagina successiva.
+	Il cursore codifica la chiave dell'ultimo risultato della pagina (id del post o username): la pagina
+	successiva contiene i risultati con chiave maggiore, quindi le modifiche della rete sociale tra una
+	pagina e l'altra non causano risultati ripetuti o saltati tra quelli presenti in entrambe le interrogazioni.
+	
+	ELEMENTO TIPICO:	<	[r_0, ..., r_n-1], cursore	>
+	
+	AF =	<	this.items, this.next	>
+		  - this.next = null se non ci sono altri risultati
+	
+	RI =  this.items ≠ null && null ∉ this.items
+**/
+	
+	// risultati della pagina
+	private final List<T> items;
+	// cursore della pagina successiva (null se la pagina è l'ultima)
+	private final String next;
+	
+	
+	// COSTRUTTORE
+	protected Page(List<T> items, String next) {
+		this.items = Collections.unmodifiableList(new ArrayList<T>(items));
+		this.next = next;
+	}
+	// REQUIRES:	items ≠ null, null ∉ items
+	// EFFECTS:		inizializza la pagina con una copia di items ed il cursore next
+	
+	
+	// restituisce i risultati della pagina
+	public List<T> getItems() {
+		return this.items;
+	}
+	// EFFECTS:		restituisce la lista non modificabile this.items
+	
+	// restituisce il cursore della pagina successiva
+	public String getNext() {
+		return this.next;
+	}
+	// EFFECTS:		restituisce this.next (null se non ci sono altri risultati)
+	
+	// restituisce true se esistono altri risultati dopo la pagina
+	public boolean hasNext() {
+		return this.next != null;
+	}
+	// EFFECTS:		restituisce this.next ≠ null
+	
+	
+	/** [CURSORI] **************************************************************************************************/
+	
+	// restituisce il cursore opaco che codifica la chiave specificata
+	protected static String encode(String key) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+	// REQUIRES:	key ≠ null
+	// EFFECTS:		restituisce la codifica base64 (url-safe) di key
+	
+	// restituisce la chiave codificata nel cursore
+	protected static String decode(String cursor) throws IllegalArgumentException {
+		return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+	}
+	// REQUIRES:	cursor ≠ null, cursor restituito da encode
+	// THROWS:		se cursor non è una codifica base64 valida lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce la chiave k tale che encode(k) = cursor
+	
+	
+	// restituisce l'id dopo il quale inizia la pagina indicata dal cursore
+	protected static long afterId(String cursor) throws IllegalArgumentException {
+		if(cursor == null) return -1;
+		try {
+			long id = Long.parseLong(Page.decode(cursor));
+			if(id < 0) throw new IllegalArgumentException();
+			return id;
+		}
+		catch(NumberFormatException e) {
+			throw new IllegalArgumentException();		// cursore non generato da una pagina di post
+		}
+	}
+	// THROWS:		se cursor ≠ null non codifica un id valido lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce -1 se cursor = null (prima pagina), altrimenti l'id codificato in cursor
+	
+	// restituisce lo username dopo il quale inizia la pagina indicata dal cursore
+	protected static String afterKey(String cursor) throws IllegalArgumentException {
+		if(cursor == null) return "";
+		return Page.decode(cursor);
+	}
+	// THROWS:		se cursor ≠ null non è un cursore valido lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce "" se cursor = null (prima pagina), altrimenti la chiave codificata in cursor
+	
+	
+	// restituisce la pagina formata dai primi limit risultati ordinati
+	protected static Page<Post> ofPosts(List<Post> ordinati, int limit) {
+		ArrayList<Post> items = new ArrayList<Post>();
+		for(int i = 0; i < ordinati.size() && i < limit; i++)
+			items.add((Post)ordinati.get(i).clone());
+		String next = ordinati.size() > limit ? Page.encode(Long.toString(items.get(limit - 1).getId())) : null;
+		return new Page<Post>(items, next);
+	}
+	// REQUIRES:	ordinati ≠ null, null ∉ ordinati, ordinati ordinata per id crescente, limit > 0
+	// EFFECTS:		restituisce la pagina con le DEEP-COPY dei primi limit post di ordinati
+	//				ed un cursore all'ultimo di essi se ordinati contiene più di limit post
+	
+	// restituisce la pagina formata dai primi limit username ordinati
+	protected static Page<String> ofUsers(List<String> ordinati, int limit) {
+		List<String> items = ordinati.size() > limit ? ordinati.subList(0, limit) : ordinati;
+		String next = ordinati.size() > limit ? Page.encode(items.get(limit - 1)) : null;
+		return new Page<String>(items, next);
+	}
+	// REQUIRES:	ordinati ≠ null, null ∉ ordinati, ordinati ordinata lessicograficamente, limit > 0
+	// EFFECTS:		restituisce la pagina con i primi limit username di ordinati
+	//				ed un cursore all'ultimo di essi se ordinati contiene più di limit username
+
+}
@@ -2,6 +2,7 @@ import java.util.Date;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Collection;
 
 
 public class Post implements Cloneable {
@@ -29,7 +30,7 @@ public class Post implements Cloneable {
 					likes.get(i) ≠ likes.get(j) )
 	 **/
 	
-	private static final int MAX_LENGTH = 140;	// costante con totale massimo di caratteri consentiti per il testo del post
+	protected static final int MAX_LENGTH = 140;	// costante con totale massimo di caratteri consentiti per il testo del post
 	private static long count = 0;				// contatore totale di post creati
 	
 	private final long id;						// identificatore univoco del post (non riassegnabile)
@@ -42,24 +43,63 @@ public class Post implements Cloneable {
 	
 	// COSTRUTTORE
 	public Post(String autore, String text) throws NullPointerException, IllegalTextException {
+		this(autore, text, 1, 0);
+	}
+	// REQUIRES:	autore ≠ null, text ≠ null, 0 < text.length() ≤ Post.MAX_LENGTH
+	// THROWS:		se autore = null || text = null lancia NullPointerException (unchecked)
+	//				se text.length() = 0 lancia IllegalTextException (checked)
+	//				se text.length() > Post.MAX_LENGTH lancia IllegalTextException (checked)
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this: this.id = pre(Post.count), post(Post.count) = pre(Post.count)+1,
+	//				this.autore = autore, this.text = text, this.likes = [],
+	//				this.data_pub e this.data_mod prendono il timestamp della data e ora attuali (new Date().getTime())
+	
+	
+	// COSTRUTTORE con id congruo a resto modulo mod (utilizzato per codificare lo shard di appartenenza nell'id)
+	protected Post(String autore, String text, int mod, int resto) throws NullPointerException, IllegalTextException {
 		if(autore == null || text == null) throw new NullPointerException();
 		if(text.length() == 0 || text.length() > MAX_LENGTH) throw new IllegalTextException();
+		if(mod <= 0 || resto < 0 || resto >= mod) throw new IllegalArgumentException();
 		
-		this.id = getNextCount();
+		this.id = getNextCount(mod, resto);
 		this.autore = autore;
 		this.text = text;
 		this.data_pub = new Date().getTime();
 		this.data_mod = this.data_pub;
 		this.likes = new ArrayList<String>();
 	}
-	// REQUIRES:	autore ≠ null, text ≠ null, 0 < text.length() ≤ Post.MAX_LENGTH
+	// REQUIRES:	autore ≠ null, text ≠ null, 0 < text.length() ≤ Post.MAX_LENGTH, 0 ≤ resto < mod
 	// THROWS:		se autore = null || text = null lancia NullPointerException (unchecked)
 	//				se text.length() = 0 lancia IllegalTextException (checked)
 	//				se text.length() > Post.MAX_LENGTH lancia IllegalTextException (checked)
-	// MODIFIES:	this
-	// EFFECTS:		inizializza this: this.id = pre(Post.count), post(Post.count) = pre(Post.count)+1,
-	//				this.autore = autore, this.text = text, this.likes = [],
-	//				this.data_pub e this.data_mod prendono il timestamp della data e ora attuali (new Date().getTime())
+	//				se mod ≤ 0 || resto < 0 || resto ≥ mod lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this, Post.count
+	// EFFECTS:		inizializza this come Post(autore, text) ma con this.id = min{i ≥ pre(Post.count) | i mod mod = resto},
+	//				post(Post.count) = this.id+1 (gli id saltati non vengono mai assegnati)
+	
+	
+	// COSTRUTTORE che ripristina un post già esistente (es. replicato o importato) con id e date specificati
+	protected Post(long id, String autore, String text, long data_pub, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException {
+		if(autore == null || text == null) throw new NullPointerException();
+		if(text.length() == 0 || text.length() > MAX_LENGTH) throw new IllegalTextException();
+		if(id < 0 || data_pub <= 0 || data_mod < data_pub) throw new IllegalArgumentException();
+		
+		Post.reserveCount(id);
+		this.id = id;
+		this.autore = autore;
+		this.text = text;
+		this.data_pub = data_pub;
+		this.data_mod = data_mod;
+		this.likes = new ArrayList<String>();
+	}
+	// REQUIRES:	autore ≠ null, text ≠ null, 0 < text.length() ≤ Post.MAX_LENGTH, id ≥ 0, 0 < data_pub ≤ data_mod
+	// THROWS:		se autore = null || text = null lancia NullPointerException (unchecked)
+	//				se text.length() = 0 || text.length() > Post.MAX_LENGTH lancia IllegalTextException (checked)
+	//				se id < 0 || data_pub ≤ 0 || data_mod < data_pub lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this, Post.count
+	// EFFECTS:		inizializza this con i valori specificati e this.likes = [],
+	//				post(Post.count) = max(pre(Post.count), id+1) così che i nuovi post non riusino id
 	
 	
 	// COSTRUTTORE che produce la DEEP-COPY del post p
@@ -83,12 +123,48 @@ public class Post implements Cloneable {
 	//				Post.count non viene incrementato per la duplicazione di un post esistente
 	
 	
-	// restituisce ed incrementa il totale di post creati
-	private static long getNextCount() {
-		return Post.count++;
+	// COSTRUTTORE che materializza una versione di un post esistente (es. letta da uno snapshot)
+	protected Post(long id, String autore, String text, long data_pub, long data_mod, Collection<String> likes) {
+		this.id = id;
+		this.autore = autore;
+		this.text = text;
+		this.data_pub = data_pub;
+		this.data_mod = data_mod;
+		this.likes = new ArrayList<String>(likes);
+	}
+	// REQUIRES:	valori di un post già validato (RI rispettata), likes ≠ null senza ripetizioni
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this con i valori specificati senza validarli
+	//				Post.count non viene modificato (il costruttore non acquisisce lock ed è usabile dai lettori)
+	
+	
+	// restituisce il primo id libero congruo a resto modulo mod e aggiorna il totale di post creati
+	private static synchronized long getNextCount(int mod, int resto) {
+		long id = Post.count + Math.floorMod(resto - Post.count, (long)mod);
+		Post.count = id + 1;
+		return id;
+	}
+	// REQUIRES:	mod > 0, 0 ≤ resto < mod
+	// MODIFIES:	Post.count
+	// EFFECTS:		restituisce id = min{i ≥ pre(Post.count) | i mod mod = resto}, post(Post.count) = id+1
+	//				con mod = 1 equivale a restituire pre(Post.count) con post(Post.count) = pre(Post.count)+1
+	
+	
+	// restituisce un nuovo id mai assegnato (es. per un post importato senza id)
+	protected static long nextId() {
+		return Post.getNextCount(1, 0);
+	}
+	// MODIFIES:	Post.count
+	// EFFECTS:		restituisce pre(Post.count), post(Post.count) = pre(Post.count)+1
+	
+	
+	// garantisce che l'id specificato non venga più assegnato a nuovi post
+	private static synchronized void reserveCount(long id) {
+		if(Post.count <= id)
+			Post.count = id + 1;
 	}
 	// MODIFIES:	Post.count
-	// EFFECTS:		post(Post.count)=pre(Post.count)+1, restituisce pre(Post.count)
+	// EFFECTS:		post(Post.count) = max(pre(Post.count), id+1)
 	
 	
 	/** [METODI MODIFICATORI] **************************************************************************************/
@@ -99,8 +175,7 @@ public class Post implements Cloneable {
 		if(new_text.length() == 0) throw new IllegalTextException();
 		if(new_text.length() > Post.MAX_LENGTH) throw new IllegalTextException();
 		
-		this.text = new_text;
-		this.data_mod = new Date().getTime();
+		this.modificaText(new_text, new Date().getTime());
 	}
 	// REQUIRES:	new_text ≠ null, 0 < new_text.length() ≤ Post.MAX_LENGTH
 	// THROWS:		se new_text = null lancia NullPointerException (unchecked)
@@ -110,6 +185,20 @@ public class Post implements Cloneable {
 	// EFFECTS:		post(this.text) = new_text e aggiorna this.data_mod al timestamp attuale (new Date().getTime())
 	
 	
+	// sostituisce il testo del post con la data di modifica specificata (es. modifica replicata)
+	protected void modificaText(String new_text, long data_mod) throws NullPointerException, IllegalTextException {
+		if(new_text == null) throw new NullPointerException();
+		if(new_text.length() == 0 || new_text.length() > Post.MAX_LENGTH) throw new IllegalTextException();
+		
+		this.text = new_text;
+		this.data_mod = Math.max(this.data_mod, data_mod);		// data_mod non decresce (RI)
+	}
+	// REQUIRES:	new_text ≠ null, 0 < new_text.length() ≤ Post.MAX_LENGTH
+	// THROWS:		come modificaText(new_text)
+	// MODIFIES:	this.text, this.data_mod
+	// EFFECTS:		post(this.text) = new_text, post(this.data_mod) = max(pre(this.data_mod), data_mod)
+	
+	
 	// persona mette like al post
 	public void addLike(String persona) throws NullPointerException, AuthorLikeException, DuplicateLikeException {
 		if(persona == null) throw new NullPointerException();
@@ -182,6 +271,18 @@ public class Post implements Cloneable {
 	}
 	// EFFECTS:		restituisce l'insieme {this.likes.get(i) | 0 ≤ i < this.likes.size()}
 	
+	// restituisce il numero di persone che hanno messo like al post
+	public int getLikesCount() {
+		return this.likes.size();
+	}
+	// EFFECTS:		restituisce this.likes.size() (come getLikes().size() senza copiare l'insieme)
+	
+	// restituisce true se la persona ha messo like al post
+	public boolean hasLike(String persona) {
+		return this.likes.contains(persona);
+	}
+	// EFFECTS:		restituisce persona ∈ this.likes (come getLikes().contains(persona) senza copiare l'insieme)
+	
 	
 	/** [METODI SOVRASCRITTI (OVERRIDE)] ***************************************************************************/
 	
@@ -198,21 +299,21 @@ public class Post implements Cloneable {
 	// EFFECTS:		restituisce true se this e p sono lo stesso post (ovvero se hanno lo stesso id), altrimenti false
 	
 	public int hashCode() {
-		return 0;
+		return Long.hashCode(this.id);
 	}
-	// EFFECTS:		restituisce sempre 0 ==> l'uguaglianza tra post dipende unicamente da equals()
+	// EFFECTS:		restituisce l'hash di this.id (coerente con equals(): post uguali hanno lo stesso id)
 	
 	public String toString() {
-		String s = "";
-		s += String.format("[ID]:\t\t%d\n[AUTORE]:\t%s\n", this.id, this.autore);
-		s += String.format("[PUB]:\t\t%s\n", new Date(this.data_pub).toString());
-		s += String.format("[MOD]:\t\t%s\n", new Date(this.data_mod).toString());
-		s += String.format("[LIKES]:\t");
+		StringBuilder s = new StringBuilder(256);
+		s.append("[ID]:\t\t").append(this.id).append("\n[AUTORE]:\t").append(this.autore).append('\n');
+		s.append("[PUB]:\t\t").append(new Date(this.data_pub)).append('\n');
+		s.append("[MOD]:\t\t").append(new Date(this.data_mod)).append('\n');
+		s.append("[LIKES]:\t");
 		for(String persona : this.likes)
-			s += persona + " ";
-		s += '\n';
-		s += String.format("[TESTO]:\t%s", this.text);
-		return s;
+			s.append(persona).append(' ');
+		s.append('\n');
+		s.append("[TESTO]:\t").append(this.text);
+		return s.toString();
 	}
 	// EFFECTS:		restituisce una stringa che rappresenta univocamente this
 }
@@ -0,0 +1,423 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+
+public class PostArena {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che memorizza i post fuori dallo heap (ByteBuffer diretti allocati a segmenti).
+	Ogni post occupa un record a larghezza fissa identificato da uno slot, il testo (UTF-8) occupa un blocco
+	di un'area di testi separata e i likes sono una lista concatenata di codici utente in un'area di nodi.
+	I blocchi dei testi hanno capacità multipla di GRANULO byte (classi di dimensione): il blocco di un testo
+	sostituito o di un post eliminato entra nella lista dei blocchi liberi della sua classe ed è riutilizzato
+	dal prossimo testo della stessa classe (una sostituzione nella stessa classe riscrive il blocco sul posto).
+	Sullo heap restano solo i riferimenti ai segmenti e gli slot liberi: il numero di oggetti non dipende
+	dal numero di post. I record sono letti tramite viste (flyweight) riposizionabili su uno slot qualsiasi.
+	Autori e utenti dei likes sono codici interi assegnati dal chiamante.
+	
+	FORMATO DI UN RECORD (RECORD byte):
+		<id:long, data_pub:long, data_mod:long, testo:long, autore:int, n_likes:int, likes:int, lunghezza:short, stato:short>
+		testo è la posizione globale del testo nell'area dei testi, likes il primo nodo della lista (-1 se vuota)
+	FORMATO DI UN NODO DEI LIKES (LIKE byte):	<utente:int, successivo:int>
+	
+	FORMATO DI UN BLOCCO LIBERO (capacità ≥ GRANULO byte):	<successivo:long, ...>	(-1 se ultimo della classe)
+	
+	RI =  this.record ≠ null && this.testi ≠ null && this.likes ≠ null && this.liberi ≠ null && this.testi_liberi ≠ null
+		  &&  0 ≤ this.n_liberi ≤ this.n_record && ogni slot in this.liberi[0..n_liberi) ha stato = LIBERO
+		  &&  ogni slot < this.n_record non in this.liberi ha stato = OCCUPATO
+		  &&  le liste dei likes di record distinti non condividono nodi e non contengono codici ripetuti
+		  &&  il blocco del testo di un record ha capacità capacita(lunghezza) e non attraversa il confine tra
+			  due segmenti dell'area dei testi
+		  &&  ogni lista this.testi_liberi[c] contiene blocchi di capacità c * GRANULO disgiunti tra loro e dai
+			  blocchi dei record occupati
+		  &&  this.sprecati = byte dei blocchi liberi + byte saltati alla fine dei segmenti dell'area dei testi
+**/
+	
+	// byte massimi della codifica UTF-8 di un testo di al più Post.MAX_LENGTH caratteri (≤ 3 byte per char UTF-16)
+	protected static final int MAX_TEXT_BYTES = 3 * Post.MAX_LENGTH;
+	
+	// dimensione e campi di un record
+	private static final int RECORD = 48;
+	private static final int ID = 0;
+	private static final int DATA_PUB = 8;
+	private static final int DATA_MOD = 16;
+	private static final int TESTO = 24;
+	private static final int AUTORE = 32;
+	private static final int N_LIKES = 36;
+	private static final int LIKES = 40;
+	private static final int LUNGHEZZA = 44;
+	private static final int STATO = 46;
+	private static final short LIBERO = 0;
+	private static final short OCCUPATO = 1;
+	
+	// dimensione e campi di un nodo dei likes
+	private static final int LIKE = 8;
+	private static final int UTENTE = 0;
+	private static final int SUCCESSIVO = 4;
+	
+	// granularità delle capacità dei blocchi dei testi (classi di dimensione)
+	private static final int GRANULO = 16;
+	
+	// dimensioni dei segmenti (record e nodi per segmento sono potenze di 2)
+	private static final int BIT_RECORD = 14;
+	private static final int BIT_LIKES = 16;
+	private static final int SEGMENTO_TESTI = 1 << 20;
+	
+	// segmenti dei record, dei testi e dei nodi dei likes
+	private final ArrayList<ByteBuffer> record;
+	private final ArrayList<ByteBuffer> testi;
+	private final ArrayList<ByteBuffer> likes;
+	// slot assegnati almeno una volta
+	private int n_record;
+	// pila degli slot liberi
+	private int[] liberi;
+	private int n_liberi;
+	// prima posizione libera dell'area dei testi
+	private long fine_testi;
+	// primo blocco libero di ogni classe di dimensione (-1 se la lista è vuota)
+	private final long[] testi_liberi;
+	// nodi dei likes assegnati almeno una volta e primo nodo della lista dei nodi liberi (-1 se vuota)
+	private int n_nodi;
+	private int nodo_libero;
+	// byte dell'area dei testi non occupati da testi (blocchi liberi e fine dei segmenti)
+	private long sprecati;
+	
+	
+	// COSTRUTTORE: istanzia un'area vuota
+	public PostArena() {
+		this.record = new ArrayList<ByteBuffer>();
+		this.testi = new ArrayList<ByteBuffer>();
+		this.likes = new ArrayList<ByteBuffer>();
+		this.n_record = 0;
+		this.liberi = new int[16];
+		this.n_liberi = 0;
+		this.fine_testi = 0;
+		this.testi_liberi = new long[PostArena.capacita(MAX_TEXT_BYTES) / GRANULO + 1];
+		Arrays.fill(this.testi_liberi, -1);
+		this.n_nodi = 0;
+		this.nodo_libero = -1;
+		this.sprecati = 0;
+	}
+	// EFFECTS:		inizializza l'area senza segmenti (allocati al primo inserimento)
+	
+	
+	/** [VISTE] ****************************************************************************************************/
+	
+	// vista (flyweight) del record di un post, riposizionabile con at(slot)
+	public class Vista {
+		
+		// segmento e posizione del record
+		private ByteBuffer seg;
+		private int pos;
+		
+		private Vista() {}
+		
+		// posiziona la vista sul record dello slot specificato
+		public Vista at(int slot) {
+			this.seg = PostArena.this.segment(slot);
+			this.pos = PostArena.offset(slot);
+			return this;
+		}
+		// REQUIRES:	slot occupato
+		// MODIFIES:	this
+		// EFFECTS:		posiziona this sul record di slot e restituisce this
+		
+		public long getId() {
+			return this.seg.getLong(this.pos + ID);
+		}
+		
+		public int getAutore() {
+			return this.seg.getInt(this.pos + AUTORE);
+		}
+		
+		public long getDataPub() {
+			return this.seg.getLong(this.pos + DATA_PUB);
+		}
+		
+		public long getDataMod() {
+			return this.seg.getLong(this.pos + DATA_MOD);
+		}
+		
+		public int getLikeCount() {
+			return this.seg.getInt(this.pos + N_LIKES);
+		}
+		// EFFECTS:		restituisce il campo omonimo del record su cui è posizionata la vista
+		
+		// decodifica il testo del post
+		public String getText() {
+			int lunghezza = this.seg.getShort(this.pos + LUNGHEZZA) & 0xFFFF;
+			long testo = this.seg.getLong(this.pos + TESTO);
+			byte[] b = new byte[lunghezza];
+			PostArena.this.text(testo).get((int)(testo % SEGMENTO_TESTI), b);
+			return new String(b, StandardCharsets.UTF_8);
+		}
+		// EFFECTS:		restituisce il testo del post (nuova stringa decodificata dall'area dei testi)
+		
+		// visita i codici degli utenti che hanno messo like al post
+		public void forEachLike(IntConsumer visitor) {
+			for(int n = this.seg.getInt(this.pos + LIKES); n >= 0; n = PostArena.this.next(n))
+				visitor.accept(PostArena.this.user(n));
+		}
+		// REQUIRES:	visitor ≠ null
+		// EFFECTS:		esegue visitor.accept(u) per ogni codice u nella lista dei likes del post
+		
+		// restituisce true se l'utente con il codice specificato ha messo like al post
+		public boolean hasLike(int utente) {
+			for(int n = this.seg.getInt(this.pos + LIKES); n >= 0; n = PostArena.this.next(n))
+				if(PostArena.this.user(n) == utente) return true;
+			return false;
+		}
+		// EFFECTS:		restituisce true SSE utente è nella lista dei likes del post
+	}
+	
+	
+	// restituisce una nuova vista non posizionata
+	public Vista view() {
+		return new Vista();
+	}
+	// EFFECTS:		restituisce una vista da posizionare con at(slot) (una vista non va condivisa tra thread)
+	
+	
+	/** [MODIFICATORI] *********************************************************************************************/
+	
+	// memorizza un nuovo post senza likes e ne restituisce lo slot
+	public int allocate(long id, int autore, String text, long data_pub, long data_mod) throws NullPointerException, IllegalArgumentException {
+		byte[] b = text.getBytes(StandardCharsets.UTF_8);
+		if(b.length > MAX_TEXT_BYTES) throw new IllegalArgumentException();
+		
+		int slot;
+		if(this.n_liberi > 0) slot = this.liberi[--this.n_liberi];
+		else {
+			slot = this.n_record++;
+			if((slot >>> BIT_RECORD) == this.record.size())
+				this.record.add(ByteBuffer.allocateDirect(RECORD << BIT_RECORD));
+		}
+		ByteBuffer seg = this.segment(slot);
+		int pos = PostArena.offset(slot);
+		seg.putLong(pos + ID, id);
+		seg.putLong(pos + DATA_PUB, data_pub);
+		seg.putLong(pos + DATA_MOD, data_mod);
+		seg.putInt(pos + AUTORE, autore);
+		seg.putInt(pos + N_LIKES, 0);
+		seg.putInt(pos + LIKES, -1);
+		seg.putShort(pos + STATO, OCCUPATO);
+		this.writeText(seg, pos, b);
+		return slot;
+	}
+	// REQUIRES:	text ≠ null, codifica UTF-8 di text lunga al più MAX_TEXT_BYTES
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	//				se la codifica UTF-8 di text supera MAX_TEXT_BYTES lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		occupa uno slot libero (o nuovo) con i valori specificati e lo restituisce
+	
+	
+	// libera lo slot di un post restituendo i suoi nodi dei likes
+	public void free(int slot) {
+		ByteBuffer seg = this.segment(slot);
+		int pos = PostArena.offset(slot);
+		for(int n = seg.getInt(pos + LIKES); n >= 0; ) {
+			int successivo = this.next(n);
+			this.releaseNode(n);
+			n = successivo;
+		}
+		this.releaseText(seg, pos);
+		seg.putShort(pos + STATO, LIBERO);
+		if(this.n_liberi == this.liberi.length) this.liberi = Arrays.copyOf(this.liberi, 2 * this.liberi.length);
+		this.liberi[this.n_liberi++] = slot;
+	}
+	// REQUIRES:	slot occupato
+	// MODIFIES:	this
+	// EFFECTS:		rende slot libero (riutilizzabile da allocate), libera i nodi della sua lista dei likes e il blocco del testo
+	
+	
+	// sostituisce il testo di un post aggiornandone la data di modifica
+	public void setText(int slot, String text, long data_mod) throws NullPointerException, IllegalArgumentException {
+		byte[] b = text.getBytes(StandardCharsets.UTF_8);
+		if(b.length > MAX_TEXT_BYTES) throw new IllegalArgumentException();
+		ByteBuffer seg = this.segment(slot);
+		int pos = PostArena.offset(slot);
+		long testo = seg.getLong(pos + TESTO);
+		if(PostArena.capacita(seg.getShort(pos + LUNGHEZZA) & 0xFFFF) == PostArena.capacita(b.length)) {
+			// stessa classe: riscrittura sul posto
+			this.text(testo).put((int)(testo % SEGMENTO_TESTI), b);
+			seg.putShort(pos + LUNGHEZZA, (short)b.length);
+		}
+		else {
+			this.releaseText(seg, pos);
+			this.writeText(seg, pos, b);
+		}
+		seg.putLong(pos + DATA_MOD, Math.max(seg.getLong(pos + DATA_MOD), data_mod));
+	}
+	// REQUIRES:	slot occupato, text ≠ null
+	// THROWS:		come allocate
+	// MODIFIES:	this
+	// EFFECTS:		associa text al record (nel blocco attuale se ha la stessa capacità, altrimenti in un blocco libero
+	//				o accodato all'area dei testi, liberando il precedente), data_mod = max(pre(data_mod), data_mod)
+	
+	
+	// aggiunge un like al post
+	public boolean addLike(int slot, int utente) {
+		if(this.view().at(slot).hasLike(utente)) return false;
+		ByteBuffer seg = this.segment(slot);
+		int pos = PostArena.offset(slot);
+		
+		int n;
+		if(this.nodo_libero >= 0) {
+			n = this.nodo_libero;
+			this.nodo_libero = this.next(n);
+		}
+		else {
+			n = this.n_nodi++;
+			if((n >>> BIT_LIKES) == this.likes.size())
+				this.likes.add(ByteBuffer.allocateDirect(LIKE << BIT_LIKES));
+		}
+		this.setNode(n, utente, seg.getInt(pos + LIKES));
+		seg.putInt(pos + LIKES, n);
+		seg.putInt(pos + N_LIKES, seg.getInt(pos + N_LIKES) + 1);
+		return true;
+	}
+	// REQUIRES:	slot occupato
+	// MODIFIES:	this
+	// EFFECTS:		se utente non è nella lista dei likes del post lo aggiunge in testa e restituisce true,
+	//				altrimenti restituisce false
+	
+	
+	// rimuove un like dal post
+	public boolean removeLike(int slot, int utente) {
+		ByteBuffer seg = this.segment(slot);
+		int pos = PostArena.offset(slot);
+		
+		int precedente = -1;
+		for(int n = seg.getInt(pos + LIKES); n >= 0; precedente = n, n = this.next(n)) {
+			if(this.user(n) == utente) {
+				if(precedente < 0) seg.putInt(pos + LIKES, this.next(n));
+				else this.setNode(precedente, this.user(precedente), this.next(n));
+				seg.putInt(pos + N_LIKES, seg.getInt(pos + N_LIKES) - 1);
+				this.releaseNode(n);
+				return true;
+			}
+		}
+		return false;
+	}
+	// REQUIRES:	slot occupato
+	// MODIFIES:	this
+	// EFFECTS:		se utente è nella lista dei likes del post lo rimuove e restituisce true, altrimenti restituisce false
+	
+	
+	/** [OSSERVATORI] **********************************************************************************************/
+	
+	// visita gli slot occupati
+	public void forEachSlot(IntConsumer visitor) {
+		for(int slot = 0; slot < this.n_record; slot++) {
+			if(this.segment(slot).getShort(PostArena.offset(slot) + STATO) == OCCUPATO)
+				visitor.accept(slot);
+		}
+	}
+	// REQUIRES:	visitor ≠ null, visitor non modifica this
+	// EFFECTS:		esegue visitor.accept(slot) per ogni slot occupato in ordine crescente di slot
+	
+	
+	// restituisce il numero di post memorizzati
+	public int size() {
+		return this.n_record - this.n_liberi;
+	}
+	// EFFECTS:		restituisce il numero di slot occupati
+	
+	// restituisce i byte fuori dallo heap allocati dall'area
+	public long offHeapBytes() {
+		return (long)this.record.size() * (RECORD << BIT_RECORD) + (long)this.testi.size() * SEGMENTO_TESTI
+			+ (long)this.likes.size() * (LIKE << BIT_LIKES);
+	}
+	// EFFECTS:		restituisce la capacità totale dei segmenti allocati
+	
+	// restituisce i byte dell'area dei testi non occupati da testi
+	public long wastedBytes() {
+		return this.sprecati;
+	}
+	// EFFECTS:		restituisce this.sprecati
+	
+	
+	/** [SEGMENTI] *************************************************************************************************/
+	
+	// segmento e posizione del record di uno slot
+	private ByteBuffer segment(int slot) {
+		return this.record.get(slot >>> BIT_RECORD);
+	}
+	
+	private static int offset(int slot) {
+		return (slot & ((1 << BIT_RECORD) - 1)) * RECORD;
+	}
+	
+	// capacità del blocco di un testo di lunghezza specificata
+	private static int capacita(int lunghezza) {
+		return (lunghezza + GRANULO - 1) / GRANULO * GRANULO;
+	}
+	
+	// segmento dell'area dei testi che contiene una posizione
+	private ByteBuffer text(long testo) {
+		return this.testi.get((int)(testo / SEGMENTO_TESTI));
+	}
+	
+	// scrive il testo in un blocco libero della sua classe (o accodato) e ne scrive posizione e lunghezza nel record
+	private void writeText(ByteBuffer seg, int pos, byte[] b) {
+		int capacita = PostArena.capacita(b.length);
+		int classe = capacita / GRANULO;
+		long testo;
+		if(classe > 0 && this.testi_liberi[classe] >= 0) {
+			testo = this.testi_liberi[classe];
+			this.testi_liberi[classe] = this.text(testo).getLong((int)(testo % SEGMENTO_TESTI));
+			this.sprecati -= capacita;
+		}
+		else {
+			// un blocco non attraversa il confine tra due segmenti
+			if(this.fine_testi % SEGMENTO_TESTI + capacita > SEGMENTO_TESTI) {
+				this.sprecati += SEGMENTO_TESTI - this.fine_testi % SEGMENTO_TESTI;
+				this.fine_testi += SEGMENTO_TESTI - this.fine_testi % SEGMENTO_TESTI;
+			}
+			if(this.fine_testi / SEGMENTO_TESTI == this.testi.size())
+				this.testi.add(ByteBuffer.allocateDirect(SEGMENTO_TESTI));
+			testo = this.fine_testi;
+			this.fine_testi += capacita;
+		}
+		this.text(testo).put((int)(testo % SEGMENTO_TESTI), b);
+		seg.putLong(pos + TESTO, testo);
+		seg.putShort(pos + LUNGHEZZA, (short)b.length);
+	}
+	
+	// inserisce il blocco del testo di un record nella lista dei blocchi liberi della sua classe
+	private void releaseText(ByteBuffer seg, int pos) {
+		int capacita = PostArena.capacita(seg.getShort(pos + LUNGHEZZA) & 0xFFFF);
+		if(capacita == 0) return;		// testo vuoto: nessun blocco
+		long testo = seg.getLong(pos + TESTO);
+		this.text(testo).putLong((int)(testo % SEGMENTO_TESTI), this.testi_liberi[capacita / GRANULO]);
+		this.testi_liberi[capacita / GRANULO] = testo;
+		this.sprecati += capacita;
+	}
+	
+	// campi di un nodo dei likes
+	private int user(int n) {
+		return this.likes.get(n >>> BIT_LIKES).getInt((n & ((1 << BIT_LIKES) - 1)) * LIKE + UTENTE);
+	}
+	
+	private int next(int n) {
+		return this.likes.get(n >>> BIT_LIKES).getInt((n & ((1 << BIT_LIKES) - 1)) * LIKE + SUCCESSIVO);
+	}
+	
+	private void setNode(int n, int utente, int successivo) {
+		ByteBuffer seg = this.likes.get(n >>> BIT_LIKES);
+		int pos = (n & ((1 << BIT_LIKES) - 1)) * LIKE;
+		seg.putInt(pos + UTENTE, utente);
+		seg.putInt(pos + SUCCESSIVO, successivo);
+	}
+	
+	// inserisce un nodo nella lista dei nodi liberi
+	private void releaseNode(int n) {
+		this.setNode(n, -1, this.nodo_libero);
+		this.nodo_libero = n;
+	}
+
+}
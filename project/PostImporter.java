@@ -0,0 +1,451 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+
+
+public class PostImporter {
+
+/**
+	OVERVIEW:
+	Importatore in streaming di post in una rete sociale da file NDJSON (un oggetto JSON per riga, con i
+	campi scritti da SocialNetworkHttpServer) o CSV (RFC 4180), senza materializzare la lista dei post:
+		NDJSON	{"id":..,"autore":"..","text":"..","data_pub":..,"data_mod":..,"likes":["..",..]}
+		CSV		id,autore,text,data_pub,data_mod,likes		(likes separati da ';', intestazione facoltativa)
+	Sono obbligatori solo autore e text: senza id il post riceve un id nuovo, senza data_pub la data attuale,
+	senza data_mod data_pub. I record NDJSON con campo "kind" diverso da "post" (utenti e segnalazioni
+	esportati da NetworkExporter) sono ignorati. Un thread lettore analizza i record e li passa a lotti al chiamante tramite una
+	coda limitata (se la rete sociale è più lenta della lettura il lettore si ferma: memoria costante pari
+	a QUEUE_CAPACITY lotti); il chiamante convalida ogni record con le regole di SocialNetwork.checkValidUsername
+	e di Post, crea gli utenti mancanti e inserisce il post con insertPost. I record non validi sono scartati
+	e copiati, così come sono stati letti, nel file degli scarti. Un record CSV con un campo tra virgolette
+	non chiuso prosegue al più per MAX_RECORD_LINES righe e MAX_RECORD_LENGTH caratteri: oltre è scartato e la
+	lettura riprende dalla riga successiva, invece di unire al record il resto del file.
+	
+	ELEMENTO TIPICO:	<rete, formato, dimensione del lotto>
+	
+	AF =	<this.rete, this.formato, this.lotto>
+	
+	RI =  this.rete ≠ null && this.formato ≠ null && this.lotto > 0
+**/
+	
+	// formato dei record in ingresso
+	public enum Format { NDJSON, CSV }
+	
+	// record per lotto predefiniti
+	public static final int DEFAULT_BATCH_SIZE = 1024;
+	// lotti analizzati in attesa di essere applicati
+	public static final int QUEUE_CAPACITY = 4;
+	// righe e caratteri massimi di un record CSV su più righe (oltre il record è scartato come non valido)
+	public static final int MAX_RECORD_LINES = 64;
+	public static final int MAX_RECORD_LENGTH = 64 * 1024;
+	
+	// lotto che segnala la fine dell'ingresso
+	private static final List<Record> FINE = new ArrayList<Record>();
+	
+	private final SocialNetwork rete;
+	private final Format formato;
+	private final int lotto;
+	
+	
+	// COSTRUTTORE: importatore con lotti di dimensione predefinita
+	public PostImporter(SocialNetwork rete, Format formato) throws NullPointerException {
+		this(rete, formato, PostImporter.DEFAULT_BATCH_SIZE);
+	}
+	// THROWS:		se rete = null || formato = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza this con lotti di DEFAULT_BATCH_SIZE record
+	
+	
+	// COSTRUTTORE
+	public PostImporter(SocialNetwork rete, Format formato, int lotto) throws NullPointerException, IllegalArgumentException {
+		if(rete == null || formato == null) throw new NullPointerException();
+		if(lotto <= 0) throw new IllegalArgumentException();
+		this.rete = rete;
+		this.formato = formato;
+		this.lotto = lotto;
+	}
+	// THROWS:		se rete = null || formato = null lancia NullPointerException (unchecked)
+	//				se lotto ≤ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	// importa i post del file
+	public ImportStats importFile(Path input, Path rejects, Consumer<ImportStats> progress)
+	throws NullPointerException, IOException, InterruptedException {
+		try(BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+			BufferedWriter scarti = (rejects == null) ? null : Files.newBufferedWriter(rejects, StandardCharsets.UTF_8)) {
+			return this.importFrom(in, scarti, progress);
+		}
+	}
+	// THROWS:		se input = null lancia NullPointerException (unchecked)
+	//				se la lettura di input o la scrittura di rejects fallisce lancia IOException (checked)
+	//				se il thread è interrotto lancia InterruptedException (checked)
+	// MODIFIES:	this.rete, il file rejects
+	// EFFECTS:		come importFrom sul contenuto di input (UTF-8), con gli scarti scritti nel file rejects
+	//				(sostituito se esiste, nessun file se rejects = null)
+	
+	
+	// importa i post letti dallo stream
+	public ImportStats importFrom(BufferedReader in, Writer rejects, Consumer<ImportStats> progress)
+	throws NullPointerException, IOException, InterruptedException {
+		if(in == null) throw new NullPointerException();
+		long inizio = System.nanoTime();
+		BlockingQueue<List<Record>> coda = new ArrayBlockingQueue<List<Record>>(PostImporter.QUEUE_CAPACITY);
+		AtomicReference<Throwable> errore = new AtomicReference<Throwable>();
+		Thread lettore = new Thread(() -> this.read(in, coda, errore), "PostImporter");
+		lettore.setDaemon(true);
+		lettore.start();
+		
+		long importati = 0, scartati = 0;
+		HashSet<String> utenti = new HashSet<String>();
+		try {
+			for(List<Record> lotto = coda.take(); lotto != FINE; lotto = coda.take()) {
+				for(Record r : lotto) {
+					if(this.apply(r, utenti)) importati++;
+					else {
+						scartati++;
+						if(rejects != null) {
+							rejects.write(r.riga);
+							rejects.write('\n');
+						}
+					}
+				}
+				if(progress != null) progress.accept(new ImportStats(importati, scartati, System.nanoTime() - inizio));
+			}
+		}
+		finally {
+			lettore.interrupt();		// il lettore non resta bloccato sulla coda se l'importazione si interrompe
+		}
+		// errore del lettore: i tipi possibili sono IOException ed eccezioni non controllate
+		Throwable e = errore.get();
+		if(e instanceof IOException) throw (IOException)e;
+		if(e instanceof RuntimeException) throw (RuntimeException)e;
+		if(e instanceof Error) throw (Error)e;
+		if(rejects != null) rejects.flush();
+		return new ImportStats(importati, scartati, System.nanoTime() - inizio);
+	}
+	// REQUIRES:	in non letto da altri durante l'importazione, this.rete non modificata da altri thread
+	//				se non è thread-safe
+	// THROWS:		se in = null lancia NullPointerException (unchecked)
+	//				se la lettura di in o la scrittura di rejects fallisce lancia IOException (checked)
+	//				(i record applicati prima dell'errore restano nella rete sociale)
+	//				se il thread lettore termina con un'eccezione non controllata o un Error la rilancia
+	//				dopo aver applicato i record letti prima di essa
+	//				se il thread è interrotto lancia InterruptedException (checked)
+	// MODIFIES:	this.rete, rejects
+	// EFFECTS:		per ogni record di in nel formato this.formato: se è valido aggiunge a this.rete gli utenti
+	//				mancanti (autore e chi ha messo like) e il post, altrimenti lo scrive su rejects (se ≠ null);
+	//				dopo ogni lotto passa a progress (se ≠ null) l'avanzamento, restituisce l'avanzamento finale
+	
+	
+	// thread lettore: analizza i record e li accoda a lotti, poi accoda FINE (anche in caso di errore)
+	private void read(BufferedReader in, BlockingQueue<List<Record>> coda, AtomicReference<Throwable> errore) {
+		boolean interrotto = false;
+		try {
+			ArrayList<Record> lotto = new ArrayList<Record>(this.lotto);
+			boolean primo = true;
+			for(String riga = in.readLine(); riga != null; riga = in.readLine()) {
+				// un campo CSV tra virgolette può contenere a capo: il record prosegue nelle righe successive,
+				// al più fino a MAX_RECORD_LINES righe e MAX_RECORD_LENGTH caratteri
+				boolean troppo_lungo = false;
+				if(this.formato == Format.CSV && PostImporter.open(riga)) {
+					StringBuilder record = new StringBuilder(riga);
+					int righe = 1;
+					boolean aperto = true;
+					while(aperto) {
+						if(righe == PostImporter.MAX_RECORD_LINES || record.length() > PostImporter.MAX_RECORD_LENGTH) {
+							troppo_lungo = true;
+							break;
+						}
+						String seguito = in.readLine();
+						if(seguito == null) break;
+						record.append('\n').append(seguito);
+						righe++;
+						aperto ^= PostImporter.open(seguito);		// stato delle virgolette aggiornato solo con la nuova riga
+					}
+					riga = record.toString();
+				}
+				if(riga.trim().isEmpty()) continue;
+				Record r;
+				if(troppo_lungo) {
+					r = new Record(riga);
+					r.errore = true;
+				}
+				else r = (this.formato == Format.NDJSON) ? PostImporter.parseJson(riga) : PostImporter.parseCsv(riga);
+				if(r.ignorato || (primo && this.formato == Format.CSV && r.intestazione)) continue;
+				primo = false;
+				lotto.add(r);
+				if(lotto.size() == this.lotto) {
+					coda.put(lotto);
+					lotto = new ArrayList<Record>(this.lotto);
+				}
+			}
+			if(!lotto.isEmpty()) coda.put(lotto);
+		}
+		catch(InterruptedException e) {interrotto = true;}		// importazione interrotta dal chiamante: nessuno attende FINE
+		catch(Throwable e) {errore.set(e);}						// rilanciato dal chiamante dopo FINE
+		finally {
+			if(!interrotto) {
+				try {coda.put(FINE);}
+				catch(InterruptedException e) {}			// importazione interrotta dal chiamante
+			}
+		}
+	}
+	
+	
+	// convalida il record e ne inserisce il post (e gli utenti mancanti) nella rete sociale
+	private boolean apply(Record r, Set<String> utenti) {
+		if(r.errore || r.autore == null || r.text == null) return false;
+		if(!SocialNetwork.checkValidUsername(r.autore)) return false;
+		for(String like : r.likes)
+			if(!SocialNetwork.checkValidUsername(like)) return false;
+		
+		Post p;
+		try {
+			long data_pub = (r.data_pub >= 0) ? r.data_pub : new Date().getTime();
+			p = new Post((r.id >= 0) ? r.id : Post.nextId(), r.autore, r.text, data_pub, (r.data_mod >= 0) ? r.data_mod : data_pub);
+			for(String like : r.likes) p.addLike(like);
+		}
+		catch(IllegalArgumentException | IllegalTextException | AuthorLikeException | DuplicateLikeException e) {return false;}
+		
+		try {
+			this.user(r.autore, utenti);
+			for(String like : r.likes) this.user(like, utenti);
+			this.rete.insertPost(p);
+		}
+		catch(IllegalUsernameException | AbsentUsernameException | DuplicatePostException e) {return false;}
+		return true;
+	}
+	// EFFECTS:		restituisce true se il post del record è stato inserito, false se il record non è valido
+	//				(gli utenti creati prima di scoprire un id già presente restano nella rete sociale)
+	
+	// crea l'utente se non è già stato incontrato
+	private void user(String username, Set<String> utenti) throws IllegalUsernameException {
+		if(!utenti.add(username)) return;
+		try {this.rete.createUser(username);}
+		catch(DuplicateUsernameException e) {}		// utente già presente nella rete sociale
+	}
+	
+	
+	/** [ANALISI DEI RECORD] ****************************************************************************************/
+	
+	// record letto: campi del post (-1 e null se assenti) e riga originale
+	private static final class Record {
+		private final String riga;
+		private long id = -1;
+		private String autore = null;
+		private String text = null;
+		private long data_pub = -1;
+		private long data_mod = -1;
+		private List<String> likes = new ArrayList<String>();
+		private boolean errore = false;
+		private boolean intestazione = false;
+		private boolean ignorato = false;
+		
+		private Record(String riga) {
+			this.riga = riga;
+		}
+	}
+	
+	// analizza un oggetto JSON su una riga (campi sconosciuti ignorati)
+	private static Record parseJson(String riga) {
+		Record r = new Record(riga);
+		Json j = new Json(riga);
+		try {
+			j.expect('{');
+			if(!j.next('}')) {
+				do {
+					String campo = j.string();
+					j.expect(':');
+					switch(campo) {
+						case "kind":		r.ignorato = !j.string().equals("post"); break;
+						case "id":			r.id = j.number(); break;
+						case "autore":		r.autore = j.string(); break;
+						case "text":		r.text = j.string(); break;
+						case "data_pub":	r.data_pub = j.number(); break;
+						case "data_mod":	r.data_mod = j.number(); break;
+						case "likes":		r.likes = j.strings(); break;
+						default:			j.skip();
+					}
+				} while(j.next(','));
+				j.expect('}');
+			}
+			j.end();
+			if(r.id < -1 || r.data_pub < -1 || r.data_mod < -1) r.errore = true;
+		}
+		catch(IllegalArgumentException e) {r.errore = true;}		// JSON non valido
+		return r;
+	}
+	
+	// analizza una riga CSV (RFC 4180)
+	private static Record parseCsv(String riga) {
+		Record r = new Record(riga);
+		ArrayList<String> campi = new ArrayList<String>();
+		StringBuilder campo = new StringBuilder();
+		boolean virgolette = false;
+		for(int i = 0; i < riga.length(); i++) {
+			char c = riga.charAt(i);
+			if(virgolette) {
+				if(c != '"') campo.append(c);
+				else if(i + 1 < riga.length() && riga.charAt(i + 1) == '"') campo.append(riga.charAt(++i));
+				else virgolette = false;
+			}
+			else if(c == '"') virgolette = true;
+			else if(c == ',') {
+				campi.add(campo.toString());
+				campo.setLength(0);
+			}
+			else campo.append(c);
+		}
+		campi.add(campo.toString());
+		
+		if(campi.size() != 6) {
+			r.errore = true;
+			return r;
+		}
+		r.intestazione = campi.get(0).equals("id") && campi.get(1).equals("autore");
+		try {
+			r.id = campi.get(0).isEmpty() ? -1 : Long.parseLong(campi.get(0));
+			r.autore = campi.get(1);
+			r.text = campi.get(2);
+			r.data_pub = campi.get(3).isEmpty() ? -1 : Long.parseLong(campi.get(3));
+			r.data_mod = campi.get(4).isEmpty() ? -1 : Long.parseLong(campi.get(4));
+			if(r.id < -1 || r.data_pub < -1 || r.data_mod < -1) r.errore = true;
+		}
+		catch(NumberFormatException e) {r.errore = true;}		// campo numerico non valido
+		for(String like : campi.get(5).split(";"))
+			if(!like.isEmpty()) r.likes.add(like);
+		return r;
+	}
+	
+	// true se la riga CSV termina dentro un campo tra virgolette
+	private static boolean open(String riga) {
+		boolean aperto = false;
+		for(int i = 0; i < riga.length(); i++)
+			if(riga.charAt(i) == '"') aperto = !aperto;
+		return aperto;
+	}
+	
+	
+	// cursore su un testo JSON (sintassi non valida: IllegalArgumentException)
+	private static final class Json {
+		private final String s;
+		private int i;
+		
+		private Json(String s) {
+			this.s = s;
+			this.i = 0;
+		}
+		
+		private void spaces() {
+			while(this.i < this.s.length() && Character.isWhitespace(this.s.charAt(this.i))) this.i++;
+		}
+		
+		// consuma il carattere se è il prossimo (dopo gli spazi)
+		private boolean next(char c) {
+			this.spaces();
+			if(this.i < this.s.length() && this.s.charAt(this.i) == c) {
+				this.i++;
+				return true;
+			}
+			return false;
+		}
+		
+		private void expect(char c) {
+			if(!this.next(c)) throw new IllegalArgumentException();
+		}
+		
+		private void end() {
+			this.spaces();
+			if(this.i != this.s.length()) throw new IllegalArgumentException();
+		}
+		
+		private String string() {
+			this.expect('"');
+			StringBuilder b = new StringBuilder();
+			while(true) {
+				if(this.i >= this.s.length()) throw new IllegalArgumentException();
+				char c = this.s.charAt(this.i++);
+				if(c == '"') return b.toString();
+				if(c != '\\') {
+					b.append(c);
+					continue;
+				}
+				if(this.i >= this.s.length()) throw new IllegalArgumentException();
+				char e = this.s.charAt(this.i++);
+				switch(e) {
+					case '"': case '\\': case '/':	b.append(e); break;
+					case 'b':	b.append('\b'); break;
+					case 'f':	b.append('\f'); break;
+					case 'n':	b.append('\n'); break;
+					case 'r':	b.append('\r'); break;
+					case 't':	b.append('\t'); break;
+					case 'u':
+						if(this.i + 4 > this.s.length()) throw new IllegalArgumentException();
+						b.append((char)Integer.parseInt(this.s.substring(this.i, this.i + 4), 16));		// NumberFormatException è una IllegalArgumentException
+						this.i += 4;
+						break;
+					default:	throw new IllegalArgumentException();
+				}
+			}
+		}
+		
+		// intero (i numeri con parte decimale o esponente non sono ammessi)
+		private long number() {
+			this.spaces();
+			int inizio = this.i;
+			if(this.i < this.s.length() && this.s.charAt(this.i) == '-') this.i++;
+			while(this.i < this.s.length() && Character.isDigit(this.s.charAt(this.i))) this.i++;
+			return Long.parseLong(this.s.substring(inizio, this.i));
+		}
+		
+		private List<String> strings() {
+			ArrayList<String> lista = new ArrayList<String>();
+			this.expect('[');
+			if(this.next(']')) return lista;
+			do lista.add(this.string());
+			while(this.next(','));
+			this.expect(']');
+			return lista;
+		}
+		
+		// salta un valore qualsiasi
+		private void skip() {
+			this.spaces();
+			if(this.i >= this.s.length()) throw new IllegalArgumentException();
+			char c = this.s.charAt(this.i);
+			if(c == '"') this.string();
+			else if(c == '[' || c == '{') {
+				this.i++;
+				char chiusa = (c == '[') ? ']' : '}';
+				if(this.next(chiusa)) return;
+				do {
+					if(c == '{') {
+						this.string();
+						this.expect(':');
+					}
+					this.skip();
+				} while(this.next(','));
+				this.expect(chiusa);
+			}
+			else {
+				int inizio = this.i;
+				while(this.i < this.s.length() && "+-.0123456789eEtruefalsn".indexOf(this.s.charAt(this.i)) >= 0) this.i++;
+				if(this.i == inizio) throw new IllegalArgumentException();
+			}
+		}
+	}
+
+}
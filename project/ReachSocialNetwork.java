@@ -0,0 +1,542 @@
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Iterator;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+
+
+public class ReachSocialNetwork extends ReportSocialNetwork implements AutoCloseable {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork thread-safe che stima in tempo O(1) il numero
+	di utenti distinti che hanno messo like ai post di un autore, ed in tempo lineare nel numero di sketch uniti il
+	numero di utenti distinti che hanno messo like ad un insieme di post o ai post di un insieme di autori (reach),
+	senza unire le copie degli insiemi di like. Ogni autore che ha ricevuto like ha uno sketch HyperLogLog di
+	2^precisione byte dei propri liker; i post con almeno 2^precisione like (per cui lo sketch occupa meno dell'insieme
+	dei like e si unisce con meno operazioni) hanno uno sketch proprio, gli altri sono uniti aggiungendo i loro like. Gli sketch sono aggiornati in O(1) da addLike (e da insertPost);
+	poiché un HyperLogLog non permette rimozioni, removeLike e le eliminazioni di post o utenti marcano gli sketch
+	coinvolti come da ricostruire, ed un thread dedicato li ricostruisce dai like attuali a passi di circa
+	REBUILD_BATCH operazioni elementari (like aggiunti o registri uniti) per acquisizione del lock. Finché uno sketch non è ricostruito la stima può includere liker
+	rimossi (sovrastima); a ricostruzione completata l'errore relativo standard è quello di HyperLogLog.
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork,
+		{ <autore_1, sketch_1>, ..., <autore_n, sketch_n> }, { <post_1, sketch_1>, ..., <post_k, sketch_k> }	>
+	
+	AF =	<	AF(ReportSocialNetwork), this.schizzi_autori, this.schizzi_post	>
+	
+	RI =  RI(ReportSocialNetwork) && this.schizzi_post ≠ null && this.schizzi_autori ≠ null
+		  &&  this.post_sporchi ⊆ this.schizzi_post.keySet() ⊆ this.index.keySet()
+		  &&  (∀ s ∈ this.schizzi_post.values() U this.schizzi_autori.values() . s.getPrecision() = this.precisione)
+		  &&  (∀ id ∈ this.schizzi_post.keySet() \ this.post_sporchi .
+				this.schizzi_post.get(id) è lo sketch di this.index.get(id).getLikes())
+		  &&  (∀ a ∈ this.post.keySet() \ this.autori_sporchi \ { this.corrente.autore } .
+				this.schizzi_autori.get(a) è lo sketch di U { p.getLikes() | p ∈ this.post.get(a) }
+				oppure a ∉ this.schizzi_autori.keySet() e nessun post di a ha like)
+		  &&  (∀ id ∈ this.post_sporchi . this.schizzi_post.get(id) è lo sketch di un sovrainsieme di
+				this.index.get(id).getLikes()), analogamente per gli autori in this.autori_sporchi
+**/
+	
+	// operazioni elementari (like aggiunti o registri uniti) eseguite dal thread di ricostruzione per ogni acquisizione del lock
+	public static final int REBUILD_BATCH = 4096;
+	
+	// precisione degli sketch
+	private final int precisione;
+	// numero minimo di like perché un post abbia uno sketch proprio (2^precisione, il numero di registri)
+	private final int soglia;
+	// sketch dei liker dei post con almeno this.soglia like
+	private final Map<Long, HyperLogLog> schizzi_post;
+	// sketch dei liker dei post di ogni autore
+	private final Map<String, HyperLogLog> schizzi_autori;
+	// sketch da ricostruire in ordine di marcatura
+	private final LinkedHashSet<Long> post_sporchi;
+	private final LinkedHashSet<String> autori_sporchi;
+	// ricostruzione in corso dello sketch di un autore (null se nessuna)
+	private Ricostruzione corrente;
+	// utente che sta mettendo like durante addLike (null altrimenti)
+	private String like_in_corso;
+	// thread che ricostruisce gli sketch
+	private final Thread ricostruttore;
+	// true dopo close(): gli sketch vengono ricostruiti dal thread che li marca
+	private boolean chiusa;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con sketch di precisione HyperLogLog.DEFAULT_PRECISION
+	public ReachSocialNetwork() {
+		this(HyperLogLog.DEFAULT_PRECISION);
+	}
+	// EFFECTS:		inizializza this come ReachSocialNetwork(HyperLogLog.DEFAULT_PRECISION)
+	
+	// COSTRUTTORE
+	public ReachSocialNetwork(int precisione) throws IllegalArgumentException {
+		super();
+		if(precisione < HyperLogLog.MIN_PRECISION || precisione > HyperLogLog.MAX_PRECISION) throw new IllegalArgumentException();
+		this.precisione = precisione;
+		this.soglia = 1 << precisione;
+		this.schizzi_post = new HashMap<Long, HyperLogLog>();
+		this.schizzi_autori = new HashMap<String, HyperLogLog>();
+		this.post_sporchi = new LinkedHashSet<Long>();
+		this.autori_sporchi = new LinkedHashSet<String>();
+		this.corrente = null;
+		this.like_in_corso = null;
+		this.chiusa = false;
+		
+		this.ricostruttore = new Thread(this::ricostruisci, "sketch-rebuilder");
+		this.ricostruttore.setDaemon(true);
+		this.ricostruttore.start();
+	}
+	// THROWS:		se precisione ∉ [HyperLogLog.MIN_PRECISION, HyperLogLog.MAX_PRECISION] lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza la rete sociale vuota senza sketch e avvia il thread che li ricostruisce
+	
+	
+	/** [STIME] ****************************************************************************************************/
+	
+	// restituisce l'errore relativo standard delle stime
+	public double standardError() {
+		return 1.04 / Math.sqrt(1 << this.precisione);
+	}
+	// EFFECTS:		restituisce l'errore relativo standard di un HyperLogLog di precisione this.precisione
+	//				(la stima è entro ±standardError() dal valore esatto con probabilità ≈ 68%, entro il doppio ≈ 95%)
+	
+	
+	// restituisce la stima del numero di utenti distinti che hanno messo like ai post di un autore
+	public synchronized long estimateLikers(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		this.verificaUtente(username);
+		HyperLogLog s = this.schizzi_autori.get(username);
+		return (s == null) ? 0 : s.estimate();
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se !checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se username ∉ this.post.keySet() lancia AbsentUsernameException (checked)
+	// EFFECTS:		restituisce in tempo O(1) la stima di |U { p.getLikes() | p ∈ this.post.get(username) }|
+	
+	
+	// restituisce una copia dello sketch dei liker dei post di un autore
+	public synchronized HyperLogLog likersSketch(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		this.verificaUtente(username);
+		HyperLogLog s = this.schizzi_autori.get(username);
+		return (s == null) ? new HyperLogLog(this.precisione) : new HyperLogLog(s);
+	}
+	// THROWS:		come estimateLikers(username)
+	// EFFECTS:		restituisce una copia dello sketch di U { p.getLikes() | p ∈ this.post.get(username) }
+	//				(unibile con merge agli sketch di altre reti sociali con la stessa precisione)
+	
+	
+	// restituisce la stima del numero di utenti distinti che hanno messo like ad almeno un post di un insieme di autori
+	public synchronized long estimateReach(Collection<String> usernames)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		HyperLogLog unione = new HyperLogLog(this.precisione);
+		for(String u : usernames) {
+			this.verificaUtente(u);
+			HyperLogLog s = this.schizzi_autori.get(u);
+			if(s != null) unione.merge(s);
+		}
+		return unione.estimate();
+	}
+	// THROWS:		se usernames = null lancia NullPointerException (unchecked)
+	//				altrimenti come estimateLikers(u) per ogni u ∈ usernames
+	// EFFECTS:		restituisce la stima di |U { p.getLikes() | u ∈ usernames, p ∈ this.post.get(u) }|
+	//				in tempo O(|usernames| * 2^precisione)
+	
+	
+	// restituisce la stima del numero di utenti distinti che hanno messo like ad almeno un post di un insieme di post
+	public synchronized long estimatePostReach(Collection<Long> ids) throws NullPointerException, IllegalArgumentException, AbsentPostException {
+		HyperLogLog unione = new HyperLogLog(this.precisione);
+		for(long id : ids) {
+			Post p = this.getOriginalPost(id);		// propaga eventuali eccezioni
+			this.unisci(unione, p);
+		}
+		return unione.estimate();
+	}
+	// THROWS:		se ids = null o null ∈ ids lancia NullPointerException (unchecked)
+	//				altrimenti come getOriginalPost(id) per ogni id ∈ ids
+	// EFFECTS:		restituisce la stima di |U { this.index.get(id).getLikes() | id ∈ ids }| unendo lo sketch dei post
+	//				con almeno this.soglia like ed aggiungendo i like degli altri
+	
+	
+	/** [RICOSTRUZIONE] ********************************************************************************************/
+	
+	// restituisce il numero di sketch da ricostruire
+	public synchronized int getPendingRebuilds() {
+		return this.post_sporchi.size() + this.autori_sporchi.size() + ((this.corrente != null) ? 1 : 0);
+	}
+	// EFFECTS:		restituisce |this.post_sporchi| + |this.autori_sporchi| (+1 se una ricostruzione è in corso)
+	
+	
+	// attende che tutti gli sketch siano ricostruiti
+	public synchronized boolean awaitRebuild(long timeout) throws IllegalArgumentException, InterruptedException {
+		if(timeout < 0) throw new IllegalArgumentException();
+		long scadenza = System.currentTimeMillis() + timeout;
+		while(this.getPendingRebuilds() > 0) {
+			long attesa = scadenza - System.currentTimeMillis();
+			if(attesa <= 0) break;
+			this.wait(attesa);
+		}
+		return this.getPendingRebuilds() == 0;
+	}
+	// THROWS:		se timeout < 0 lancia IllegalArgumentException (unchecked)
+	//				se il thread viene interrotto durante l'attesa lancia InterruptedException (checked)
+	// EFFECTS:		attende al più timeout millisecondi che non ci siano sketch da ricostruire
+	//				e restituisce this.getPendingRebuilds() = 0
+	
+	
+	// ricostruisce tutti gli sketch sul thread chiamante
+	public synchronized void rebuild() {
+		while(this.getPendingRebuilds() > 0)
+			this.passo(Integer.MAX_VALUE);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		ricostruisce dai like attuali tutti gli sketch marcati, post(this.getPendingRebuilds()) = 0
+	
+	
+	// ferma il thread di ricostruzione dopo aver ricostruito gli sketch marcati
+	public void close() {
+		synchronized(this) {
+			this.chiusa = true;
+			this.rebuild();
+		}
+		this.ricostruttore.interrupt();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		ricostruisce gli sketch marcati e ferma il thread di ricostruzione, gli sketch marcati
+	//				successivamente vengono ricostruiti sul thread chiamante
+	
+	
+	// corpo del thread di ricostruzione: un passo per ogni acquisizione del lock finché ci sono sketch marcati
+	private void ricostruisci() {
+		while(true) {
+			synchronized(this) {
+				while(this.getPendingRebuilds() == 0) {
+					try {
+						this.wait();
+					}
+					catch(InterruptedException e) {
+						return;		// close(): gli sketch sono già stati ricostruiti
+					}
+				}
+				this.passo(REBUILD_BATCH);
+			}
+			Thread.yield();		// tra un passo e l'altro il lock è conteso dalle altre operazioni
+		}
+	}
+	// MODIFIES:	this
+	// EFFECTS:		ricostruisce gli sketch marcati a passi di REBUILD_BATCH operazioni finché non viene interrotto
+	
+	
+	// esegue circa lavoro operazioni di ricostruzione: prima gli sketch dei post marcati, poi quello di un autore alla volta
+	private void passo(int lavoro) {
+		int fatto = 0;
+		
+		// 1. sketch dei post dai like attuali
+		Iterator<Long> it = this.post_sporchi.iterator();
+		while(it.hasNext() && fatto < lavoro) {
+			long id = it.next();
+			it.remove();
+			Post p = this.index.get(id);
+			if(p == null || p.getLikesCount() < this.soglia) this.schizzi_post.remove(id);
+			else {
+				this.schizzi_post.put(id, this.schizzo(p));
+				fatto += p.getLikesCount();
+			}
+			fatto++;
+		}
+		
+		// 2. sketch degli autori dai post attuali (post dell'autore in ordine di id a partire dal cursore: restano
+		//    modificabili tra un passo e l'altro)
+		while(fatto < lavoro && (this.corrente != null || !this.autori_sporchi.isEmpty())) {
+			if(this.corrente == null) {
+				Iterator<String> primo = this.autori_sporchi.iterator();
+				String autore = primo.next();
+				primo.remove();
+				if(!this.post.containsKey(autore)) this.schizzi_autori.remove(autore);
+				else this.corrente = new Ricostruzione(autore, new HyperLogLog(this.precisione));
+				fatto++;
+				continue;
+			}
+			Ricostruzione r = this.corrente;
+			int richiesti = lavoro - fatto;
+			List<Post> blocco = this.tempi.after(r.autore, r.cursore, richiesti);
+			int visitati = 0;
+			for(Post p : blocco) {
+				if(fatto >= lavoro) break;
+				fatto += 1 + this.unisci(r.schizzo, p);
+				r.cursore = p.getId();
+				visitati++;
+			}
+			if(blocco.size() < richiesti && visitati == blocco.size()) {
+				// i like aggiunti durante la ricostruzione sono già in r.schizzo (registra)
+				if(!this.post.containsKey(r.autore) || r.schizzo.estimate() == 0) this.schizzi_autori.remove(r.autore);
+				else this.schizzi_autori.put(r.autore, r.schizzo);
+				this.corrente = null;
+			}
+		}
+		this.notifyAll();
+	}
+	// REQUIRES:	chiamato sotto il lock di this, lavoro > 0
+	// MODIFIES:	this
+	// EFFECTS:		ricostruisce dai like attuali gli sketch dei post marcati (rimuovendo quelli dei post eliminati o con
+	//				meno di this.soglia like) e prosegue la ricostruzione degli sketch degli autori marcati finché
+	//				le operazioni eseguite (post visitati, like aggiunti, registri uniti) non raggiungono lavoro
+	//				(un singolo post è ricostruito per intero); sveglia chi attende in awaitRebuild
+	
+	
+	// restituisce lo sketch dei like di un post
+	private HyperLogLog schizzo(Post p) {
+		HyperLogLog s = new HyperLogLog(this.precisione);
+		for(String l : p.getLikes())
+			s.add(l);
+		return s;
+	}
+	// EFFECTS:		restituisce un nuovo sketch di p.getLikes()
+	
+	// unisce i like di un post ad uno sketch e restituisce il numero di operazioni eseguite
+	private int unisci(HyperLogLog s, Post p) {
+		HyperLogLog del_post = this.post_sporchi.contains(p.getId()) ? null : this.schizzi_post.get(p.getId());
+		if(del_post != null) {
+			s.merge(del_post);
+			return del_post.size();
+		}
+		for(String l : p.getLikes())
+			s.add(l);
+		return p.getLikesCount();
+	}
+	// MODIFIES:	s
+	// EFFECTS:		aggiunge p.getLikes() a s (unendo lo sketch di p se aggiornato, altrimenti aggiungendo i like)
+	//				e restituisce il numero di registri uniti o di like aggiunti
+	
+	
+	// aggiunge un like agli sketch del post e del suo autore
+	private void registra(Post p, String like) {
+		HyperLogLog del_post = this.schizzi_post.get(p.getId());
+		if(del_post != null) del_post.add(like);
+		else if(p.getLikesCount() >= this.soglia) {
+			this.schizzi_post.put(p.getId(), this.schizzo(p));
+			this.post_sporchi.remove(p.getId());
+		}
+		
+		String autore = p.getAutore();
+		HyperLogLog dell_autore = this.schizzi_autori.get(autore);
+		if(dell_autore == null) {
+			dell_autore = new HyperLogLog(this.precisione);
+			this.schizzi_autori.put(autore, dell_autore);
+		}
+		dell_autore.add(like);
+		if(this.corrente != null && this.corrente.autore.equals(autore)) this.corrente.schizzo.add(like);
+	}
+	// REQUIRES:	chiamato sotto il lock di this, like ∈ p.getLikes()
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge like allo sketch di p (creandolo dai like di p se ne ha almeno this.soglia),
+	//				a quello di p.getAutore() e a quello in ricostruzione di p.getAutore()
+	
+	// marca come da ricostruire gli sketch del post e del suo autore
+	private void sporca(Post p) {
+		if(this.schizzi_post.containsKey(p.getId())) this.post_sporchi.add(p.getId());
+		this.autori_sporchi.add(p.getAutore());
+		if(this.chiusa) this.rebuild();
+		else this.notifyAll();
+	}
+	// REQUIRES:	chiamato sotto il lock di this
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge p.getId() a this.post_sporchi (se p ha uno sketch) e p.getAutore() a this.autori_sporchi
+	//				e sveglia il thread di ricostruzione (se chiuso ricostruisce subito)
+	
+	
+	// verifica che l'utente sia presente nella rete sociale
+	private void verificaUtente(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.post.containsKey(username)) throw new AbsentUsernameException();
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se !checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se username ∉ this.post.keySet() lancia AbsentUsernameException (checked)
+	
+	
+	/** [HOOK] *****************************************************************************************************/
+	
+	protected void onPostAdded(Post p) {
+		for(String like : p.getLikes())
+			this.registra(p, like);
+	}
+	
+	protected void onPostRemoved(Post p) {
+		this.schizzi_post.remove(p.getId());
+		this.post_sporchi.remove(p.getId());
+		if(p.getLikesCount() > 0) this.sporca(p);
+	}
+	
+	protected void onLikesChanged(Post p) {
+		if(this.like_in_corso != null && p.hasLike(this.like_in_corso)) this.registra(p, this.like_in_corso);
+		else this.sporca(p);
+	}
+	
+	
+	/** [MODIFICATORI SINCRONIZZATI CON LA RICOSTRUZIONE] **********************************************************/
+	
+	public synchronized void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		this.like_in_corso = username;
+		try {
+			super.addLike(username, id);		// onLikesChanged registra il like negli sketch
+		}
+		finally {
+			this.like_in_corso = null;
+		}
+	}
+	
+	public synchronized void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		super.createUser(username);
+	}
+	
+	public synchronized Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.deleteUser(username);
+	}
+	
+	public synchronized long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		return super.createPost(autore, text);
+	}
+	
+	protected synchronized void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		super.insertPost(p);
+	}
+	
+	public synchronized Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.deletePost(id);
+	}
+	
+	protected synchronized void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		super.modificaPost(id, text, data_mod);
+	}
+	
+	public synchronized Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.deleteAllPost(username);
+	}
+	
+	public synchronized void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		super.removeLike(username, id);
+	}
+	
+	public synchronized void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		super.addReport(username, id, type);
+	}
+	
+	public synchronized StatusCode tryCreateUser(String username) {
+		return super.tryCreateUser(username);
+	}
+	
+	public synchronized StatusCode tryAddLike(String username, long id) {
+		return super.tryAddLike(username, id);
+	}
+	
+	public synchronized StatusCode tryRemoveLike(String username, long id) {
+		return super.tryRemoveLike(username, id);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this (addLike e insertPost
+	//				aggiornano gli sketch, le altre modifiche dei like li marcano tramite gli hook)
+	
+	
+	/** [OSSERVATORI SINCRONIZZATI CON LA RICOSTRUZIONE] ***********************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username);
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return super.containing(words);
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username, cursor, limit);
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return super.containing(words, cursor, limit);
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		return super.getMentionedUsers(cursor, limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.getPost(id);
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return super.postsBetween(from, to);
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.postsBetween(username, from, to);
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return super.modifiedSince(t);
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.modifiedSince(username, t);
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.whoToFollow(username, k);
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		return super.followerGraph();
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		super.visitPosts(visitor);
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		super.visitPosts(username, visitor);
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitUsers(part, parts, visitor);
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitReports(part, parts, visitor);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this
+	
+	
+	// ricostruzione dello sketch di un autore: id dell'ultimo post visitato (-1 se nessuno) e sketch parziale
+	private static final class Ricostruzione {
+		private final String autore;
+		private final HyperLogLog schizzo;
+		private long cursore;
+		
+		private Ricostruzione(String autore, HyperLogLog schizzo) {
+			this.autore = autore;
+			this.schizzo = schizzo;
+			this.cursore = -1;
+		}
+	}
+
+}
@@ -0,0 +1,405 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.Date;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.net.Socket;
+
+
+public class ReplicaSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una copia in sola lettura di una LeaderSocialNetwork.
+	La replica riceve via socket il log delle modifiche del leader e lo applica in ordine ed in modo asincrono
+	rispetto al leader, servendo nel frattempo le letture. Espone le metriche di ritardo di replicazione
+	e permette di attendere che una sequenza (token read-your-writes del leader) sia stata applicata.
+	La replica conferma al leader le sequenze applicate, così che il leader possa scartarle dal proprio log;
+	se le modifiche richieste sono già state scartate la replica riceve lo stato attuale del leader (snapshot).
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork,
+		applicata, head, ritardo	>
+	
+	
+	AF =	<	AF(ReportSocialNetwork), this.applicata, this.head, this.ritardo	>
+		  - this.applicata è la sequenza dell'ultima modifica del leader applicata alla replica
+		  - this.head è l'ultima sequenza del leader nota alla replica
+		  - this.ritardo è il tempo in ms tra la registrazione nel leader e l'applicazione nella replica
+			dell'ultima modifica applicata
+	
+	RI =  RI(ReportSocialNetwork) && (0 ≤ this.applicata ≤ this.head) && (this.ritardo ≥ 0)
+		  &&  this è il risultato dell'applicazione delle modifiche del leader con sequenza ≤ this.applicata
+**/
+	
+	// numero massimo di modifiche applicate senza confermarle al leader durante un flusso continuo
+	private static final int CONFERMA = 1024;
+	
+	// sequenza dell'ultima modifica applicata
+	private long applicata;
+	// ultima sequenza del leader nota alla replica
+	private long head;
+	// ritardo (ms) dell'ultima modifica applicata
+	private long ritardo;
+	// connessione verso il leader (null se non connessa)
+	private Socket socket;
+	// causa dell'interruzione della replicazione (null se la replicazione non si è interrotta per un errore)
+	private Exception errore;
+	
+	
+	// COSTRUTTORE: istanzia una replica vuota non connessa ad alcun leader
+	public ReplicaSocialNetwork() {
+		super();
+		this.applicata = 0;
+		this.head = 0;
+		this.ritardo = 0;
+		this.socket = null;
+		this.errore = null;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		inizializza la rete sociale vuota con this.applicata = this.head = this.ritardo = 0
+	
+	
+	/** [REPLICAZIONE] *********************************************************************************************/
+	
+	// connette la replica al leader e avvia l'applicazione asincrona del log
+	public synchronized void connect(String host, int port) throws NullPointerException, IOException, IllegalStateException {
+		if(host == null) throw new NullPointerException();
+		if(this.socket != null) throw new IllegalStateException();
+		
+		Socket socket = new Socket(host, port);
+		socket.setTcpNoDelay(true);
+		new DataOutputStream(socket.getOutputStream()).writeLong(this.applicata + 1);
+		this.socket = socket;
+		
+		Thread applier = new Thread(() -> {
+			try {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				while(true) {
+					long head = in.readLong();
+					byte[] modifica = new byte[in.readInt()];
+					in.readFully(modifica);
+					long seq = this.apply(head, modifica);
+					// conferma quando non ci sono altre modifiche già ricevute (e comunque ogni CONFERMA modifiche)
+					if(in.available() == 0 || seq % CONFERMA == 0) {
+						out.writeLong(seq);
+						out.flush();
+					}
+				}
+			}
+			catch(IOException e) {}		// connessione chiusa: termina
+			catch(Exception e) {
+				// modifica non applicabile: la replica divergerebbe dal leader, la replicazione si interrompe
+				synchronized(this) { this.errore = e; }
+			}
+			finally {
+				try {socket.close();}
+				catch(IOException e) {}
+				synchronized(this) {
+					if(this.socket == socket) this.socket = null;
+					this.notifyAll();
+				}
+			}
+		}, "replica-applier");
+		applier.setDaemon(true);
+		applier.start();
+	}
+	// REQUIRES:	host ≠ null, replica non connessa
+	// THROWS:		se host = null lancia NullPointerException (unchecked)
+	//				se la connessione fallisce lancia IOException (checked)
+	//				se la replica è già connessa lancia IllegalStateException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		richiede al leader le modifiche dalla sequenza this.applicata+1 in poi
+	//				e avvia un thread che le applica man mano che arrivano e ne conferma le sequenze al leader
+	
+	
+	// applica una modifica ricevuta dal leader
+	private synchronized long apply(long head, byte[] modifica) throws Exception {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(modifica));
+		long seq = in.readLong();
+		long timestamp = in.readLong();
+		byte op = in.readByte();
+		if(op == LeaderSocialNetwork.OP_SNAPSHOT) {
+			if(seq <= this.applicata) throw new IllegalStateException();	// snapshot già superato
+		}
+		else if(seq != this.applicata + 1) throw new IllegalStateException();	// modifiche mancanti o duplicate
+		
+		switch(op) {
+			case LeaderSocialNetwork.OP_CREATE_USER:
+				super.createUser(in.readUTF());
+				break;
+			case LeaderSocialNetwork.OP_DELETE_USER:
+				super.deleteUser(in.readUTF());
+				break;
+			case LeaderSocialNetwork.OP_CREATE_POST:
+				this.insertPost(ReplicaSocialNetwork.leggiPost(in));
+				break;
+			case LeaderSocialNetwork.OP_DELETE_POST:
+				super.deletePost(in.readLong());
+				break;
+			case LeaderSocialNetwork.OP_MODIFY_POST:
+				super.modificaPost(in.readLong(), in.readUTF(), in.readLong());
+				break;
+			case LeaderSocialNetwork.OP_DELETE_ALL_POST:
+				super.deleteAllPost(in.readUTF());
+				break;
+			case LeaderSocialNetwork.OP_ADD_LIKE:
+				super.addLike(in.readUTF(), in.readLong());
+				break;
+			case LeaderSocialNetwork.OP_REMOVE_LIKE:
+				super.removeLike(in.readUTF(), in.readLong());
+				break;
+			case LeaderSocialNetwork.OP_ADD_REPORT:
+				super.addReport(in.readUTF(), in.readLong(), ReportType.values()[in.readByte()]);
+				break;
+			case LeaderSocialNetwork.OP_SNAPSHOT:
+				// lo stato attuale del leader sostituisce quello della replica
+				for(String u : new ArrayList<String>(this.followers.keySet()))
+					super.deleteUser(u);
+				this.reports.clear();
+				for(int n = in.readInt(); n > 0; n--)
+					super.createUser(in.readUTF());
+				for(int n = in.readInt(); n > 0; n--)
+					this.insertPost(ReplicaSocialNetwork.leggiPost(in));
+				for(int n = in.readInt(); n > 0; n--)
+					super.addReport(in.readUTF(), in.readLong(), ReportType.values()[in.readByte()]);
+				break;
+			default:
+				throw new IllegalStateException();
+		}
+		
+		this.applicata = seq;
+		this.head = Math.max(this.head, head);
+		this.ritardo = Math.max(0, new Date().getTime() - timestamp);
+		this.notifyAll();
+		return seq;
+	}
+	// REQUIRES:	modifica codificata da LeaderSocialNetwork con sequenza this.applicata+1
+	//				(o snapshot con sequenza > this.applicata)
+	// THROWS:		se la modifica non è la successiva o non è applicabile lancia l'eccezione corrispondente
+	// MODIFIES:	this
+	// EFFECTS:		applica la modifica alla rete sociale (uno snapshot sostituisce l'intera rete sociale),
+	//				post(this.applicata) = seq della modifica, aggiorna this.head e this.ritardo,
+	//				sveglia i thread in attesa di una sequenza e restituisce seq
+	
+	
+	// legge un post codificato come gli argomenti di OP_CREATE_POST
+	private static Post leggiPost(DataInputStream in) throws IOException, IllegalTextException, AuthorLikeException, DuplicateLikeException {
+		long id = in.readLong();
+		String autore = in.readUTF();
+		String text = in.readUTF();
+		long data_pub = in.readLong();
+		Post p = new Post(id, autore, text, data_pub, in.readLong());
+		for(int n = in.readInt(); n > 0; n--)
+			p.addLike(in.readUTF());
+		return p;
+	}
+	// THROWS:		se la lettura fallisce o il post non è valido lancia l'eccezione corrispondente
+	// EFFECTS:		restituisce il post <id, autore, text, data_pub, data_mod, like> letto da in
+	
+	
+	// attende che la replica abbia applicato la modifica con il token (sequenza) specificato
+	public synchronized boolean await(long token, long timeout) throws InterruptedException {
+		long scadenza = new Date().getTime() + timeout;
+		while(this.applicata < token) {
+			long attesa = scadenza - new Date().getTime();
+			if(attesa <= 0 || (this.socket == null && this.applicata < token)) return false;
+			this.wait(attesa);
+		}
+		return true;
+	}
+	// THROWS:		se il thread viene interrotto lancia InterruptedException (checked)
+	// EFFECTS:		attende al più timeout ms che this.applicata ≥ token,
+	//				restituisce true se la modifica è stata applicata, false se il tempo è scaduto
+	//				o se la replica non è connessa al leader
+	
+	
+	// chiude la connessione verso il leader (le letture restano disponibili)
+	public synchronized void close() {
+		try {
+			if(this.socket != null) this.socket.close();
+		}
+		catch(IOException e) {}
+		this.socket = null;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		interrompe la replicazione, i dati già applicati restano consultabili
+	
+	
+	/** [METRICHE DI REPLICAZIONE] *********************************************************************************/
+	
+	// restituisce la sequenza dell'ultima modifica applicata
+	public synchronized long getAppliedSequence() {
+		return this.applicata;
+	}
+	// EFFECTS:		restituisce this.applicata
+	
+	// restituisce il numero di modifiche del leader note ma non ancora applicate
+	public synchronized long getLagEntries() {
+		return this.head - this.applicata;
+	}
+	// EFFECTS:		restituisce this.head - this.applicata
+	
+	// restituisce il ritardo di replicazione dell'ultima modifica applicata
+	public synchronized long getLagMillis() {
+		return this.ritardo;
+	}
+	// EFFECTS:		restituisce this.ritardo
+	
+	// restituisce l'errore che ha interrotto la replicazione
+	public synchronized Exception getError() {
+		return this.errore;
+	}
+	// EFFECTS:		restituisce this.errore (null se la replicazione non si è interrotta per un errore)
+	
+	
+	/** [MODIFICATORI NON CONSENTITI] ******************************************************************************/
+	
+	public void createUser(String username) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public Set<Post> deleteUser(String username) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public long createPost(String autore, String text) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public Post deletePost(long id) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public void modificaPost(long id, String text) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public Set<Post> deleteAllPost(String username) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public void addLike(String username, long id) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public void removeLike(String username, long id) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public void addReport(String username, long id, ReportType type) {
+		throw new UnsupportedOperationException();
+	}
+	
+	public StatusCode tryCreateUser(String username) {
+		return StatusCode.UNSUPPORTED_OPERATION;
+	}
+	
+	public StatusCode tryAddLike(String username, long id) {
+		return StatusCode.UNSUPPORTED_OPERATION;
+	}
+	
+	public StatusCode tryRemoveLike(String username, long id) {
+		return StatusCode.UNSUPPORTED_OPERATION;
+	}
+	// EFFECTS:		la replica è in sola lettura: ogni modifica lancia UnsupportedOperationException (unchecked)
+	//				e le varianti con esito restituiscono StatusCode.UNSUPPORTED_OPERATION
+	
+	
+	/** [OSSERVATORI SINCRONIZZATI CON L'APPLICAZIONE DEL LOG] *****************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		return super.followerGraph();
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.whoToFollow(username, k);
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username);
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return super.containing(words);
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username, cursor, limit);
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return super.containing(words, cursor, limit);
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		return super.getMentionedUsers(cursor, limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.getPost(id);
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return super.postsBetween(from, to);
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.postsBetween(username, from, to);
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return super.modifiedSince(t);
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.modifiedSince(username, t);
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		super.visitPosts(visitor);
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		super.visitPosts(username, visitor);
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitUsers(part, parts, visitor);
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitReports(part, parts, visitor);
+	}
+	
+	public synchronized void stampa() {
+		super.stampa();
+	}
+	
+	public synchronized void stampaSegnalazioni() {
+		super.stampaSegnalazioni();
+	}
+
+}
@@ -3,6 +3,7 @@ import java.util.Hashtable;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 
 public class ReportSocialNetwork extends SocialNetwork {
@@ -38,7 +39,7 @@ public class ReportSocialNetwork extends SocialNetwork {
 **/
 	
 	// insieme di coppie <post, {segnalazioni del post}>
-	private final Map<Post, Set<Report>> reports;
+	protected final Map<Post, Set<Report>> reports;
 	
 	
 	// COSTRUTTORE: istanzia una rete sociale vuota (senza segnalazioni)
@@ -114,21 +115,34 @@ public class ReportSocialNetwork extends SocialNetwork {
 	
 	
 	// restituisce un post della rete sociale dato l'id (post restituito senza DEEP-COPY)
-	private Post getOriginalPost(long id) throws IllegalArgumentException, AbsentPostException {
+	protected Post getOriginalPost(long id) throws IllegalArgumentException, AbsentPostException {
 		if(id < 0) throw new IllegalArgumentException();
 		
-		for(String user : this.post.keySet()) {		// per ogni user
-			for(Post p : this.post.get(user)) {		// per ogni post di user
-				if(p.getId() == id)					// se il post ha id cercato
-					return p;						// restituisci post senza DEEP-COPY
-			}
-		}
-		throw new AbsentPostException();
+		Post p = this.index.get(id);				// accesso diretto tramite l'indice
+		if(p == null) throw new AbsentPostException();
+		return p;									// restituisci post senza DEEP-COPY
 	}
 	// REQUIRES:	id >= 0, (∃ u ∈ this.post.keySet() : (∃ p ∈ this.post.get(u) : p.getId() = id) )
 	// THROWS:		se id < 0 lancia IllegalArgumentException (unchecked)
 	//				se (∀ u ∈ this.post.keySet() (∀ p ∈ this.post.get(u) ==> p.getId() ≠ id) ) lancia AbsentPostException (checked)
 	// EFFECTS:		restituisce il post p SENZA DEEP-COPY
+	
+	
+	// visita le segnalazioni dei post di una partizione degli autori (post e segnalazioni visitati senza copia)
+	protected void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		if(visitor == null) throw new NullPointerException();
+		if(parts <= 0 || part < 0 || part >= parts) throw new IllegalArgumentException();
+		for(Map.Entry<Post, Set<Report>> e : this.reports.entrySet()) {
+			if(Math.floorMod(e.getKey().getAutore().hashCode(), parts) == part)
+				visitor.accept(e.getKey(), e.getValue());
+		}
+	}
+	// REQUIRES:	visitor ≠ null, 0 ≤ part < parts, visitor non modifica this né i valori visitati
+	// THROWS:		se visitor = null lancia NullPointerException (unchecked)
+	//				se parts ≤ 0 || part < 0 || part ≥ parts lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		esegue visitor.accept(p, this.reports.get(p)) per ogni p ∈ this.reports.keySet()
+	//				con hash(p.getAutore()) mod parts = part (stesse partizioni di visitUsers)
 		
 	
 	public void stampaSegnalazioni() {
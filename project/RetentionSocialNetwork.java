@@ -0,0 +1,412 @@
+import java.util.List;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+
+
+public class RetentionSocialNetwork extends ReportSocialNetwork implements AutoCloseable {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork thread-safe in cui i post scadono dopo un
+	periodo di conservazione (TTL) dalla data di pubblicazione: il TTL predefinito della rete sociale oppure quello
+	specificato per il singolo post. Ogni post viene registrato alla pubblicazione in un TimingWheel con la propria
+	scadenza (costo O(1), nessuna visita dei post); un thread dedicato fa avanzare lo scadenzario ad ogni tick e
+	rimuove i post scaduti a lotti di al più EXPIRY_BATCH post per acquisizione del lock, aggiornando come deletePost
+	i like, gli archi utente-seguiti (con una sola visita dei post rimasti per autore e per lotto) e le segnalazioni.
+	Lo scadenzario non viene aggiornato quando un post è eliminato o il suo TTL cambia: alla scadenza registrata
+	si verifica la scadenza attuale del post, ignorando i post già eliminati e riprogrammando quelli non scaduti.
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork,
+		ttl predefinito, { <post_1, ttl_1>, ..., <post_k, ttl_k> }	>
+	
+	AF =	<	AF(ReportSocialNetwork), this.retention,
+				{ <this.index.get(id), this.ttl.get(id)> | id ∈ this.ttl.keySet() }	>
+	
+	RI =  RI(ReportSocialNetwork) && this.retention > 0 && this.ttl ≠ null && this.ruota ≠ null
+		  &&  this.ttl.keySet() ⊆ this.index.keySet() && (∀ t ∈ this.ttl.values() . t > 0)
+		  &&  (∀ p ∈ this.index.values() . this.scadenza(p) = Long.MAX_VALUE
+				|| this.ruota contiene una voce <p.getId(), s> con s ≤ this.scadenza(p)
+				   && (s = this.scadenza(p) || p.getId() ∉ this.ttl.keySet()))
+**/
+	
+	// durata predefinita di un tick dello scadenzario (millisecondi)
+	public static final long DEFAULT_TICK = 1000;
+	// numero massimo di post scaduti rimossi per ogni acquisizione del lock
+	public static final int EXPIRY_BATCH = 256;
+	
+	// TTL predefinito dei post (millisecondi, Long.MAX_VALUE = nessuna scadenza)
+	private long retention;
+	// TTL dei post con un TTL specifico
+	private final Map<Long, Long> ttl;
+	// scadenze registrate dei post
+	private final TimingWheel ruota;
+	// thread che rimuove i post scaduti
+	private final Thread scadenze;
+	// true dopo close()
+	private volatile boolean chiusa;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con TTL predefinito e tick di DEFAULT_TICK millisecondi
+	public RetentionSocialNetwork(long retention) throws IllegalArgumentException {
+		this(retention, DEFAULT_TICK);
+	}
+	// THROWS:		se retention ≤ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this come RetentionSocialNetwork(retention, DEFAULT_TICK)
+	
+	// COSTRUTTORE
+	public RetentionSocialNetwork(long retention, long tick) throws IllegalArgumentException {
+		super();
+		if(retention <= 0 || tick <= 0) throw new IllegalArgumentException();
+		this.retention = retention;
+		this.ttl = new HashMap<Long, Long>();
+		this.ruota = new TimingWheel(tick, System.currentTimeMillis());
+		this.chiusa = false;
+		
+		this.scadenze = new Thread(this::scadi, "retention-expiry");
+		this.scadenze.setDaemon(true);
+		this.scadenze.start();
+	}
+	// THROWS:		se retention ≤ 0 o tick ≤ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza la rete sociale vuota con TTL predefinito retention (Long.MAX_VALUE = nessuna scadenza)
+	//				e avvia il thread che rimuove i post scaduti ogni tick millisecondi
+	
+	
+	/** [CONSERVAZIONE] ********************************************************************************************/
+	
+	// restituisce il TTL predefinito dei post
+	public synchronized long getRetention() {
+		return this.retention;
+	}
+	// EFFECTS:		restituisce this.retention
+	
+	
+	// modifica il TTL predefinito dei post
+	public synchronized void setRetention(long retention) throws IllegalArgumentException {
+		if(retention <= 0) throw new IllegalArgumentException();
+		long precedente = this.retention;
+		this.retention = retention;
+		// le scadenze anticipate vanno registrate (quelle posticipate sono riprogrammate quando scadono)
+		if(retention < precedente) {
+			for(Post p : this.index.values())
+				if(!this.ttl.containsKey(p.getId())) this.pianifica(p);
+		}
+	}
+	// THROWS:		se retention ≤ 0 lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this.retention) = retention; se retention < pre(this.retention) registra la nuova scadenza
+	//				di ogni post senza TTL specifico (costo lineare nel numero di post)
+	
+	
+	// restituisce il TTL di un post
+	public synchronized long getTtl(long id) throws IllegalArgumentException, AbsentPostException {
+		this.getOriginalPost(id);		// propaga eventuali eccezioni
+		return this.ttl.getOrDefault(id, this.retention);
+	}
+	// THROWS:		come getOriginalPost(id)
+	// EFFECTS:		restituisce il TTL specifico del post con l'id specificato, altrimenti this.retention
+	
+	
+	// assegna un TTL specifico ad un post
+	public synchronized void setTtl(long id, long ttl) throws IllegalArgumentException, AbsentPostException {
+		if(ttl <= 0) throw new IllegalArgumentException();
+		Post p = this.getOriginalPost(id);		// propaga eventuali eccezioni
+		this.ttl.put(id, ttl);
+		this.pianifica(p);
+	}
+	// THROWS:		se ttl ≤ 0 lancia IllegalArgumentException (unchecked)
+	//				altrimenti come getOriginalPost(id)
+	// MODIFIES:	this
+	// EFFECTS:		post(this.ttl) = pre(this.ttl) U {<id, ttl>} e registra la nuova scadenza del post in O(1)
+	//				(il post scade subito se è stato pubblicato da più di ttl millisecondi)
+	
+	
+	// [MODIFICATORE] crea un nuovo post con un TTL specifico e ne restituisce l'id
+	public synchronized long createPost(String autore, String text, long ttl)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		if(ttl <= 0) throw new IllegalArgumentException();
+		long id = this.createPost(autore, text);
+		try {
+			this.setTtl(id, ttl);
+		}
+		catch(AbsentPostException e) {}		// non viene lanciata mai: post appena creato
+		return id;
+	}
+	// THROWS:		se ttl ≤ 0 lancia IllegalArgumentException (unchecked)
+	//				altrimenti come createPost(autore, text)
+	// MODIFIES:	this
+	// EFFECTS:		esegue createPost(autore, text) e setTtl(id, ttl) e restituisce l'id del nuovo post
+	
+	
+	// restituisce l'istante in cui scade un post
+	private long scadenza(Post p) {
+		long ttl = this.ttl.getOrDefault(p.getId(), this.retention);
+		return (ttl > Long.MAX_VALUE - p.getDataPub()) ? Long.MAX_VALUE : p.getDataPub() + ttl;
+	}
+	// EFFECTS:		restituisce p.getDataPub() + TTL di p (Long.MAX_VALUE se la somma supera Long.MAX_VALUE)
+	
+	// registra la scadenza di un post nello scadenzario
+	private void pianifica(Post p) {
+		long scadenza = this.scadenza(p);
+		if(scadenza != Long.MAX_VALUE) this.ruota.schedule(p.getId(), scadenza);
+	}
+	// MODIFIES:	this.ruota
+	// EFFECTS:		aggiunge a this.ruota la voce <p.getId(), this.scadenza(p)> (nessuna se il post non scade)
+	
+	
+	// rimuove i post scaduti all'istante specificato e ne restituisce il numero
+	public int expire(long now) {
+		ArrayDeque<Long> scaduti = new ArrayDeque<Long>();
+		// le scadenze hanno la granularità di un tick: scade ciò che scade entro l'inizio del tick corrente
+		long limite = now - now % this.ruota.getTick();
+		synchronized(this) {
+			this.ruota.advance(now, scaduti::add);
+		}
+		
+		int rimossi = 0;
+		while(!scaduti.isEmpty()) {
+			synchronized(this) {
+				// un post può avere più scadenze registrate (TTL modificato): il lotto non ha ripetizioni
+				HashSet<Post> lotto = new HashSet<Post>();
+				while(lotto.size() < EXPIRY_BATCH && !scaduti.isEmpty()) {
+					long id = scaduti.poll();
+					Post p = this.index.get(id);
+					if(p == null) continue;							// post già eliminato
+					long scadenza = this.scadenza(p);
+					if(scadenza <= limite) lotto.add(p);
+					else if(!this.ttl.containsKey(id))				// TTL predefinito allungato: nuova scadenza
+						this.ruota.schedule(id, scadenza);
+				}
+				this.elimina(lotto);
+				rimossi += lotto.size();
+			}
+			Thread.yield();		// tra un lotto e l'altro il lock è conteso dalle altre operazioni
+		}
+		return rimossi;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		fa avanzare this.ruota all'istante now e rimuove dalla rete sociale ogni post p con
+	//				this.scadenza(p) ≤ now - now % this.ruota.getTick(), cioè scaduto entro l'inizio del tick corrente
+	//				(a lotti di al più EXPIRY_BATCH post, rilasciando il lock tra un lotto e l'altro), e restituisce il
+	//				numero di post rimossi; i post registrati non ancora scaduti sono registrati di nuovo con la
+	//				scadenza attuale
+	
+	
+	// rimuove un lotto di post aggiornando like, archi utente-seguiti e segnalazioni
+	private void elimina(Set<Post> scaduti) {
+		// utenti che hanno messo like ai post rimossi di ogni autore
+		HashMap<String, Set<String>> likes = new HashMap<String, Set<String>>();
+		for(Post p : scaduti) {
+			String autore = p.getAutore();
+			this.post.get(autore).remove(p);
+			this.unindexPost(p.getId());
+			this.reports.remove(p);
+			this.onPostRemoved(p);
+			if(p.getLikesCount() > 0)
+				likes.computeIfAbsent(autore, a -> new HashSet<String>()).addAll(p.getLikes());
+		}
+		
+		// smette di seguire l'autore chi non ha messo like ad alcuno dei suoi post rimasti (una visita per autore)
+		for(Map.Entry<String, Set<String>> e : likes.entrySet()) {
+			String autore = e.getKey();
+			Set<String> ex = e.getValue();
+			for(Post q : this.post.get(autore)) {
+				if(ex.isEmpty()) break;
+				ex.removeIf(q::hasLike);
+			}
+			for(String l : ex) {
+				if(this.followers.get(l).remove(autore))
+					this.utenti.addScore(autore, -1);
+			}
+		}
+	}
+	// REQUIRES:	chiamato sotto il lock di this, scaduti ⊆ this.index.values()
+	// MODIFIES:	this
+	// EFFECTS:		come deletePost(p.getId()) per ogni p ∈ scaduti, rimuovendo anche le segnalazioni dei post
+	
+	
+	// corpo del thread delle scadenze: un avanzamento dello scadenzario per tick finché non viene chiusa
+	private void scadi() {
+		while(!this.chiusa) {
+			try {
+				Thread.sleep(this.ruota.getTick());
+			}
+			catch(InterruptedException e) {
+				return;		// close()
+			}
+			this.expire(System.currentTimeMillis());
+		}
+	}
+	// MODIFIES:	this
+	// EFFECTS:		esegue this.expire(istante attuale) ogni this.ruota.getTick() millisecondi fino a close()
+	
+	
+	// ferma la rimozione automatica dei post scaduti
+	public void close() {
+		this.chiusa = true;
+		this.scadenze.interrupt();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		ferma il thread delle scadenze (expire resta utilizzabile per rimuovere i post scaduti)
+	
+	
+	/** [HOOK] *****************************************************************************************************/
+	
+	protected void onPostAdded(Post p) {
+		this.pianifica(p);
+	}
+	
+	protected void onPostRemoved(Post p) {
+		this.ttl.remove(p.getId());
+	}
+	
+	
+	/** [MODIFICATORI SINCRONIZZATI CON LE SCADENZE] ***************************************************************/
+	
+	public synchronized void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		super.createUser(username);
+	}
+	
+	public synchronized Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.deleteUser(username);
+	}
+	
+	public synchronized long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		return super.createPost(autore, text);
+	}
+	
+	protected synchronized void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		super.insertPost(p);
+	}
+	
+	public synchronized Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.deletePost(id);
+	}
+	
+	protected synchronized void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		super.modificaPost(id, text, data_mod);
+	}
+	
+	public synchronized Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.deleteAllPost(username);
+	}
+	
+	public synchronized void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		super.addLike(username, id);
+	}
+	
+	public synchronized void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		super.removeLike(username, id);
+	}
+	
+	public synchronized void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		super.addReport(username, id, type);
+	}
+	
+	public synchronized StatusCode tryCreateUser(String username) {
+		return super.tryCreateUser(username);
+	}
+	
+	public synchronized StatusCode tryAddLike(String username, long id) {
+		return super.tryAddLike(username, id);
+	}
+	
+	public synchronized StatusCode tryRemoveLike(String username, long id) {
+		return super.tryRemoveLike(username, id);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this
+	//				(createPost e insertPost registrano la scadenza del nuovo post tramite onPostAdded)
+	
+	
+	/** [OSSERVATORI SINCRONIZZATI CON LE SCADENZE] ****************************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username);
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return super.containing(words);
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.writtenBy(username, cursor, limit);
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return super.containing(words, cursor, limit);
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		return super.getMentionedUsers(cursor, limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return super.getPost(id);
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return super.postsBetween(from, to);
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.postsBetween(username, from, to);
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return super.modifiedSince(t);
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return super.modifiedSince(username, t);
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return super.whoToFollow(username, k);
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		return super.followerGraph();
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		super.visitPosts(visitor);
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		super.visitPosts(username, visitor);
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitUsers(part, parts, visitor);
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		super.visitReports(part, parts, visitor);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this
+
+}
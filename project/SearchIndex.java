@@ -0,0 +1,503 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.LongFunction;
+import java.util.function.LongToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+public class SearchIndex {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta un indice invertito dei testi dei post per la ricerca testuale
+	con punteggio BM25. Per ogni termine conserva la lista di posting (id dei post che lo contengono in ordine
+	crescente e relative frequenze) in due array primitivi, per ogni post il numero di termini del testo.
+	Le interrogazioni (SearchQuery) sono valutate scorrendo le liste di posting: intersezione a salti
+	(leapfrog) guidata dalla lista più corta se ci sono termini obbligatori, WAND se ci sono solo termini
+	facoltativi. In entrambi i casi un post viene valutato per intero solo se il limite superiore del suo
+	punteggio (dai massimi per termine) può superare il k-esimo miglior punteggio trovato, e quando i soli
+	termini obbligatori non possono superarlo l'intersezione salta ai post che contengono un termine
+	facoltativo (MaxScore): i primi k risultati si ottengono senza calcolare il punteggio di tutti i post
+	che corrispondono all'interrogazione.
+	Le frasi sono verificate sul testo dei candidati. Non è sincronizzato.
+	
+	ELEMENTO TIPICO:	{ <id_0, [t_0,0, ..., t_0,m0]>, ..., <id_n-1, [t_n-1,0, ..., t_n-1,mn-1]> }
+	
+	AF =	{ <id, tokens(testo)> | add(id, testo) eseguito e non seguito da remove(id, testo) }
+	
+	RI =  this.termini ≠ null && this.lunghezze ≠ null
+		  &&  ∀ <t, p> ∈ this.termini ==> p.n > 0 && p.ids[0 .. p.n-1] strettamente crescente
+			  && p.tf[i] = occorrenze di t nel testo di p.ids[i] > 0 && p.max_tf ≥ max(p.tf[0 .. p.n-1])
+		  &&  <id, l> ∈ this.lunghezze ⇔ id indicizzato con l termini
+		  &&  this.lunghezza_totale = Σ l && this.lunghezza_minima ≤ min(l)
+**/
+	
+	// parametri BM25: saturazione della frequenza e normalizzazione per la lunghezza del testo
+	public static final double K1 = 1.2;
+	public static final double B = 0.75;
+	
+	// token del testo: sequenze di lettere, cifre e underscore (dopo la conversione in minuscolo)
+	private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}_]+");
+	// id oltre l'ultimo posting (cursore esaurito)
+	private static final long FINE = Long.MAX_VALUE;
+	// margine relativo dei limiti superiori sugli arrotondamenti
+	private static final double MARGINE = 1 + 1e-12;
+	
+	// liste di posting per termine
+	private final Map<String, Postings> termini;
+	// numero di termini del testo di ogni post indicizzato
+	private final IdTable lunghezze;
+	private long lunghezza_totale;
+	private long lunghezza_minima;
+	// numero di post valutati per intero dalle interrogazioni
+	private long valutati;
+	
+	
+	// COSTRUTTORE: istanzia un indice vuoto
+	public SearchIndex() {
+		this.termini = new HashMap<String, Postings>();
+		this.lunghezze = new IdTable();
+		this.lunghezza_totale = 0;
+		this.lunghezza_minima = Long.MAX_VALUE;
+		this.valutati = 0;
+	}
+	// EFFECTS:		inizializza this = {}
+	
+	
+	// restituisce i token del testo
+	public static List<String> tokens(String text) throws NullPointerException {
+		ArrayList<String> lista = new ArrayList<String>();
+		Matcher m = TOKEN.matcher(text.toLowerCase());
+		while(m.find())
+			lista.add(m.group());
+		return lista;
+	}
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce in ordine le sequenze massimali di lettere, cifre e '_' di text.toLowerCase()
+	
+	
+	// indicizza il testo del post
+	public void add(long id, String text) throws NullPointerException, IllegalArgumentException {
+		if(text == null) throw new NullPointerException();
+		if(id < 0 || this.lunghezze.get(id) >= 0) throw new IllegalArgumentException();
+		List<String> tokens = SearchIndex.tokens(text);
+		
+		HashMap<String, Integer> frequenze = new HashMap<String, Integer>();
+		for(String t : tokens)
+			frequenze.merge(t, 1, Integer::sum);
+		for(Map.Entry<String, Integer> e : frequenze.entrySet())
+			this.termini.computeIfAbsent(e.getKey(), t -> new Postings()).add(id, e.getValue());
+		
+		this.lunghezze.put(id, tokens.size());
+		this.lunghezza_totale += tokens.size();
+		this.lunghezza_minima = Math.min(this.lunghezza_minima, tokens.size());
+	}
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	//				se id < 0 o id già indicizzato lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this) = pre(this) U {<id, tokens(text)>}
+	//				(costo O(#tokens) per id crescenti, altrimenti lineare nelle liste dei termini del testo)
+	
+	// rimuove il testo del post dall'indice
+	public boolean remove(long id, String text) throws NullPointerException {
+		if(text == null) throw new NullPointerException();
+		long lunghezza = this.lunghezze.get(id);
+		if(lunghezza < 0) return false;
+		
+		for(String t : new LinkedHashSet<String>(SearchIndex.tokens(text))) {
+			Postings p = this.termini.get(t);
+			if(p != null && p.remove(id) && p.n == 0) this.termini.remove(t);
+		}
+		this.lunghezze.remove(id);
+		this.lunghezza_totale -= lunghezza;
+		if(this.lunghezze.size() == 0) this.lunghezza_minima = Long.MAX_VALUE;
+		return true;
+	}
+	// REQUIRES:	text = testo con cui id è stato indicizzato
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		se <id, tokens(text)> ∈ pre(this) lo rimuove e restituisce true, altrimenti restituisce false
+	
+	
+	// restituisce il numero di post indicizzati
+	public int size() {
+		return this.lunghezze.size();
+	}
+	// EFFECTS:		restituisce #this
+	
+	// restituisce il numero di post che contengono il termine
+	public int documentFrequency(String term) throws NullPointerException {
+		Postings p = this.termini.get(term.toLowerCase());
+		return (p == null) ? 0 : p.n;
+	}
+	// THROWS:		se term = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce #{ <id, ts> ∈ this | term.toLowerCase() ∈ ts }
+	
+	// restituisce il numero di post valutati per intero dalle interrogazioni
+	public long getScoredCount() {
+		return this.valutati;
+	}
+	// EFFECTS:		restituisce il numero di candidati di cui search ha calcolato il punteggio dalla creazione di this
+	
+	
+	// restituisce gli id dei k post con punteggio più alto per l'interrogazione
+	public long[] search(SearchQuery query, int k, LongFunction<String> text, LongToDoubleFunction boost, double maxBoost)
+	throws NullPointerException, IllegalArgumentException {
+		if(query == null || text == null || boost == null) throw new NullPointerException();
+		if(k < 0 || !(maxBoost > 0)) throw new IllegalArgumentException();
+		
+		// termini obbligatori (anche quelli delle frasi), facoltativi ed esclusi
+		LinkedHashSet<String> obbligatori = new LinkedHashSet<String>(query.getRequired());
+		for(String[] f : query.getPhrases())
+			obbligatori.addAll(Arrays.asList(f));
+		LinkedHashSet<String> facoltativi = new LinkedHashSet<String>(query.getOptional());
+		facoltativi.removeAll(obbligatori);
+		if(k == 0 || this.size() == 0 || (obbligatori.isEmpty() && facoltativi.isEmpty())) return new long[0];
+		
+		Cursor[] devono = new Cursor[obbligatori.size()];
+		int i = 0;
+		for(String t : obbligatori) {
+			Postings p = this.termini.get(t);
+			if(p == null) return new long[0];
+			devono[i++] = this.cursor(p);
+		}
+		ArrayList<Cursor> possono = new ArrayList<Cursor>();
+		for(String t : facoltativi) {
+			Postings p = this.termini.get(t);
+			if(p != null) possono.add(this.cursor(p));
+		}
+		ArrayList<Cursor> esclusi = new ArrayList<Cursor>();
+		for(String t : query.getExcluded()) {
+			Postings p = this.termini.get(t);
+			if(p != null) esclusi.add(this.cursor(p));
+		}
+		
+		Risultati risultati = new Risultati(k);
+		Valutazione v = new Valutazione(query, esclusi.toArray(new Cursor[0]), possono.toArray(new Cursor[0]),
+				text, boost, maxBoost * MARGINE, risultati);
+		if(devono.length > 0) this.conjunctive(devono, v);
+		else this.wand(v);
+		return risultati.ids();
+	}
+	// THROWS:		se query = null || text = null || boost = null lancia NullPointerException (unchecked)
+	//				se k < 0 || maxBoost ≤ 0 lancia IllegalArgumentException (unchecked)
+	// REQUIRES:	text.apply(id) = testo indicizzato per id, 0 < boost.applyAsDouble(id) ≤ maxBoost per ogni id
+	// EFFECTS:		restituisce gli id dei min(k, #R) post con punteggio più alto in ordine decrescente di punteggio
+	//				(a parità di punteggio in ordine crescente di id), dove R sono i post indicizzati che contengono
+	//				tutti i termini e le frasi obbligatori, nessun termine o frase escluso e, se non ci sono elementi
+	//				obbligatori, almeno un termine facoltativo; il punteggio di un post è la somma BM25 dei termini
+	//				obbligatori e facoltativi che contiene moltiplicata per boost.applyAsDouble(id)
+	
+	
+	// intersezione a salti dei termini obbligatori, dal più raro
+	private void conjunctive(Cursor[] devono, Valutazione v) {
+		Arrays.sort(devono, (a, b) -> Integer.compare(a.p.n, b.p.n));
+		
+		// limite superiore del contributo dei termini facoltativi
+		double facoltativi = 0;
+		for(Cursor c : v.possono)
+			facoltativi += c.massimo;
+		
+		double obbligatori = 0;
+		for(Cursor c : devono)
+			obbligatori += c.massimo;
+		
+		long d = devono[0].doc();
+		while(d != FINE) {
+			// nessun post rimasto può superare la soglia: terminazione anticipata
+			if(!v.bound(obbligatori + facoltativi)) return;
+			// i soli termini obbligatori non bastano: il prossimo candidato contiene almeno un termine facoltativo
+			if(!v.bound(obbligatori)) {
+				long e = FINE;
+				for(Cursor c : v.possono) {
+					c.advance(d);
+					e = Math.min(e, c.doc());
+				}
+				if(e == FINE) return;
+				if(e > d) {
+					devono[0].advance(e);
+					d = devono[0].doc();
+					continue;
+				}
+			}
+			
+			boolean allineati = true;
+			for(int i = 1; i < devono.length && allineati; i++) {
+				devono[i].advance(d);
+				if(devono[i].doc() != d) {
+					d = devono[i].doc();
+					allineati = false;
+				}
+			}
+			if(!allineati) {
+				devono[0].advance(d);
+				d = devono[0].doc();
+				continue;
+			}
+			
+			if(!v.excluded(d)) {
+				double punteggio = 0;
+				for(Cursor c : devono)
+					punteggio += c.score(d);
+				if(v.bound(punteggio + facoltativi) && v.phrases(d)) {
+					for(Cursor c : v.possono) {
+						c.advance(d);
+						if(c.doc() == d) punteggio += c.score(d);
+					}
+					v.offer(d, punteggio);
+				}
+			}
+			devono[0].advance(d + 1);
+			d = devono[0].doc();
+		}
+	}
+	
+	// WAND sui termini facoltativi: sono valutati solo i post per cui la somma dei massimi dei termini
+	// presenti può superare la soglia dei risultati
+	private void wand(Valutazione v) {
+		Cursor[] c = v.possono;
+		while(true) {
+			// cursori in ordine di post corrente (insertion sort: l'ordine cambia poco tra due passi)
+			for(int i = 1; i < c.length; i++) {
+				Cursor x = c[i];
+				int j = i - 1;
+				for(; j >= 0 && c[j].doc() > x.doc(); j--)
+					c[j + 1] = c[j];
+				c[j + 1] = x;
+			}
+			
+			// pivot: primo cursore per cui la somma dei massimi dei precedenti supera la soglia
+			double somma = 0;
+			int pivot = -1;
+			for(int i = 0; i < c.length && c[i].doc() != FINE; i++) {
+				somma += c[i].massimo;
+				if(v.bound(somma)) {
+					pivot = i;
+					break;
+				}
+			}
+			if(pivot < 0) return;
+			long d = c[pivot].doc();
+			
+			if(c[0].doc() == d) {
+				if(!v.excluded(d) && v.phrases(d)) {
+					double punteggio = 0;
+					for(int i = 0; i < c.length && c[i].doc() == d; i++)
+						punteggio += c[i].score(d);
+					v.offer(d, punteggio);
+				}
+				for(int i = 0; i < c.length && c[i].doc() == d; i++)
+					c[i].advance(d + 1);
+			}
+			else {
+				// i cursori prima del pivot non possono da soli superare la soglia: saltano al post del pivot
+				for(int i = 0; i < pivot; i++)
+					c[i].advance(d);
+			}
+		}
+	}
+	
+	// cursore sulla lista di posting con idf e limite superiore del contributo del termine
+	private Cursor cursor(Postings p) {
+		double n = this.lunghezze.size();
+		double media = (double)this.lunghezza_totale / n;
+		double idf = Math.log(1 + (n - p.n + 0.5) / (p.n + 0.5));
+		Cursor c = new Cursor(p, idf, media);
+		c.massimo = SearchIndex.bm25(idf, p.max_tf, this.lunghezza_minima, media) * MARGINE;
+		return c;
+	}
+	
+	// contributo BM25 di un termine con frequenza tf in un testo di l termini
+	private static double bm25(double idf, int tf, double l, double media) {
+		return idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * l / Math.max(media, 1e-9)));
+	}
+	
+	// true se la lista di token contiene la frase (termini consecutivi)
+	private static boolean contains(List<String> tokens, String[] frase) {
+		for(int i = 0; i + frase.length <= tokens.size(); i++) {
+			int j = 0;
+			while(j < frase.length && tokens.get(i + j).equals(frase[j])) j++;
+			if(j == frase.length) return true;
+		}
+		return false;
+	}
+	
+	
+	// lista di posting di un termine: id crescenti e frequenze in array paralleli
+	private static final class Postings {
+		private long[] ids = new long[4];
+		private int[] tf = new int[4];
+		private int n = 0;
+		// limite superiore delle frequenze (non ridotto dalle rimozioni)
+		private int max_tf = 0;
+		
+		private void add(long id, int f) {
+			int i = (this.n == 0 || this.ids[this.n - 1] < id) ? this.n : -Arrays.binarySearch(this.ids, 0, this.n, id) - 1;
+			if(this.n == this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, 2 * this.n);
+				this.tf = Arrays.copyOf(this.tf, 2 * this.n);
+			}
+			System.arraycopy(this.ids, i, this.ids, i + 1, this.n - i);
+			System.arraycopy(this.tf, i, this.tf, i + 1, this.n - i);
+			this.ids[i] = id;
+			this.tf[i] = f;
+			this.n++;
+			this.max_tf = Math.max(this.max_tf, f);
+		}
+		
+		private boolean remove(long id) {
+			int i = Arrays.binarySearch(this.ids, 0, this.n, id);
+			if(i < 0) return false;
+			System.arraycopy(this.ids, i + 1, this.ids, i, this.n - i - 1);
+			System.arraycopy(this.tf, i + 1, this.tf, i, this.n - i - 1);
+			this.n--;
+			return true;
+		}
+	}
+	
+	// posizione corrente in una lista di posting
+	private final class Cursor {
+		private final Postings p;
+		private final double idf;
+		private final double media;
+		private double massimo;
+		private int pos;
+		
+		private Cursor(Postings p, double idf, double media) {
+			this.p = p;
+			this.idf = idf;
+			this.media = media;
+			this.pos = 0;
+		}
+		
+		// id del post corrente (FINE se esaurito)
+		private long doc() {
+			return (this.pos < this.p.n) ? this.p.ids[this.pos] : FINE;
+		}
+		
+		// avanza al primo post con id ≥ target (ricerca esponenziale e binaria)
+		private void advance(long target) {
+			if(this.pos >= this.p.n || this.p.ids[this.pos] >= target) return;
+			int basso = this.pos, alto = this.pos + 1, passo = 1;
+			while(alto < this.p.n && this.p.ids[alto] < target) {
+				basso = alto;
+				passo <<= 1;
+				alto = basso + passo;
+			}
+			int i = Arrays.binarySearch(this.p.ids, basso + 1, Math.min(alto, this.p.n), target);
+			this.pos = (i >= 0) ? i : -i - 1;
+		}
+		
+		// contributo del termine al post corrente d
+		private double score(long d) {
+			return SearchIndex.bm25(this.idf, this.p.tf[this.pos], SearchIndex.this.lunghezze.get(d), this.media);
+		}
+	}
+	
+	// stato di una interrogazione: filtri, termini facoltativi, fattore di ordinamento e risultati
+	private final class Valutazione {
+		private final SearchQuery query;
+		private final Cursor[] esclusi;
+		private final Cursor[] possono;
+		private final LongFunction<String> text;
+		private final LongToDoubleFunction boost;
+		private final double max_boost;
+		private final Risultati risultati;
+		
+		private Valutazione(SearchQuery query, Cursor[] esclusi, Cursor[] possono, LongFunction<String> text,
+		LongToDoubleFunction boost, double max_boost, Risultati risultati) {
+			this.query = query;
+			this.esclusi = esclusi;
+			this.possono = possono;
+			this.text = text;
+			this.boost = boost;
+			this.max_boost = max_boost;
+			this.risultati = risultati;
+		}
+		
+		// true se il post contiene un termine escluso
+		private boolean excluded(long d) {
+			for(Cursor c : this.esclusi) {
+				c.advance(d);
+				if(c.doc() == d) return true;
+			}
+			return false;
+		}
+		
+		// true se il testo del post contiene le frasi obbligatorie e nessuna frase esclusa
+		private boolean phrases(long d) {
+			if(this.query.getPhrases().isEmpty() && this.query.getExcludedPhrases().isEmpty()) return true;
+			List<String> tokens = SearchIndex.tokens(this.text.apply(d));
+			for(String[] f : this.query.getPhrases())
+				if(!SearchIndex.contains(tokens, f)) return false;
+			for(String[] f : this.query.getExcludedPhrases())
+				if(SearchIndex.contains(tokens, f)) return false;
+			return true;
+		}
+		
+		// true se un post con punteggio BM25 al più massimo può entrare nei risultati
+		private boolean bound(double massimo) {
+			return massimo * this.max_boost > this.risultati.soglia();
+		}
+		
+		private void offer(long d, double punteggio) {
+			SearchIndex.this.valutati++;
+			this.risultati.offer(d, punteggio * this.boost.applyAsDouble(d));
+		}
+	}
+	
+	// migliori k risultati: min-heap con il peggiore (punteggio minore, a parità id maggiore) in testa
+	private static final class Risultati {
+		private final int k;
+		private final PriorityQueue<Risultato> heap;
+		
+		private Risultati(int k) {
+			this.k = k;
+			this.heap = new PriorityQueue<Risultato>(k);
+		}
+		
+		// punteggio da superare per entrare nei risultati (i post arrivano per id crescente: la parità non basta)
+		private double soglia() {
+			return (this.heap.size() < this.k) ? Double.NEGATIVE_INFINITY : this.heap.peek().punteggio;
+		}
+		
+		private void offer(long d, double punteggio) {
+			if(this.heap.size() < this.k) this.heap.add(new Risultato(d, punteggio));
+			else if(punteggio > this.heap.peek().punteggio) {
+				this.heap.poll();
+				this.heap.add(new Risultato(d, punteggio));
+			}
+		}
+		
+		// id in ordine decrescente di punteggio
+		private long[] ids() {
+			long[] ids = new long[this.heap.size()];
+			for(int i = ids.length - 1; i >= 0; i--)
+				ids[i] = this.heap.poll().id;
+			return ids;
+		}
+	}
+	
+	// post con il suo punteggio, ordinato dal peggiore
+	private static final class Risultato implements Comparable<Risultato> {
+		private final long id;
+		private final double punteggio;
+		
+		private Risultato(long id, double punteggio) {
+			this.id = id;
+			this.punteggio = punteggio;
+		}
+		
+		public int compareTo(Risultato r) {
+			int c = Double.compare(this.punteggio, r.punteggio);
+			return (c != 0) ? c : Long.compare(r.id, this.id);
+		}
+	}
+
+}
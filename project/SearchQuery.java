@@ -0,0 +1,146 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+public class SearchQuery {
+
+/**
+	OVERVIEW:
+	Tipo di dato non modificabile che rappresenta un'interrogazione di ricerca testuale sui post:
+	termini e frasi obbligatori, termini facoltativi (contribuiscono al punteggio, almeno uno deve comparire
+	se non ci sono elementi obbligatori) e termini o frasi esclusi. Si ottiene da una stringa con la sintassi
+		parola			termine facoltativo (OR implicito tra i termini facoltativi)
+		"una frase"		frase obbligatoria: i termini devono comparire consecutivi e in quest'ordine
+		+parola			termine obbligatorio		a AND b		a e b obbligatori
+		-parola			termine escluso				NOT a		a escluso
+	(+ e - si applicano anche alle frasi, OR è ammesso ed equivale allo spazio). I termini sono i token del
+	testo in minuscolo (SearchIndex.tokens): una parola che produce più token è trattata come una frase.
+	Gli operatori non sono annidabili (nessuna parentesi): l'interrogazione è una congiunzione di elementi
+	obbligatori, una disgiunzione di elementi facoltativi ed una negazione di elementi esclusi.
+	
+	ELEMENTO TIPICO:	<	{obbligatori}, {frasi obbligatorie}, {facoltativi}, {esclusi}, {frasi escluse}	>
+	
+	AF =	<	this.richiesti, this.frasi, this.opzionali, this.esclusi, this.frasi_escluse	>
+	
+	RI =  tutte le liste ≠ null e non modificabili, ogni termine è un token di SearchIndex.tokens
+		  &&  ogni frase ha almeno 2 termini
+**/
+	
+	// elementi della stringa: frase tra virgolette o parola, con eventuale prefisso + o -
+	private static final Pattern ELEMENTO = Pattern.compile("([+-]?)(?:\"([^\"]*)\"?|([^\\s\"]+))");
+	
+	private final List<String> richiesti;
+	private final List<String[]> frasi;
+	private final List<String> opzionali;
+	private final List<String> esclusi;
+	private final List<String[]> frasi_escluse;
+	
+	
+	// COSTRUTTORE
+	private SearchQuery(List<String> richiesti, List<String[]> frasi, List<String> opzionali,
+	List<String> esclusi, List<String[]> frasi_escluse) {
+		this.richiesti = Collections.unmodifiableList(richiesti);
+		this.frasi = Collections.unmodifiableList(frasi);
+		this.opzionali = Collections.unmodifiableList(opzionali);
+		this.esclusi = Collections.unmodifiableList(esclusi);
+		this.frasi_escluse = Collections.unmodifiableList(frasi_escluse);
+	}
+	// REQUIRES:	valori che rispettano RI
+	// EFFECTS:		inizializza this con i valori specificati
+	
+	
+	// restituisce l'interrogazione descritta dalla stringa
+	public static SearchQuery parse(String query) throws NullPointerException {
+		if(query == null) throw new NullPointerException();
+		ArrayList<String> richiesti = new ArrayList<String>();
+		ArrayList<String[]> frasi = new ArrayList<String[]>();
+		ArrayList<String> opzionali = new ArrayList<String>();
+		ArrayList<String> esclusi = new ArrayList<String>();
+		ArrayList<String[]> frasi_escluse = new ArrayList<String[]>();
+		
+		// elemento precedente (da rendere obbligatorio se seguito da AND) e operatore in attesa di operando
+		String[] precedente = null;
+		String operatore = null;
+		
+		Matcher m = ELEMENTO.matcher(query);
+		while(m.find()) {
+			String segno = m.group(1);
+			boolean frase = m.group(2) != null;
+			String testo = frase ? m.group(2) : m.group(3);
+			
+			if(!frase && segno.isEmpty() && (testo.equals("AND") || testo.equals("OR") || testo.equals("NOT"))) {
+				if(testo.equals("AND") && precedente != null && opzionali.remove(precedente[0]) && precedente.length == 1)
+					richiesti.add(precedente[0]);
+				operatore = testo;
+				continue;
+			}
+			
+			String[] termini = SearchIndex.tokens(testo).toArray(new String[0]);
+			if(termini.length == 0) continue;
+			if(segno.isEmpty() && operatore != null && !operatore.equals("OR"))
+				segno = operatore.equals("AND") ? "+" : "-";
+			operatore = null;
+			
+			if(segno.equals("-")) {
+				if(termini.length == 1) esclusi.add(termini[0]);
+				else frasi_escluse.add(termini);
+				precedente = null;
+			}
+			else if(termini.length > 1 || frase) {
+				if(termini.length == 1) richiesti.add(termini[0]);
+				else frasi.add(termini);
+				precedente = null;
+			}
+			else if(segno.equals("+")) {
+				richiesti.add(termini[0]);
+				precedente = null;
+			}
+			else {
+				opzionali.add(termini[0]);
+				precedente = termini;
+			}
+		}
+		return new SearchQuery(richiesti, frasi, opzionali, esclusi, frasi_escluse);
+	}
+	// THROWS:		se query = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce l'interrogazione descritta da query secondo la sintassi in OVERVIEW
+	//				(operatori senza operandi ed elementi senza token sono ignorati)
+	
+	
+	public List<String> getRequired() {
+		return this.richiesti;
+	}
+	
+	public List<String[]> getPhrases() {
+		return this.frasi;
+	}
+	
+	public List<String> getOptional() {
+		return this.opzionali;
+	}
+	
+	public List<String> getExcluded() {
+		return this.esclusi;
+	}
+	
+	public List<String[]> getExcludedPhrases() {
+		return this.frasi_escluse;
+	}
+	// EFFECTS:		restituisce la lista non modificabile omonima di this (le frasi restituite non vanno modificate)
+	
+	
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for(String t : this.richiesti) s.append(" +").append(t);
+		for(String[] f : this.frasi) s.append(" +\"").append(String.join(" ", f)).append('"');
+		for(String t : this.opzionali) s.append(' ').append(t);
+		for(String t : this.esclusi) s.append(" -").append(t);
+		for(String[] f : this.frasi_escluse) s.append(" -\"").append(String.join(" ", f)).append('"');
+		return s.toString().trim();
+	}
+	// EFFECTS:		restituisce la forma normalizzata di this nella sintassi in OVERVIEW
+
+}
@@ -0,0 +1,104 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Date;
+
+
+public class SearchSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork con ricerca testuale sui post: un
+	SearchIndex dei testi, aggiornato dagli hook, risponde ad interrogazioni booleane (termini obbligatori,
+	facoltativi ed esclusi, frasi) restituendo i k post più rilevanti per punteggio BM25, eventualmente
+	moltiplicato per un fattore che favorisce i post recenti e quelli con più like. A differenza di
+	containing(words) non esamina i testi di tutti i post: scorre solo le liste dei termini dell'interrogazione.
+	
+	ELEMENTO TIPICO:	come in ReportSocialNetwork
+	
+	AF =	AF(ReportSocialNetwork)
+	
+	RI =  RI(ReportSocialNetwork) && this.testi ≠ null
+		  &&  AF(this.testi) = { <p.getId(), SearchIndex.tokens(p.getText())> | p ∈ this.index.values() }
+**/
+	
+	// tempo di dimezzamento del fattore di recenza (una settimana, in millisecondi)
+	public static final long RECENCY_HALF_LIFE = 7L * 24 * 60 * 60 * 1000;
+	// numero di like per cui il fattore dei like vale metà del suo massimo
+	public static final int LIKES_SCALE = 10;
+	
+	// indice dei testi dei post
+	private final SearchIndex testi;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota
+	public SearchSocialNetwork() {
+		super();
+		this.testi = new SearchIndex();
+	}
+	// EFFECTS:		inizializza this come ReportSocialNetwork() con indice dei testi vuoto
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale derivata da una lista di post
+	public SearchSocialNetwork(List<Post> ps) throws NullPointerException, IllegalUsernameException, DuplicatePostException {
+		super(ps);
+		this.testi = new SearchIndex();
+		for(Post p : this.index.values())
+			this.testi.add(p.getId(), p.getText());
+	}
+	// THROWS:		come ReportSocialNetwork(ps)
+	// EFFECTS:		inizializza this come ReportSocialNetwork(ps) indicizzando i testi dei suoi post
+	
+	
+	// [OSSERVATORE] restituisce i k post più rilevanti per l'interrogazione
+	public List<Post> search(String query, int k) throws NullPointerException, IllegalArgumentException {
+		return this.search(query, k, 0, 0);
+	}
+	// THROWS:		se query = null lancia NullPointerException (unchecked)
+	//				se k < 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		come search(query, k, 0, 0) (solo punteggio BM25)
+	
+	
+	// [OSSERVATORE] restituisce i k post più rilevanti per l'interrogazione favorendo i post recenti e con più like
+	public List<Post> search(String query, int k, double recencyWeight, double likesWeight)
+	throws NullPointerException, IllegalArgumentException {
+		if(!(recencyWeight >= 0) || !(likesWeight >= 0) || Double.isInfinite(recencyWeight) || Double.isInfinite(likesWeight))
+			throw new IllegalArgumentException();
+		SearchQuery q = SearchQuery.parse(query);		// propaga eventuali eccezioni
+		long ora = new Date().getTime();
+		
+		long[] ids = this.testi.search(q, k, id -> this.index.get(id).getText(), id -> {
+			Post p = this.index.get(id);
+			double eta = Math.max(0, ora - p.getDataPub());
+			double likes = p.getLikesCount();
+			return (1 + recencyWeight * Math.pow(2, -eta / RECENCY_HALF_LIFE)) * (1 + likesWeight * likes / (likes + LIKES_SCALE));
+		}, (1 + recencyWeight) * (1 + likesWeight));
+		
+		ArrayList<Post> lista = new ArrayList<Post>(ids.length);
+		for(long id : ids)
+			lista.add((Post)this.index.get(id).clone());
+		return lista;
+	}
+	// THROWS:		se query = null lancia NullPointerException (unchecked)
+	//				se k < 0 o recencyWeight, likesWeight non finiti ≥ 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce (copie de)i k post più rilevanti per SearchQuery.parse(query) secondo SearchIndex.search,
+	//				con punteggio BM25 del testo moltiplicato per
+	//				(1 + recencyWeight * 2^(-età / RECENCY_HALF_LIFE)) * (1 + likesWeight * likes / (likes + LIKES_SCALE))
+	//				dove età = millisecondi dalla pubblicazione e likes = numero di like del post
+	
+	
+	/** [HOOK] ******************************************************************************************************************/
+	
+	protected void onPostAdded(Post p) {
+		this.testi.add(p.getId(), p.getText());
+	}
+	
+	protected void onPostRemoved(Post p) {
+		this.testi.remove(p.getId(), p.getText());
+	}
+	
+	protected void onTextChanged(Post p, String testo_precedente) {
+		this.testi.remove(p.getId(), testo_precedente);
+		this.testi.add(p.getId(), p.getText());
+	}
+
+}
@@ -0,0 +1,904 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.TreeSet;
+import java.util.Map;
+import java.util.Hashtable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+public class ShardedSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta la stessa rete sociale di ReportSocialNetwork
+	partizionando utenti, post e segnalazioni tra N reti sociali indipendenti (shard).
+	Ogni utente appartiene allo shard shardOf(user) insieme ai post di cui è autore e alle segnalazioni di quei post.
+	Ogni shard ha un proprio lock (il monitor dell'oggetto shard): operazioni su shard diversi procedono in parallelo.
+	
+	ELEMENTO TIPICO:
+	<	{ <user, {utenti che user segue}, {post con autore user}> , ...},
+		{ <post_segnalato, {<user_segnalatore, tipo_segnalazione>, ...} , ...}	>
+	
+	
+	AF =	<	UNIONE { <u, this.shards[i].followers.get(u), this.shards[i].post.get(u)> | 0 ≤ i < N, u ∈ this.shards[i].followers.keySet() },
+				UNIONE { <p, this.shards[i].reports.get(p)> | 0 ≤ i < N, p ∈ this.shards[i].reports.keySet() }	>
+		  - le tabelle ereditate this.followers, this.post, this.index, this.tempi e this.reports restano sempre vuote
+		  - this.utenti indicizza gli utenti di tutti gli shard con il numero di follower sull'unione degli shard
+			(aggiornato sotto i lock degli shard coinvolti; i punteggi negli indici dei singoli shard non sono usati)
+	
+	
+	RI =  (this.shards ≠ null) && (this.shards.length = N > 0) && (∀ i . 0 ≤ i < N ==> this.shards[i] ≠ null)
+		
+		  &&  (∀ i . 0 ≤ i < N (∀ u ∈ this.shards[i].followers.keySet()			// ogni utente sta nel suo shard
+				  ==> this.shardOf(u) = i ))
+		
+		  &&  RI(ReportSocialNetwork) sull'unione degli shard					// follower e like possono riferirsi
+																				// ad utenti e post di altri shard
+		  &&  (∀ i . 0 ≤ i < N (∀ u ∈ this.shards[i].post.keySet()				// i post stanno nello shard dell'autore
+				  (∀ p ∈ this.shards[i].post.get(u) ==> p ∈ this.shards[i].index.values() )))
+		
+		  &&  this.followers.isEmpty() && this.post.isEmpty() && this.index.isEmpty() && this.reports.isEmpty()
+	
+	NOTE: i post creati con createPost hanno id con id mod N = shardOf(autore), quindi la ricerca per id
+		  accede direttamente allo shard corretto; i post derivati da una lista hanno id arbitrari e vengono
+		  cercati in tutti gli shard solo se non si trovano nello shard id mod N.
+		  Operazioni che coinvolgono due shard acquisiscono i due lock in ordine crescente di indice (no deadlock).
+**/
+	
+	// shard della rete sociale
+	private final ReportSocialNetwork[] shards;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota partizionata in n shard
+	public ShardedSocialNetwork(int n) throws IllegalArgumentException {
+		super();
+		if(n <= 0) throw new IllegalArgumentException();
+		this.shards = new ReportSocialNetwork[n];
+		for(int i = 0; i < n; i++)
+			this.shards[i] = new ReportSocialNetwork();
+	}
+	// REQUIRES:	n > 0
+	// THROWS:		se n ≤ 0 lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this.shards con n reti sociali vuote
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale partizionata in n shard derivata da una lista di post
+	public ShardedSocialNetwork(int n, List<Post> ps)
+	throws IllegalArgumentException, NullPointerException, IllegalUsernameException, DuplicatePostException {
+		this(n);
+		
+		// validazione della lista e derivazione delle relazioni utente-seguiti
+		Map<String, Set<String>> followers = SocialNetwork.guessFollowers(ps);	// propaga eventuali eccezioni
+		for(String u : followers.keySet()) {
+			ReportSocialNetwork s = this.shards[this.shardOf(u)];
+			s.followers.put(u, followers.get(u));
+			s.post.put(u, new HashSet<Post>());
+			s.utenti.add(u);
+			this.utenti.add(u);
+		}
+		for(String u : followers.keySet()) {
+			for(String f : followers.get(u))
+				this.utenti.addScore(f, 1);
+		}
+		for(Post p : ps) {
+			ReportSocialNetwork s = this.shards[this.shardOf(p.getAutore())];
+			Post copia = (Post)p.clone();
+			s.post.get(copia.getAutore()).add(copia);
+			s.indexPost(copia);
+		}
+	}
+	// REQUIRES:	n > 0 e le stesse precondizioni di SocialNetwork(ps)
+	// THROWS:		se n ≤ 0 lancia IllegalArgumentException (unchecked)
+	//				altrimenti le stesse eccezioni di SocialNetwork(ps)
+	// MODIFIES:	this
+	// EFFECTS:		inizializza gli shard in modo che l'unione delle loro tabelle sia la rete sociale derivata da ps
+	
+	
+	/** [INSTRADAMENTO] ********************************************************************************************/
+	
+	// restituisce l'indice dello shard a cui appartiene l'utente
+	private int shardOf(String username) {
+		return Math.floorMod(username.hashCode(), this.shards.length);
+	}
+	// REQUIRES:	username ≠ null
+	// EFFECTS:		restituisce hash(username) mod N
+	
+	
+	// restituisce l'indice dello shard che contiene il post con l'id specificato (-1 se assente)
+	private int shardOfPost(long id) {
+		int i = (int)(id % this.shards.length);
+		if(this.shards[i].index.containsKey(id)) return i;		// caso tipico: id codifica lo shard
+		
+		for(int j = 0; j < this.shards.length; j++) {			// post derivati da lista: ricerca in tutti gli shard
+			if(j != i && this.shards[j].index.containsKey(id)) return j;
+		}
+		return -1;
+	}
+	// REQUIRES:	id ≥ 0
+	// EFFECTS:		restituisce i tale che id ∈ this.shards[i].index.keySet() oppure -1 se tale i non esiste
+	//				NOTA: il risultato va ricontrollato dopo aver acquisito il lock dello shard
+	
+	
+	/** [METODI RICHIESTI] *****************************************************************************************/
+	
+	// [2_extra][OSSERVATORE] scatter-gather del conteggio di follower e seguiti su tutti gli shard
+	public List<String> influencers() {
+		// ogni shard conta in parallelo i follower (anche di utenti di altri shard) dei propri utenti
+		Map<String, Integer> tot_follower = Arrays.stream(this.shards).parallel().map(s -> {
+			Hashtable<String, Integer> parziale = new Hashtable<String, Integer>();
+			synchronized(s) {
+				for(String u : s.followers.keySet()) {
+					for(String f : s.followers.get(u))
+						parziale.merge(f, 1, Integer::sum);
+				}
+			}
+			return (Map<String, Integer>)parziale;
+		}).reduce(new Hashtable<String, Integer>(), (a, b) -> {
+			Hashtable<String, Integer> somma = new Hashtable<String, Integer>(a);
+			for(String f : b.keySet())
+				somma.merge(f, b.get(f), Integer::sum);
+			return somma;
+		});
+		
+		// ogni shard seleziona in parallelo i propri influencer
+		return Arrays.stream(this.shards).parallel().flatMap(s -> {
+			ArrayList<String> lista = new ArrayList<String>();
+			synchronized(s) {
+				for(String u : s.followers.keySet()) {
+					if(tot_follower.getOrDefault(u, 0) > s.followers.get(u).size())
+						lista.add(u);
+				}
+			}
+			return lista.stream();
+		}).collect(Collectors.toCollection(ArrayList::new));
+	}
+	// EFFECTS:		come SocialNetwork.influencers() sull'unione degli shard
+	
+	
+	// [OSSERVATORE] grafo CSR delle relazioni utente-seguiti sull'unione degli shard
+	public FollowerGraph followerGraph() {
+		// copia delle relazioni di ogni shard sotto il suo lock, costruzione del grafo senza lock
+		Map<String, Set<String>> followers = new Hashtable<String, Set<String>>();
+		for(ReportSocialNetwork s : this.shards) {
+			synchronized(s) {
+				for(String u : s.followers.keySet())
+					followers.put(u, new HashSet<String>(s.followers.get(u)));
+			}
+		}
+		return new FollowerGraph(followers);
+	}
+	// EFFECTS:		come SocialNetwork.followerGraph() sull'unione degli shard
+	
+	
+	// [OSSERVATORE] utenti consigliati da seguire con le relazioni lette dagli shard degli utenti
+	public List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		
+		if(username == null) throw new NullPointerException();
+		if(k < 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		Set<String> seguiti;
+		synchronized(s) {
+			if(!s.followers.containsKey(username)) throw new AbsentUsernameException();
+			seguiti = new HashSet<String>(s.followers.get(username));
+		}
+		
+		// campione casuale sotto il lock dello shard di a dei soli utenti seguiti da a che vengono contati
+		return SocialNetwork.friendsOfFriends(username, seguiti, a -> {
+			ReportSocialNetwork t = this.shards[this.shardOf(a)];
+			synchronized(t) {
+				Set<String> seguiti_a = t.followers.get(a);
+				if(seguiti_a == null) return null;
+				return SocialNetwork.campione(seguiti_a, SocialNetwork.WHO_TO_FOLLOW_SAMPLE, ThreadLocalRandom.current());
+			}
+		}, k);
+	}
+	// EFFECTS:		come SocialNetwork.whoToFollow(username, k) sull'unione degli shard
+	
+	
+	// [3][OSSERVATORE] scatter-gather degli utenti menzionati su tutti gli shard
+	public Set<String> getMentionedUsers() {
+		HashSet<String> menzionati = new HashSet<String>();
+		Arrays.stream(this.shards).parallel().map(s -> {
+			synchronized(s) { return s.getMentionedUsers(); }
+		}).forEachOrdered(menzionati::addAll);
+		return menzionati;
+	}
+	// EFFECTS:		restituisce UNIONE { this.shards[i].getMentionedUsers() | 0 ≤ i < N }
+	
+	
+	// [5][OSSERVATORE] restituisce la lista dei post creati da username (accesso al solo shard di username)
+	public List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) {
+			return s.writtenBy(username);		// propaga eventuali eccezioni
+		}
+	}
+	// REQUIRES:	come SocialNetwork.writtenBy(username)
+	// THROWS:		come SocialNetwork.writtenBy(username)
+	// EFFECTS:		restituisce this.shards[shardOf(username)].writtenBy(username)
+	
+	
+	// [7][OSSERVATORE] scatter-gather della ricerca per parole su tutti gli shard
+	public List<Post> containing(List<String> words) throws NullPointerException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		
+		ArrayList<Post> lista = new ArrayList<Post>();
+		Arrays.stream(this.shards).parallel().map(s -> {
+			synchronized(s) { return s.containing(words); }
+		}).forEachOrdered(lista::addAll);
+		return lista;
+	}
+	// REQUIRES:	words ≠ null, null ∉ words
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce la concatenazione delle liste this.shards[i].containing(words) per 0 ≤ i < N
+	
+	
+	/** [METODI NON RICHIESTI] *************************************************************************************/
+	
+	// [OSSERVATORE] restituisce una pagina dei post creati da username (accesso al solo shard di username)
+	public Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) {
+			return s.writtenBy(username, cursor, limit);		// propaga eventuali eccezioni
+		}
+	}
+	// REQUIRES:	come SocialNetwork.writtenBy(username, cursor, limit)
+	// THROWS:		come SocialNetwork.writtenBy(username, cursor, limit)
+	// EFFECTS:		restituisce this.shards[shardOf(username)].writtenBy(username, cursor, limit)
+	
+	
+	// [OSSERVATORE] scatter-gather di una pagina della ricerca per parole: fusione per id delle pagine degli shard
+	public Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		Page.afterId(cursor);		// validazione del cursore prima della visita degli shard
+		
+		List<Page<Post>> pagine = Arrays.stream(this.shards).parallel().map(s -> {
+			synchronized(s) { return s.containing(words, cursor, limit); }
+		}).collect(Collectors.toList());
+		
+		ArrayList<Post> fusi = new ArrayList<Post>();
+		boolean altri = false;
+		for(Page<Post> pagina : pagine) {
+			fusi.addAll(pagina.getItems());
+			altri = altri || pagina.hasNext();
+		}
+		fusi.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+		
+		// i primi limit post dell'unione; ne restano altri se la fusione li supera o se uno shard ne ha altri
+		if(fusi.size() <= limit && !altri) return new Page<Post>(fusi, null);
+		List<Post> items = fusi.subList(0, Math.min(limit, fusi.size()));
+		return new Page<Post>(items, Page.encode(Long.toString(items.get(items.size() - 1).getId())));
+	}
+	// REQUIRES:	come SocialNetwork.containing(words, cursor, limit)
+	// THROWS:		come SocialNetwork.containing(words, cursor, limit)
+	// EFFECTS:		restituisce la pagina dei primi limit post (in ordine di id) dell'unione delle pagine
+	//				this.shards[i].containing(words, cursor, limit) per 0 ≤ i < N
+	
+	
+	// [OSSERVATORE] scatter-gather di una pagina degli utenti menzionati: fusione ordinata delle pagine degli shard
+	public Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		if(limit <= 0) throw new IllegalArgumentException();
+		Page.afterKey(cursor);
+		
+		List<Page<String>> pagine = Arrays.stream(this.shards).parallel().map(s -> {
+			synchronized(s) { return s.getMentionedUsers(cursor, limit); }
+		}).collect(Collectors.toList());
+		
+		// utenti menzionati in più shard compaiono una sola volta
+		TreeSet<String> fusi = new TreeSet<String>();
+		boolean altri = false;
+		for(Page<String> pagina : pagine) {
+			fusi.addAll(pagina.getItems());
+			altri = altri || pagina.hasNext();
+		}
+		
+		ArrayList<String> ordinati = new ArrayList<String>(fusi);
+		if(ordinati.size() <= limit && !altri) return new Page<String>(ordinati, null);
+		List<String> items = ordinati.subList(0, Math.min(limit, ordinati.size()));
+		return new Page<String>(items, Page.encode(items.get(items.size() - 1)));
+	}
+	// REQUIRES:	come SocialNetwork.getMentionedUsers(cursor, limit)
+	// THROWS:		come SocialNetwork.getMentionedUsers(cursor, limit)
+	// EFFECTS:		restituisce la pagina dei primi limit utenti (in ordine lessicografico) dell'unione delle pagine
+	//				this.shards[i].getMentionedUsers(cursor, limit) per 0 ≤ i < N
+	
+	
+	// [OSSERVATORE] scatter-gather dei post pubblicati in [from, to): fusione per data delle liste degli shard
+	public List<Post> postsBetween(long from, long to) {
+		return ShardedSocialNetwork.mergeByDate(Arrays.stream(this.shards).parallel().map(s -> {
+			synchronized(s) { return s.postsBetween(from, to); }
+		}).collect(Collectors.toList()), Post::getDataPub);
+	}
+	// EFFECTS:		come SocialNetwork.postsBetween(from, to) sull'unione degli shard
+	
+	
+	// [OSSERVATORE] restituisce i post di username pubblicati in [from, to) (accesso al solo shard di username)
+	public List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) {
+			return s.postsBetween(username, from, to);
+		}
+	}
+	// REQUIRES:	come SocialNetwork.postsBetween(username, from, to)
+	// THROWS:		come SocialNetwork.postsBetween(username, from, to)
+	// EFFECTS:		restituisce this.shards[shardOf(username)].postsBetween(username, from, to)
+	
+	
+	// [OSSERVATORE] scatter-gather dei post modificati a partire da t: fusione per data delle liste degli shard
+	public List<Post> modifiedSince(long t) {
+		return ShardedSocialNetwork.mergeByDate(Arrays.stream(this.shards).parallel().map(s -> {
+			synchronized(s) { return s.modifiedSince(t); }
+		}).collect(Collectors.toList()), Post::getDataMod);
+	}
+	// EFFECTS:		come SocialNetwork.modifiedSince(t) sull'unione degli shard
+	
+	
+	// [OSSERVATORE] restituisce i post di username modificati a partire da t (accesso al solo shard di username)
+	public List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) {
+			return s.modifiedSince(username, t);
+		}
+	}
+	// REQUIRES:	come SocialNetwork.modifiedSince(username, t)
+	// THROWS:		come SocialNetwork.modifiedSince(username, t)
+	// EFFECTS:		restituisce this.shards[shardOf(username)].modifiedSince(username, t)
+	
+	
+	// fonde liste di post ordinate per <data, id>
+	private static List<Post> mergeByDate(List<List<Post>> liste, ToLongFunction<Post> data) {
+		ArrayList<Post> lista = new ArrayList<Post>();
+		for(List<Post> l : liste)
+			lista.addAll(l);
+		lista.sort((a, b) -> {
+			int cmp = Long.compare(data.applyAsLong(a), data.applyAsLong(b));
+			return cmp != 0 ? cmp : Long.compare(a.getId(), b.getId());
+		});
+		return lista;
+	}
+	// REQUIRES:	liste ≠ null, data ≠ null
+	// EFFECTS:		restituisce la concatenazione delle liste ordinata per <data(p), p.getId()>
+	
+	
+	// [MODIFICATORE] aggiunge un nuovo utente allo shard di appartenenza
+	public void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) {
+			s.createUser(username);		// propaga eventuali eccezioni
+			this.utenti.add(username);
+		}
+	}
+	// REQUIRES:	come SocialNetwork.createUser(username)
+	// THROWS:		come SocialNetwork.createUser(username)
+	// MODIFIES:	this.shards[shardOf(username)]
+	// EFFECTS:		aggiunge username allo shard di appartenenza
+	
+	
+	// [MODIFICATORE] elimina utente con cascata parallela su tutti gli shard restituendo i post di cui è autore
+	public Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		int i = this.shardOf(username);
+		ReportSocialNetwork s = this.shards[i];
+		Set<String> seguiti;
+		Set<Post> post;
+		
+		// l'utente sparisce dal proprio shard: da qui in poi nessuna operazione può più riferirsi a lui
+		synchronized(s) {
+			if(!s.followers.containsKey(username)) throw new AbsentUsernameException();
+			seguiti = s.followers.remove(username);
+			post = s.post.remove(username);
+			s.utenti.remove(username);
+			this.utenti.remove(username);
+			for(String seguito : seguiti)
+				this.utenti.addScore(seguito, -1);
+			for(Post p : post)
+				s.unindexPost(p.getId());
+		}
+		
+		// scatter: ogni shard rimuove i like di username e l'arco verso username dai propri utenti
+		IntStream.range(0, this.shards.length).parallel().forEach(j -> {
+			ReportSocialNetwork t = this.shards[j];
+			synchronized(t) {
+				for(String seguito : seguiti) {
+					if(this.shardOf(seguito) != j) continue;
+					Set<Post> del_seguito = t.post.get(seguito);
+					if(del_seguito == null) continue;		// seguito eliminato in concorrenza: i suoi post non sono più raggiungibili
+					for(Post p : del_seguito) {
+						try {p.removeLike(username);}
+						catch(AbsentLikeException e) {}		// continuo
+						catch(AuthorLikeException e) {}		// non viene lanciata mai
+					}
+				}
+				for(String u : t.followers.keySet())
+					t.followers.get(u).remove(username);
+			}
+		});
+		return post;
+	}
+	// REQUIRES:	come SocialNetwork.deleteUser(username)
+	// THROWS:		come SocialNetwork.deleteUser(username)
+	// MODIFIES:	this.shards
+	// EFFECTS:		come SocialNetwork.deleteUser(username) sull'unione degli shard,
+	//				la cascata su like e follower è eseguita in parallelo su ogni shard
+	
+	
+	// [MODIFICATORE] crea un nuovo post nello shard dell'autore con id che codifica lo shard
+	public long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		if(autore == null || text == null) throw new NullPointerException();
+		
+		int i = this.shardOf(autore);
+		Post p = new Post(autore, text, this.shards.length, i);		// propaga eventuali eccezioni
+		
+		if(!SocialNetwork.checkValidUsername(autore)) throw new IllegalUsernameException();
+		ReportSocialNetwork s = this.shards[i];
+		synchronized(s) {
+			if(!s.followers.containsKey(autore)) throw new AbsentUsernameException();
+			s.post.get(autore).add(p);
+			s.indexPost(p);
+		}
+		return p.getId();
+	}
+	// REQUIRES:	come SocialNetwork.createPost(autore, text)
+	// THROWS:		come SocialNetwork.createPost(autore, text)
+	// MODIFIES:	this.shards[shardOf(autore)]
+	// EFFECTS:		crea un nuovo post p con p.getId() mod N = shardOf(autore) e lo aggiunge allo shard dell'autore,
+	//				restituisce p.getId()
+	
+	
+	// [MODIFICATORE] inserisce nello shard dell'autore un post già esistente (post inserito senza DEEP-COPY)
+	protected void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		if(p == null) throw new NullPointerException();
+		String autore = p.getAutore();
+		Set<String> likes = p.getLikes();
+		for(String like : likes) {
+			ReportSocialNetwork t = this.shards[this.shardOf(like)];
+			synchronized(t) {
+				if(!t.followers.containsKey(like)) throw new AbsentUsernameException();
+			}
+		}
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(autore)];
+		synchronized(s) {
+			if(!s.followers.containsKey(autore)) throw new AbsentUsernameException();
+			if(this.shardOfPost(p.getId()) >= 0) throw new DuplicatePostException();
+			s.post.get(autore).add(p);
+			s.indexPost(p);
+		}
+		// chi ha messo like al post segue l'autore (relazione nello shard di chi ha messo like)
+		for(String like : likes) {
+			ReportSocialNetwork t = this.shards[this.shardOf(like)];
+			synchronized(t) {
+				Set<String> seguiti = t.followers.get(like);
+				if(seguiti != null && seguiti.add(autore)) this.utenti.addScore(autore, 1);
+			}
+		}
+	}
+	// REQUIRES:	come SocialNetwork.insertPost(p)
+	// THROWS:		come SocialNetwork.insertPost(p)
+	// MODIFIES:	this.shards[shardOf(autore)], gli shard di chi ha messo like al post
+	// EFFECTS:		come SocialNetwork.insertPost(p) sull'unione degli shard (p.getId() arbitrario: il post è
+	//				cercato in tutti gli shard come i post derivati da una lista)
+	
+	
+	// [MODIFICATORE] elimina e restituisce un post della rete sociale dato l'id
+	public Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		
+		int i = this.shardOfPost(id);
+		if(i < 0) throw new AbsentPostException();
+		ReportSocialNetwork s = this.shards[i];
+		Post found;
+		synchronized(s) {
+			found = s.unindexPost(id);
+			if(found == null) throw new AbsentPostException();
+			s.post.get(found.getAutore()).remove(found);
+		}
+		this.unfollowIfNoLikes(i, found.getAutore(), found.getLikes());
+		return found;
+	}
+	// REQUIRES:	come SocialNetwork.deletePost(id)
+	// THROWS:		come SocialNetwork.deletePost(id)
+	// MODIFIES:	this.shards
+	// EFFECTS:		come SocialNetwork.deletePost(id) sull'unione degli shard
+	
+	
+	// [MODIFICATORE] elimina e restituisce tutti i post di un utente
+	public Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		int i = this.shardOf(username);
+		ReportSocialNetwork s = this.shards[i];
+		Set<Post> post;
+		HashSet<String> likes = new HashSet<String>();
+		synchronized(s) {
+			if(!s.followers.containsKey(username)) throw new AbsentUsernameException();
+			post = s.post.put(username, new HashSet<Post>());
+			for(Post p : post) {
+				s.unindexPost(p.getId());
+				likes.addAll(p.getLikes());
+			}
+		}
+		this.unfollowIfNoLikes(i, username, likes);
+		return post;
+	}
+	// REQUIRES:	come SocialNetwork.deleteAllPost(username)
+	// THROWS:		come SocialNetwork.deleteAllPost(username)
+	// MODIFIES:	this.shards
+	// EFFECTS:		come SocialNetwork.deleteAllPost(username) sull'unione degli shard
+	
+	
+	// rimuove autore dagli utenti seguiti da ogni utente in likes che non ha più like ai post di autore
+	private void unfollowIfNoLikes(int i, String autore, Set<String> likes) {
+		// raggruppa gli utenti per shard di appartenenza
+		Hashtable<Integer, Set<String>> gruppi = new Hashtable<Integer, Set<String>>();
+		for(String u : likes)
+			gruppi.computeIfAbsent(this.shardOf(u), k -> new HashSet<String>()).add(u);
+		
+		for(int j : gruppi.keySet()) {
+			// lock in ordine crescente: shard dell'autore e shard dei follower
+			synchronized(this.shards[Math.min(i, j)]) {
+				synchronized(this.shards[Math.max(i, j)]) {
+					Set<Post> rimasti = this.shards[i].post.get(autore);
+					for(String u : gruppi.get(j)) {
+						Set<String> seguiti = this.shards[j].followers.get(u);
+						if(seguiti == null) continue;		// utente eliminato nel frattempo
+						boolean like = false;
+						if(rimasti != null) {
+							for(Post p : rimasti) {
+								if(p.hasLike(u)) {like = true; break;}
+							}
+						}
+						if(!like && seguiti.remove(autore)) this.utenti.addScore(autore, -1);
+					}
+				}
+			}
+		}
+	}
+	// REQUIRES:	0 ≤ i < N, autore ≠ null, likes ≠ null
+	// MODIFIES:	this.shards
+	// EFFECTS:		(∀ u ∈ likes : u nella rete sociale && (∀ p ∈ post di autore ==> u ∉ p.getLikes())
+	//					==> autore ∉ post(followers di u) )
+	
+	
+	// [OSSERVATORE] restituisce la DEEP-COPY del post con l'id specificato (accesso diretto allo shard)
+	public Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		
+		int i = this.shardOfPost(id);
+		if(i < 0) throw new AbsentPostException();
+		ReportSocialNetwork s = this.shards[i];
+		synchronized(s) {
+			return s.getPost(id);		// propaga eventuali eccezioni
+		}
+	}
+	// REQUIRES:	come SocialNetwork.getPost(id)
+	// THROWS:		come SocialNetwork.getPost(id)
+	// EFFECTS:		restituisce la DEEP-COPY del post con l'id specificato
+	
+	
+	// [MODIFICATORE] sostituisce il testo del post con l'id specificato (accesso diretto allo shard)
+	protected void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		if(text == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		
+		int i = this.shardOfPost(id);
+		if(i < 0) throw new AbsentPostException();
+		ReportSocialNetwork s = this.shards[i];
+		synchronized(s) {
+			s.modificaPost(id, text, data_mod);		// propaga eventuali eccezioni
+		}
+	}
+	// REQUIRES:	come SocialNetwork.modificaPost(id, text, data_mod)
+	// THROWS:		come SocialNetwork.modificaPost(id, text, data_mod)
+	// MODIFIES:	lo shard che contiene il post
+	// EFFECTS:		esegue la modifica del post nello shard che lo contiene
+	
+	
+	// [MODIFICATORE] utente mette like al post con l'id specificato (eventualmente su un altro shard)
+	public void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		if(username == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		int i = this.shardOf(username);
+		int j = this.shardOfPost(id);
+		if(j < 0) {
+			if(!this.shards[i].followers.containsKey(username)) throw new AbsentUsernameException();
+			throw new AbsentPostException();
+		}
+		// lock in ordine crescente: shard dell'utente e shard del post
+		synchronized(this.shards[Math.min(i, j)]) {
+			synchronized(this.shards[Math.max(i, j)]) {
+				Set<String> seguiti = this.shards[i].followers.get(username);
+				if(seguiti == null) throw new AbsentUsernameException();
+				Post p = this.shards[j].index.get(id);
+				if(p == null) throw new AbsentPostException();
+				p.addLike(username);		// eventuali eccezioni propagate
+				if(seguiti.add(p.getAutore())) this.utenti.addScore(p.getAutore(), 1);
+			}
+		}
+	}
+	// REQUIRES:	come SocialNetwork.addLike(username, id)
+	// THROWS:		come SocialNetwork.addLike(username, id)
+	// MODIFIES:	this.shards[shardOf(username)], this.shards[shard del post]
+	// EFFECTS:		come SocialNetwork.addLike(username, id) sull'unione degli shard
+	
+	
+	// [MODIFICATORE] utente rimuove like dal post con l'id specificato (eventualmente su un altro shard)
+	public void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		if(username == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		
+		int i = this.shardOf(username);
+		int j = this.shardOfPost(id);
+		if(j < 0) {
+			if(!this.shards[i].followers.containsKey(username)) throw new AbsentUsernameException();
+			throw new AbsentPostException();
+		}
+		// lock in ordine crescente: shard dell'utente e shard del post
+		synchronized(this.shards[Math.min(i, j)]) {
+			synchronized(this.shards[Math.max(i, j)]) {
+				Set<String> seguiti = this.shards[i].followers.get(username);
+				if(seguiti == null) throw new AbsentUsernameException();
+				Post p = this.shards[j].index.get(id);
+				if(p == null) throw new AbsentPostException();
+				p.removeLike(username);		// eventuali eccezioni propagate
+				for(Post post : this.shards[j].post.get(p.getAutore())) {
+					if(post.hasLike(username))
+						return;
+				}
+				if(seguiti.remove(p.getAutore())) this.utenti.addScore(p.getAutore(), -1);
+			}
+		}
+	}
+	// REQUIRES:	come SocialNetwork.removeLike(username, id)
+	// THROWS:		come SocialNetwork.removeLike(username, id)
+	// MODIFIES:	this.shards[shardOf(username)], this.shards[shard del post]
+	// EFFECTS:		come SocialNetwork.removeLike(username, id) sull'unione degli shard
+	
+	
+	// [MODIFICATORE] come createUser(username) ma restituisce l'esito
+	public StatusCode tryCreateUser(String username) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) {
+			StatusCode esito = s.tryCreateUser(username);
+			if(esito == StatusCode.OK) this.utenti.add(username);
+			return esito;
+		}
+	}
+	// EFFECTS:		come SocialNetwork.tryCreateUser(username) sullo shard di appartenenza
+	
+	
+	// [MODIFICATORE] come addLike(username, id) ma restituisce l'esito
+	public StatusCode tryAddLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		
+		int i = this.shardOf(username);
+		int j = this.shardOfPost(id);
+		if(j < 0) return this.shards[i].followers.containsKey(username) ? StatusCode.ABSENT_POST : StatusCode.ABSENT_USERNAME;
+		// lock in ordine crescente: shard dell'utente e shard del post
+		synchronized(this.shards[Math.min(i, j)]) {
+			synchronized(this.shards[Math.max(i, j)]) {
+				Set<String> seguiti = this.shards[i].followers.get(username);
+				if(seguiti == null) return StatusCode.ABSENT_USERNAME;
+				Post p = this.shards[j].index.get(id);
+				if(p == null) return StatusCode.ABSENT_POST;
+				if(p.getAutore().equals(username)) return StatusCode.AUTHOR_LIKE;
+				if(p.hasLike(username)) return StatusCode.DUPLICATE_LIKE;
+				try {
+					p.addLike(username);
+				}
+				catch(AuthorLikeException | DuplicateLikeException e) {}		// non viene lanciata mai
+				if(seguiti.add(p.getAutore())) this.utenti.addScore(p.getAutore(), 1);
+				return StatusCode.OK;
+			}
+		}
+	}
+	// EFFECTS:		come SocialNetwork.tryAddLike(username, id) sull'unione degli shard
+	
+	
+	// [MODIFICATORE] come removeLike(username, id) ma restituisce l'esito
+	public StatusCode tryRemoveLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		
+		int i = this.shardOf(username);
+		int j = this.shardOfPost(id);
+		if(j < 0) return this.shards[i].followers.containsKey(username) ? StatusCode.ABSENT_POST : StatusCode.ABSENT_USERNAME;
+		// lock in ordine crescente: shard dell'utente e shard del post
+		synchronized(this.shards[Math.min(i, j)]) {
+			synchronized(this.shards[Math.max(i, j)]) {
+				Set<String> seguiti = this.shards[i].followers.get(username);
+				if(seguiti == null) return StatusCode.ABSENT_USERNAME;
+				Post p = this.shards[j].index.get(id);
+				if(p == null) return StatusCode.ABSENT_POST;
+				if(p.getAutore().equals(username)) return StatusCode.AUTHOR_LIKE;
+				if(!p.hasLike(username)) return StatusCode.ABSENT_LIKE;
+				try {
+					p.removeLike(username);
+				}
+				catch(AuthorLikeException | AbsentLikeException e) {}		// non viene lanciata mai
+				for(Post post : this.shards[j].post.get(p.getAutore())) {
+					if(post.hasLike(username))
+						return StatusCode.OK;
+				}
+				if(seguiti.remove(p.getAutore())) this.utenti.addScore(p.getAutore(), -1);
+				return StatusCode.OK;
+			}
+		}
+	}
+	// EFFECTS:		come SocialNetwork.tryRemoveLike(username, id) sull'unione degli shard
+	
+	
+	// [MODIFICATORE] utente segnala il post con id specificato (eventualmente su un altro shard)
+	public void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		
+		Report report = new Report(username, type); // propaga eventuali eccezioni
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		int i = this.shardOf(username);
+		if(!this.shards[i].followers.containsKey(username)) throw new AbsentUsernameException();
+		if(id < 0) throw new IllegalArgumentException();
+		
+		int j = this.shardOfPost(id);
+		if(j < 0) throw new AbsentPostException();
+		// lock in ordine crescente: shard dell'utente e shard del post
+		synchronized(this.shards[Math.min(i, j)]) {
+			synchronized(this.shards[Math.max(i, j)]) {
+				if(!this.shards[i].followers.containsKey(username)) throw new AbsentUsernameException();
+				Post p = this.shards[j].index.get(id);
+				if(p == null) throw new AbsentPostException();
+				if(p.getAutore().equals(username)) throw new AuthorReportException();
+				
+				Set<Report> set = this.shards[j].reports.get(p);
+				if(set == null) {
+					set = new HashSet<Report>();
+					this.shards[j].reports.put(p, set);
+				}
+				for(Report r : set) {
+					if(r.getUsername().equals(username)) throw new DuplicateReportException();
+				}
+				set.add(report);
+			}
+		}
+	}
+	// REQUIRES:	come ReportSocialNetwork.addReport(username, id, type)
+	// THROWS:		come ReportSocialNetwork.addReport(username, id, type)
+	// MODIFIES:	this.shards[shard del post]
+	// EFFECTS:		aggiunge la segnalazione di username alle segnalazioni del post nello shard del post
+	
+	
+	// visita tutti i post della rete sociale, uno shard alla volta (post visitati senza DEEP-COPY)
+	protected void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		if(visitor == null) throw new NullPointerException();
+		for(ReportSocialNetwork s : this.shards) {
+			synchronized(s) { s.visitPosts(visitor); }
+		}
+	}
+	// REQUIRES:	come SocialNetwork.visitPosts(visitor)
+	// THROWS:		come SocialNetwork.visitPosts(visitor)
+	// EFFECTS:		esegue visitor.accept(p) per ogni post p di ogni shard, tenendo il lock dello shard visitato
+	
+	
+	// visita i post di cui username è autore nel suo shard (post visitati senza DEEP-COPY)
+	protected void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		if(username == null || visitor == null) throw new NullPointerException();
+		ReportSocialNetwork s = this.shards[this.shardOf(username)];
+		synchronized(s) { s.visitPosts(username, visitor); }
+	}
+	// REQUIRES:	come SocialNetwork.visitPosts(username, visitor)
+	// THROWS:		come SocialNetwork.visitPosts(username, visitor)
+	// EFFECTS:		esegue visitor.accept(p) per ogni post p di username tenendo il lock del suo shard
+	
+	
+	// visita gli utenti di una partizione con i rispettivi seguiti, uno shard alla volta (insiemi visitati senza copia)
+	protected void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		if(visitor == null) throw new NullPointerException();
+		if(parts <= 0 || part < 0 || part >= parts) throw new IllegalArgumentException();
+		// con una partizione per shard la partizione part è esattamente lo shard part
+		if(parts == this.shards.length) {
+			synchronized(this.shards[part]) { this.shards[part].visitUsers(0, 1, visitor); }
+			return;
+		}
+		for(ReportSocialNetwork s : this.shards) {
+			synchronized(s) { s.visitUsers(part, parts, visitor); }
+		}
+	}
+	// REQUIRES:	come SocialNetwork.visitUsers(part, parts, visitor)
+	// THROWS:		come SocialNetwork.visitUsers(part, parts, visitor)
+	// EFFECTS:		come SocialNetwork.visitUsers(part, parts, visitor) sull'unione degli shard, tenendo il lock
+	//				dello shard visitato (se parts = N visita solo lo shard part)
+	
+	
+	// visita le segnalazioni dei post di una partizione degli autori, uno shard alla volta
+	protected void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		if(visitor == null) throw new NullPointerException();
+		if(parts <= 0 || part < 0 || part >= parts) throw new IllegalArgumentException();
+		// le segnalazioni stanno nello shard dell'autore del post
+		if(parts == this.shards.length) {
+			synchronized(this.shards[part]) { this.shards[part].visitReports(0, 1, visitor); }
+			return;
+		}
+		for(ReportSocialNetwork s : this.shards) {
+			synchronized(s) { s.visitReports(part, parts, visitor); }
+		}
+	}
+	// REQUIRES:	come ReportSocialNetwork.visitReports(part, parts, visitor)
+	// THROWS:		come ReportSocialNetwork.visitReports(part, parts, visitor)
+	// EFFECTS:		come ReportSocialNetwork.visitReports(part, parts, visitor) sull'unione degli shard
+	
+	
+	// restituisce il numero di shard
+	public int getShardCount() {
+		return this.shards.length;
+	}
+	// EFFECTS:		restituisce N
+	
+	
+	// mostra lo stato attuale della rete sociale (shard per shard)
+	public void stampa() {
+		for(int i = 0; i < this.shards.length; i++) {
+			System.out.printf("[SHARD %d]\n", i);
+			synchronized(this.shards[i]) { this.shards[i].stampa(); }
+		}
+	}
+	// EFFECTS:		visualizza su stdout lo stato di ogni shard della rete sociale
+	
+	
+	// mostra le segnalazioni della rete sociale (shard per shard)
+	public void stampaSegnalazioni() {
+		for(int i = 0; i < this.shards.length; i++) {
+			System.out.printf("[SHARD %d] ", i);
+			synchronized(this.shards[i]) { this.shards[i].stampaSegnalazioni(); }
+		}
+	}
+	// EFFECTS:		visualizza su stdout le segnalazioni di ogni shard della rete sociale
+
+}
@@ -4,9 +4,24 @@ import java.util.Set;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Hashtable;
+import java.util.HashMap;
+import java.util.NavigableMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.Spliterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.Collections;
+import java.util.Date;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 public class SocialNetwork {
@@ -62,6 +77,17 @@ public class SocialNetwork {
 		  &&			  u ∈ this.followers.get(l) )))					// l segue u (*)
 		  
 		  &&  (u ∈ this.followers.keySet()) ⇔ (u ∈ this.post.keySet())	// gli insiemi coincidono
+		  
+		  &&  this.index ≠ null												// indice dei post non nullo
+		  &&  (∀ id ∈ this.index.keySet()									// per ogni id in this.index.keySet()
+			  ==> this.index.get(id).getId() = id							// l'id è quello del post associato
+		  &&	  this.index.get(id) ∈ this.post.get(this.index.get(id).getAutore()))
+		  &&  (∀ u ∈ this.post.keySet() (∀ p ∈ this.post.get(u)			// ogni post della rete sociale
+			  ==> this.index.get(p.getId()) = p ))							// è indicizzato (stessa istanza)
+		  &&  this.tempi ≠ null && AF(this.tempi) = this.index.values()		// indice temporale degli stessi post
+		  &&  this.menzioni ≠ null && this.menzioni = { <m, #{p ∈ this.index.values() | m ∈ mentionedIn(p.getText())}> } \ {<m, 0>}
+		  &&  this.utenti ≠ null														// indice per prefisso degli utenti
+		  &&  AF(this.utenti) = { <u, #{v | u ∈ this.followers.get(v)}> | u ∈ this.followers.keySet() }
 **/
 	
 	// costante con totale massimo di caratteri consentiti per un nome utente
@@ -71,15 +97,28 @@ public class SocialNetwork {
 	protected final Map<String, Set<String>> followers;
 	// insieme di coppie <user, {post con autore user}>
 	protected final Map<String, Set<Post>> post;
+	// insieme di coppie <id, post con quell'id> ordinato per id (accesso diretto ai post senza scandire this.post
+	// e visita dei post in ordine stabile per le interrogazioni paginate)
+	protected final NavigableMap<Long, Post> index;
+	// indice dei post per data di pubblicazione e di ultima modifica
+	protected final TimeIndex tempi;
+	// indice per prefisso degli utenti con il numero di follower di ognuno
+	protected final UsernameIndex utenti;
+	// insieme ordinato di coppie <utente menzionato, numero di post indicizzati che lo menzionano>
+	protected final NavigableMap<String, Integer> menzioni;
 	
 	
 	// COSTRUTTORE: istanzia una rete sociale vuota
 	public SocialNetwork() {
 		this.followers = new Hashtable<String, Set<String>>();
 		this.post = new Hashtable<String, Set<Post>>();
+		this.index = new ConcurrentSkipListMap<Long, Post>();
+		this.tempi = new TimeIndex();
+		this.utenti = new UsernameIndex();
+		this.menzioni = new ConcurrentSkipListMap<String, Integer>();
 	}
 	// MODIFIES:	this
-	// EFEFCTS:		inizializza this.followers e this.post all'insieme vuoto (nessun utente nella rete sociale)
+	// EFEFCTS:		inizializza this.followers, this.post e this.index all'insieme vuoto (nessun utente nella rete sociale)
 	
 	
 	// COSTRUTTORE: istanzia una rete sociale derivata da una lista di post
@@ -87,6 +126,10 @@ public class SocialNetwork {
 		
 		this.followers = SocialNetwork.guessFollowers(ps);
 		this.post = new Hashtable<String, Set<Post>>();
+		this.index = new ConcurrentSkipListMap<Long, Post>();
+		this.tempi = new TimeIndex();
+		this.utenti = SocialNetwork.usernameIndex(this.followers);
+		this.menzioni = new ConcurrentSkipListMap<String, Integer>();
 		
 		for(Post p : ps) {
 			String autore = p.getAutore();
@@ -99,19 +142,23 @@ public class SocialNetwork {
 					this.post.put(like, new HashSet<Post>());
 			}
 			
+			// DEEP-COPY del post indicizzata per id
+			Post copia = (Post)p.clone();
+			this.indexPost(copia);
+			
 			// se autore del post non è presente nella tabella dei post
 			if(!this.post.containsKey(autore)) {
 				// autore inserito nella tabella dei post
 				// l'insieme dei suoi post è inizializzato con la DEEP-COPY dell'attuale post
 				// post(this.post) = pre(this.post) U {<autore, {p}>}
 				HashSet<Post> set = new HashSet<Post>();
-				set.add((Post)p.clone());
+				set.add(copia);
 				this.post.put(autore, set);
 			}
 			else {
 				// DEEP-COPY del post dell'autore aggiunta al suo insieme dei post
 				// this.post.get(autore) = this.post.get(autore) U {p}
-				this.post.get(autore).add((Post)p.clone());
+				this.post.get(autore).add(copia);
 			}
 		}
 	}
@@ -125,6 +172,7 @@ public class SocialNetwork {
 	// MODIFIES:	this
 	// EFFECTS:		inizializza this.follower all'insieme di coppie <user, {utenti che user segue}> derivate dalla lista di post
 	//				inizializza this.post all'insieme di coppie <user, {post con autore user}> derivate dalla lista di post
+	//				inizializza this.index all'insieme di coppie <p.getId(), p> per ogni post p in this.post
 	
 	
 	/** [METODI RICHIESTI] *****************************************************************************************************/
@@ -196,20 +244,17 @@ public class SocialNetwork {
 			}
 		}
 		
+		// conteggio dei follower di ogni utente con una sola visita degli archi: O(U + E) invece di O(U²)
+		HashMap<String, Integer> tot_follower = new HashMap<String, Integer>();
+		for(String u : utenti) {
+			for(String f : followers.get(u))
+				tot_follower.merge(f, 1, Integer::sum);
+		}
+		
 		ArrayList<String> lista = new ArrayList<String>();
-		for(String i : utenti) {							// per ogni utente i
-			int tot_seguiti = followers.get(i).size();		// tot_seguiti = #{utenti seguiti da i}
-			int tot_follower = 0;							// tot_follower = #{utenti che seguono i} (contatore)
-			for(String j : utenti) {
-				if(j.equals(i)) continue;					// evito il caso j = i
-				if(followers.get(j).contains(i)) {			// se i è seguito da j
-					tot_follower++;							// incremento tot_follower di i
-					if(tot_follower > tot_seguiti) {		// se i segue tanti utenti quanti i suoi follower
-						lista.add(i);						// i è un influencer ==> aggiunto alla lista da restituire
-						break;
-					}
-				}
-			}
+		for(String i : utenti) {									// per ogni utente i
+			if(tot_follower.getOrDefault(i, 0) > followers.get(i).size())	// più follower che utenti seguiti
+				lista.add(i);										// i è un influencer
 		}
 		return lista;
 	}
@@ -224,6 +269,27 @@ public class SocialNetwork {
 	// EFFECTS:		restituisce la lista di utenti ∈ followers.keySet() che hanno più follower rispetto agli utenti seguiti
 	
 	
+	// [2_extra][OSSERVATORE] restituisce la lista degli utenti della rete sociale che hanno più follower che utenti seguiti
+	public List<String> influencers() {
+		// conteggio dei follower di ogni utente con una sola visita degli archi (this.followers rispetta RI)
+		Hashtable<String, Integer> tot_follower = new Hashtable<String, Integer>();
+		for(String u : this.followers.keySet()) {
+			for(String f : this.followers.get(u))
+				tot_follower.merge(f, 1, Integer::sum);
+		}
+		
+		ArrayList<String> lista = new ArrayList<String>();
+		for(String u : this.followers.keySet()) {
+			if(tot_follower.getOrDefault(u, 0) > this.followers.get(u).size())
+				lista.add(u);
+		}
+		return lista;
+	}
+	// EFFECTS:		restituisce la lista di utenti u ∈ this.followers.keySet() tali che
+	//				#{v | u ∈ this.followers.get(v)} > #this.followers.get(u)
+	//				equivale a SocialNetwork.influencers(this.followers) ma con costo lineare nel numero di archi
+	
+	
 	// [3][OSSERVATORE] restituisce l'insieme degli utenti menzionati nei post della rete sociale
 	public Set<String> getMentionedUsers(){
 		HashSet<String> menzionati = new HashSet<String>();
@@ -257,14 +323,26 @@ public class SocialNetwork {
 	//				UNIONE {m | m ∈ SocialNetwork.getMentionedUsers(p)} ∀ p ∈ ps
 	
 	
+	// pattern delle menzioni: i caratteri dopo la '@' fino al primo carattere non alfanumerico o diverso da '_'
+	private static final Pattern MENTION = Pattern.compile("@(.*?)[^a-zA-Z0-9_]");
+	
 	// [4_extra] restituisce l'insieme degli utenti menzionati nel post preso come argomento
 	public static Set<String> getMentionedUsers(Post p) throws NullPointerException {
 		if(p == null) throw new NullPointerException();
+		return SocialNetwork.mentionedIn(p.getText());
+	}
+	// REQUIRES:	p ≠ null
+	// THROWS:		se p = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce l'insieme degli utenti menzionati all'interno del testo del post p
+	//				Un utente u è menzionato in p SSE compare in p.getText() nella forma '@'^u
+	//				con u stringa di caratteri alfanumerici U {'_'} && SocialNetwork.checkValidUsername(u)
+	
+	
+	// restituisce l'insieme degli utenti menzionati in un testo
+	protected static Set<String> mentionedIn(String text) throws NullPointerException {
+		if(text == null) throw new NullPointerException();
 		HashSet<String> menzionati = new HashSet<String>();
-		
-		// pattern regex per estrarre gli username menzionati dal testo del post
-		// estrae i caratteri dopo la '@' fermandosi al primo carattere non alfanumerico o diverso da underscore '_'
-		Matcher matcher = Pattern.compile("@(.*?)[^a-zA-Z0-9_]").matcher(p.getText()+"\0");
+		Matcher matcher = MENTION.matcher(text + "\0");
 		
 		// ciclo per l'estrazione di tutti gli utenti menzionati
 		while (matcher.find()) {
@@ -275,11 +353,8 @@ public class SocialNetwork {
 		}
 		return menzionati;
 	}
-	// REQUIRES:	p ≠ null
-	// THROWS:		se p = null lancia NullPointerException (unchecked)
-	// EFFECTS:		restituisce l'insieme degli utenti menzionati all'interno del testo del post p
-	//				Un utente u è menzionato in p SSE compare in p.getText() nella forma '@'^u
-	//				con u stringa di caratteri alfanumerici U {'_'} && SocialNetwork.checkValidUsername(u)
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce l'insieme degli username u validi che compaiono in text nella forma '@'^u
 	
 	
 	// [5][OSSERVATORE] restituisce la lista dei post creati dall'utente username nella rete sociale
@@ -343,13 +418,7 @@ public class SocialNetwork {
 	public List<Post> containing(List<String> words) throws NullPointerException {
 		if(words == null || words.contains(null)) throw new NullPointerException();
 		
-		// eliminazione parole duplicate e conversione in minuscolo
-		HashSet<String> words_set = new HashSet<String>();
-		for(String w : words)
-			words_set.add(w.toLowerCase());
-		
-		// pattern per la ricerca delle parole (evita di cercare tra le sottostringhe di una parola del testo)
-		Pattern pattern = Pattern.compile("\\b(" + String.join("|", words_set) + ")\\b");
+		Pattern pattern = SocialNetwork.wordsPattern(words);
 		
 		ArrayList<Post> lista = new ArrayList<Post>();
 		for(String utente : this.post.keySet()) {
@@ -371,6 +440,396 @@ public class SocialNetwork {
 	
 	/** [METODI NON RICHIESTI] *************************************************************************************************/
 	
+	// dimensione delle pagine richieste dagli stream dei risultati
+	protected static final int STREAM_PAGE_SIZE = 256;
+	
+	
+	// [OSSERVATORE] restituisce una pagina dei post creati da username in ordine crescente di id
+	public Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		
+		if(username == null) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		long after = Page.afterId(cursor);
+		
+		if(!this.post.containsKey(username)) throw new AbsentUsernameException();
+		
+		// i primi limit+1 post successivi al cursore dall'indice per id dell'autore (costo indipendente dal numero di post)
+		return Page.ofPosts(this.tempi.after(username, after, limit + 1), limit);
+	}
+	// REQUIRES:	username ≠ null, limit > 0, cursor = null oppure cursore di una pagina di post,
+	//				SocialNetwork.checkValidUsername(username), this.post.containsKey(username)
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se limit ≤ 0 o cursor non valido lancia IllegalArgumentException (unchecked)
+	//				se !checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se !this.post.containsKey(username) lancia AbsentUsernameException (checked)
+	// EFFECTS:		restituisce la pagina con le DEEP-COPY dei primi limit post p ∈ this.post.get(username)
+	//				con p.getId() > id del cursore (tutti se cursor = null), in ordine crescente di id
+	
+	
+	// [OSSERVATORE] restituisce una pagina dei post che includono almeno una delle parole in ordine crescente di id
+	public Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		long after = Page.afterId(cursor);
+		
+		Pattern pattern = SocialNetwork.wordsPattern(words);
+		
+		// visita in ordine di id a partire dal cursore, interrotta al primo post oltre la pagina
+		ArrayList<Post> trovati = new ArrayList<Post>();
+		for(Post p : this.index.tailMap(after, false).values()) {
+			if(pattern.matcher(p.getText().toLowerCase()).find()) {
+				trovati.add(p);
+				if(trovati.size() > limit) break;
+			}
+		}
+		return Page.ofPosts(trovati, limit);
+	}
+	// REQUIRES:	words ≠ null, null ∉ words, limit > 0, cursor = null oppure cursore di una pagina di post
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	//				se limit ≤ 0 o cursor non valido lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce la pagina con le DEEP-COPY dei primi limit post p della rete sociale
+	//				con p.getId() > id del cursore che contengono almeno una delle parole in words (come containing(words)),
+	//				in ordine crescente di id
+	
+	
+	// [OSSERVATORE] restituisce una pagina degli utenti menzionati nei post in ordine lessicografico
+	public Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		if(limit <= 0) throw new IllegalArgumentException();
+		String after = Page.afterKey(cursor);
+		
+		// i primi limit+1 utenti menzionati successivi al cursore dall'indice ordinato delle menzioni
+		ArrayList<String> primi = new ArrayList<String>();
+		for(String m : this.menzioni.tailMap(after, false).keySet()) {
+			primi.add(m);
+			if(primi.size() > limit) break;
+		}
+		return Page.ofUsers(primi, limit);
+	}
+	// REQUIRES:	limit > 0, cursor = null oppure cursore di una pagina di utenti
+	// THROWS:		se limit ≤ 0 o cursor non valido lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce la pagina con i primi limit utenti u ∈ this.getMentionedUsers()
+	//				con u > username del cursore, in ordine lessicografico
+	
+	
+	// [OSSERVATORE] restituisce lo stream dei post creati da username prodotto una pagina alla volta
+	public Stream<Post> streamWrittenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		Page<Post> prima = this.writtenBy(username, null, SocialNetwork.STREAM_PAGE_SIZE);
+		return SocialNetwork.pagedStream(prima, cursor -> {
+			try {return this.writtenBy(username, cursor, SocialNetwork.STREAM_PAGE_SIZE);}
+			catch(AbsentUsernameException | IllegalUsernameException e) {return null;}		// utente eliminato durante la visita
+		});
+	}
+	// REQUIRES:	come writtenBy(username)
+	// THROWS:		come writtenBy(username)
+	// EFFECTS:		restituisce lo stream sequenziale delle DEEP-COPY dei post di username in ordine crescente di id,
+	//				le pagine successive alla prima sono richieste solo quando lo stream le consuma
+	
+	
+	// [OSSERVATORE] restituisce lo stream dei post che includono almeno una delle parole prodotto una pagina alla volta
+	public Stream<Post> streamContaining(List<String> words) throws NullPointerException {
+		Page<Post> prima = this.containing(words, null, SocialNetwork.STREAM_PAGE_SIZE);
+		return SocialNetwork.pagedStream(prima, cursor -> this.containing(words, cursor, SocialNetwork.STREAM_PAGE_SIZE));
+	}
+	// REQUIRES:	words ≠ null, null ∉ words
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce lo stream sequenziale delle DEEP-COPY dei post restituiti da containing(words)
+	//				in ordine crescente di id, le pagine successive alla prima sono richieste solo quando lo stream le consuma
+	
+	
+	// [OSSERVATORE] restituisce lo stream degli utenti menzionati prodotto una pagina alla volta
+	public Stream<String> streamMentionedUsers() {
+		Page<String> prima = this.getMentionedUsers(null, SocialNetwork.STREAM_PAGE_SIZE);
+		return SocialNetwork.pagedStream(prima, cursor -> this.getMentionedUsers(cursor, SocialNetwork.STREAM_PAGE_SIZE));
+	}
+	// EFFECTS:		restituisce lo stream sequenziale degli utenti in this.getMentionedUsers() in ordine lessicografico,
+	//				le pagine successive alla prima sono richieste solo quando lo stream le consuma
+	
+	
+	// restituisce lo stream dei risultati della pagina e delle pagine successive
+	protected static <T> Stream<T> pagedStream(Page<T> prima, Function<String, Page<T>> successiva) {
+		Iterator<T> iteratore = new Iterator<T>() {
+			private Page<T> pagina = prima;
+			private Iterator<T> risultati = prima.getItems().iterator();
+			
+			public boolean hasNext() {
+				// pagina corrente esaurita: richiesta della successiva (anche vuota se i risultati sono stati eliminati)
+				while(!this.risultati.hasNext() && this.pagina != null && this.pagina.hasNext()) {
+					this.pagina = successiva.apply(this.pagina.getNext());
+					if(this.pagina != null) this.risultati = this.pagina.getItems().iterator();
+				}
+				return this.risultati.hasNext();
+			}
+			
+			public T next() {
+				if(!this.hasNext()) throw new NoSuchElementException();
+				return this.risultati.next();
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iteratore, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+	// REQUIRES:	prima ≠ null, successiva ≠ null
+	// EFFECTS:		restituisce lo stream dei risultati di prima seguiti da quelli delle pagine ottenute applicando
+	//				successiva al cursore della pagina precedente, finché una pagina non ha cursore o successiva restituisce null
+	
+	
+	// [OSSERVATORE] restituisce i k utenti più seguiti il cui username inizia con il prefisso (completamento di @menzioni)
+	public List<String> autocomplete(String prefix, int k) throws NullPointerException, IllegalArgumentException {
+		if(prefix == null) throw new NullPointerException();
+		if(k < 0) throw new IllegalArgumentException();
+		return this.utenti.complete(prefix, k);
+	}
+	// REQUIRES:	prefix ≠ null, k ≥ 0
+	// THROWS:		se prefix = null lancia NullPointerException (unchecked)
+	//				se k < 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce al più k utenti u ∈ this.followers.keySet() che iniziano con prefix in ordine decrescente
+	//				del numero di follower #{v | u ∈ this.followers.get(v)} (a parità in ordine lessicografico),
+	//				in tempo indipendente dal numero di utenti (lista vuota se prefix contiene caratteri non ammessi)
+	
+	
+	// restituisce l'indice per prefisso degli utenti con il numero di follower derivato dalle relazioni utente-seguiti
+	protected static UsernameIndex usernameIndex(Map<String, Set<String>> followers) {
+		UsernameIndex utenti = new UsernameIndex();
+		for(String u : followers.keySet())
+			utenti.add(u);
+		for(String u : followers.keySet()) {
+			for(String f : followers.get(u))
+				utenti.addScore(f, 1);
+		}
+		return utenti;
+	}
+	// REQUIRES:	followers ≠ null e rispetta RI(SocialNetwork) sugli utenti e sulle relazioni utente-seguiti
+	// EFFECTS:		restituisce l'indice { <u, #{v | u ∈ followers.get(v)}> | u ∈ followers.keySet() }
+	
+	
+	// smorzamento, tolleranza e numero massimo di iterazioni predefiniti del PageRank di influenceRank()
+	protected static final double PAGERANK_DAMPING = 0.85;
+	protected static final double PAGERANK_TOLERANCE = 1e-9;
+	protected static final int PAGERANK_MAX_ITERATIONS = 100;
+	
+	
+	// [OSSERVATORE] restituisce un'istantanea in formato CSR del grafo delle relazioni utente-seguiti
+	public FollowerGraph followerGraph() {
+		return new FollowerGraph(this.followers);
+	}
+	// EFFECTS:		restituisce il FollowerGraph con gli utenti this.followers.keySet() e gli archi
+	//				{ <u, f> | f ∈ this.followers.get(u) }, indipendente dalle modifiche successive di this
+	
+	
+	// [OSSERVATORE] restituisce un'istantanea non modificabile e compatta della rete sociale per le letture analitiche
+	public FrozenSocialNetwork freeze() {
+		return new FrozenSocialNetwork(this);
+	}
+	// EFFECTS:		restituisce l'istantanea di utenti, relazioni utente-seguiti e post di this copiati con visitUsers e
+	//				visitPosts sotto il lock di this (costruita in parallelo dopo il rilascio del lock),
+	//				indipendente dalle modifiche successive di this
+	
+	
+	// [OSSERVATORE] restituisce i punteggi di influenza PageRank degli utenti della rete sociale
+	public InfluenceRank influenceRank() {
+		return this.followerGraph().pageRank(SocialNetwork.PAGERANK_DAMPING, SocialNetwork.PAGERANK_TOLERANCE,
+			SocialNetwork.PAGERANK_MAX_ITERATIONS);
+	}
+	// EFFECTS:		restituisce this.followerGraph().pageRank(0.85, 1e-9, 100): un utente è tanto più influente quanto
+	//				più è seguito da utenti influenti che seguono pochi altri utenti
+	
+	
+	// massimo numero di utenti seguiti visitati e di loro seguiti contati per ognuno da whoToFollow
+	protected static final int WHO_TO_FOLLOW_SEEDS = 512;
+	protected static final int WHO_TO_FOLLOW_SAMPLE = 128;
+	
+	
+	// [OSSERVATORE] restituisce gli utenti consigliati da seguire: i più seguiti dagli utenti che username segue
+	public List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		
+		if(username == null) throw new NullPointerException();
+		if(k < 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		Set<String> seguiti = this.followers.get(username);
+		if(seguiti == null) throw new AbsentUsernameException();
+		
+		return SocialNetwork.friendsOfFriends(username, seguiti, this.followers::get, k);
+	}
+	// REQUIRES:	username ≠ null, k ≥ 0, SocialNetwork.checkValidUsername(username), this.followers.containsKey(username)
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se k < 0 lancia IllegalArgumentException (unchecked)
+	//				se !checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se !this.followers.containsKey(username) lancia AbsentUsernameException (checked)
+	// EFFECTS:		restituisce al più k utenti v ≠ username con v ∉ this.followers.get(username) in ordine decrescente di
+	//				#{ a ∈ this.followers.get(username) | v ∈ this.followers.get(a) } (a parità in ordine lessicografico);
+	//				se username segue più di WHO_TO_FOLLOW_SEEDS utenti o un utente seguito ne segue più di
+	//				WHO_TO_FOLLOW_SAMPLE sono contati solo campioni casuali uniformi di quelle dimensioni
+	
+	
+	// conta gli utenti seguiti dagli utenti seguiti (amici degli amici) e restituisce i k più frequenti
+	protected static List<String> friendsOfFriends(String username, Set<String> seguiti,
+	Function<String, ? extends Iterable<String>> seguiti_di, int k) {
+		
+		CountTable conteggi = new CountTable();
+		Random caso = ThreadLocalRandom.current();
+		for(String a : SocialNetwork.campione(seguiti, SocialNetwork.WHO_TO_FOLLOW_SEEDS, caso)) {
+			Iterable<String> candidati = seguiti_di.apply(a);
+			if(candidati == null) continue;
+			for(String v : SocialNetwork.campione(candidati, SocialNetwork.WHO_TO_FOLLOW_SAMPLE, caso)) {
+				if(!v.equals(username) && !seguiti.contains(v)) conteggi.add(v, 1);
+			}
+		}
+		return conteggi.top(k);
+	}
+	// REQUIRES:	username ≠ null, seguiti ≠ null, seguiti_di ≠ null, k ≥ 0
+	// EFFECTS:		restituisce i k candidati v ∉ seguiti ∪ {username} più frequenti tra WHO_TO_FOLLOW_SAMPLE utenti
+	//				scelti a caso in seguiti_di.apply(a) per WHO_TO_FOLLOW_SEEDS utenti a scelti a caso in seguiti
+	//				(campioni uniformi, tutti gli elementi se l'insieme è più piccolo;
+	//				seguiti_di.apply(a) = null è trattato come insieme vuoto)
+	
+	
+	// sceglie uniformemente a caso al più n elementi di un insieme in una sola visita (reservoir sampling)
+	protected static <T> List<T> campione(Iterable<T> insieme, int n, Random caso) {
+		ArrayList<T> scelti = new ArrayList<T>();
+		int visti = 0;
+		for(T x : insieme) {
+			if(visti < n) scelti.add(x);
+			else {
+				int j = caso.nextInt(visti + 1);
+				if(j < n) scelti.set(j, x);
+			}
+			visti++;
+		}
+		return scelti;
+	}
+	// REQUIRES:	insieme ≠ null, n ≥ 0, caso ≠ null
+	// EFFECTS:		restituisce una lista di min(n, #insieme) elementi distinti (per posizione) di insieme, in cui ogni
+	//				sottoinsieme di quella dimensione ha la stessa probabilità di essere scelto
+	
+	
+	// [OSSERVATORE] restituisce i post pubblicati nell'intervallo di tempo [from, to)
+	public List<Post> postsBetween(long from, long to) {
+		return SocialNetwork.copy(this.tempi.between(from, to));
+	}
+	// EFFECTS:		restituisce la lista delle DEEP-COPY dei post p della rete sociale con from ≤ p.getDataPub() < to
+	//				in ordine di pubblicazione (a parità di data in ordine di id), costo O(log n + risultati)
+	
+	
+	// [OSSERVATORE] restituisce i post di username pubblicati nell'intervallo di tempo [from, to)
+	public List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		return SocialNetwork.copy(this.tempi.between(username, from, to));
+	}
+	// REQUIRES:	username ≠ null, checkValidUsername(username), this.post.containsKey(username)
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se !checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se !this.post.containsKey(username) lancia AbsentUsernameException (checked)
+	// EFFECTS:		come postsBetween(from, to) limitata ai post p ∈ this.post.get(username)
+	
+	
+	// [OSSERVATORE] restituisce i post modificati (o pubblicati) a partire dall'istante t (sincronizzazione incrementale)
+	public List<Post> modifiedSince(long t) {
+		return SocialNetwork.copy(this.tempi.modifiedSince(t));
+	}
+	// EFFECTS:		restituisce la lista delle DEEP-COPY dei post p della rete sociale con p.getDataMod() ≥ t
+	//				in ordine di ultima modifica (a parità di data in ordine di id), costo O(log n + risultati)
+	//				NOTA: richiedendo modifiedSince(max data_mod ricevuta) non si perdono modifiche avvenute nello stesso ms
+	
+	
+	// [OSSERVATORE] restituisce i post di username modificati (o pubblicati) a partire dall'istante t
+	public List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		return SocialNetwork.copy(this.tempi.modifiedSince(username, t));
+	}
+	// REQUIRES:	username ≠ null, checkValidUsername(username), this.post.containsKey(username)
+	// THROWS:		come postsBetween(username, from, to)
+	// EFFECTS:		come modifiedSince(t) limitata ai post p ∈ this.post.get(username)
+	
+	
+	// verifica che username sia un utente valido presente nella tabella dei post
+	protected static void checkUser(Map<String, Set<Post>> post, String username)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!post.containsKey(username)) throw new AbsentUsernameException();
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se !checkValidUsername(username) lancia IllegalUsernameException (checked)
+	//				se !post.containsKey(username) lancia AbsentUsernameException (checked)
+	
+	
+	// restituisce la lista delle DEEP-COPY dei post
+	protected static List<Post> copy(List<Post> ps) {
+		ArrayList<Post> lista = new ArrayList<Post>(ps.size());
+		for(Post p : ps)
+			lista.add((Post)p.clone());
+		return lista;
+	}
+	// REQUIRES:	ps ≠ null, null ∉ ps
+	// EFFECTS:		restituisce la lista [ps.get(0).clone(), ..., ps.get(ps.size()-1).clone()]
+	
+	
+	// restituisce il pattern che riconosce nel testo (in minuscolo) di un post almeno una delle parole nella lista
+	protected static Pattern wordsPattern(List<String> words) throws NullPointerException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		
+		// eliminazione parole duplicate e conversione in minuscolo
+		HashSet<String> words_set = new HashSet<String>();
+		for(String w : words)
+			words_set.add(Pattern.quote(w.toLowerCase()));
+		
+		// pattern per la ricerca delle parole (evita di cercare tra le sottostringhe di una parola del testo)
+		return Pattern.compile("\\b(" + String.join("|", words_set) + ")\\b");
+	}
+	// REQUIRES:	words ≠ null, null ∉ words
+	// THROWS:		se words = null || null ∈ words lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce un pattern che trova una corrispondenza in t.toLowerCase() SSE il testo t contiene
+	//				almeno una delle parole in words (parole trattate letteralmente, senza significato regex)
+	
+	
+	// visita tutti i post della rete sociale (post visitati senza DEEP-COPY)
+	protected void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		if(visitor == null) throw new NullPointerException();
+		for(String utente : this.post.keySet()) {
+			for(Post p : this.post.get(utente))
+				visitor.accept(p);
+		}
+	}
+	// REQUIRES:	visitor ≠ null, visitor non modifica this né i post visitati
+	// THROWS:		se visitor = null lancia NullPointerException (unchecked)
+	// EFFECTS:		esegue visitor.accept(p) per ogni u ∈ this.post.keySet() (∀ p ∈ this.post.get(u))
+	
+	
+	// visita i post di cui username è autore (post visitati senza DEEP-COPY)
+	protected void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		if(username == null || visitor == null) throw new NullPointerException();
+		Set<Post> post = this.post.get(username);
+		if(post == null) throw new AbsentUsernameException();
+		for(Post p : post)
+			visitor.accept(p);
+	}
+	// REQUIRES:	username ≠ null, visitor ≠ null, username ∈ this.post.keySet(), visitor non modifica this né i post visitati
+	// THROWS:		se username = null || visitor = null lancia NullPointerException (unchecked)
+	//				se username ∉ this.post.keySet() lancia AbsentUsernameException (checked)
+	// EFFECTS:		esegue visitor.accept(p) per ogni p ∈ this.post.get(username)
+	
+	
+	// visita gli utenti di una partizione della rete sociale con i rispettivi seguiti (insiemi visitati senza copia)
+	protected void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		if(visitor == null) throw new NullPointerException();
+		if(parts <= 0 || part < 0 || part >= parts) throw new IllegalArgumentException();
+		for(Map.Entry<String, Set<String>> e : this.followers.entrySet()) {
+			if(Math.floorMod(e.getKey().hashCode(), parts) == part)
+				visitor.accept(e.getKey(), e.getValue());
+		}
+	}
+	// REQUIRES:	visitor ≠ null, 0 ≤ part < parts, visitor non modifica this né gli insiemi visitati
+	// THROWS:		se visitor = null lancia NullPointerException (unchecked)
+	//				se parts ≤ 0 || part < 0 || part ≥ parts lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		esegue visitor.accept(u, this.followers.get(u)) per ogni u ∈ this.followers.keySet()
+	//				con hash(u) mod parts = part (le partizioni 0..parts-1 coprono tutti gli utenti una volta)
+	
+	
 	// restituisce true se la stringa rappresenta un nome utente valido
 	protected static boolean checkValidUsername(String username) {
 		if(username.length() == 0 || username.length() > SocialNetwork.MAX_LENGTH_USERNAME) return false;
@@ -392,6 +851,7 @@ public class SocialNetwork {
 		
 		this.followers.put(username, new HashSet<String>());
 		this.post.put(username, new HashSet<Post>());
+		this.utenti.add(username);
 	}
 	// REQUIRES:	username ≠ null, checkValidUsername(username), !this.followers.containsKey(username)
 	// THROWS:		se username = null lancia NullPointerException (unchecked)
@@ -413,21 +873,32 @@ public class SocialNetwork {
 		// rimozione dei like messi dall'utente
 		for(String seguito : this.followers.get(username)) {
 			for(Post p : this.post.get(seguito)) {
-				try {p.removeLike(username);}
+				try {
+					p.removeLike(username);
+					this.onLikesChanged(p);
+				}
 				catch(AbsentLikeException e) {}		// continuo
 				catch(AuthorLikeException e) {}		// non viene lanciata mai
 			}
 		}
 		
-		// rimozione utente dalla tabella dei follower
-		this.followers.remove(username);
+		// rimozione utente dalla tabella dei follower e dall'indice degli utenti
+		for(String seguito : this.followers.remove(username))
+			this.utenti.addScore(seguito, -1);
+		this.utenti.remove(username);
 		
 		// rimozione username dall'insieme di utenti seguiti da tutti gli altri utenti
 		for(String u : this.followers.keySet())
 			this.followers.get(u).remove(username);
 		
-		// rimozione utente dalla tabella dei post e restituzione dell'insieme dei post di cui è autore
-		return this.post.remove(username);
+		// rimozione utente dalla tabella dei post e dall'indice
+		// restituzione dell'insieme dei post di cui è autore
+		Set<Post> post = this.post.remove(username);
+		for(Post p : post) {
+			this.unindexPost(p.getId());
+			this.onPostRemoved(p);
+		}
+		return post;
 	}
 	// REQUIRES:	username ≠ null, checkValidUsername(username), this.followers.containsKey(username)
 	// THROWS:		se username = null lancia NullPointerException (unchecked)
@@ -440,11 +911,12 @@ public class SocialNetwork {
 	//				(∀ u ∈ post(this.followers.keySet())
 	//					==> post(this.followers.get(u)) = pre(this.followers.get(u)) \ {username} )
 	//				post(this.post.keySet()) = pre(this.post.keySet()) \ {username}
+	//				(∀ p ∈ pre(this.post.get(username)) ==> p.getId() ∉ post(this.index.keySet()))
 	//				restituisce pre(this.post.get(username))
 	
 	
-	// [MODIFICATORE] crea un nuovo post nella rete sociale
-	public void createPost(String autore, String text)
+	// [MODIFICATORE] crea un nuovo post nella rete sociale e ne restituisce l'id
+	public long createPost(String autore, String text)
 	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
 		
 		// tenta di creare il nuovo post
@@ -454,8 +926,11 @@ public class SocialNetwork {
 		if(!SocialNetwork.checkValidUsername(autore)) throw new IllegalUsernameException();
 		if(!this.followers.containsKey(autore)) throw new AbsentUsernameException();
 		
-		// post aggiunto all'insieme dei post dell'autore
+		// post aggiunto all'insieme dei post dell'autore e all'indice
 		this.post.get(autore).add(p);
+		this.indexPost(p);
+		this.onPostAdded(p);
+		return p.getId();
 	}
 	// REQUIRES:	Post(autore, text) valido, checkValidUsername(autore), this.followers.containsKey(autore)
 	// THROWS:		se Post(autore, text) non valido propaga l'eccezione sollevata dal costruttore del tipo Post:
@@ -466,13 +941,48 @@ public class SocialNetwork {
 	//				se !this.followers.containsKey(username) lancia AbsentUsernameException (checked)
 	// MODIFIES:	this (this.post)
 	// EFFECTS:		crea un nuovo post p e lo aggiunge all'insieme dei post dell'autore nella rete sociale
-	//				post(this.post.get(autore)) = pre(this.post.get(autore)) U {p}	
+	//				post(this.post.get(autore)) = pre(this.post.get(autore)) U {p}
+	//				post(this.index) = pre(this.index) U {<p.getId(), p>}
+	//				restituisce p.getId()
+	
+	
+	// [MODIFICATORE] inserisce nella rete sociale un post già esistente (post inserito senza DEEP-COPY)
+	protected void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		if(p == null) throw new NullPointerException();
+		String autore = p.getAutore();
+		if(!this.post.containsKey(autore)) throw new AbsentUsernameException();
+		if(this.index.containsKey(p.getId())) throw new DuplicatePostException();
+		Set<String> likes = p.getLikes();
+		for(String like : likes)
+			if(!this.followers.containsKey(like)) throw new AbsentUsernameException();
+		
+		// chi ha messo like al post segue l'autore
+		for(String like : likes) {
+			if(this.followers.get(like).add(autore))
+				this.utenti.addScore(autore, 1);
+		}
+		this.post.get(autore).add(p);
+		this.indexPost(p);
+		this.onPostAdded(p);
+	}
+	// REQUIRES:	p ≠ null, p.getAutore() ∈ this.post.keySet(), p.getId() ∉ this.index.keySet(),
+	//				(∀ l ∈ p.getLikes() ==> l ∈ this.followers.keySet())
+	// THROWS:		se p = null lancia NullPointerException (unchecked)
+	//				se p.getAutore() ∉ this.post.keySet() lancia AbsentUsernameException (checked)
+	//				se (∃ l ∈ p.getLikes() : l ∉ this.followers.keySet()) lancia AbsentUsernameException (checked)
+	//				se p.getId() ∈ this.index.keySet() lancia DuplicatePostException (checked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this.post.get(p.getAutore())) = pre(this.post.get(p.getAutore())) U {p},
+	//				post(this.index) = pre(this.index) U {<p.getId(), p>},
+	//				(∀ l ∈ p.getLikes() ==> post(this.followers.get(l)) = pre(this.followers.get(l)) U {p.getAutore()})
 	
 	
 	// [MODIFICATORE] elimina e restituisce un post nella rete sociale dato l'id
 	public Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
 		
-		Post found = this.getPost(id);		// eventuali eccezioni proagate
+		if(id < 0) throw new IllegalArgumentException();
+		Post found = this.unindexPost(id);
+		if(found == null) throw new AbsentPostException();
 		String autore = found.getAutore();
 		this.post.get(autore).remove(found);
 		
@@ -481,10 +991,11 @@ public class SocialNetwork {
 			all_likes.addAll(p.getLikes());
 		}
 		for(String u : found.getLikes()) {
-			if(!all_likes.contains(u))
-				this.followers.get(u).remove(autore);
+			if(!all_likes.contains(u) && this.followers.get(u).remove(autore))
+				this.utenti.addScore(autore, -1);
 		}
 		
+		this.onPostRemoved(found);
 		return found;
 	}
 	// REQUIRES:	id >= 0, (∃ u ∈ this.post.keySet() : (∃ p ∈ this.post.get(u) : p.getId() = id) )
@@ -493,6 +1004,7 @@ public class SocialNetwork {
 	// MODIFIES:	this
 	// EFFECTS:		individua il post p tale che p.getId() = id,
 	//				post(this.post.get(p.getAutore())) = pre(this.post.get(p.getAutore())) \ {p},
+	//				post(this.index) = pre(this.index) \ {<id, p>},
 	//				rimuove p.getAutore() dall'insieme di utenti seguiti da quelli che hanno messo like a p
 	//				SSE p.getAutore() non ha più post in cui hanno messo like
 	//				e restituisce p
@@ -509,14 +1021,20 @@ public class SocialNetwork {
 		Set<Post> post = this.post.get(username);
 		// sovrascrivo l'insieme di post dell'utente con l'insieme vuoto
 		this.post.put(username, new HashSet<Post>());
+		for(Post p : post) {
+			this.unindexPost(p.getId());
+			this.onPostRemoved(p);
+		}
 		
 		// costruisco insieme di utenti che seguivano username
 		HashSet<String> likes = new HashSet<String>();
 		for(Post p : post)
 			likes.addAll(p.getLikes());
 		// rimuovo username dall'insieme di utenti seguiti da ogni follower di username
-		for(String l : likes)
-			this.followers.get(l).remove(username);
+		for(String l : likes) {
+			if(this.followers.get(l).remove(username))
+				this.utenti.addScore(username, -1);
+		}
 		
 		return post;
 	}
@@ -526,6 +1044,7 @@ public class SocialNetwork {
 	//				se !this.followers.containsKey(username) lancia AbsentUsernameException (checked)	
 	// MODIFIES:	this
 	// EFFECTS:		post(this.post.get(username)) = {},
+	//				(∀ p ∈ pre(this.post.get(username)) ==> p.getId() ∉ post(this.index.keySet())),
 	//				rimuove username dall'insieme di utenti seguiti di coloro che hanno messo like
 	//				ad almeno uno dei post in pre(this.post.get(username))
 	//				e restituisce pre(this.post.get(username))
@@ -535,13 +1054,9 @@ public class SocialNetwork {
 	public Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
 		if(id < 0) throw new IllegalArgumentException();
 		
-		for(String user : this.post.keySet()) {		// per ogni user
-			for(Post p : this.post.get(user)) {		// per ogni post di user
-				if(p.getId() == id)					// se il post ha id cercato
-					return (Post)p.clone();			// restituisci la DEEP-COPY del post
-			}
-		}
-		throw new AbsentPostException();
+		Post p = this.index.get(id);			// accesso diretto tramite l'indice
+		if(p == null) throw new AbsentPostException();
+		return (Post)p.clone();					// restituisci la DEEP-COPY del post
 	}
 	// REQUIRES:	id >= 0, (∃ u ∈ this.post.keySet() : (∃ p ∈ this.post.get(u) : p.getId() = id) )
 	// THROWS:		se id < 0 lancia IllegalArgumentException (unchecked)
@@ -549,6 +1064,78 @@ public class SocialNetwork {
 	// EFFECTS:		restituisce la DEEP-COPY del post p
 	
 	
+	// [MODIFICATORE] sostituisce il testo del post con l'id specificato aggiornandone la data di modifica
+	public void modificaPost(long id, String text) throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		this.modificaPost(id, text, new Date().getTime());
+	}
+	// REQUIRES:	id ≥ 0, text ≠ null, 0 < text.length() ≤ 140, id ∈ this.index.keySet()
+	// THROWS:		se text = null lancia NullPointerException (unchecked)
+	//				se id < 0 lancia IllegalArgumentException (unchecked)
+	//				se text non è un testo valido per un post lancia IllegalTextException (checked)
+	//				se id ∉ this.index.keySet() lancia AbsentPostException (checked)
+	// MODIFIES:	this
+	// EFFECTS:		esegue this.index.get(id).modificaText(text) e aggiorna l'indice temporale
+	
+	
+	// [MODIFICATORE] sostituisce il testo del post con l'id specificato con la data di modifica specificata
+	protected void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		if(text == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		
+		Post p = this.index.get(id);
+		if(p == null) throw new AbsentPostException();
+		long precedente = p.getDataMod();
+		String testo_precedente = p.getText();
+		p.modificaText(text, data_mod);			// lancia IllegalTextException senza modificare il post
+		this.tempi.modify(p, precedente);
+		this.contaMenzioni(testo_precedente, -1);
+		this.contaMenzioni(text, 1);
+		this.onTextChanged(p, testo_precedente);
+	}
+	// REQUIRES:	come modificaPost(id, text)
+	// THROWS:		come modificaPost(id, text)
+	// MODIFIES:	this
+	// EFFECTS:		esegue this.index.get(id).modificaText(text, data_mod) e aggiorna l'indice temporale
+	//				(la data di modifica del post non decresce)
+	
+	
+	// inserisce un post negli indici per id e per data
+	protected void indexPost(Post p) {
+		this.index.put(p.getId(), p);
+		this.tempi.add(p);
+		this.contaMenzioni(p.getText(), 1);
+	}
+	// REQUIRES:	p ≠ null, p.getId() ∉ this.index.keySet()
+	// MODIFIES:	this.index, this.tempi, this.menzioni
+	// EFFECTS:		post(this.index) = pre(this.index) U {<p.getId(), p>}, post(this.tempi) = pre(this.tempi) U {p},
+	//				conta le menzioni di p in this.menzioni
+	
+	
+	// rimuove dagli indici per id e per data il post con l'id specificato e lo restituisce
+	protected Post unindexPost(long id) {
+		Post p = this.index.remove(id);
+		if(p != null) {
+			this.tempi.remove(p);
+			this.contaMenzioni(p.getText(), -1);
+		}
+		return p;
+	}
+	// MODIFIES:	this.index, this.tempi, this.menzioni
+	// EFFECTS:		rimuove p = pre(this.index).get(id) da this.index, da this.tempi e le sue menzioni da this.menzioni
+	//				e lo restituisce (null se assente)
+	
+	
+	// aggiorna il numero di post che menzionano ogni utente menzionato in un testo
+	private void contaMenzioni(String text, int delta) {
+		for(String m : SocialNetwork.mentionedIn(text))
+			this.menzioni.merge(m, delta, (a, b) -> (a + b == 0) ? null : a + b);
+	}
+	// REQUIRES:	text ≠ null
+	// MODIFIES:	this.menzioni
+	// EFFECTS:		aggiunge delta al conteggio di ogni m ∈ mentionedIn(text), rimuovendo i conteggi che diventano 0
+	
+	
 	// [MODIFICATORE] utente mette like al post nella rete sociale con l'id specificato
 	public void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
 	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
@@ -558,17 +1145,13 @@ public class SocialNetwork {
 		if(!checkValidUsername(username)) throw new IllegalUsernameException();
 		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
 		
-		for(String u : this.post.keySet()) {
-			for(Post p : this.post.get(u)) {
-				if(p.getId() == id) {
-					p.addLike(username);	// eventuali eccezioni propagate
-					// username segue l'utente a cui ha messo like
-					this.followers.get(username).add(p.getAutore());
-					return;
-				}
-			}
-		}
-		throw new AbsentPostException();
+		Post p = this.index.get(id);
+		if(p == null) throw new AbsentPostException();
+		p.addLike(username);	// eventuali eccezioni propagate
+		// username segue l'utente a cui ha messo like
+		if(this.followers.get(username).add(p.getAutore()))
+			this.utenti.addScore(p.getAutore(), 1);
+		this.onLikesChanged(p);
 	}
 	// REQUIRES:	username != null, id >= 0, SocialNetwork.checkValidUsername(username), this.post.containsKey(username),
 	//				(∃ u ∈ this.post.keySet() : (∃ p ∈ this.post.get(u) :
@@ -594,23 +1177,20 @@ public class SocialNetwork {
 		if(!checkValidUsername(username)) throw new IllegalUsernameException();
 		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
 		
-		for(String u : this.post.keySet()) {
-			for(Post p : this.post.get(u)) {
-				if(p.getId() == id) {
-					p.removeLike(username);		// eventuali eccezioni propagate
-					// termina se c'è un altro post di u a cui username ha messo like
-					for(Post post : this.post.get(u)) {
-						if(post.getLikes().contains(username))
-							return;
-					}
-					// se non c'è più alcun post di u a cui username ha messo like
-					// rimuove u dall'insieme di utenti che username segue e termina
-					this.followers.get(username).remove(u);
-					return;
-				}
-			}
+		Post p = this.index.get(id);
+		if(p == null) throw new AbsentPostException();
+		p.removeLike(username);		// eventuali eccezioni propagate
+		this.onLikesChanged(p);
+		String u = p.getAutore();
+		// termina se c'è un altro post di u a cui username ha messo like
+		for(Post post : this.post.get(u)) {
+			if(post.hasLike(username))
+				return;
 		}
-		throw new AbsentPostException();
+		// se non c'è più alcun post di u a cui username ha messo like
+		// rimuove u dall'insieme di utenti che username segue
+		if(this.followers.get(username).remove(u))
+			this.utenti.addScore(u, -1);
 	}
 	// REQUIRES:	username != null, id >= 0, SocialNetwork.checkValidUsername(username), this.followers.containsKey(username),
 	//				(∃ u ∈ this.post.keySet() : (∃ p ∈ this.post.get(u) :
@@ -628,6 +1208,94 @@ public class SocialNetwork {
 	//				SSE ( p.getId() = id && (∀ t ∈ post(this.post.get(p.getAutore())) ==> username ∉ t.getLikes()) )
 	
 	
+	/** [MODIFICATORI CON ESITO] ************************************************************************************************/
+	// Varianti dei modificatori più frequenti che restituiscono un esito invece di lanciare eccezioni: le condizioni
+	// di errore sono verificate prima della modifica, che viene poi delegata al modificatore omonimo (e quindi alle sue
+	// ridefinizioni). Utili quando i fallimenti sono frequenti (es. like duplicati dovuti a richieste ripetute), perché
+	// costruire un'eccezione con lo stack trace costa molto più della modifica stessa.
+	
+	// [MODIFICATORE] come createUser(username) ma restituisce l'esito
+	public StatusCode tryCreateUser(String username) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(this.followers.containsKey(username)) return StatusCode.DUPLICATE_USERNAME;
+		
+		try {
+			this.createUser(username);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		return StatusCode.OK;
+	}
+	// EFFECTS:		se createUser(username) lancerebbe un'eccezione e restituisce StatusCode.fromException(e)
+	//				senza modificare this, altrimenti esegue createUser(username) e restituisce StatusCode.OK
+	
+	
+	// [MODIFICATORE] come addLike(username, id) ma restituisce l'esito
+	public StatusCode tryAddLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		Post p = this.index.get(id);
+		if(p == null) return StatusCode.ABSENT_POST;
+		if(p.getAutore().equals(username)) return StatusCode.AUTHOR_LIKE;
+		if(p.hasLike(username)) return StatusCode.DUPLICATE_LIKE;
+		
+		try {
+			this.addLike(username, id);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		return StatusCode.OK;
+	}
+	// EFFECTS:		se addLike(username, id) lancerebbe un'eccezione e restituisce StatusCode.fromException(e)
+	//				senza modificare this, altrimenti esegue addLike(username, id) e restituisce StatusCode.OK
+	
+	
+	// [MODIFICATORE] come removeLike(username, id) ma restituisce l'esito
+	public StatusCode tryRemoveLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		Post p = this.index.get(id);
+		if(p == null) return StatusCode.ABSENT_POST;
+		if(p.getAutore().equals(username)) return StatusCode.AUTHOR_LIKE;
+		if(!p.hasLike(username)) return StatusCode.ABSENT_LIKE;
+		
+		try {
+			this.removeLike(username, id);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		return StatusCode.OK;
+	}
+	// EFFECTS:		se removeLike(username, id) lancerebbe un'eccezione e restituisce StatusCode.fromException(e)
+	//				senza modificare this, altrimenti esegue removeLike(username, id) e restituisce StatusCode.OK
+	
+	
+	/** [HOOK] ******************************************************************************************************************/
+	// Chiamati dai modificatori di SocialNetwork dopo ogni modifica andata a buon fine, con il post originale (non una copia).
+	// Permettono alle sottoclassi di mantenere strutture derivate (versioni, cache, indici) senza ridefinire i modificatori;
+	// non sono chiamati dai costruttori. Il post passato non deve essere modificato dall'hook.
+	
+	// chiamato dopo l'inserimento di un post nella rete sociale (createPost, insertPost)
+	protected void onPostAdded(Post p) {}
+	
+	// chiamato dopo la rimozione di un post dalla rete sociale (deletePost, deleteAllPost, deleteUser)
+	protected void onPostRemoved(Post p) {}
+	
+	// chiamato dopo l'aggiunta o la rimozione di un like al post (addLike, removeLike, deleteUser)
+	protected void onLikesChanged(Post p) {}
+	
+	// chiamato dopo la modifica del testo del post (modificaPost), con il testo precedente
+	protected void onTextChanged(Post p, String testo_precedente) {}
+	
+	
 	// mostra lo stato attuale della rete sociale
 	public void stampa() {
 		System.out.printf("================================================\n");
@@ -0,0 +1,497 @@
+import java.util.List;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpExchange;
+
+
+public class SocialNetworkHttpServer {
+
+/**
+	OVERVIEW:
+	Front-end HTTP/JSON di una ReportSocialNetwork basato sul server HTTP del JDK (com.sun.net.httpserver).
+	Ogni richiesta è servita da un virtual thread dedicato quando la JVM li supporta (Java ≥ 21),
+	altrimenti da un thread di un pool senza limite. Le liste di post sono lette a pagine di al più PAGE_SIZE post
+	sotto il lock in lettura e scritte in streaming dopo averlo rilasciato: un client lento o bloccato non ritarda
+	le modifiche, e la memoria di una risposta non dipende dal numero di post.
+	
+	RISORSE:
+		POST	/users/{user}						crea l'utente										201 {}
+		DELETE	/users/{user}						elimina l'utente									200 [post eliminati]
+		GET		/users/{user}/posts					post scritti da user								200 [post]
+		POST	/users/{user}/posts					crea un post con il corpo della richiesta come testo	201 {"id":id}
+		DELETE	/users/{user}/posts					elimina tutti i post di user							200 [post eliminati]
+		GET		/posts/{id}							post con l'id specificato							200 post
+		DELETE	/posts/{id}							elimina il post										200 post
+		POST	/posts/{id}/likes/{user}			user mette like al post								201 {}
+		DELETE	/posts/{id}/likes/{user}			user toglie like al post							200 {}
+		POST	/posts/{id}/reports/{user}?type=T	user segnala il post con tipo T (ReportType)		201 {}
+		GET		/search?words=w1,w2,...				post che contengono almeno una parola				200 [post]
+		GET		/mentions							utenti menzionati									200 [user]
+		GET		/influencers						influencer della rete sociale						200 [user]
+	
+	ERRORI:		400 argomenti non validi (NullPointer, IllegalArgument, IllegalUsername, IllegalText)
+				404 risorsa assente (AbsentUsername, AbsentPost, AbsentLike o risorsa sconosciuta)
+				409 conflitto (Duplicate*, AuthorLike, AuthorReport)
+				405 modifica non consentita dalla rete sociale servita (es. ReplicaSocialNetwork)
+				413 corpo della richiesta più lungo di MAX_BODY byte (PayloadTooLarge)
+				con corpo {"error":"NomeEccezione"}
+	
+	RI =  this.rete ≠ null && this.lock ≠ null
+		  &&  (this.server ≠ null) ⇔ (this.executor ≠ null)	// server avviato
+		  &&  ogni accesso a this.rete avviene tramite this (letture in this.lock.readLock(), modifiche in this.lock.writeLock())
+**/
+	
+	// rete sociale servita
+	private final ReportSocialNetwork rete;
+	// numero massimo di post letti sotto il lock per ogni pagina delle risposte in streaming
+	private static final int PAGE_SIZE = 256;
+	// byte massimi del corpo di una richiesta (codifica UTF-8 di un testo di al più Post.MAX_LENGTH caratteri)
+	private static final int MAX_BODY = 3 * Post.MAX_LENGTH;
+	
+	// lock che serializza le modifiche e permette letture concorrenti
+	private final ReentrantReadWriteLock lock;
+	// server HTTP (null se non avviato)
+	private HttpServer server;
+	// executor che esegue le richieste (null se non avviato)
+	private ExecutorService executor;
+	
+	
+	// COSTRUTTORE
+	public SocialNetworkHttpServer(ReportSocialNetwork rete) throws NullPointerException {
+		if(rete == null) throw new NullPointerException();
+		this.rete = rete;
+		this.lock = new ReentrantReadWriteLock();
+		this.server = null;
+		this.executor = null;
+	}
+	// REQUIRES:	rete ≠ null, rete non viene modificata se non tramite this
+	// THROWS:		se rete = null lancia NullPointerException (unchecked)
+	// EFFECTS:		inizializza un server non avviato per la rete sociale specificata
+	
+	
+	// avvia il server sulla porta specificata (0 = porta libera qualsiasi)
+	public synchronized int start(int port) throws IOException, IllegalStateException {
+		if(this.server != null) throw new IllegalStateException();
+		// le risposte in streaming sono inviate a blocchi: senza TCP_NODELAY l'algoritmo di Nagle
+		// e l'ACK ritardato del client aggiungono ~40 ms a ogni risposta (letta solo alla prima creazione di un HttpServer)
+		if(System.getProperty("sun.net.httpserver.nodelay") == null)
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+		this.executor = SocialNetworkHttpServer.newThreadPerRequestExecutor();
+		this.server.setExecutor(this.executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+		return this.server.getAddress().getPort();
+	}
+	// THROWS:		se il socket non può essere aperto lancia IOException (checked)
+	//				se il server è già avviato lancia IllegalStateException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		avvia il server e restituisce la porta effettiva su cui è in ascolto
+	
+	
+	// arresta il server attendendo al più delay secondi la fine delle richieste in corso
+	public synchronized void stop(int delay) {
+		if(this.server == null) return;
+		this.server.stop(delay);
+		this.executor.shutdown();
+		try {this.executor.awaitTermination(delay, TimeUnit.SECONDS);}
+		catch(InterruptedException e) {Thread.currentThread().interrupt();}
+		this.server = null;
+		this.executor = null;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		arresta il server (se avviato)
+	
+	
+	// restituisce un executor con un virtual thread per richiesta (se disponibile) o un pool di thread illimitato
+	private static ExecutorService newThreadPerRequestExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch(ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();		// JVM senza virtual thread (Java < 21)
+		}
+	}
+	// EFFECTS:		restituisce Executors.newVirtualThreadPerTaskExecutor() se la JVM lo fornisce,
+	//				altrimenti Executors.newCachedThreadPool()
+	
+	
+	/** [GESTIONE DELLE RICHIESTE] *********************************************************************************/
+	
+	// instrada la richiesta verso la risorsa corrispondente
+	private void handle(HttpExchange ex) throws IOException {
+		try {
+			String metodo = ex.getRequestMethod();
+			String[] path = Arrays.stream(ex.getRequestURI().getPath().split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+			
+			if(path.length >= 2 && path[0].equals("users")) this.users(ex, metodo, path);
+			else if(path.length >= 2 && path[0].equals("posts")) this.posts(ex, metodo, path);
+			else if(path.length == 1 && path[0].equals("search") && metodo.equals("GET")) this.search(ex);
+			else if(path.length == 1 && path[0].equals("mentions") && metodo.equals("GET")) this.mentions(ex);
+			else if(path.length == 1 && path[0].equals("influencers") && metodo.equals("GET")) this.influencers(ex);
+			else SocialNetworkHttpServer.error(ex, 404, "NotFound");
+		}
+		catch(Exception e) {
+			SocialNetworkHttpServer.error(ex, SocialNetworkHttpServer.status(e), e.getClass().getSimpleName());
+		}
+		finally {
+			ex.close();
+		}
+	}
+	// MODIFIES:	this.rete (se la richiesta è una modifica)
+	// EFFECTS:		esegue la richiesta e scrive la risposta, in caso di eccezione risponde con l'errore corrispondente
+	
+	
+	// risorse /users/{user} e /users/{user}/posts
+	private void users(HttpExchange ex, String metodo, String[] path) throws Exception {
+		String user = path[1];
+		
+		if(path.length == 2 && metodo.equals("POST")) {
+			this.lock.writeLock().lock();
+			try {this.rete.createUser(user);}
+			finally {this.lock.writeLock().unlock();}
+			SocialNetworkHttpServer.empty(ex, 201);
+		}
+		else if(path.length == 2 && metodo.equals("DELETE")) {
+			Set<Post> post;
+			this.lock.writeLock().lock();
+			try {post = this.rete.deleteUser(user);}
+			finally {this.lock.writeLock().unlock();}
+			SocialNetworkHttpServer.streamPosts(ex, post);		// post non più raggiungibili dalla rete sociale
+		}
+		else if(path.length == 3 && path[2].equals("posts") && metodo.equals("GET")) {
+			if(!SocialNetwork.checkValidUsername(user)) throw new IllegalUsernameException();
+			this.streamPages(ex, cursore -> this.rete.writtenBy(user, cursore, PAGE_SIZE));
+		}
+		else if(path.length == 3 && path[2].equals("posts") && metodo.equals("POST")) {
+			String text = SocialNetworkHttpServer.body(ex);
+			if(text == null) {
+				SocialNetworkHttpServer.error(ex, 413, "PayloadTooLarge");
+				return;
+			}
+			long id;
+			this.lock.writeLock().lock();
+			try {id = this.rete.createPost(user, text);}
+			finally {this.lock.writeLock().unlock();}
+			Writer w = SocialNetworkHttpServer.open(ex, 201);
+			w.write("{\"id\":");
+			w.write(Long.toString(id));
+			w.write('}');
+			w.flush();
+		}
+		else if(path.length == 3 && path[2].equals("posts") && metodo.equals("DELETE")) {
+			Set<Post> post;
+			this.lock.writeLock().lock();
+			try {post = this.rete.deleteAllPost(user);}
+			finally {this.lock.writeLock().unlock();}
+			SocialNetworkHttpServer.streamPosts(ex, post);
+		}
+		else SocialNetworkHttpServer.error(ex, 404, "NotFound");
+	}
+	
+	
+	// risorse /posts/{id}, /posts/{id}/likes/{user} e /posts/{id}/reports/{user}
+	private void posts(HttpExchange ex, String metodo, String[] path) throws Exception {
+		long id;
+		try {id = Long.parseLong(path[1]);}
+		catch(NumberFormatException e) {throw new IllegalArgumentException();}
+		
+		if(path.length == 2 && metodo.equals("GET")) {
+			Post p;
+			this.lock.readLock().lock();
+			try {p = this.rete.getPost(id);}
+			finally {this.lock.readLock().unlock();}
+			Writer w = SocialNetworkHttpServer.open(ex, 200);
+			SocialNetworkHttpServer.writePost(w, p);
+			w.flush();
+		}
+		else if(path.length == 2 && metodo.equals("DELETE")) {
+			Post p;
+			this.lock.writeLock().lock();
+			try {p = this.rete.deletePost(id);}
+			finally {this.lock.writeLock().unlock();}
+			Writer w = SocialNetworkHttpServer.open(ex, 200);
+			SocialNetworkHttpServer.writePost(w, p);
+			w.flush();
+		}
+		else if(path.length == 4 && path[2].equals("likes") && (metodo.equals("POST") || metodo.equals("DELETE"))) {
+			this.lock.writeLock().lock();
+			try {
+				if(metodo.equals("POST")) this.rete.addLike(path[3], id);
+				else this.rete.removeLike(path[3], id);
+			}
+			finally {this.lock.writeLock().unlock();}
+			SocialNetworkHttpServer.empty(ex, metodo.equals("POST") ? 201 : 200);
+		}
+		else if(path.length == 4 && path[2].equals("reports") && metodo.equals("POST")) {
+			ReportType type = ReportType.valueOf(SocialNetworkHttpServer.query(ex, "type"));	// IllegalArgumentException se ignoto
+			this.lock.writeLock().lock();
+			try {this.rete.addReport(path[3], id, type);}
+			finally {this.lock.writeLock().unlock();}
+			SocialNetworkHttpServer.empty(ex, 201);
+		}
+		else SocialNetworkHttpServer.error(ex, 404, "NotFound");
+	}
+	
+	
+	// risorsa /search?words=w1,w2,...
+	private void search(HttpExchange ex) throws Exception {
+		String words = SocialNetworkHttpServer.query(ex, "words");
+		if(words == null) throw new NullPointerException();
+		List<String> lista = Arrays.asList(words.split(","));
+		this.streamPages(ex, cursore -> this.rete.containing(lista, cursore, PAGE_SIZE));
+	}
+	
+	
+	// risorsa /mentions
+	private void mentions(HttpExchange ex) throws IOException {
+		Set<String> menzionati;
+		this.lock.readLock().lock();
+		try {menzionati = this.rete.getMentionedUsers();}
+		finally {this.lock.readLock().unlock();}
+		SocialNetworkHttpServer.streamStrings(ex, menzionati);
+	}
+	
+	
+	// risorsa /influencers
+	private void influencers(HttpExchange ex) throws IOException {
+		List<String> influencer;
+		this.lock.readLock().lock();
+		try {influencer = this.rete.influencers();}
+		finally {this.lock.readLock().unlock();}
+		SocialNetworkHttpServer.streamStrings(ex, influencer);
+	}
+	
+	
+	// scrive in streaming i post delle pagine successive, ognuna letta sotto il lock e scritta dopo averlo rilasciato
+	private void streamPages(HttpExchange ex, Pagine pagine) throws Exception {
+		Separatore sep = new Separatore(ex);
+		String cursore = null;
+		do {
+			Page<Post> pagina;
+			this.lock.readLock().lock();
+			try {
+				pagina = pagine.get(cursore);
+			}
+			catch(AbsentUsernameException e) {
+				if(cursore == null) throw e;		// utente assente: risposta d'errore
+				break;								// utente eliminato durante l'invio: l'array termina
+			}
+			finally {
+				this.lock.readLock().unlock();
+			}
+			for(Post p : pagina.getItems())
+				sep.post(p);						// un client lento non trattiene il lock
+			cursore = pagina.getNext();
+		} while(cursore != null);
+		sep.close();
+	}
+	// MODIFIES:	ex
+	// EFFECTS:		scrive come array JSON i post di pagine.get(null) e delle pagine successive (cursore della precedente),
+	//				tenendo il lock in lettura solo per la lettura di ogni pagina (al più PAGE_SIZE DEEP-COPY);
+	//				propaga le eccezioni della prima pagina (risposta d'errore)
+	
+	
+	// pagina di post successiva al cursore (null per la prima)
+	private interface Pagine {
+		Page<Post> get(String cursor) throws Exception;
+	}
+	
+	
+	/** [SCRITTURA JSON IN STREAMING] ******************************************************************************/
+	
+	// scrive la risposta come array JSON i cui elementi sono scritti man mano che vengono prodotti
+	// (l'intestazione è inviata al primo elemento, così un'eccezione sollevata prima produce una risposta d'errore)
+	private static class Separatore {
+		private final HttpExchange ex;
+		private Writer w;
+		
+		Separatore(HttpExchange ex) {
+			this.ex = ex;
+			this.w = null;
+		}
+		
+		// invia l'intestazione e apre l'array al primo elemento, altrimenti scrive il separatore
+		private void next() throws IOException {
+			if(this.w == null) {
+				this.w = SocialNetworkHttpServer.open(this.ex, 200);
+				this.w.write('[');
+			}
+			else this.w.write(',');
+		}
+		
+		// scrive il post come elemento successivo dell'array
+		void post(Post p) {
+			try {
+				this.next();
+				SocialNetworkHttpServer.writePost(this.w, p);
+			}
+			catch(IOException e) {throw new UncheckedIOException(e);}
+		}
+		
+		// scrive la stringa come elemento successivo dell'array
+		void string(String s) throws IOException {
+			this.next();
+			SocialNetworkHttpServer.writeString(this.w, s);
+		}
+		
+		// chiude l'array (eventualmente vuoto) e invia quanto rimasto nel buffer
+		void close() throws IOException {
+			if(this.w == null) {
+				this.w = SocialNetworkHttpServer.open(this.ex, 200);
+				this.w.write('[');
+			}
+			this.w.write(']');
+			this.w.flush();
+		}
+	}
+	
+	
+	// scrive la rappresentazione JSON del post
+	private static void writePost(Writer w, Post p) throws IOException {
+		w.write("{\"id\":");
+		w.write(Long.toString(p.getId()));
+		w.write(",\"autore\":");
+		SocialNetworkHttpServer.writeString(w, p.getAutore());
+		w.write(",\"text\":");
+		SocialNetworkHttpServer.writeString(w, p.getText());
+		w.write(",\"data_pub\":");
+		w.write(Long.toString(p.getDataPub()));
+		w.write(",\"data_mod\":");
+		w.write(Long.toString(p.getDataMod()));
+		w.write(",\"likes\":[");
+		boolean primo = true;
+		for(String like : p.getLikes()) {
+			if(!primo) w.write(',');
+			primo = false;
+			SocialNetworkHttpServer.writeString(w, like);
+		}
+		w.write("]}");
+	}
+	// EFFECTS:		scrive su w {"id":..,"autore":..,"text":..,"data_pub":..,"data_mod":..,"likes":[..]}
+	
+	
+	// scrive la stringa JSON corrispondente a s (con escape dei caratteri speciali)
+	protected static void writeString(Writer w, String s) throws IOException {
+		w.write('"');
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch(c) {
+				case '"':	w.write("\\\""); break;
+				case '\\':	w.write("\\\\"); break;
+				case '\n':	w.write("\\n"); break;
+				case '\r':	w.write("\\r"); break;
+				case '\t':	w.write("\\t"); break;
+				default:
+					if(c < 0x20) w.write(String.format("\\u%04x", (int)c));
+					else w.write(c);
+			}
+		}
+		w.write('"');
+	}
+	// EFFECTS:		scrive su w la stringa s racchiusa tra virgolette con escape secondo RFC 8259
+	
+	
+	// invia l'intestazione della risposta in streaming (chunked) e restituisce il writer del corpo
+	private static Writer open(HttpExchange ex, int status) throws IOException {
+		ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		ex.sendResponseHeaders(status, 0);
+		OutputStream out = ex.getResponseBody();
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+	}
+	
+	private static void streamPosts(HttpExchange ex, Set<Post> post) throws IOException {
+		Separatore sep = new Separatore(ex);
+		for(Post p : post)
+			sep.post(p);
+		sep.close();
+	}
+	
+	private static void streamStrings(HttpExchange ex, Iterable<String> lista) throws IOException {
+		Separatore sep = new Separatore(ex);
+		for(String s : lista)
+			sep.string(s);
+		sep.close();
+	}
+	
+	private static void empty(HttpExchange ex, int status) throws IOException {
+		Writer w = SocialNetworkHttpServer.open(ex, status);
+		w.write("{}");
+		w.flush();
+	}
+	
+	private static void error(HttpExchange ex, int status, String nome) {
+		try {
+			Writer w = SocialNetworkHttpServer.open(ex, status);
+			w.write("{\"error\":");
+			SocialNetworkHttpServer.writeString(w, nome);
+			w.write('}');
+			w.flush();
+		}
+		catch(IOException e) {}		// intestazione già inviata o client disconnesso
+	}
+	
+	
+	// legge il corpo della richiesta come testo UTF-8 se non supera MAX_BODY byte
+	private static String body(HttpExchange ex) throws IOException {
+		String lunghezza = ex.getRequestHeaders().getFirst("Content-Length");
+		try {
+			if(lunghezza != null && Long.parseLong(lunghezza.trim()) > MAX_BODY) return null;
+		}
+		catch(NumberFormatException e) {throw new IllegalArgumentException();}
+		byte[] b = ex.getRequestBody().readNBytes(MAX_BODY + 1);		// un byte in più rivela un corpo troppo lungo
+		return (b.length > MAX_BODY) ? null : new String(b, StandardCharsets.UTF_8);
+	}
+	// THROWS:		se Content-Length non è un numero lancia IllegalArgumentException (unchecked)
+	//				se la lettura fallisce lancia IOException (checked)
+	// EFFECTS:		restituisce il corpo decodificato, null se Content-Length o i byte letti superano MAX_BODY
+	//				(al più MAX_BODY + 1 byte letti in memoria)
+	
+	
+	// restituisce il valore (decodificato) del parametro della query string
+	private static String query(HttpExchange ex, String nome) {
+		String query = ex.getRequestURI().getRawQuery();
+		if(query == null) return null;
+		for(String coppia : query.split("&")) {
+			int i = coppia.indexOf('=');
+			if(i > 0 && coppia.substring(0, i).equals(nome))
+				return URLDecoder.decode(coppia.substring(i + 1), StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+	// EFFECTS:		restituisce il valore del parametro nome nella query string della richiesta (null se assente)
+	
+	
+	// restituisce lo stato HTTP corrispondente all'eccezione sollevata dalla rete sociale
+	private static int status(Exception e) {
+		if(e instanceof AbsentUsernameException || e instanceof AbsentPostException || e instanceof AbsentLikeException)
+			return 404;
+		if(e instanceof DuplicateUsernameException || e instanceof DuplicatePostException || e instanceof DuplicateLikeException
+		|| e instanceof DuplicateReportException || e instanceof AuthorLikeException || e instanceof AuthorReportException)
+			return 409;
+		if(e instanceof NullPointerException || e instanceof IllegalArgumentException
+		|| e instanceof IllegalUsernameException || e instanceof IllegalTextException)
+			return 400;
+		if(e instanceof UnsupportedOperationException)
+			return 405;
+		return 500;
+	}
+	// EFFECTS:		restituisce 404 per eccezioni di assenza, 409 per duplicati e conflitti con l'autore,
+	//				400 per argomenti non validi, 405 per modifiche non consentite (es. ReplicaSocialNetwork),
+	//				500 altrimenti
+
+}
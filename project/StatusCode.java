@@ -0,0 +1,69 @@
+
+
+public enum StatusCode {
+	OK,
+	NULL_POINTER,
+	ILLEGAL_ARGUMENT,
+	ILLEGAL_USERNAME,
+	ILLEGAL_TEXT,
+	ABSENT_USERNAME,
+	ABSENT_POST,
+	ABSENT_LIKE,
+	DUPLICATE_USERNAME,
+	DUPLICATE_POST,
+	DUPLICATE_LIKE,
+	DUPLICATE_REPORT,
+	AUTHOR_LIKE,
+	AUTHOR_REPORT,
+	UNSUPPORTED_OPERATION,
+	INTERNAL_ERROR;
+	
+	
+	// restituisce l'esito corrispondente all'eccezione sollevata da un'operazione della rete sociale
+	public static StatusCode fromException(Exception e) {
+		if(e == null) return OK;
+		if(e instanceof NullPointerException) return NULL_POINTER;
+		if(e instanceof UnsupportedOperationException) return UNSUPPORTED_OPERATION;
+		if(e instanceof IllegalArgumentException) return ILLEGAL_ARGUMENT;
+		if(e instanceof IllegalUsernameException) return ILLEGAL_USERNAME;
+		if(e instanceof IllegalTextException) return ILLEGAL_TEXT;
+		if(e instanceof AbsentUsernameException) return ABSENT_USERNAME;
+		if(e instanceof AbsentPostException) return ABSENT_POST;
+		if(e instanceof AbsentLikeException) return ABSENT_LIKE;
+		if(e instanceof DuplicateUsernameException) return DUPLICATE_USERNAME;
+		if(e instanceof DuplicatePostException) return DUPLICATE_POST;
+		if(e instanceof DuplicateLikeException) return DUPLICATE_LIKE;
+		if(e instanceof DuplicateReportException) return DUPLICATE_REPORT;
+		if(e instanceof AuthorLikeException) return AUTHOR_LIKE;
+		if(e instanceof AuthorReportException) return AUTHOR_REPORT;
+		return INTERNAL_ERROR;
+	}
+	// EFFECTS:		restituisce OK se e = null, altrimenti l'esito corrispondente alla classe di e
+	//				(INTERNAL_ERROR per eccezioni non previste dalla rete sociale)
+	
+	
+	// restituisce una nuova istanza dell'eccezione corrispondente all'esito
+	public Exception toException() {
+		switch(this) {
+			case NULL_POINTER:			return new NullPointerException();
+			case ILLEGAL_ARGUMENT:		return new IllegalArgumentException();
+			case ILLEGAL_USERNAME:		return new IllegalUsernameException(null, false);
+			case ILLEGAL_TEXT:			return new IllegalTextException(null, false);
+			case ABSENT_USERNAME:		return new AbsentUsernameException(null, false);
+			case ABSENT_POST:			return new AbsentPostException(null, false);
+			case ABSENT_LIKE:			return new AbsentLikeException(null, false);
+			case DUPLICATE_USERNAME:	return new DuplicateUsernameException(null, false);
+			case DUPLICATE_POST:		return new DuplicatePostException(null, false);
+			case DUPLICATE_LIKE:		return new DuplicateLikeException(null, false);
+			case DUPLICATE_REPORT:		return new DuplicateReportException(null, false);
+			case AUTHOR_LIKE:			return new AuthorLikeException(null, false);
+			case AUTHOR_REPORT:			return new AuthorReportException(null, false);
+			case UNSUPPORTED_OPERATION:	return new UnsupportedOperationException();
+			case INTERNAL_ERROR:		return new IllegalStateException();
+			default:					return null;
+		}
+	}
+	// EFFECTS:		restituisce null se this = OK, altrimenti una nuova eccezione della classe corrispondente a this
+	//				(senza stack trace per le eccezioni della rete sociale: l'errore non è avvenuto nel thread corrente)
+
+}
@@ -0,0 +1,766 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+
+
+public class TieredSocialNetwork extends ReportSocialNetwork {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork a due livelli di memorizzazione dei post:
+	al più capacita post (i più recentemente creati, letti o modificati) restano sullo heap come oggetti Post
+	in una cache LRU, gli altri sono in un file di segmento su disco con una codifica compatta e vengono
+	ricaricati su richiesta. La cache è write-back: un post modificato viene riscritto in coda al segmento solo
+	quando viene espulso, un post espulso senza modifiche dal caricamento non viene riscritto. Quando i record
+	non più referenziati superano COMPACTION_THRESHOLD dei byte del segmento (e il segmento almeno
+	COMPACTION_MIN_BYTES), i record vivi vengono copiati in ordine di posizione in un nuovo segmento che
+	sostituisce il precedente: lo spazio su disco resta proporzionale ai post freddi.
+	Gli accessi puntuali (getPost, addLike, removeLike, modificaPost, addReport) promuovono il post in cache,
+	le interrogazioni su molti post (writtenBy, containing, getMentionedUsers, postsBetween, modifiedSince)
+	leggono i post freddi direttamente dal segmento senza inserirli in cache (non espellono i post caldi).
+	Sullo heap restano anche gli utenti, i follower, l'indice id -> posizione su disco (IdTable) e gli id
+	dei post di ogni autore (array primitivi).
+	
+	ELEMENTO TIPICO:	come in ReportSocialNetwork
+	
+	FORMATO DI UN RECORD DEL SEGMENTO:
+		<lunghezza:int, id:long, data_pub:long, data_mod:long, autore:UTF, testo:UTF, n_likes:short, like:UTF...>
+	
+	AF =	<	{ <user, this.followers.get(user), { post(id) | id ∈ this.id_autore.get(user) }> , ...}, AF(this.reports)	>
+		  - post(id) = this.residenti.get(id) se presente, altrimenti il record in posizione this.su_disco.get(id)
+	
+	RI =  this.followers, this.reports come in ReportSocialNetwork
+		  &&  this.post.keySet() = this.followers.keySet() = this.id_autore.keySet() && ∀ u . this.post.get(u) = ∅
+		  &&  this.index = ∅ && this.tempi vuoto
+		  &&  ∀ u, ∀ id ∈ this.id_autore.get(u) . id ∈ this.residenti.keySet() || id ∈ this.su_disco
+		  &&  #this.residenti ≤ this.capacita
+		  &&  (∀ id ∈ this.residenti.keySet() \ this.sporchi ==> il record in posizione this.su_disco.get(id)
+				  rappresenta this.residenti.get(id))
+		  &&  this.sporchi ⊆ this.residenti.keySet()
+		  &&  this.sprecati = this.fine - Σ { lunghezza del record in posizione pos | <id, pos> ∈ this.su_disco }
+		  &&  (this.fine < COMPACTION_MIN_BYTES || this.sprecati ≤ COMPACTION_THRESHOLD * this.fine)
+			  al termine di ogni operazione pubblica
+		  &&  RI(SocialNetwork) sui post rappresentati
+**/
+	
+	// id dei post di un autore (rimozione per scambio con l'ultimo)
+	private static class Ids {
+		private long[] a = new long[4];
+		private int n = 0;
+		
+		void add(long id) {
+			if(this.n == this.a.length) this.a = Arrays.copyOf(this.a, 2 * this.n);
+			this.a[this.n++] = id;
+		}
+		
+		void remove(long id) {
+			for(int i = 0; i < this.n; i++) {
+				if(this.a[i] == id) {
+					this.a[i] = this.a[--this.n];
+					return;
+				}
+			}
+		}
+	}
+	
+	// frazione del segmento occupata da record non più referenziati oltre la quale il segmento viene compattato
+	public static final double COMPACTION_THRESHOLD = 0.5;
+	// byte minimi del segmento perché venga compattato
+	public static final long COMPACTION_MIN_BYTES = 1 << 20;
+	
+	// numero massimo di post sullo heap
+	private final int capacita;
+	// post sullo heap in ordine di accesso (dal meno recente, un accesso reinserisce il post in coda)
+	private final LinkedHashMap<Long, Post> residenti;
+	// id dei post sullo heap modificati dall'ultima scrittura su disco (o mai scritti)
+	private final Set<Long> sporchi;
+	// posizione nel segmento dell'ultimo record scritto di ogni post
+	private final IdTable su_disco;
+	// id dei post di ogni utente
+	private final Map<String, Ids> id_autore;
+	// file di segmento e sua lunghezza
+	private final Path file;
+	private FileChannel segmento;
+	private long fine;
+	// byte del segmento occupati da record non più referenziati
+	private long sprecati;
+	// statistiche della cache
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long scritture;
+	private long compattazioni;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota con il segmento nel file specificato
+	public TieredSocialNetwork(Path file, int capacita) throws NullPointerException, IllegalArgumentException, IOException {
+		super();
+		if(file == null) throw new NullPointerException();
+		if(capacita <= 0) throw new IllegalArgumentException();
+		this.capacita = capacita;
+		this.residenti = new LinkedHashMap<Long, Post>();
+		this.sporchi = new HashSet<Long>();
+		this.su_disco = new IdTable();
+		this.id_autore = new HashMap<String, Ids>();
+		this.file = file;
+		this.segmento = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+			StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.fine = 0;
+		this.sprecati = 0;
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+		this.scritture = 0;
+		this.compattazioni = 0;
+	}
+	// THROWS:		se file = null lancia NullPointerException (unchecked)
+	//				se capacita ≤ 0 lancia IllegalArgumentException (unchecked)
+	//				se il file non può essere creato lancia IOException (checked)
+	// MODIFIES:	this
+	// EFFECTS:		inizializza this con nessun utente, al più capacita post sullo heap e il segmento vuoto in file
+	//				NOTA: le operazioni che accedono al segmento lanciano UncheckedIOException (unchecked) in caso di errore
+	
+	
+	// chiude il file di segmento
+	public void close() throws IOException {
+		this.segmento.close();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		chiude il segmento, le successive operazioni sui post freddi lanciano UncheckedIOException
+	
+	
+	/** [STATISTICHE] **********************************************************************************************/
+	
+	// restituisce le statistiche della cache dei post
+	public CacheStats getCacheStats() {
+		return new CacheStats(this.hits, this.misses, this.evictions, 0, this.residenti.size(), this.capacita);
+	}
+	// EFFECTS:		restituisce hit e miss degli accessi puntuali, post espulsi dallo heap, post sullo heap e capacità
+	
+	// restituisce il numero di record scritti nel segmento
+	public long getDiskWrites() {
+		return this.scritture;
+	}
+	
+	// restituisce i byte del segmento
+	public long getDiskBytes() {
+		return this.fine;
+	}
+	
+	// restituisce i byte del segmento occupati da record non più referenziati
+	public long getWastedBytes() {
+		return this.sprecati;
+	}
+	
+	// restituisce il numero di compattazioni del segmento
+	public long getCompactions() {
+		return this.compattazioni;
+	}
+	// EFFECTS:		restituisce il contatore omonimo del segmento
+	
+	
+	/** [LIVELLI] **************************************************************************************************/
+	
+	// restituisce il post con l'id specificato promuovendolo sullo heap (null se assente)
+	private Post load(long id) {
+		Post p = this.residenti.remove(id);
+		if(p != null) {
+			this.hits++;
+			this.residenti.put(id, p);		// reinserito come il più recente
+			return p;
+		}
+		long pos = this.su_disco.get(id);
+		if(pos < 0) return null;
+		this.misses++;
+		p = this.read(pos);
+		this.residenti.put(id, p);
+		this.evict();
+		return p;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		restituisce il post con l'id specificato (originale sullo heap) e lo rende il più recente della cache
+	
+	// restituisce il post con l'id specificato senza modificare la cache (null se assente)
+	private Post peek(long id) {
+		Post p = this.residenti.get(id);
+		if(p != null) return p;
+		long pos = this.su_disco.get(id);
+		return pos < 0 ? null : this.read(pos);
+	}
+	// EFFECTS:		restituisce il post sullo heap o una copia letta dal segmento, senza promuoverlo
+	
+	// segna come modificato un post sullo heap
+	private void touch(Post p) {
+		this.sporchi.add(p.getId());
+	}
+	
+	// inserisce un nuovo post sullo heap
+	private void add(Post p) {
+		this.residenti.put(p.getId(), p);
+		this.sporchi.add(p.getId());
+		this.id_autore.get(p.getAutore()).add(p.getId());
+		this.evict();
+	}
+	
+	// rimuove un post da entrambi i livelli e lo restituisce
+	private Post remove(long id) {
+		Post p = this.peek(id);
+		if(p == null) return null;
+		this.residenti.remove(id);
+		this.sporchi.remove(id);
+		long pos = this.su_disco.get(id);
+		if(pos >= 0) {
+			this.sprecati += this.length(pos);
+			this.su_disco.remove(id);
+		}
+		this.id_autore.get(p.getAutore()).remove(id);
+		this.compact();
+		return p;
+	}
+	
+	// espelle i post meno recenti oltre la capacità scrivendo su disco quelli modificati
+	private void evict() {
+		Iterator<Map.Entry<Long, Post>> it = this.residenti.entrySet().iterator();
+		while(this.residenti.size() > this.capacita) {
+			Map.Entry<Long, Post> e = it.next();
+			long id = e.getKey();
+			if(this.sporchi.remove(id) || this.su_disco.get(id) < 0) {
+				long pos = this.su_disco.get(id);
+				if(pos >= 0) this.sprecati += this.length(pos);
+				this.su_disco.put(id, this.write(e.getValue()));
+			}
+			it.remove();
+			this.evictions++;
+		}
+		this.compact();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		finché #this.residenti > this.capacita rimuove il post meno recente,
+	//				se modificato o mai scritto lo accoda al segmento aggiornando this.su_disco,
+	//				poi compatta il segmento se i record non più referenziati superano la soglia
+	
+	
+	/** [SEGMENTO] *************************************************************************************************/
+	
+	// accoda il record del post al segmento e ne restituisce la posizione
+	private long write(Post p) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(0);
+			out.writeLong(p.getId());
+			out.writeLong(p.getDataPub());
+			out.writeLong(p.getDataMod());
+			out.writeUTF(p.getAutore());
+			out.writeUTF(p.getText());
+			Set<String> likes = p.getLikes();
+			out.writeShort(likes.size());
+			for(String like : likes)
+				out.writeUTF(like);
+			out.flush();
+			
+			ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+			record.putInt(0, record.capacity() - 4);
+			long pos = this.fine;
+			while(record.hasRemaining())
+				this.fine += this.segmento.write(record, this.fine);
+			this.scritture++;
+			return pos;
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	// MODIFIES:	this.segmento, this.fine
+	// EFFECTS:		scrive il record di p in posizione pre(this.fine) e la restituisce
+	
+	// sostituisce il segmento con uno che contiene solo i record referenziati se i byte sprecati superano la soglia
+	private void compact() {
+		if(this.fine < COMPACTION_MIN_BYTES || this.sprecati <= COMPACTION_THRESHOLD * this.fine) return;
+		
+		// record vivi in ordine di posizione (copia sequenziale del vecchio segmento)
+		long[] posizioni = new long[this.su_disco.size()];
+		IdTable id_in = new IdTable();
+		int[] k = {0};
+		this.su_disco.forEach((id, pos) -> {
+			posizioni[k[0]++] = pos;
+			id_in.put(pos, id);
+		});
+		Arrays.sort(posizioni);
+		
+		Path temporaneo = this.file.resolveSibling(this.file.getFileName() + ".compact");
+		try {
+			long[] nuove = new long[posizioni.length];
+			long fine = 0;
+			try(FileChannel nuovo = FileChannel.open(temporaneo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE)) {
+				for(int i = 0; i < posizioni.length; i++) {
+					int lunghezza = this.length(posizioni[i]);
+					for(long copiati = 0; copiati < lunghezza; )
+						copiati += this.segmento.transferTo(posizioni[i] + copiati, lunghezza - copiati, nuovo.position(fine + copiati));
+					nuove[i] = fine;
+					fine += lunghezza;
+				}
+			}
+			// il vecchio segmento resta valido finché il nuovo non è completo
+			this.segmento.close();
+			Files.move(temporaneo, this.file, StandardCopyOption.REPLACE_EXISTING);
+			this.segmento = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			for(int i = 0; i < posizioni.length; i++)
+				this.su_disco.put(id_in.get(posizioni[i]), nuove[i]);
+			this.fine = fine;
+			this.sprecati = 0;
+			this.compattazioni++;
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	// MODIFIES:	this.segmento, this.su_disco, this.fine, this.sprecati
+	// EFFECTS:		se this.fine ≥ COMPACTION_MIN_BYTES && this.sprecati > COMPACTION_THRESHOLD * this.fine copia i record
+	//				referenziati da this.su_disco, nell'ordine delle posizioni, in un nuovo file che sostituisce
+	//				il segmento, aggiorna le loro posizioni e azzera this.sprecati
+	
+	// legge il record in posizione pos
+	private Post read(long pos) {
+		try {
+			ByteBuffer record = ByteBuffer.allocate(this.length(pos) - 4);
+			while(record.hasRemaining())
+				if(this.segmento.read(record, pos + 4 + record.position()) < 0) throw new IOException("segmento troncato");
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array()));
+			long id = in.readLong();
+			long data_pub = in.readLong();
+			long data_mod = in.readLong();
+			String autore = in.readUTF();
+			String text = in.readUTF();
+			int n = in.readUnsignedShort();
+			ArrayList<String> likes = new ArrayList<String>(n);
+			for(int i = 0; i < n; i++)
+				likes.add(in.readUTF());
+			return new Post(id, autore, text, data_pub, data_mod, likes);
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	// EFFECTS:		restituisce un nuovo post decodificato dal record in posizione pos
+	
+	// restituisce la lunghezza (intestazione compresa) del record in posizione pos
+	private int length(long pos) {
+		try {
+			ByteBuffer intestazione = ByteBuffer.allocate(4);
+			while(intestazione.hasRemaining())
+				if(this.segmento.read(intestazione, pos + intestazione.position()) < 0) throw new IOException("segmento troncato");
+			return 4 + intestazione.getInt(0);
+		}
+		catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	
+	// visita tutti i post senza modificare la cache
+	private void scan(Consumer<Post> visitor) {
+		for(Post p : this.residenti.values())
+			visitor.accept(p);
+		this.su_disco.forEach((id, pos) -> {
+			if(!this.residenti.containsKey(id)) visitor.accept(this.read(pos));
+		});
+	}
+	// EFFECTS:		esegue visitor.accept(p) per ogni post (sullo heap o letto dal segmento)
+	
+	// visita i post di username senza modificare la cache
+	private void scan(String username, Consumer<Post> visitor) {
+		Ids ids = this.id_autore.get(username);
+		for(int i = 0; i < ids.n; i++)
+			visitor.accept(this.peek(ids.a[i]));
+	}
+	// REQUIRES:	username ∈ this.id_autore.keySet()
+	
+	
+	/** [MODIFICATORI] *********************************************************************************************/
+	
+	public void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		super.createUser(username);
+		this.id_autore.put(username, new Ids());
+	}
+	
+	public Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		
+		// rimozione dei like messi dall'utente (solo ai post degli utenti che segue, RI)
+		for(String seguito : this.followers.get(username)) {
+			Ids ids = this.id_autore.get(seguito);
+			for(int i = 0; i < ids.n; i++) {
+				if(this.peek(ids.a[i]).hasLike(username)) {
+					Post p = this.load(ids.a[i]);
+					try {p.removeLike(username);}
+					catch(AbsentLikeException | AuthorLikeException e) {}		// non viene lanciata mai
+					this.touch(p);
+					this.onLikesChanged(p);
+				}
+			}
+		}
+		
+		for(String seguito : this.followers.remove(username))
+			this.utenti.addScore(seguito, -1);
+		this.utenti.remove(username);
+		for(String u : this.followers.keySet())
+			this.followers.get(u).remove(username);
+		this.post.remove(username);
+		
+		HashSet<Post> post = new HashSet<Post>();
+		Ids ids = this.id_autore.get(username);
+		while(ids.n > 0) {
+			Post p = this.remove(ids.a[ids.n - 1]);
+			post.add(p);
+			this.onPostRemoved(p);
+		}
+		this.id_autore.remove(username);
+		return post;
+	}
+	
+	public long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		Post p = new Post(autore, text);
+		if(!SocialNetwork.checkValidUsername(autore)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(autore)) throw new AbsentUsernameException();
+		
+		this.add(p);
+		this.onPostAdded(p);
+		return p.getId();
+	}
+	
+	protected void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		if(p == null) throw new NullPointerException();
+		String autore = p.getAutore();
+		if(!this.post.containsKey(autore)) throw new AbsentUsernameException();
+		if(this.residenti.containsKey(p.getId()) || this.su_disco.get(p.getId()) >= 0) throw new DuplicatePostException();
+		Set<String> likes = p.getLikes();
+		for(String like : likes)
+			if(!this.followers.containsKey(like)) throw new AbsentUsernameException();
+		
+		for(String like : likes) {
+			if(this.followers.get(like).add(autore))
+				this.utenti.addScore(autore, 1);
+		}
+		this.add(p);
+		this.onPostAdded(p);
+	}
+	
+	public Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		Post found = this.remove(id);
+		if(found == null) throw new AbsentPostException();
+		String autore = found.getAutore();
+		
+		HashSet<String> all_likes = new HashSet<String>();
+		this.scan(autore, p -> all_likes.addAll(p.getLikes()));
+		for(String u : found.getLikes()) {
+			if(!all_likes.contains(u) && this.followers.get(u).remove(autore))
+				this.utenti.addScore(autore, -1);
+		}
+		
+		this.onPostRemoved(found);
+		return found;
+	}
+	
+	public Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		
+		HashSet<Post> post = new HashSet<Post>();
+		HashSet<String> likes = new HashSet<String>();
+		Ids ids = this.id_autore.get(username);
+		while(ids.n > 0) {
+			Post p = this.remove(ids.a[ids.n - 1]);
+			post.add(p);
+			likes.addAll(p.getLikes());
+			this.onPostRemoved(p);
+		}
+		for(String l : likes) {
+			if(this.followers.get(l).remove(username))
+				this.utenti.addScore(username, -1);
+		}
+		return post;
+	}
+	
+	protected void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		if(text == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		
+		Post p = this.load(id);
+		if(p == null) throw new AbsentPostException();
+		String testo_precedente = p.getText();
+		p.modificaText(text, data_mod);			// lancia IllegalTextException senza modificare il post
+		this.touch(p);
+		this.onTextChanged(p, testo_precedente);
+	}
+	
+	public void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		if(username == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
+		
+		Post p = this.load(id);
+		if(p == null) throw new AbsentPostException();
+		p.addLike(username);	// eventuali eccezioni propagate
+		this.liked(username, p);
+	}
+	
+	public void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		if(username == null) throw new NullPointerException();
+		if(id < 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
+		
+		Post p = this.load(id);
+		if(p == null) throw new AbsentPostException();
+		p.removeLike(username);		// eventuali eccezioni propagate
+		this.unliked(username, p);
+	}
+	
+	// aggiorna cache, follower e hook dopo l'aggiunta del like di username al post sullo heap
+	private void liked(String username, Post p) {
+		this.touch(p);
+		if(this.followers.get(username).add(p.getAutore()))
+			this.utenti.addScore(p.getAutore(), 1);
+		this.onLikesChanged(p);
+	}
+	
+	// aggiorna cache, follower e hook dopo la rimozione del like di username dal post sullo heap
+	private void unliked(String username, Post p) {
+		this.touch(p);
+		this.onLikesChanged(p);
+		
+		// termina se c'è un altro post dell'autore a cui username ha messo like
+		String u = p.getAutore();
+		Ids ids = this.id_autore.get(u);
+		for(int i = 0; i < ids.n; i++)
+			if(this.peek(ids.a[i]).hasLike(username)) return;
+		if(this.followers.get(username).remove(u))
+			this.utenti.addScore(u, -1);
+	}
+	
+	protected Post getOriginalPost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(id < 0) throw new IllegalArgumentException();
+		Post p = this.load(id);
+		if(p == null) throw new AbsentPostException();
+		return p;
+	}
+	// EFFECTS:		come i metodi omonimi della superclasse, i post modificati sono promossi sullo heap
+	//				e segnati come da riscrivere su disco all'espulsione
+	
+	public StatusCode tryAddLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!SocialNetwork.checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		Post p = this.load(id);
+		if(p == null) return StatusCode.ABSENT_POST;
+		if(p.getAutore().equals(username)) return StatusCode.AUTHOR_LIKE;
+		if(p.hasLike(username)) return StatusCode.DUPLICATE_LIKE;
+		
+		try {
+			p.addLike(username);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		this.liked(username, p);
+		return StatusCode.OK;
+	}
+	
+	public StatusCode tryRemoveLike(String username, long id) {
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(id < 0) return StatusCode.ILLEGAL_ARGUMENT;
+		if(!SocialNetwork.checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		Post p = this.load(id);
+		if(p == null) return StatusCode.ABSENT_POST;
+		if(p.getAutore().equals(username)) return StatusCode.AUTHOR_LIKE;
+		if(!p.hasLike(username)) return StatusCode.ABSENT_LIKE;
+		
+		try {
+			p.removeLike(username);
+		}
+		catch(Exception e) {
+			return StatusCode.fromException(e);		// non lanciata: condizioni già verificate
+		}
+		this.unliked(username, p);
+		return StatusCode.OK;
+	}
+	// EFFECTS:		come l'operazione omonima di SocialNetwork, con le verifiche sul post promosso sullo heap
+	//				come nel modificatore omonimo (nessuna eccezione costruita quando l'operazione fallisce)
+	
+	
+	/** [OSSERVATORI] **********************************************************************************************/
+	
+	public Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		return (Post)this.getOriginalPost(id).clone();
+	}
+	// EFFECTS:		come SocialNetwork.getPost(id), il post è promosso sullo heap
+	
+	public Set<String> getMentionedUsers() {
+		HashSet<String> menzionati = new HashSet<String>();
+		this.scan(p -> menzionati.addAll(SocialNetwork.getMentionedUsers(p)));
+		return menzionati;
+	}
+	
+	public List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.scan(username, p -> lista.add((Post)p.clone()));
+		return lista;
+	}
+	
+	public List<Post> containing(List<String> words) throws NullPointerException {
+		Pattern pattern = SocialNetwork.wordsPattern(words);
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.scan(p -> {
+			if(pattern.matcher(p.getText().toLowerCase()).find())
+				lista.add((Post)p.clone());
+		});
+		return lista;
+	}
+	
+	public Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		if(username == null) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		if(!SocialNetwork.checkValidUsername(username)) throw new IllegalUsernameException();
+		long after = Page.afterId(cursor);
+		Ids ids = this.id_autore.get(username);
+		if(ids == null) throw new AbsentUsernameException();
+		
+		// i primi limit+1 id successivi al cursore: solo i post della pagina vengono letti
+		TreeSet<Long> primi = new TreeSet<Long>();
+		for(int i = 0; i < ids.n; i++) {
+			if(ids.a[i] > after) {
+				primi.add(ids.a[i]);
+				if(primi.size() > limit + 1) primi.pollLast();
+			}
+		}
+		ArrayList<Post> post = new ArrayList<Post>(primi.size());
+		for(long id : primi)
+			post.add(this.peek(id));
+		return Page.ofPosts(post, limit);
+	}
+	
+	public Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		if(words == null || words.contains(null)) throw new NullPointerException();
+		if(limit <= 0) throw new IllegalArgumentException();
+		long after = Page.afterId(cursor);
+		Pattern pattern = SocialNetwork.wordsPattern(words);
+		
+		TreeMap<Long, Post> primi = new TreeMap<Long, Post>();
+		this.scan(p -> {
+			if(p.getId() > after && pattern.matcher(p.getText().toLowerCase()).find()) {
+				primi.put(p.getId(), p);
+				if(primi.size() > limit + 1) primi.pollLastEntry();
+			}
+		});
+		return Page.ofPosts(new ArrayList<Post>(primi.values()), limit);
+	}
+	
+	public Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		if(limit <= 0) throw new IllegalArgumentException();
+		String after = Page.afterKey(cursor);
+		
+		TreeSet<String> primi = new TreeSet<String>();
+		this.scan(p -> {
+			for(String m : SocialNetwork.getMentionedUsers(p)) {
+				if(m.compareTo(after) > 0 && primi.add(m) && primi.size() > limit + 1)
+					primi.pollLast();
+			}
+		});
+		return Page.ofUsers(new ArrayList<String>(primi), limit);
+	}
+	
+	public List<Post> postsBetween(long from, long to) {
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.scan(p -> {if(from <= p.getDataPub() && p.getDataPub() < to) lista.add(p);});
+		return TieredSocialNetwork.sorted(lista, true);
+	}
+	
+	public List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.scan(username, p -> {if(from <= p.getDataPub() && p.getDataPub() < to) lista.add(p);});
+		return TieredSocialNetwork.sorted(lista, true);
+	}
+	
+	public List<Post> modifiedSince(long t) {
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.scan(p -> {if(p.getDataMod() >= t) lista.add(p);});
+		return TieredSocialNetwork.sorted(lista, false);
+	}
+	
+	public List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		SocialNetwork.checkUser(this.post, username);
+		ArrayList<Post> lista = new ArrayList<Post>();
+		this.scan(username, p -> {if(p.getDataMod() >= t) lista.add(p);});
+		return TieredSocialNetwork.sorted(lista, false);
+	}
+	
+	protected void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		if(visitor == null) throw new NullPointerException();
+		this.scan(visitor);
+	}
+	
+	protected void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		if(username == null || visitor == null) throw new NullPointerException();
+		if(!this.id_autore.containsKey(username)) throw new AbsentUsernameException();
+		this.scan(username, visitor);
+	}
+	// EFFECTS:		come i metodi omonimi di SocialNetwork, i post freddi sono letti dal segmento senza promuoverli
+	//				(postsBetween e modifiedSince visitano i post con costo O(n log n), nessun indice per data)
+	
+	// restituisce le DEEP-COPY dei post ordinate per data di pubblicazione (o di modifica) e id
+	private static List<Post> sorted(List<Post> ps, boolean pubblicazione) {
+		ps.sort(Comparator.comparingLong((Post p) -> pubblicazione ? p.getDataPub() : p.getDataMod()).thenComparingLong(Post::getId));
+		return SocialNetwork.copy(ps);
+	}
+	
+	
+	// mostra lo stato attuale della rete sociale
+	public void stampa() {
+		System.out.printf("================================================\n");
+		System.out.printf("UTENTE-SEGUITI:\n");
+		for(String utente : this.followers.keySet())
+			System.out.printf("[%s] --> {%s }\n", utente, String.join(" ", this.followers.get(utente)));
+		System.out.printf("\nPOST-LIKES:\n");
+		this.scan(p -> System.out.printf("[%s] --> %s\n", p.getId(), p.getLikes()));
+		System.out.printf("\nCACHE: %s, segmento %d byte\n", this.getCacheStats(), this.fine);
+		System.out.printf("================================================\n");
+	}
+
+}
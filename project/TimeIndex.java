@@ -0,0 +1,195 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+public class TimeIndex {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che indicizza un insieme di post per data di pubblicazione e per data di ultima
+	modifica, sia globalmente sia per autore, e i post di ogni autore anche per id. Le chiavi per data sono coppie
+	<data, id> ordinate per data e poi per id (post con la stessa data restano distinti), le mappe sono skip-list
+	concorrenti: le interrogazioni per intervallo e le pagine per id costano O(log n + risultati) e possono
+	procedere durante le modifiche.
+	
+	ELEMENTO TIPICO:	{ p_0, ..., p_n-1 }		post indicizzati
+	
+	AF =	{ p | <<p.getDataPub(), p.getId()>, p> ∈ this.pub }
+	
+	RI =  this.pub ≠ null && this.mod ≠ null && this.pub_autore ≠ null && this.mod_autore ≠ null && this.id_autore ≠ null
+		  &&  (∀ <<t, id>, p> ∈ this.pub . t = p.getDataPub() && id = p.getId())
+		  &&  (∀ <<t, id>, p> ∈ this.mod . t = p.getDataMod() && id = p.getId())
+		  &&  this.pub.values() e this.mod.values() contengono gli stessi post
+		  &&  (∀ a ∈ this.pub_autore.keySet() . this.pub_autore.get(a) = { <k, p> ∈ this.pub | p.getAutore() = a } ≠ ∅)
+		  &&  (∀ a ∈ this.mod_autore.keySet() . this.mod_autore.get(a) = { <k, p> ∈ this.mod | p.getAutore() = a } ≠ ∅)
+		  &&  (∀ a ∈ this.id_autore.keySet() . this.id_autore.get(a) = { <id, p> | <<t, id>, p> ∈ this.pub_autore.get(a) })
+		  &&  this.id_autore.keySet() = this.pub_autore.keySet()
+**/
+	
+	// chiave <data, id> degli indici
+	private static class Chiave implements Comparable<Chiave> {
+		final long data;
+		final long id;
+		
+		Chiave(long data, long id) {
+			this.data = data;
+			this.id = id;
+		}
+		
+		public int compareTo(Chiave c) {
+			int cmp = Long.compare(this.data, c.data);
+			return cmp != 0 ? cmp : Long.compare(this.id, c.id);
+		}
+	}
+	
+	// post per <data_pub, id>
+	private final NavigableMap<Chiave, Post> pub;
+	// post per <data_mod, id>
+	private final NavigableMap<Chiave, Post> mod;
+	// post di ogni autore per <data_pub, id>
+	private final Map<String, NavigableMap<Chiave, Post>> pub_autore;
+	// post di ogni autore per <data_mod, id>
+	private final Map<String, NavigableMap<Chiave, Post>> mod_autore;
+	// post di ogni autore per id
+	private final Map<String, NavigableMap<Long, Post>> id_autore;
+	
+	
+	// COSTRUTTORE: istanzia un indice vuoto
+	public TimeIndex() {
+		this.pub = new ConcurrentSkipListMap<Chiave, Post>();
+		this.mod = new ConcurrentSkipListMap<Chiave, Post>();
+		this.pub_autore = new ConcurrentHashMap<String, NavigableMap<Chiave, Post>>();
+		this.mod_autore = new ConcurrentHashMap<String, NavigableMap<Chiave, Post>>();
+		this.id_autore = new ConcurrentHashMap<String, NavigableMap<Long, Post>>();
+	}
+	// EFFECTS:		inizializza l'indice vuoto
+	
+	
+	/** [MODIFICATORI] *********************************************************************************************/
+	
+	// aggiunge un post all'indice
+	public void add(Post p) throws NullPointerException {
+		Chiave k_pub = new Chiave(p.getDataPub(), p.getId());
+		Chiave k_mod = new Chiave(p.getDataMod(), p.getId());
+		this.pub.put(k_pub, p);
+		this.mod.put(k_mod, p);
+		TimeIndex.addKey(this.pub_autore, p.getAutore(), k_pub, p);
+		TimeIndex.addKey(this.mod_autore, p.getAutore(), k_mod, p);
+		TimeIndex.addKey(this.id_autore, p.getAutore(), p.getId(), p);
+	}
+	// REQUIRES:	p ≠ null, p non indicizzato
+	// THROWS:		se p = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this) = pre(this) U {p}
+	
+	
+	// rimuove un post dall'indice
+	public void remove(Post p) throws NullPointerException {
+		Chiave k_pub = new Chiave(p.getDataPub(), p.getId());
+		Chiave k_mod = new Chiave(p.getDataMod(), p.getId());
+		this.pub.remove(k_pub);
+		this.mod.remove(k_mod);
+		TimeIndex.removeKey(this.pub_autore, p.getAutore(), k_pub);
+		TimeIndex.removeKey(this.mod_autore, p.getAutore(), k_mod);
+		TimeIndex.removeKey(this.id_autore, p.getAutore(), p.getId());
+	}
+	// REQUIRES:	p ≠ null, p.getDataMod() invariata dall'ultima add(p) o modify(p, ...)
+	// THROWS:		se p = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this) = pre(this) \ {p}
+	
+	
+	// aggiorna la posizione di un post la cui data di modifica è cambiata
+	public void modify(Post p, long data_mod_precedente) throws NullPointerException {
+		Chiave vecchia = new Chiave(data_mod_precedente, p.getId());
+		Chiave nuova = new Chiave(p.getDataMod(), p.getId());
+		this.mod.remove(vecchia);
+		this.mod.put(nuova, p);
+		TimeIndex.removeKey(this.mod_autore, p.getAutore(), vecchia);
+		TimeIndex.addKey(this.mod_autore, p.getAutore(), nuova, p);
+	}
+	// REQUIRES:	p ≠ null, p indicizzato con data di modifica data_mod_precedente
+	// THROWS:		se p = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		riposiziona p nell'indice per data di modifica secondo p.getDataMod()
+	
+	
+	// aggiunge una chiave all'indice di un autore creando l'indice se assente
+	private static <K> void addKey(Map<String, NavigableMap<K, Post>> indici, String autore, K k, Post p) {
+		indici.compute(autore, (a, indice) -> {
+			if(indice == null) indice = new ConcurrentSkipListMap<K, Post>();
+			indice.put(k, p);
+			return indice;
+		});
+	}
+	
+	// rimuove una chiave dall'indice di un autore eliminando l'indice se resta vuoto
+	private static <K> void removeKey(Map<String, NavigableMap<K, Post>> indici, String autore, K k) {
+		indici.computeIfPresent(autore, (a, indice) -> {
+			indice.remove(k);
+			return indice.isEmpty() ? null : indice;
+		});
+	}
+	
+	
+	/** [OSSERVATORI] **********************************************************************************************/
+	
+	// restituisce i post pubblicati nell'intervallo [from, to) in ordine di pubblicazione
+	public List<Post> between(long from, long to) {
+		return TimeIndex.range(this.pub, from, to);
+	}
+	// EFFECTS:		restituisce la lista dei post p indicizzati con from ≤ p.getDataPub() < to
+	//				ordinata per data di pubblicazione e id crescenti (post originali, non copie)
+	
+	// restituisce i post di autore pubblicati nell'intervallo [from, to) in ordine di pubblicazione
+	public List<Post> between(String autore, long from, long to) throws NullPointerException {
+		return TimeIndex.range(this.pub_autore.get(autore), from, to);
+	}
+	// THROWS:		se autore = null lancia NullPointerException (unchecked)
+	// EFFECTS:		come between(from, to) limitata ai post con p.getAutore() = autore
+	
+	// restituisce i post modificati (o pubblicati) a partire da t in ordine di ultima modifica
+	public List<Post> modifiedSince(long t) {
+		return TimeIndex.range(this.mod, t, Long.MAX_VALUE);
+	}
+	// EFFECTS:		restituisce la lista dei post p indicizzati con p.getDataMod() ≥ t
+	//				ordinata per data di ultima modifica e id crescenti (post originali, non copie)
+	
+	// restituisce i post di autore modificati (o pubblicati) a partire da t in ordine di ultima modifica
+	public List<Post> modifiedSince(String autore, long t) throws NullPointerException {
+		return TimeIndex.range(this.mod_autore.get(autore), t, Long.MAX_VALUE);
+	}
+	// THROWS:		se autore = null lancia NullPointerException (unchecked)
+	// EFFECTS:		come modifiedSince(t) limitata ai post con p.getAutore() = autore
+	
+	
+	// restituisce i primi n post di autore con id maggiore di quello specificato in ordine di id
+	public List<Post> after(String autore, long id, int n) throws NullPointerException {
+		ArrayList<Post> lista = new ArrayList<Post>();
+		NavigableMap<Long, Post> indice = this.id_autore.get(autore);
+		if(indice == null) return lista;
+		for(Post p : indice.tailMap(id, false).values()) {
+			if(lista.size() >= n) break;
+			lista.add(p);
+		}
+		return lista;
+	}
+	// THROWS:		se autore = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce la lista dei primi n post p indicizzati con p.getAutore() = autore e p.getId() > id
+	//				ordinata per id crescente (post originali, non copie), in tempo O(log n + n)
+	
+	
+	// restituisce i post con chiave nell'intervallo di date [from, to)
+	private static List<Post> range(NavigableMap<Chiave, Post> indice, long from, long to) {
+		ArrayList<Post> lista = new ArrayList<Post>();
+		if(indice == null || from >= to) return lista;
+		lista.addAll(indice.subMap(new Chiave(from, Long.MIN_VALUE), true, new Chiave(to, Long.MIN_VALUE), false).values());
+		return lista;
+	}
+	// EFFECTS:		restituisce i post di indice con data in [from, to) in ordine di chiave (lista vuota se indice = null)
+
+}
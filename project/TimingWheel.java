@@ -0,0 +1,220 @@
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+
+public class TimingWheel {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta uno scadenzario gerarchico (hierarchical timing wheel) di
+	identificatori con scadenza. Il tempo è diviso in tick di durata fissa; ogni livello è una ruota di SLOTS
+	secchi e un secchio del livello L copre SLOTS^L tick. Una scadenza viene registrata nel livello più basso che
+	la contiene senza ordinarla (costo O(1)); quando il tick corrente entra nell'intervallo di un secchio di
+	livello L > 0 le sue voci vengono ridistribuite nei livelli inferiori, ed il secchio del livello 0 del tick
+	corrente contiene esattamente le voci che scadono in quel tick. Le scadenze oltre l'ultimo livello sono
+	tenute in un secchio separato e ridistribuite ad ogni giro completo dell'ultimo livello.
+	Il costo di advance è proporzionale alle voci scadute o ridistribuite più i tick trascorsi in cui il livello
+	0 non è vuoto: i tick senza voci in scadenza o da ridistribuire vengono saltati.
+	
+	ELEMENTO TIPICO:	<tick corrente, { <id_1, scadenza_1>, ..., <id_n, scadenza_n> }>
+						(uno stesso id può comparire con più scadenze)
+	
+	AF =	<	this.corrente,
+				{ <v.id, v.tick> | v ∈ this.pronti U this.lontani U (U this.livelli[L][s]) }	>
+	
+	RI =  this.tick > 0 && this.livelli.length = LEVELS && ∀ L . this.livelli[L].length = SLOTS
+		  &&  (∀ v ∈ this.pronti . v.tick ≤ this.corrente)
+		  &&  (∀ v ∈ this.livelli[L][s] . v.tick > this.corrente && s = (v.tick >> (BITS*L)) & (SLOTS-1)
+				&& L è il minimo livello con v.tick >> (BITS*(L+1)) = this.corrente >> (BITS*(L+1)))
+		  &&  (∀ v ∈ this.lontani . v.tick >> (BITS*LEVELS) > this.corrente >> (BITS*LEVELS))
+		  &&  this.size = numero di voci in this.pronti, this.lontani e nei livelli
+		  &&  (∀ L . this.voci[L] = numero di voci in this.livelli[L])
+**/
+	
+	// numero di bit dell'indice di un secchio, secchi per livello e livelli
+	private static final int BITS = 6;
+	public static final int SLOTS = 1 << BITS;
+	public static final int LEVELS = 5;
+	
+	// durata di un tick (millisecondi)
+	private final long tick;
+	// tick corrente (tempo / tick): le voci con tick ≤ corrente sono scadute
+	private long corrente;
+	// ruote dei livelli
+	private final Secchio[][] livelli;
+	// voci già scadute non ancora restituite
+	private final Secchio pronti;
+	// voci oltre l'ultimo livello
+	private final Secchio lontani;
+	// numero di voci di ogni livello
+	private final int[] voci;
+	// numero totale di voci
+	private int size;
+	
+	
+	// COSTRUTTORE
+	public TimingWheel(long tick, long now) throws IllegalArgumentException {
+		if(tick <= 0 || now < 0) throw new IllegalArgumentException();
+		this.tick = tick;
+		this.corrente = now / tick;
+		this.livelli = new Secchio[LEVELS][SLOTS];
+		for(Secchio[] livello : this.livelli)
+			for(int s=0; s<SLOTS; s++)
+				livello[s] = new Secchio();
+		this.pronti = new Secchio();
+		this.lontani = new Secchio();
+		this.voci = new int[LEVELS];
+		this.size = 0;
+	}
+	// THROWS:		se tick ≤ 0 o now < 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		inizializza this vuoto con tick di durata tick millisecondi e tick corrente now / tick
+	
+	
+	// restituisce il numero di voci registrate
+	public int size() {
+		return this.size;
+	}
+	// EFFECTS:		restituisce this.size
+	
+	// restituisce la durata di un tick
+	public long getTick() {
+		return this.tick;
+	}
+	// EFFECTS:		restituisce this.tick
+	
+	
+	// registra l'id con la scadenza specificata (millisecondi)
+	public void schedule(long id, long scadenza) throws IllegalArgumentException {
+		if(scadenza < 0) throw new IllegalArgumentException();
+		// una scadenza a metà di un tick scade alla fine del tick
+		this.inserisci(id, scadenza / this.tick + ((scadenza % this.tick == 0) ? 0 : 1));
+		this.size++;
+	}
+	// THROWS:		se scadenza < 0 lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge a this la voce <id, ⌈scadenza / this.tick⌉> in tempo O(1)
+	//				(una scadenza già trascorsa viene restituita dal prossimo advance)
+	
+	
+	// fa avanzare lo scadenzario all'istante now e restituisce al consumatore gli id scaduti
+	public int advance(long now, LongConsumer scaduti) throws NullPointerException {
+		if(scaduti == null) throw new NullPointerException();
+		long fine = now / this.tick;
+		int n = this.svuota(this.pronti, scaduti);
+		
+		while(this.corrente < fine) {
+			if(this.size == 0) {
+				this.corrente = fine;		// nessuna voce: salto diretto all'istante finale
+				break;
+			}
+			
+			// livelli inferiori vuoti: salto all'ultimo tick prima del prossimo intervallo del primo livello non vuoto
+			int basso = 0;
+			while(basso < LEVELS && this.voci[basso] == 0)
+				basso++;
+			if(basso > 0)
+				this.corrente = Math.min(fine - 1, this.corrente | ((1L << (BITS * basso)) - 1));
+			this.corrente++;
+			
+			// ridistribuzione dei secchi dei livelli superiori il cui intervallo inizia nel tick corrente
+			int alto = 0;
+			while(alto < LEVELS && (this.corrente & ((1L << (BITS * (alto + 1))) - 1)) == 0)
+				alto++;
+			if(alto == LEVELS) this.ridistribuisci(this.lontani, LEVELS);
+			for(int L = Math.min(alto, LEVELS - 1); L > 0; L--)
+				this.ridistribuisci(this.livelli[L][(int)(this.corrente >> (BITS * L)) & (SLOTS - 1)], L);
+			
+			Secchio secchio = this.livelli[0][(int)this.corrente & (SLOTS - 1)];
+			this.voci[0] -= secchio.n;
+			n += this.svuota(secchio, scaduti);
+			n += this.svuota(this.pronti, scaduti);
+		}
+		return n;
+	}
+	// THROWS:		se scaduti = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		post(this.corrente) = max(pre(this.corrente), now / this.tick), rimuove da this ogni voce
+	//				<id, t> con t ≤ post(this.corrente) eseguendo scaduti.accept(id) (in ordine di scadenza tra tick
+	//				diversi) e restituisce il numero di voci rimosse; i tick in cui nessuna voce scade o viene
+	//				ridistribuita sono saltati
+	
+	
+	// inserisce una voce nel secchio che la contiene
+	private void inserisci(long id, long t) {
+		if(t <= this.corrente) {
+			this.pronti.add(id, t);
+			return;
+		}
+		for(int L = 0; L < LEVELS; L++) {
+			if((t >> (BITS * (L + 1))) == (this.corrente >> (BITS * (L + 1)))) {
+				this.livelli[L][(int)(t >> (BITS * L)) & (SLOTS - 1)].add(id, t);
+				this.voci[L]++;
+				return;
+			}
+		}
+		this.lontani.add(id, t);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge <id, t> al secchio previsto da RI (non modifica this.size)
+	
+	
+	// reinserisce le voci di un secchio del livello specificato (LEVELS per le voci oltre l'ultimo) rispetto al tick corrente
+	private void ridistribuisci(Secchio secchio, int livello) {
+		int n = secchio.n;
+		long[] ids = secchio.ids, ticks = secchio.ticks;
+		secchio.svuota();
+		if(livello < LEVELS) this.voci[livello] -= n;
+		for(int i=0; i<n; i++)
+			this.inserisci(ids[i], ticks[i]);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		sposta le voci di secchio nei secchi previsti da RI per il tick corrente
+	
+	
+	// restituisce al consumatore gli id di un secchio e lo svuota
+	private int svuota(Secchio secchio, LongConsumer scaduti) {
+		int n = secchio.n;
+		long[] ids = secchio.ids;
+		secchio.svuota();
+		this.size -= n;
+		for(int i=0; i<n; i++)
+			scaduti.accept(ids[i]);
+		return n;
+	}
+	// MODIFIES:	this
+	// EFFECTS:		rimuove le voci di secchio eseguendo scaduti.accept(id) per ognuna e ne restituisce il numero
+	
+	
+	// secchio di voci <id, tick di scadenza> non ordinate (array paralleli che crescono per raddoppio)
+	private static final class Secchio {
+		private static final int CAPACITA_INIZIALE = 8;
+		private long[] ids;
+		private long[] ticks;
+		private int n;
+		
+		private Secchio() {
+			this.ids = new long[0];
+			this.ticks = new long[0];
+			this.n = 0;
+		}
+		
+		private void add(long id, long t) {
+			if(this.n == this.ids.length) {
+				int capacita = Math.max(CAPACITA_INIZIALE, 2 * this.n);
+				this.ids = Arrays.copyOf(this.ids, capacita);
+				this.ticks = Arrays.copyOf(this.ticks, capacita);
+			}
+			this.ids[this.n] = id;
+			this.ticks[this.n] = t;
+			this.n++;
+		}
+		
+		// svuota il secchio rilasciando gli array (le voci restano leggibili dal chiamante negli array precedenti)
+		private void svuota() {
+			this.ids = new long[0];
+			this.ticks = new long[0];
+			this.n = 0;
+		}
+	}
+
+}
@@ -0,0 +1,652 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.Collections;
+import java.util.function.Consumer;
+import java.util.function.BiConsumer;
+
+
+public class TombstoneSocialNetwork extends ReportSocialNetwork implements AutoCloseable {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che rappresenta una ReportSocialNetwork thread-safe in cui deleteUser e deleteAllPost
+	non eseguono la rimozione a cascata sul thread chiamante: l'utente (o l'insieme dei suoi post) viene staccato dalle
+	tabelle in tempo costante e registrato come lapide (tombstone), e da quel momento non compare più in alcuna lettura.
+	Un thread dedicato (compattatore) esegue poi la pulizia fisica delle lapidi in ordine di eliminazione, a passi di
+	al più COMPACTION_BATCH operazioni elementari sotto il lock di this: rimozione dei like messi dall'utente eliminato,
+	degli archi utente-seguiti, dei post dagli indici e delle segnalazioni. Tra un passo e l'altro il lock viene
+	rilasciato, quindi la latenza delle altre operazioni non dipende dalla dimensione dell'account eliminato.
+	Finché una lapide non è compattata le letture filtrano i post sepolti ed i like degli utenti eliminati;
+	i conteggi di follower (influencers, autocomplete) e gli archi verso l'autore di post sepolti (whoToFollow)
+	convergono al termine della compattazione.
+	
+	ELEMENTO TIPICO:
+	<	rete sociale come in ReportSocialNetwork,
+		[lapide_1, ..., lapide_n]	>
+		dove una lapide è <username, utente eliminato?, {post sepolti}, pulizia rimanente>
+	
+	AF =	<	AF(ReportSocialNetwork) privata dei post p con this.sepolto(p),
+					dei like e delle segnalazioni degli utenti in this.utenti_morti,
+					degli archi <u, m> con m ∈ this.utenti_morti,
+				[this.coda]	>
+	
+	RI =  this.coda ≠ null && this.lapidi ≠ null && this.utenti_morti ≠ null
+		  &&  this.lapidi.values() contiene esattamente le lapidi in this.coda, raggruppate per username
+		  &&  this.utenti_morti = { l.username | l ∈ this.coda && l.utente }
+		  &&  (∀ m ∈ this.utenti_morti ==> m ∉ this.followers.keySet())
+		  &&  RI(ReportSocialNetwork) vale per AF(this) (lo stato fisico la rispetta dopo la compattazione di this.coda)
+**/
+	
+	// numero massimo di operazioni elementari (like, archi, post) eseguite dal compattatore per ogni acquisizione del lock
+	public static final int COMPACTION_BATCH = 256;
+	
+	// lapidi da compattare in ordine di eliminazione
+	private final ArrayDeque<Lapide> coda;
+	// lapidi da compattare di ogni utente
+	private final Map<String, List<Lapide>> lapidi;
+	// utenti eliminati le cui lapidi non sono ancora compattate
+	private final Set<String> utenti_morti;
+	// thread che compatta le lapidi
+	private final Thread compattatore;
+	// true dopo close(): le lapidi vengono compattate dal thread che elimina
+	private boolean chiusa;
+	
+	
+	// COSTRUTTORE: istanzia una rete sociale vuota ed avvia il compattatore
+	public TombstoneSocialNetwork() {
+		super();
+		this.coda = new ArrayDeque<Lapide>();
+		this.lapidi = new HashMap<String, List<Lapide>>();
+		this.utenti_morti = new HashSet<String>();
+		this.chiusa = false;
+		
+		this.compattatore = new Thread(this::compatta, "tombstone-compactor");
+		this.compattatore.setDaemon(true);
+		this.compattatore.start();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		inizializza la rete sociale vuota senza lapidi e avvia il thread che le compatta
+	
+	
+	/** [COMPATTAZIONE] ********************************************************************************************/
+	
+	// restituisce il numero di lapidi non ancora compattate
+	public synchronized int getPendingDeletions() {
+		return this.coda.size();
+	}
+	// EFFECTS:		restituisce this.coda.size()
+	
+	
+	// attende che tutte le lapidi siano compattate
+	public synchronized boolean awaitCompaction(long timeout) throws IllegalArgumentException, InterruptedException {
+		if(timeout < 0) throw new IllegalArgumentException();
+		long scadenza = System.currentTimeMillis() + timeout;
+		while(!this.coda.isEmpty()) {
+			long attesa = scadenza - System.currentTimeMillis();
+			if(attesa <= 0) break;
+			this.wait(attesa);
+		}
+		return this.coda.isEmpty();
+	}
+	// THROWS:		se timeout < 0 lancia IllegalArgumentException (unchecked)
+	//				se il thread viene interrotto durante l'attesa lancia InterruptedException (checked)
+	// EFFECTS:		attende al più timeout millisecondi che this.coda sia vuota e restituisce this.coda.isEmpty()
+	
+	
+	// compatta tutte le lapidi sul thread chiamante
+	public synchronized void compact() {
+		while(!this.coda.isEmpty())
+			this.passo(Integer.MAX_VALUE);
+	}
+	// MODIFIES:	this
+	// EFFECTS:		esegue la pulizia fisica di tutte le lapidi, post(this.coda) = []
+	
+	
+	// ferma il compattatore dopo aver compattato le lapidi rimaste
+	public void close() {
+		synchronized(this) {
+			this.chiusa = true;
+			this.compact();
+		}
+		this.compattatore.interrupt();
+	}
+	// MODIFIES:	this
+	// EFFECTS:		compatta le lapidi rimaste e ferma il compattatore, le eliminazioni successive
+	//				eseguono la pulizia fisica sul thread chiamante (come in ReportSocialNetwork)
+	
+	
+	// corpo del compattatore: un passo per ogni acquisizione del lock finché ci sono lapidi
+	private void compatta() {
+		while(true) {
+			synchronized(this) {
+				while(this.coda.isEmpty()) {
+					try {
+						this.wait();
+					}
+					catch(InterruptedException e) {
+						return;		// close(): le lapidi sono già state compattate
+					}
+				}
+				this.passo(COMPACTION_BATCH);
+			}
+			Thread.yield();		// tra un passo e l'altro il lock è conteso dalle altre operazioni
+		}
+	}
+	// MODIFIES:	this
+	// EFFECTS:		compatta le lapidi in this.coda a passi di COMPACTION_BATCH operazioni finché non viene interrotto
+	
+	
+	// registra una lapide da compattare
+	private void seppellisci(Lapide l) {
+		this.coda.add(l);
+		this.lapidi.computeIfAbsent(l.username, u -> new ArrayList<Lapide>(1)).add(l);
+		if(l.utente) this.utenti_morti.add(l.username);
+		
+		if(this.chiusa) this.compact();
+		else this.notifyAll();
+	}
+	// REQUIRES:	chiamato sotto il lock di this
+	// MODIFIES:	this
+	// EFFECTS:		aggiunge l a this.coda e a this.lapidi (e l.username a this.utenti_morti se l.utente)
+	//				e sveglia il compattatore (se chiuso compatta subito)
+	
+	
+	// esegue al più lavoro operazioni della pulizia della prima lapide e la rimuove se completata
+	private void passo(int lavoro) {
+		Lapide l = this.coda.peek();
+		this.pulisci(l, lavoro);
+		if(!l.completata()) return;
+		
+		this.coda.poll();
+		List<Lapide> dell_utente = this.lapidi.get(l.username);
+		dell_utente.remove(l);
+		if(dell_utente.isEmpty()) this.lapidi.remove(l.username);
+		if(l.utente) this.utenti_morti.remove(l.username);
+		this.notifyAll();
+	}
+	// REQUIRES:	chiamato sotto il lock di this, this.coda non vuota, lavoro > 0
+	// MODIFIES:	this
+	// EFFECTS:		esegue al più lavoro operazioni elementari della pulizia di l = this.coda.peek()
+	//				e, se la pulizia è completa, rimuove l da this.coda, this.lapidi e this.utenti_morti
+	
+	
+	// esegue al più lavoro operazioni elementari della pulizia di una lapide
+	private void pulisci(Lapide l, int lavoro) {
+		int fatto = 0;
+		
+		// 1. like messi dall'utente eliminato ai post degli utenti seguiti (post di un seguito alla volta in ordine di id
+		//    a partire dal cursore: gli insiemi dei post restano modificabili tra un passo e l'altro)
+		while(l.seguiti != null && fatto < lavoro) {
+			if(l.corrente != null) {
+				int richiesti = lavoro - fatto;
+				List<Post> blocco = this.tempi.after(l.corrente, l.cursore, richiesti);
+				for(Post p : blocco) {
+					if(p.hasLike(l.username) && !this.sepolto(p)) {
+						try {
+							p.removeLike(l.username);
+							this.onLikesChanged(p);
+						}
+						catch(AbsentLikeException | AuthorLikeException e) {}		// non vengono lanciate mai
+					}
+					l.cursore = p.getId();
+				}
+				fatto += blocco.size();
+				if(blocco.size() < richiesti) l.corrente = null;
+			}
+			else if(l.seguiti.hasNext()) {
+				l.corrente = l.seguiti.next();
+				l.cursore = -1;
+				this.utenti.addScore(l.corrente, -1);
+				fatto++;
+			}
+			else l.seguiti = null;
+		}
+		
+		// 2. post sepolti: archi dei follower verso l'autore (chi li segue ha messo like ad un suo post), segnalazioni, indici
+		while(l.sepolti.hasNext() && fatto < lavoro) {
+			Post p = l.sepolti.next();
+			for(String like : p.getLikes()) {
+				Set<String> seguiti = this.followers.get(like);
+				if(seguiti == null) continue;
+				if(l.utente) seguiti.remove(l.username);
+				else if(seguiti.contains(l.username) && !this.haLike(like, l.username)) {
+					seguiti.remove(l.username);
+					this.utenti.addScore(l.username, -1);
+				}
+			}
+			this.reports.remove(p);
+			this.unindexPost(p.getId());
+			this.onPostRemoved(p);
+			fatto += 1 + p.getLikesCount();
+		}
+		
+		// 3. segnalazioni fatte dall'utente eliminato (post in ordine di id a partire dal cursore: i post segnalati
+		//    sono tutti in this.index, che resta modificabile tra un passo e l'altro)
+		if(l.utente && fatto < lavoro) {
+			Iterator<Post> it = this.index.tailMap(l.segnalati, false).values().iterator();
+			while(it.hasNext() && fatto < lavoro) {
+				Post p = it.next();
+				Set<Report> segnalazioni = this.reports.get(p);
+				if(segnalazioni != null) {
+					segnalazioni.removeIf(r -> r.getUsername().equals(l.username));
+					if(segnalazioni.isEmpty()) this.reports.remove(p);
+				}
+				l.segnalati = p.getId();
+				fatto++;
+			}
+			if(!it.hasNext()) l.segnalati = Long.MAX_VALUE;
+		}
+	}
+	// REQUIRES:	chiamato sotto il lock di this, l ∈ this.coda, lavoro > 0
+	// MODIFIES:	this, l
+	// EFFECTS:		esegue in ordine al più lavoro operazioni elementari tra quelle rimanenti della pulizia di l:
+	//				1. (solo utente eliminato) rimuove i like di l.username dai post degli utenti che seguiva
+	//				   e ne decrementa il numero di follower;
+	//				2. per ogni post sepolto p rimuove l.username dai seguiti di chi ha messo like a p
+	//				   (per deleteAllPost solo se non ha messo like ad un post successivo dell'utente),
+	//				   rimuove le segnalazioni di p e rimuove p dagli indici;
+	//				3. (solo utente eliminato) rimuove le segnalazioni fatte da l.username
+	
+	
+	// restituisce true se liker ha messo like ad un post di autore presente nella rete sociale
+	private boolean haLike(String liker, String autore) {
+		Set<Post> post = this.post.get(autore);
+		if(post == null) return false;
+		for(Post p : post)
+			if(p.hasLike(liker)) return true;
+		return false;
+	}
+	// EFFECTS:		restituisce true se autore ∈ this.post.keySet() && (∃ p ∈ this.post.get(autore) : liker ∈ p.getLikes())
+	
+	
+	/** [LAPIDI] ***************************************************************************************************/
+	
+	// restituisce true se il post appartiene ad una lapide non ancora compattata
+	private boolean sepolto(Post p) {
+		List<Lapide> dell_autore = this.lapidi.get(p.getAutore());
+		if(dell_autore == null) return false;
+		for(Lapide l : dell_autore)
+			if(l.post.contains(p)) return true;
+		return false;
+	}
+	// EFFECTS:		restituisce true se (∃ l ∈ this.lapidi.get(p.getAutore()) : p ∈ l.post)
+	
+	// restituisce true se l'id è quello di un post sepolto ancora presente nell'indice
+	private boolean sepolto(long id) {
+		Post p = this.index.get(id);
+		return p != null && this.sepolto(p);
+	}
+	// EFFECTS:		restituisce true se id ∈ this.index.keySet() && this.sepolto(this.index.get(id))
+	
+	
+	// restituisce il post privato dei like degli utenti eliminati (una copia se ne ha, altrimenti p stesso)
+	private Post ripulito(Post p) {
+		if(this.utenti_morti.isEmpty()) return p;
+		Post copia = p;
+		for(String m : this.utenti_morti) {
+			if(!copia.hasLike(m)) continue;
+			if(copia == p) copia = (Post)p.clone();
+			try {
+				copia.removeLike(m);
+			}
+			catch(AbsentLikeException | AuthorLikeException e) {}		// non vengono lanciate mai
+		}
+		return copia;
+	}
+	// EFFECTS:		se (∃ m ∈ this.utenti_morti : m ∈ p.getLikes()) restituisce una DEEP-COPY di p senza i like
+	//				degli utenti in this.utenti_morti, altrimenti restituisce p
+	
+	
+	// restituisce le copie dei post non sepolti, private dei like degli utenti eliminati
+	private List<Post> vivi(List<Post> copie) {
+		if(this.coda.isEmpty()) return copie;
+		ArrayList<Post> lista = new ArrayList<Post>(copie.size());
+		for(Post p : copie)
+			if(!this.sepolto(p)) lista.add(this.ripulito(p));
+		return lista;
+	}
+	// REQUIRES:	copie ≠ null, null ∉ copie, copie contiene DEEP-COPY di post della rete sociale
+	// EFFECTS:		restituisce [this.ripulito(p) | p ∈ copie && !this.sepolto(p)] nello stesso ordine
+	
+	// restituisce la pagina con i soli post non sepolti, privati dei like degli utenti eliminati
+	private Page<Post> vivi(Page<Post> pagina) {
+		if(this.coda.isEmpty()) return pagina;
+		return new Page<Post>(this.vivi(pagina.getItems()), pagina.getNext());
+	}
+	// REQUIRES:	pagina ≠ null, pagina contiene DEEP-COPY di post della rete sociale
+	// EFFECTS:		restituisce la pagina con risultati this.vivi(pagina.getItems()) e lo stesso cursore
+	//				(una pagina può quindi contenere meno risultati del limite richiesto)
+	
+	
+	// restituisce gli utenti seguiti privati degli utenti eliminati (una copia se ne contiene, altrimenti seguiti stesso)
+	private Set<String> vivi(Set<String> seguiti) {
+		for(String m : this.utenti_morti) {
+			if(seguiti.contains(m)) {
+				HashSet<String> copia = new HashSet<String>(seguiti);
+				copia.removeAll(this.utenti_morti);
+				return copia;
+			}
+		}
+		return seguiti;
+	}
+	// EFFECTS:		restituisce seguiti \ this.utenti_morti
+	
+	
+	// rimuove dal post originale i like degli utenti eliminati (compattazione anticipata del solo post)
+	private void ripulisci(Post p) {
+		for(String m : this.utenti_morti) {
+			if(!p.hasLike(m)) continue;
+			try {
+				p.removeLike(m);
+				this.onLikesChanged(p);
+			}
+			catch(AbsentLikeException | AuthorLikeException e) {}		// non vengono lanciate mai
+		}
+	}
+	// MODIFIES:	p
+	// EFFECTS:		post(p.getLikes()) = pre(p.getLikes()) \ this.utenti_morti
+	
+	
+	// lancia l'eccezione di un'operazione dell'utente su un post sepolto
+	private void verificaSepolto(String username, long id) throws NullPointerException, IllegalUsernameException,
+	AbsentUsernameException, AbsentPostException {
+		if(!this.sepolto(id)) return;
+		SocialNetwork.checkUser(this.post, username);
+		throw new AbsentPostException();
+	}
+	// THROWS:		se this.sepolto(id) lancia le eccezioni di SocialNetwork.checkUser(this.post, username)
+	//				oppure AbsentPostException (checked)
+	// EFFECTS:		nessun effetto se !this.sepolto(id)
+	
+	// restituisce l'esito di un'operazione dell'utente su un post sepolto (null se il post non è sepolto)
+	private StatusCode esitoSepolto(String username, long id) {
+		if(!this.sepolto(id)) return null;
+		if(username == null) return StatusCode.NULL_POINTER;
+		if(!checkValidUsername(username)) return StatusCode.ILLEGAL_USERNAME;
+		if(!this.followers.containsKey(username)) return StatusCode.ABSENT_USERNAME;
+		return StatusCode.ABSENT_POST;
+	}
+	// EFFECTS:		restituisce l'esito di this.verificaSepolto(username, id), null se non lancia eccezioni
+	
+	
+	/** [ELIMINAZIONI DIFFERITE] ***********************************************************************************/
+	
+	// [MODIFICATORE] elimina l'utente dalla rete sociale in tempo costante, la pulizia è affidata al compattatore
+	public synchronized Set<Post> deleteUser(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		
+		if(username == null) throw new NullPointerException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
+		
+		// l'utente scompare dalle tabelle e dall'indice degli utenti, i suoi post restano negli indici come sepolti
+		Set<String> seguiti = this.followers.remove(username);
+		Set<Post> post = this.post.remove(username);
+		this.utenti.remove(username);
+		this.seppellisci(new Lapide(username, seguiti, post));
+		return Collections.unmodifiableSet(post);
+	}
+	// REQUIRES:	username ≠ null, checkValidUsername(username), this.followers.containsKey(username)
+	// THROWS:		come SocialNetwork.deleteUser(username)
+	// MODIFIES:	this
+	// EFFECTS:		post(this.followers.keySet()) = pre(this.followers.keySet()) \ {username},
+	//				post(this.post.keySet()) = pre(this.post.keySet()) \ {username}, username ∈ post(this.utenti_morti),
+	//				registra la lapide di username con i post pre(this.post.get(username)) e li restituisce
+	//				(insieme non modificabile): AF(this) è quella di SocialNetwork.deleteUser(username)
+	
+	
+	// [MODIFICATORE] elimina tutti i post dell'utente in tempo costante, la pulizia è affidata al compattatore
+	public synchronized Set<Post> deleteAllPost(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		
+		if(username == null) throw new NullPointerException();
+		if(!checkValidUsername(username)) throw new IllegalUsernameException();
+		if(!this.followers.containsKey(username)) throw new AbsentUsernameException();
+		
+		Set<Post> post = this.post.put(username, new HashSet<Post>());
+		if(!post.isEmpty()) this.seppellisci(new Lapide(username, null, post));
+		return Collections.unmodifiableSet(post);
+	}
+	// REQUIRES:	username ≠ null, checkValidUsername(username), this.followers.containsKey(username)
+	// THROWS:		come SocialNetwork.deleteAllPost(username)
+	// MODIFIES:	this
+	// EFFECTS:		post(this.post.get(username)) = {}, registra la lapide dei post pre(this.post.get(username))
+	//				e li restituisce (insieme non modificabile): AF(this) è quella di SocialNetwork.deleteAllPost(username)
+	//				a meno degli archi verso username, rimossi dal compattatore
+	
+	
+	/** [MODIFICATORI SINCRONIZZATI CON LE LAPIDI] *****************************************************************/
+	
+	public synchronized void createUser(String username) throws NullPointerException, IllegalUsernameException, DuplicateUsernameException {
+		if(this.utenti_morti.contains(username)) this.compact();
+		super.createUser(username);
+	}
+	
+	public synchronized StatusCode tryCreateUser(String username) {
+		if(this.utenti_morti.contains(username)) this.compact();
+		return super.tryCreateUser(username);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork; un utente eliminato può essere ricreato solo dopo
+	//				la compattazione, altrimenti i suoi like e i suoi archi si confonderebbero con quelli del nuovo utente
+	
+	public synchronized long createPost(String autore, String text)
+	throws NullPointerException, IllegalTextException, IllegalUsernameException, AbsentUsernameException {
+		return super.createPost(autore, text);
+	}
+	
+	protected synchronized void insertPost(Post p) throws NullPointerException, AbsentUsernameException, DuplicatePostException {
+		if(p != null && this.sepolto(p.getId())) this.compact();
+		super.insertPost(p);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork; un post sepolto può essere reinserito
+	//				solo dopo la compattazione (che lo rimuove dagli indici)
+	
+	public synchronized Post deletePost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(this.sepolto(id)) throw new AbsentPostException();
+		Post p = this.index.get(id);
+		if(p != null) this.ripulisci(p);
+		return super.deletePost(id);
+	}
+	
+	protected synchronized void modificaPost(long id, String text, long data_mod)
+	throws NullPointerException, IllegalArgumentException, IllegalTextException, AbsentPostException {
+		if(this.sepolto(id)) {
+			if(text == null) throw new NullPointerException();
+			throw new AbsentPostException();
+		}
+		super.modificaPost(id, text, data_mod);
+	}
+	
+	public synchronized void addLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, DuplicateLikeException {
+		this.verificaSepolto(username, id);
+		super.addLike(username, id);
+	}
+	
+	public synchronized void removeLike(String username, long id) throws NullPointerException, IllegalArgumentException,
+	IllegalUsernameException, AbsentUsernameException, AbsentPostException, AuthorLikeException, AbsentLikeException {
+		this.verificaSepolto(username, id);
+		super.removeLike(username, id);
+	}
+	
+	public synchronized void addReport(String username, long id, ReportType type) throws NullPointerException, IllegalArgumentException,
+	AbsentPostException, IllegalUsernameException, AbsentUsernameException, DuplicateReportException, AuthorReportException {
+		this.verificaSepolto(username, id);
+		super.addReport(username, id, type);
+	}
+	
+	public synchronized StatusCode tryAddLike(String username, long id) {
+		StatusCode esito = this.esitoSepolto(username, id);
+		return (esito != null) ? esito : super.tryAddLike(username, id);
+	}
+	
+	public synchronized StatusCode tryRemoveLike(String username, long id) {
+		StatusCode esito = this.esitoSepolto(username, id);
+		return (esito != null) ? esito : super.tryRemoveLike(username, id);
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this, un post sepolto è assente
+	//				(deletePost rimuove prima dal post i like degli utenti eliminati, che non hanno più seguiti)
+	
+	
+	/** [OSSERVATORI FILTRATI] *************************************************************************************/
+	
+	public synchronized Set<String> getMentionedUsers() {
+		return super.getMentionedUsers();
+	}
+	
+	public synchronized List<String> influencers() {
+		return super.influencers();
+	}
+	
+	public synchronized List<Post> writtenBy(String username) throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return this.vivi(super.writtenBy(username));
+	}
+	
+	public synchronized List<Post> containing(List<String> words) throws NullPointerException {
+		return this.vivi(super.containing(words));
+	}
+	
+	public synchronized Page<Post> writtenBy(String username, String cursor, int limit)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		return this.vivi(super.writtenBy(username, cursor, limit));
+	}
+	
+	public synchronized Page<Post> containing(List<String> words, String cursor, int limit) throws NullPointerException, IllegalArgumentException {
+		return this.vivi(super.containing(words, cursor, limit));
+	}
+	
+	public synchronized Page<String> getMentionedUsers(String cursor, int limit) throws IllegalArgumentException {
+		if(this.coda.isEmpty()) return super.getMentionedUsers(cursor, limit);
+		if(limit <= 0) throw new IllegalArgumentException();
+		String after = Page.afterKey(cursor);
+		
+		TreeSet<String> primi = new TreeSet<String>();
+		for(Post p : this.index.values()) {
+			if(this.sepolto(p)) continue;
+			for(String m : SocialNetwork.getMentionedUsers(p)) {
+				if(m.compareTo(after) > 0 && primi.add(m) && primi.size() > limit + 1)
+					primi.pollLast();
+			}
+		}
+		return Page.ofUsers(new ArrayList<String>(primi), limit);
+	}
+	
+	public synchronized Post getPost(long id) throws IllegalArgumentException, AbsentPostException {
+		if(this.sepolto(id)) throw new AbsentPostException();
+		return this.ripulito(super.getPost(id));
+	}
+	
+	public synchronized List<Post> postsBetween(long from, long to) {
+		return this.vivi(super.postsBetween(from, to));
+	}
+	
+	public synchronized List<Post> postsBetween(String username, long from, long to)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return this.vivi(super.postsBetween(username, from, to));
+	}
+	
+	public synchronized List<Post> modifiedSince(long t) {
+		return this.vivi(super.modifiedSince(t));
+	}
+	
+	public synchronized List<Post> modifiedSince(String username, long t)
+	throws NullPointerException, IllegalUsernameException, AbsentUsernameException {
+		return this.vivi(super.modifiedSince(username, t));
+	}
+	
+	public synchronized List<String> whoToFollow(String username, int k)
+	throws NullPointerException, IllegalArgumentException, IllegalUsernameException, AbsentUsernameException {
+		if(this.utenti_morti.isEmpty()) return super.whoToFollow(username, k);
+		ArrayList<String> consigliati = new ArrayList<String>(k);
+		for(String v : super.whoToFollow(username, k + this.utenti_morti.size())) {
+			if(consigliati.size() < k && !this.utenti_morti.contains(v)) consigliati.add(v);
+		}
+		return consigliati;
+	}
+	
+	public synchronized FollowerGraph followerGraph() {
+		if(this.utenti_morti.isEmpty()) return super.followerGraph();
+		HashMap<String, Set<String>> vivi = new HashMap<String, Set<String>>(2 * this.followers.size());
+		for(Map.Entry<String, Set<String>> e : this.followers.entrySet())
+			vivi.put(e.getKey(), this.vivi(e.getValue()));
+		return new FollowerGraph(vivi);
+	}
+	
+	protected synchronized void visitPosts(Consumer<Post> visitor) throws NullPointerException {
+		if(visitor == null) throw new NullPointerException();
+		super.visitPosts(p -> visitor.accept(this.ripulito(p)));
+	}
+	
+	protected synchronized void visitPosts(String username, Consumer<Post> visitor) throws NullPointerException, AbsentUsernameException {
+		if(visitor == null) throw new NullPointerException();
+		super.visitPosts(username, p -> visitor.accept(this.ripulito(p)));
+	}
+	
+	protected synchronized void visitUsers(int part, int parts, BiConsumer<String, Set<String>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		if(visitor == null) throw new NullPointerException();
+		super.visitUsers(part, parts, (u, seguiti) -> visitor.accept(u, this.vivi(seguiti)));
+	}
+	
+	protected synchronized void visitReports(int part, int parts, BiConsumer<Post, Set<Report>> visitor)
+	throws NullPointerException, IllegalArgumentException {
+		if(visitor == null) throw new NullPointerException();
+		super.visitReports(part, parts, (p, segnalazioni) -> {
+			if(this.sepolto(p)) return;
+			Set<Report> vive = segnalazioni;
+			for(Report r : segnalazioni) {
+				if(this.utenti_morti.contains(r.getUsername())) {
+					vive = new HashSet<Report>(segnalazioni);
+					vive.removeIf(s -> this.utenti_morti.contains(s.getUsername()));
+					break;
+				}
+			}
+			if(!vive.isEmpty()) visitor.accept(p, vive);
+		});
+	}
+	// EFFECTS:		come l'operazione omonima di ReportSocialNetwork sotto il lock di this, esclusi i post sepolti,
+	//				i like, le segnalazioni e gli archi degli utenti eliminati (i post con like di utenti eliminati sono
+	//				visitati come DEEP-COPY senza quei like); getMentionedUsers(), influencers() e le letture per
+	//				username non vedono i post sepolti perché sono già staccati da this.post
+	
+	
+	// lapide di un utente eliminato o dei post eliminati di un utente, con lo stato della pulizia
+	private static final class Lapide {
+		private final String username;
+		// true se è stato eliminato l'utente, false se solo i suoi post
+		private final boolean utente;
+		// post sepolti (staccati da this.post, non più modificati)
+		private final Set<Post> post;
+		private final Iterator<Post> sepolti;
+		// utenti che l'utente eliminato seguiva ancora da visitare (null se visitati tutti o solo post eliminati)
+		private Iterator<String> seguiti;
+		// seguito corrente (null se nessuno) e id dell'ultimo suo post visitato (-1 se nessuno)
+		private String corrente;
+		private long cursore;
+		// id dell'ultimo post visitato per le segnalazioni (-1 se la visita non è iniziata, Long.MAX_VALUE se terminata)
+		private long segnalati;
+		
+		private Lapide(String username, Set<String> seguiti, Set<Post> post) {
+			this.username = username;
+			this.utente = (seguiti != null);
+			this.post = post;
+			this.sepolti = post.iterator();
+			this.seguiti = (seguiti != null) ? seguiti.iterator() : null;
+			this.corrente = null;
+			this.cursore = -1;
+			this.segnalati = -1;
+		}
+		
+		// restituisce true se la pulizia è completa
+		private boolean completata() {
+			return this.seguiti == null && !this.sepolti.hasNext()
+				&& (!this.utente || this.segnalati == Long.MAX_VALUE);
+		}
+	}
+
+}
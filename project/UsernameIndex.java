@@ -0,0 +1,273 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+
+public class UsernameIndex {
+
+/**
+	OVERVIEW:
+	Tipo di dato modificabile che indicizza gli username della rete sociale (alfabeto [a-z0-9_], al più
+	SocialNetwork.MAX_LENGTH_USERNAME caratteri) in un trie compatto ad array, associando ad ogni username un
+	punteggio (il numero di follower). Ogni nodo conserva il punteggio massimo del proprio sottoalbero: i k
+	completamenti di un prefisso con punteggio più alto si ottengono con una visita best-first che espande
+	solo i sottoalberi che possono contenerli, in tempo indipendente dal numero di username con quel prefisso.
+	I nodi sono righe di array di int (37 figli per nodo), i nodi liberati sono riutilizzati.
+	Tutte le operazioni sono sincronizzate sull'indice.
+	
+	ELEMENTO TIPICO:	{ <user_0, f_0>, ..., <user_n-1, f_n-1> }
+	
+	AF =	{ <this.nomi[x], this.punteggio[x]> | 0 ≤ x < this.usati && this.nomi[x] ≠ null }
+	
+	RI =  il nodo 0 è la radice && this.figli[37 * x + c] = figlio di x per il carattere c (0 se assente)
+		  &&  this.nomi[x] ≠ null ⇔ il cammino dalla radice a x compone lo username this.nomi[x]
+		  &&  this.massimo[x] = max({this.punteggio[x] | this.nomi[x] ≠ null} U {this.massimo[y] | y figlio di x} U {-1})
+		  &&  ogni nodo diverso dalla radice ha un nome o almeno un figlio (nessun ramo morto)
+		  &&  i nodi liberi sono nella lista this.liberi (concatenata tramite this.padre)
+**/
+	
+	// dimensione dell'alfabeto degli username
+	private static final int ALFABETO = 37;
+	// punteggio di un sottoalbero senza username
+	private static final int VUOTO = -1;
+	
+	// figli di ogni nodo (ALFABETO posizioni per nodo)
+	private int[] figli;
+	// padre e carattere di arrivo di ogni nodo (per la risalita)
+	private int[] padre;
+	private byte[] carattere;
+	// username che termina nel nodo (null se nessuno) e suo punteggio
+	private String[] nomi;
+	private int[] punteggio;
+	// punteggio massimo nel sottoalbero del nodo
+	private int[] massimo;
+	// numero di nodi allocati, testa della lista dei nodi liberi (-1 se vuota), numero di username
+	private int usati;
+	private int liberi;
+	private int n;
+	
+	
+	// COSTRUTTORE: istanzia un indice vuoto
+	public UsernameIndex() {
+		int capacita = 64;
+		this.figli = new int[ALFABETO * capacita];
+		this.padre = new int[capacita];
+		this.carattere = new byte[capacita];
+		this.nomi = new String[capacita];
+		this.punteggio = new int[capacita];
+		this.massimo = new int[capacita];
+		this.massimo[0] = VUOTO;
+		this.usati = 1;
+		this.liberi = -1;
+		this.n = 0;
+	}
+	// EFFECTS:		inizializza this = {}
+	
+	
+	// aggiunge lo username con punteggio 0
+	public synchronized boolean add(String username) throws NullPointerException, IllegalArgumentException {
+		int x = 0;
+		for(int i = 0; i < username.length(); i++) {
+			int c = UsernameIndex.codice(username.charAt(i));
+			if(c < 0) throw new IllegalArgumentException();
+			int y = this.figli[ALFABETO * x + c];
+			if(y == 0) {
+				y = this.nodo(x, c);
+				this.figli[ALFABETO * x + c] = y;
+			}
+			x = y;
+		}
+		if(this.nomi[x] != null) return false;
+		this.nomi[x] = username;
+		this.punteggio[x] = 0;
+		this.n++;
+		this.aggiorna(x);
+		return true;
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	//				se username contiene caratteri esterni a [a-z0-9_] lancia IllegalArgumentException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		se username ∉ this aggiunge <username, 0> e restituisce true, altrimenti restituisce false
+	
+	// rimuove lo username
+	public synchronized boolean remove(String username) throws NullPointerException {
+		int x = this.find(username);
+		if(x < 0 || this.nomi[x] == null) return false;
+		this.nomi[x] = null;
+		this.n--;
+		
+		// libera i nodi rimasti senza username e senza figli risalendo verso la radice
+		while(x != 0 && this.foglia(x)) {
+			int p = this.padre[x];
+			this.figli[ALFABETO * p + this.carattere[x]] = 0;
+			this.padre[x] = this.liberi;
+			this.liberi = x;
+			x = p;
+		}
+		this.aggiorna(x);
+		return true;
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		se <username, f> ∈ this lo rimuove e restituisce true, altrimenti restituisce false
+	
+	// somma delta al punteggio dello username
+	public synchronized void addScore(String username, int delta) throws NullPointerException {
+		int x = this.find(username);
+		if(x < 0 || this.nomi[x] == null) return;
+		this.punteggio[x] += delta;
+		this.aggiorna(x);
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	// MODIFIES:	this
+	// EFFECTS:		se <username, f> ∈ this lo sostituisce con <username, f + delta>, altrimenti non fa nulla
+	
+	// restituisce il punteggio dello username
+	public synchronized int getScore(String username) throws NullPointerException {
+		int x = this.find(username);
+		return (x < 0 || this.nomi[x] == null) ? VUOTO : this.punteggio[x];
+	}
+	// THROWS:		se username = null lancia NullPointerException (unchecked)
+	// EFFECTS:		restituisce f se <username, f> ∈ this, altrimenti -1
+	
+	// restituisce il numero di username
+	public synchronized int size() {
+		return this.n;
+	}
+	// EFFECTS:		restituisce #this
+	
+	
+	// restituisce i k username con il prefisso specificato e punteggio più alto
+	public synchronized List<String> complete(String prefix, int k) throws NullPointerException, IllegalArgumentException {
+		if(k < 0) throw new IllegalArgumentException();
+		ArrayList<String> lista = new ArrayList<String>();
+		int radice = this.find(prefix);
+		if(radice < 0 || k == 0 || this.massimo[radice] == VUOTO) return lista;
+		
+		// visita best-first: un nodo esce dalla coda prima dei nodi del suo sottoalbero (punteggio ≤, cammino ≥),
+		// uno username esce quando nessun sottoalbero in coda può contenerne uno migliore
+		PriorityQueue<Voce> coda = new PriorityQueue<Voce>();
+		coda.add(new Voce(radice, this.massimo[radice], prefix, false));
+		while(!coda.isEmpty() && lista.size() < k) {
+			Voce v = coda.poll();
+			if(v.nome) {
+				lista.add(v.cammino);
+				continue;
+			}
+			if(this.nomi[v.nodo] != null)
+				coda.add(new Voce(v.nodo, this.punteggio[v.nodo], v.cammino, true));
+			for(int c = 0; c < ALFABETO; c++) {
+				int y = this.figli[ALFABETO * v.nodo + c];
+				if(y != 0) coda.add(new Voce(y, this.massimo[y], v.cammino + UsernameIndex.simbolo(c), false));
+			}
+		}
+		return lista;
+	}
+	// THROWS:		se prefix = null lancia NullPointerException (unchecked)
+	//				se k < 0 lancia IllegalArgumentException (unchecked)
+	// EFFECTS:		restituisce i min(k, #{u ∈ this | u inizia con prefix}) username che iniziano con prefix
+	//				in ordine decrescente di punteggio (a parità di punteggio in ordine lessicografico)
+	
+	
+	// elemento della coda della visita best-first: sottoalbero di un nodo o username che termina nel nodo
+	private static class Voce implements Comparable<Voce> {
+		private final int nodo;
+		private final int valore;
+		private final String cammino;
+		private final boolean nome;
+		
+		private Voce(int nodo, int valore, String cammino, boolean nome) {
+			this.nodo = nodo;
+			this.valore = valore;
+			this.cammino = cammino;
+			this.nome = nome;
+		}
+		
+		// punteggio decrescente, poi cammino crescente, lo username prima del sottoalbero dello stesso nodo
+		public int compareTo(Voce v) {
+			if(this.valore != v.valore) return Integer.compare(v.valore, this.valore);
+			int c = this.cammino.compareTo(v.cammino);
+			if(c != 0) return c;
+			return Boolean.compare(v.nome, this.nome);
+		}
+	}
+	
+	
+	// restituisce il nodo in cui termina il cammino della stringa (-1 se assente)
+	private int find(String s) throws NullPointerException {
+		int x = 0;
+		for(int i = 0; i < s.length() && x >= 0; i++) {
+			int c = UsernameIndex.codice(s.charAt(i));
+			x = (c < 0) ? -1 : this.figli[ALFABETO * x + c];
+			if(x == 0) x = -1;
+		}
+		return x;
+	}
+	
+	// ricalcola il massimo del nodo e dei suoi antenati finché cambia (al più MAX_LENGTH_USERNAME livelli)
+	private void aggiorna(int x) {
+		while(true) {
+			int m = (this.nomi[x] != null) ? this.punteggio[x] : VUOTO;
+			for(int c = 0; c < ALFABETO; c++) {
+				int y = this.figli[ALFABETO * x + c];
+				if(y != 0 && this.massimo[y] > m) m = this.massimo[y];
+			}
+			if(m == this.massimo[x]) return;
+			this.massimo[x] = m;
+			if(x == 0) return;
+			x = this.padre[x];
+		}
+	}
+	
+	// true se il nodo non ha username né figli
+	private boolean foglia(int x) {
+		if(this.nomi[x] != null) return false;
+		for(int c = 0; c < ALFABETO; c++)
+			if(this.figli[ALFABETO * x + c] != 0) return false;
+		return true;
+	}
+	
+	// alloca un nodo vuoto figlio di p per il carattere c
+	private int nodo(int p, int c) {
+		int x;
+		if(this.liberi >= 0) {
+			x = this.liberi;
+			this.liberi = this.padre[x];
+		}
+		else {
+			if(this.usati == this.nomi.length) this.resize();
+			x = this.usati++;
+		}
+		Arrays.fill(this.figli, ALFABETO * x, ALFABETO * (x + 1), 0);
+		this.padre[x] = p;
+		this.carattere[x] = (byte)c;
+		this.nomi[x] = null;
+		this.massimo[x] = VUOTO;
+		return x;
+	}
+	
+	// raddoppia la capacità degli array dei nodi
+	private void resize() {
+		int capacita = 2 * this.nomi.length;
+		this.figli = Arrays.copyOf(this.figli, ALFABETO * capacita);
+		this.padre = Arrays.copyOf(this.padre, capacita);
+		this.carattere = Arrays.copyOf(this.carattere, capacita);
+		this.nomi = Arrays.copyOf(this.nomi, capacita);
+		this.punteggio = Arrays.copyOf(this.punteggio, capacita);
+		this.massimo = Arrays.copyOf(this.massimo, capacita);
+	}
+	
+	// codice del carattere nell'alfabeto degli username (-1 se non ammesso)
+	private static int codice(char ch) {
+		if(ch >= 'a' && ch <= 'z') return ch - 'a';
+		if(ch >= '0' && ch <= '9') return 26 + ch - '0';
+		if(ch == '_') return 36;
+		return -1;
+	}
+	
+	private static char simbolo(int c) {
+		return (c < 26) ? (char)('a' + c) : (c < 36) ? (char)('0' + c - 26) : '_';
+	}
+
+}